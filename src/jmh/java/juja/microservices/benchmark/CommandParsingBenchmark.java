@@ -0,0 +1,164 @@
+package juja.microservices.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import juja.microservices.gamification.slackbot.model.DTO.UserDTO;
+import juja.microservices.gamification.slackbot.model.SlackParsedCommand;
+import juja.microservices.gamification.slackbot.model.achievements.CodenjoyAchievement;
+import juja.microservices.gamification.slackbot.model.achievements.DailyAchievement;
+import juja.microservices.gamification.slackbot.model.achievements.InterviewAchievement;
+import juja.microservices.gamification.slackbot.model.achievements.ThanksAchievement;
+import juja.microservices.gamification.slackbot.service.UserService;
+import juja.microservices.gamification.slackbot.service.impl.SlackNameHandlerService;
+import juja.microservices.gamification.slackbot.tracing.Tracer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of command parsing and achievement construction, without the remote services.
+ * <p>
+ * {@code textLength} 0 is the shortest valid command of each kind, like "thanks @slack1 for help". Longer texts
+ * are padded with report lines which mention {@code mentions} different users in turn, so a daily report of
+ * 10000 chars has about a hundred mentions. The users service stub answers with the users of the text, like
+ * a warm users cache does. Run with {@code -prof gc} (the default of the gradle jmh task) to get allocated
+ * bytes per op next to the throughput.
+ * <p>
+ * The bot logs at INFO level by default. The bot's logback-spring.xml logs its own classes at DEBUG level;
+ * run with {@code -p logLevel=DEBUG} to measure that, the debug messages then go to the console.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommandParsingBenchmark {
+
+    private static final String FROM = "@from-user";
+
+    @Param({"0", "2000", "10000"})
+    public int textLength;
+
+    @Param({"10"})
+    public int mentions;
+
+    @Param({"INFO"})
+    public String logLevel;
+
+    private SlackNameHandlerService slackNameHandlerService;
+    private String dailyText;
+    private SlackParsedCommand daily;
+    private SlackParsedCommand thanks;
+    private SlackParsedCommand codenjoy;
+    private SlackParsedCommand interview;
+    private String[] codenjoyTokens = new String[]{"-1th", "-2th", "-3th"};
+
+    @Setup
+    public void setup() {
+        ((Logger) LoggerFactory.getLogger("juja.microservices")).setLevel(Level.valueOf(logLevel));
+
+        Map<String, UserDTO> users = new HashMap<>();
+        users.put(FROM, new UserDTO("uuid-from", FROM));
+        for (int i = 0; i < mentions; i++) {
+            users.put(slackName(i), new UserDTO("uuid" + i, slackName(i)));
+        }
+        List<UserDTO> allUsers = new ArrayList<>(users.values());
+        slackNameHandlerService = new SlackNameHandlerService(new UserService() {
+            @Override
+            public List<UserDTO> findUsersBySlackNames(List<String> slackNames) {
+                return allUsers;
+            }
+
+            @Override
+            public CompletableFuture<List<UserDTO>> findUsersBySlackNamesAsync(List<String> slackNames) {
+                return CompletableFuture.completedFuture(allUsers);
+            }
+        }, Tracer.disabled());
+
+        dailyText = pad("daily: reviewed the pull request of " + slackName(0) + "\n", true);
+        daily = new SlackParsedCommand(FROM, dailyText, users);
+        thanks = new SlackParsedCommand(FROM, pad("thanks " + slackName(1) + " for help\n", false), users);
+        codenjoy = new SlackParsedCommand(FROM, pad("-1th " + slackName(1) + " -2th " + slackName(2) +
+                " -3th " + slackName(3) + "\n", true), users);
+        interview = new SlackParsedCommand(FROM, pad("interview with the team lead went well\n", false), users);
+    }
+
+    @Benchmark
+    public SlackParsedCommand createSlackParsedCommand() {
+        return slackNameHandlerService.createSlackParsedCommand(FROM, dailyText);
+    }
+
+    @Benchmark
+    public Map<String, UserDTO> getUsersWithTokens() {
+        return codenjoy.getUsersWithTokens(codenjoyTokens);
+    }
+
+    @Benchmark
+    public List<UserDTO> getAllUsers() {
+        return daily.getAllUsers();
+    }
+
+    @Benchmark
+    public UserDTO getFirstUser() {
+        return thanks.getFirstUser();
+    }
+
+    @Benchmark
+    public DailyAchievement dailyAchievement() {
+        return new DailyAchievement(daily);
+    }
+
+    @Benchmark
+    public ThanksAchievement thanksAchievement() {
+        return new ThanksAchievement(thanks);
+    }
+
+    @Benchmark
+    public CodenjoyAchievement codenjoyAchievement() {
+        return new CodenjoyAchievement(codenjoy);
+    }
+
+    @Benchmark
+    public InterviewAchievement interviewAchievement() {
+        return new InterviewAchievement(interview);
+    }
+
+    /**
+     * Appends report lines up to textLength, the lines mention users only if withMentions is set,
+     * as thanks and interview commands can't contain more slack names
+     */
+    private String pad(String command, boolean withMentions) {
+        StringBuilder text = new StringBuilder(command);
+        int line = 0;
+        while (text.length() < textLength) {
+            text.append("- fixed tests and updated docs for the codenjoy module");
+            if (withMentions) {
+                text.append(", reviewed by ").append(slackName(line % mentions));
+            }
+            text.append(", task #").append(line).append(" is done.\n");
+            line++;
+        }
+        return text.toString();
+    }
+
+    private static String slackName(int index) {
+        return "@slack" + index;
+    }
+}
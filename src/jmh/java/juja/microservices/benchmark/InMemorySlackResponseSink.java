@@ -0,0 +1,63 @@
+package juja.microservices.benchmark;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory stand-in for slack response_url. A RestTemplate with this request factory serializes delayed
+ * responses as usual, but they complete the future registered for their url instead of going to the network.
+ */
+public class InMemorySlackResponseSink implements ClientHttpRequestFactory {
+
+    private static final String BASE_URL = "http://slack.local/sink/";
+    private static final byte[] OK = "ok".getBytes(StandardCharsets.UTF_8);
+
+    private final AtomicLong idGenerator = new AtomicLong();
+    private final Map<String, CompletableFuture<String>> pendingResponses = new ConcurrentHashMap<>();
+
+    /**
+     * @return new unique response_url
+     */
+    public String nextResponseUrl() {
+        return BASE_URL + idGenerator.incrementAndGet();
+    }
+
+    /**
+     * @return future which is completed when a delayed response is posted to the responseUrl
+     */
+    public CompletableFuture<String> expectResponse(String responseUrl) {
+        CompletableFuture<String> response = new CompletableFuture<>();
+        pendingResponses.put(responseUrl, response);
+        return response;
+    }
+
+    public void forget(String responseUrl) {
+        pendingResponses.remove(responseUrl);
+    }
+
+    @Override
+    public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) {
+        return new MockClientHttpRequest(httpMethod, uri) {
+            @Override
+            protected ClientHttpResponse executeInternal() {
+                CompletableFuture<String> response = pendingResponses.remove(uri.toString());
+                if (response != null) {
+                    response.complete(getBodyAsString(StandardCharsets.UTF_8));
+                }
+                return new MockClientHttpResponse(OK, HttpStatus.OK);
+            }
+        };
+    }
+}
@@ -0,0 +1,105 @@
+package juja.microservices.benchmark;
+
+import juja.microservices.gamification.slackbot.model.DTO.UserDTO;
+import juja.microservices.gamification.slackbot.model.SlackNames;
+import juja.microservices.gamification.slackbot.model.SlackParsedCommand;
+import juja.microservices.gamification.slackbot.util.SlackNameScanner;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compares slack name parsing of a command: {@code regexTwice} is the former way, the text is scanned by
+ * a pattern compiled on every call once for the users request and once more for the parsed command,
+ * {@code scanOnce} scans the text once by {@link SlackNameScanner} and passes the names to the parsed command.
+ * {@code textLength} 0 is a short thanks command, the others are daily reports of about that length.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SlackNameScanBenchmark {
+
+    private static final String SLACK_NAME_PATTERN = "@([a-zA-z0-9\\.\\_\\-]){1,21}";
+    private static final String FROM = "@from-user";
+
+    @Param({"0", "2000", "10000"})
+    public int textLength;
+
+    private String text;
+    private Map<String, UserDTO> users;
+
+    @Setup
+    public void setup() {
+        if (textLength == 0) {
+            text = "thanks @slack1 for help";
+        } else {
+            StringBuilder daily = new StringBuilder();
+            int line = 0;
+            while (daily.length() < textLength) {
+                daily.append("- reviewed pull request #").append(line).append(" of @slack").append(line % 5)
+                        .append(", fixed tests and updated docs for the codenjoy module, e-mail sent to team.\n");
+                line++;
+            }
+            text = daily.toString();
+        }
+        users = new HashMap<>();
+        users.put(FROM, new UserDTO("uuid-from", FROM));
+        for (int i = 0; i < 5; i++) {
+            users.put("@slack" + i, new UserDTO("uuid" + i, "@slack" + i));
+        }
+    }
+
+    @Benchmark
+    public SlackParsedCommand regexTwice() {
+        List<String> slackNames = receiveAllSlackNamesByPattern(text);
+        slackNames.add(FROM);
+        List<String> namesInText = receiveAllSlackNamesByPattern(text);
+        return new SlackParsedCommand(FROM, text, toSlackNames(namesInText), users);
+    }
+
+    @Benchmark
+    public SlackParsedCommand scanOnce() {
+        SlackNames namesInText = SlackNameScanner.scan(text);
+        List<String> slackNames = new ArrayList<>(namesInText.getNames());
+        slackNames.add(FROM);
+        return new SlackParsedCommand(FROM, text, namesInText, users);
+    }
+
+    private List<String> receiveAllSlackNamesByPattern(String text) {
+        List<String> result = new ArrayList<>();
+        Pattern pattern = Pattern.compile(SLACK_NAME_PATTERN);
+        Matcher matcher = pattern.matcher(text);
+        while (matcher.find()) {
+            result.add(matcher.group().trim());
+        }
+        return result;
+    }
+
+    /**
+     * The former parsed command kept the names only, offsets are not used by the compared code
+     */
+    private SlackNames toSlackNames(List<String> names) {
+        SlackNames slackNames = new SlackNames();
+        names.forEach(name -> slackNames.add(name, 0));
+        return slackNames;
+    }
+}
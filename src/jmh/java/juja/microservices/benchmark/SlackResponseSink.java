@@ -0,0 +1,91 @@
+package juja.microservices.benchmark;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local stand-in for slack response_url. Every delayed response is accepted and completes the future
+ * registered for its url.
+ */
+public class SlackResponseSink implements AutoCloseable {
+
+    private static final String PATH = "/sink/";
+    private static final byte[] OK = "ok".getBytes(StandardCharsets.UTF_8);
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final AtomicLong idGenerator = new AtomicLong();
+    private final Map<String, CompletableFuture<String>> pendingResponses = new ConcurrentHashMap<>();
+
+    public SlackResponseSink(int threads) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        executor = Executors.newFixedThreadPool(threads);
+        server.setExecutor(executor);
+        server.createContext(PATH, exchange -> {
+            String body;
+            try (InputStream in = exchange.getRequestBody()) {
+                body = readFully(in);
+            }
+            exchange.sendResponseHeaders(200, OK.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(OK);
+            }
+            CompletableFuture<String> response = pendingResponses.remove(exchange.getRequestURI().getPath());
+            if (response != null) {
+                response.complete(body);
+            }
+        });
+        server.start();
+    }
+
+    /**
+     * @return new unique response_url
+     */
+    public String nextResponseUrl() {
+        return baseUrl() + idGenerator.incrementAndGet();
+    }
+
+    /**
+     * @return future which is completed when a delayed response is posted to the responseUrl
+     */
+    public CompletableFuture<String> expectResponse(String responseUrl) {
+        CompletableFuture<String> response = new CompletableFuture<>();
+        pendingResponses.put(responseUrl.substring(responseUrl.indexOf(PATH)), response);
+        return response;
+    }
+
+    public void forget(String responseUrl) {
+        pendingResponses.remove(responseUrl.substring(responseUrl.indexOf(PATH)));
+    }
+
+    private String baseUrl() {
+        return "http://localhost:" + server.getAddress().getPort() + PATH;
+    }
+
+    private static String readFully(InputStream in) throws IOException {
+        StringBuilder result = new StringBuilder();
+        byte[] buffer = new byte[1024];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            result.append(new String(buffer, 0, read, StandardCharsets.UTF_8));
+        }
+        return result.toString();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
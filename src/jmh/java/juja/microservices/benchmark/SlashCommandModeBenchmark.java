@@ -0,0 +1,219 @@
+package juja.microservices.benchmark;
+
+import juja.microservices.gamification.slackbot.GamificationSlackBotApplication;
+import juja.microservices.gamification.slackbot.command.SlackCommand;
+import juja.microservices.gamification.slackbot.service.GamificationService;
+import org.apache.http.NameValuePair;
+import org.apache.http.client.entity.UrlEncodedFormEntity;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.message.BasicNameValuePair;
+import org.apache.http.util.EntityUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the blocking and the servlet async controller modes on a small connector thread pool.
+ * <p>
+ * The bot runs in embedded tomcat with a stub {@link GamificationService}, delayed responses go to
+ * a local {@link SlackResponseSink}. {@code instantResponse} measures the time until slack gets the
+ * instant response, {@code commandResult} measures the time until the user sees the command result,
+ * either in the instant response or in the delayed one. Run with {@code -p nonBlockingIo=true} to measure
+ * the non-blocking command variants, their stub completes the result on a timer instead of sleeping.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(64)
+@Fork(1)
+public class SlashCommandModeBenchmark {
+
+    private static final String INSTANT_MESSAGE = "Your command accepted. Please wait...";
+    private static final String TOKEN = "slashCommandToken";
+
+    @Param({"blocking", "async"})
+    public String mode;
+
+    @Param({"8"})
+    public int connectorThreads;
+
+    @Param({"50", "3000"})
+    public long serviceLatencyMillis;
+
+    @Param({"false"})
+    public boolean nonBlockingIo;
+
+    private ConfigurableApplicationContext context;
+    private SlackResponseSink responseSink;
+    private CloseableHttpClient httpClient;
+    private String dailyUrl;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        responseSink = new SlackResponseSink(16);
+        context = new SpringApplicationBuilder(GamificationSlackBotApplication.class, StubConfiguration.class)
+                .properties("server.port=0",
+                        "server.tomcat.max-threads=" + connectorThreads,
+                        "gamification.slackbot.controller.mode=" + mode,
+                        "gamification.slackbot.io.nonBlocking=" + nonBlockingIo,
+                        "benchmark.serviceLatencyMillis=" + serviceLatencyMillis,
+                        "logging.level.juja.microservices=WARN")
+                .run();
+        Environment environment = context.getEnvironment();
+        dailyUrl = "http://localhost:" + environment.getProperty("local.server.port") +
+                environment.getProperty("gamification.slackbot.endpoint.daily");
+        httpClient = HttpClients.custom().setMaxConnTotal(512).setMaxConnPerRoute(512).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        httpClient.close();
+        context.close();
+        responseSink.close();
+    }
+
+    @Benchmark
+    public String instantResponse() throws IOException {
+        return sendCommand(responseSink.nextResponseUrl());
+    }
+
+    @Benchmark
+    public String commandResult() throws Exception {
+        String responseUrl = responseSink.nextResponseUrl();
+        CompletableFuture<String> delayedResponse = responseSink.expectResponse(responseUrl);
+        String instantResponse = sendCommand(responseUrl);
+        if (!INSTANT_MESSAGE.equals(instantResponse)) {
+            responseSink.forget(responseUrl);
+            return instantResponse;
+        }
+        return delayedResponse.get(1, TimeUnit.MINUTES);
+    }
+
+    private String sendCommand(String responseUrl) throws IOException {
+        List<NameValuePair> form = Arrays.asList(
+                new BasicNameValuePair("token", TOKEN),
+                new BasicNameValuePair("user_name", "@from-user"),
+                new BasicNameValuePair("command", "/daily"),
+                new BasicNameValuePair("text", "I did a lot of work yesterday"),
+                new BasicNameValuePair("response_url", responseUrl));
+        HttpPost request = new HttpPost(dailyUrl);
+        request.setEntity(new UrlEncodedFormEntity(form, StandardCharsets.UTF_8));
+        try (CloseableHttpResponse response = httpClient.execute(request)) {
+            return EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Configuration
+    public static class StubConfiguration {
+
+        @Bean(destroyMethod = "shutdownNow")
+        public ScheduledExecutorService stubLatencyTimer() {
+            return Executors.newSingleThreadScheduledExecutor();
+        }
+
+        @Bean
+        @Primary
+        public GamificationService stubGamificationService(Environment environment,
+                                                           ScheduledExecutorService stubLatencyTimer) {
+            long latency = environment.getProperty("benchmark.serviceLatencyMillis", Long.class);
+            return new GamificationService() {
+                @Override
+                public String sendDailyAchievement(String fromUser, String text) {
+                    return respond("Thanks, your daily report saved.");
+                }
+
+                @Override
+                public String sendCodenjoyAchievement(String fromUser, String text) {
+                    return respond("Thanks, we awarded the users.");
+                }
+
+                @Override
+                public String sendThanksAchievement(String fromUser, String text) {
+                    return respond("Thanks, your 'thanks' saved.");
+                }
+
+                @Override
+                public String sendInterviewAchievement(String fromUser, String text) {
+                    return respond("Thanks. Your interview saved.");
+                }
+
+                @Override
+                public CompletableFuture<String> sendDailyAchievementAsync(String fromUser, String text) {
+                    return respondLater("Thanks, your daily report saved.");
+                }
+
+                @Override
+                public CompletableFuture<String> sendCodenjoyAchievementAsync(String fromUser, String text) {
+                    return respondLater("Thanks, we awarded the users.");
+                }
+
+                @Override
+                public CompletableFuture<String> sendThanksAchievementAsync(String fromUser, String text) {
+                    return respondLater("Thanks, your 'thanks' saved.");
+                }
+
+                @Override
+                public CompletableFuture<String> sendInterviewAchievementAsync(String fromUser, String text) {
+                    return respondLater("Thanks. Your interview saved.");
+                }
+
+                @Override
+                public <A> String sendAchievement(SlackCommand<A> command, String fromUser, String text) {
+                    return respond("Thanks, your " + command.getType() + " saved.");
+                }
+
+                @Override
+                public <A> CompletableFuture<String> sendAchievementAsync(SlackCommand<A> command, String fromUser,
+                                                                         String text) {
+                    return respondLater("Thanks, your " + command.getType() + " saved.");
+                }
+
+                private CompletableFuture<String> respondLater(String response) {
+                    CompletableFuture<String> result = new CompletableFuture<>();
+                    stubLatencyTimer.schedule(() -> result.complete(response), latency, TimeUnit.MILLISECONDS);
+                    return result;
+                }
+
+                private String respond(String response) {
+                    try {
+                        Thread.sleep(latency);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return response;
+                }
+            };
+        }
+    }
+}
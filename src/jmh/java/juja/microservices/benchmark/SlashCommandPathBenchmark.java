@@ -0,0 +1,240 @@
+package juja.microservices.benchmark;
+
+import juja.microservices.gamification.slackbot.GamificationSlackBotApplication;
+import juja.microservices.gamification.slackbot.dao.GamificationRepository;
+import juja.microservices.gamification.slackbot.dao.UserRepository;
+import juja.microservices.gamification.slackbot.model.DTO.UserDTO;
+import juja.microservices.gamification.slackbot.model.achievements.AchievementBatch;
+import juja.microservices.gamification.slackbot.model.achievements.CodenjoyAchievement;
+import juja.microservices.gamification.slackbot.model.achievements.DailyAchievement;
+import juja.microservices.gamification.slackbot.model.achievements.InterviewAchievement;
+import juja.microservices.gamification.slackbot.model.achievements.ThanksAchievement;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Cost of the whole slash command path in process: Spring MVC, the controller, the command pipeline, parsing,
+ * the services and Jackson serialization of the slack response, without the network.
+ * <p>
+ * Commands are sent to the blocking controller by MockMvc. The users and the gamification repositories are
+ * in-memory stand-ins which know every slack name, delayed responses go to an {@link InMemorySlackResponseSink}.
+ * {@code instantResponse} measures the time until slack gets the instant response, {@code commandResult}
+ * measures the time until the delayed response with the command result is posted. Run with {@code -prof gc}
+ * (the default of the gradle jmh task) to get allocated bytes per command, the allocations of the executor
+ * threads which process the command are counted too.
+ * <p>
+ * The cost of logging per command is the difference to a run with {@code -p logLevel=OFF}. Compare
+ * {@code -p logLevel=OFF,INFO,DEBUG} and {@code -p loggingProfile=default,async-logging}, the logs of the bot go to
+ * the console and to logs/application.log as in production.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SlashCommandPathBenchmark {
+
+    private static final String INSTANT_MESSAGE = "Your command accepted. Please wait...";
+    private static final String TOKEN = "slashCommandToken";
+
+    @Param({"daily", "thanks", "codenjoy", "interview"})
+    public String command;
+
+    @Param({"INFO"})
+    public String logLevel;
+
+    @Param({"default"})
+    public String loggingProfile;
+
+    private ConfigurableApplicationContext context;
+    private InMemorySlackResponseSink responseSink;
+    private MockMvc mvc;
+    private String commandUrl;
+    private String text;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        responseSink = new InMemorySlackResponseSink();
+        context = new SpringApplicationBuilder(GamificationSlackBotApplication.class, InMemoryConfiguration.class)
+                .profiles(loggingProfile)
+                .properties("server.port=-1",
+                        "logging.level.juja.microservices=" + logLevel)
+                .run();
+        context.getBean(RestTemplate.class).setRequestFactory(responseSink);
+        mvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context).build();
+
+        Environment environment = context.getEnvironment();
+        commandUrl = environment.getProperty("gamification.slackbot.endpoint." + command);
+        switch (command) {
+            case "daily":
+                text = "I did a lot of work yesterday, reviewed the pull requests of @slack1 and @slack2";
+                break;
+            case "thanks":
+                text = "thanks @slack1 for help with the codenjoy module";
+                break;
+            case "codenjoy":
+                text = "-1th @slack1 -2th @slack2 -3th @slack3";
+                break;
+            default:
+                text = "interview with the team lead went well";
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public String instantResponse() throws Exception {
+        return sendCommand(responseSink.nextResponseUrl());
+    }
+
+    @Benchmark
+    public String commandResult() throws Exception {
+        String responseUrl = responseSink.nextResponseUrl();
+        CompletableFuture<String> delayedResponse = responseSink.expectResponse(responseUrl);
+        String instantResponse = sendCommand(responseUrl);
+        if (!INSTANT_MESSAGE.equals(instantResponse)) {
+            responseSink.forget(responseUrl);
+            return instantResponse;
+        }
+        return delayedResponse.get(1, TimeUnit.MINUTES);
+    }
+
+    private String sendCommand(String responseUrl) throws Exception {
+        return mvc.perform(post(commandUrl)
+                .contentType(MediaType.APPLICATION_FORM_URLENCODED)
+                .param("token", TOKEN)
+                .param("user_name", "@from-user")
+                .param("command", "/" + command)
+                .param("text", text)
+                .param("response_url", responseUrl))
+                .andReturn().getResponse().getContentAsString();
+    }
+
+    @Configuration
+    public static class InMemoryConfiguration {
+
+        @Bean
+        @Primary
+        public UserRepository inMemoryUserRepository() {
+            return new UserRepository() {
+                @Override
+                public List<UserDTO> findUsersBySlackNames(List<String> slackNames) {
+                    List<UserDTO> users = new ArrayList<>();
+                    for (String slackName : slackNames) {
+                        users.add(new UserDTO("uuid-" + slackName.substring(1), slackName));
+                    }
+                    return users;
+                }
+
+                @Override
+                public CompletableFuture<List<UserDTO>> findUsersBySlackNamesAsync(List<String> slackNames) {
+                    return CompletableFuture.completedFuture(findUsersBySlackNames(slackNames));
+                }
+            };
+        }
+
+        @Bean
+        @Primary
+        public GamificationRepository inMemoryGamificationRepository() {
+            AtomicLong idGenerator = new AtomicLong();
+            return new GamificationRepository() {
+                @Override
+                public String[] saveDailyAchievement(DailyAchievement daily) {
+                    return ids(1);
+                }
+
+                @Override
+                public String[] saveCodenjoyAchievement(CodenjoyAchievement codenjoy) {
+                    return ids(3);
+                }
+
+                @Override
+                public String[] saveThanksAchievement(ThanksAchievement thanks) {
+                    return ids(1);
+                }
+
+                @Override
+                public String[] saveInterviewAchievement(InterviewAchievement interview) {
+                    return ids(1);
+                }
+
+                @Override
+                public CompletableFuture<String[]> saveDailyAchievementAsync(DailyAchievement daily) {
+                    return CompletableFuture.completedFuture(saveDailyAchievement(daily));
+                }
+
+                @Override
+                public CompletableFuture<String[]> saveCodenjoyAchievementAsync(CodenjoyAchievement codenjoy) {
+                    return CompletableFuture.completedFuture(saveCodenjoyAchievement(codenjoy));
+                }
+
+                @Override
+                public CompletableFuture<String[]> saveThanksAchievementAsync(ThanksAchievement thanks) {
+                    return CompletableFuture.completedFuture(saveThanksAchievement(thanks));
+                }
+
+                @Override
+                public CompletableFuture<String[]> saveInterviewAchievementAsync(InterviewAchievement interview) {
+                    return CompletableFuture.completedFuture(saveInterviewAchievement(interview));
+                }
+
+                @Override
+                public String[][] saveAchievementBatch(AchievementBatch batch) {
+                    String[][] result = new String[batch.getAchievements().size()][];
+                    for (int i = 0; i < result.length; i++) {
+                        String type = batch.getAchievements().get(i).getType();
+                        result[i] = ids(AchievementBatch.CODENJOY.equals(type) ? 3 : 1);
+                    }
+                    return result;
+                }
+
+                @Override
+                public CompletableFuture<String[][]> saveAchievementBatchAsync(AchievementBatch batch) {
+                    return CompletableFuture.completedFuture(saveAchievementBatch(batch));
+                }
+
+                private String[] ids(int count) {
+                    String[] ids = new String[count];
+                    for (int i = 0; i < count; i++) {
+                        ids[i] = Long.toString(idGenerator.incrementAndGet());
+                    }
+                    return ids;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package juja.microservices.loadtest;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Response time of a stand-in service, in ms:
+ * <ul>
+ * <li>{@code constant:20} or {@code 20} - always 20 ms</li>
+ * <li>{@code uniform:5:50} - uniform between 5 and 50 ms</li>
+ * <li>{@code exponential:20} - exponential with mean 20 ms</li>
+ * <li>{@code lognormal:20:200} - lognormal with median 20 ms and p99 200 ms, a long tail like real services</li>
+ * </ul>
+ */
+public abstract class LatencyDistribution {
+
+    private static final double Z_99 = 2.326;
+
+    private final String spec;
+
+    private LatencyDistribution(String spec) {
+        this.spec = spec;
+    }
+
+    public static LatencyDistribution parse(String spec) {
+        String[] parts = spec.trim().split(":");
+        try {
+            switch (parts[0]) {
+                case "constant":
+                    return constant(spec, Double.parseDouble(parts[1]));
+                case "uniform":
+                    return uniform(spec, Double.parseDouble(parts[1]), Double.parseDouble(parts[2]));
+                case "exponential":
+                    return exponential(spec, Double.parseDouble(parts[1]));
+                case "lognormal":
+                    return lognormal(spec, Double.parseDouble(parts[1]), Double.parseDouble(parts[2]));
+                default:
+                    return constant(spec, Double.parseDouble(parts[0]));
+            }
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException ex) {
+            throw new IllegalArgumentException("Wrong latency distribution '" + spec + "'", ex);
+        }
+    }
+
+    /**
+     * @return next response time in nanoseconds
+     */
+    public long nextNanos(Random random) {
+        return (long) (Math.max(0, nextMillis(random)) * TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    protected abstract double nextMillis(Random random);
+
+    @Override
+    public String toString() {
+        return spec;
+    }
+
+    private static LatencyDistribution constant(String spec, double millis) {
+        return new LatencyDistribution(spec) {
+            @Override
+            protected double nextMillis(Random random) {
+                return millis;
+            }
+        };
+    }
+
+    private static LatencyDistribution uniform(String spec, double min, double max) {
+        return new LatencyDistribution(spec) {
+            @Override
+            protected double nextMillis(Random random) {
+                return min + random.nextDouble() * (max - min);
+            }
+        };
+    }
+
+    private static LatencyDistribution exponential(String spec, double mean) {
+        return new LatencyDistribution(spec) {
+            @Override
+            protected double nextMillis(Random random) {
+                return -mean * Math.log(1 - random.nextDouble());
+            }
+        };
+    }
+
+    private static LatencyDistribution lognormal(String spec, double median, double p99) {
+        if (median <= 0 || p99 < median) {
+            throw new IllegalArgumentException("Lognormal latency needs 0 < median <= p99: '" + spec + "'");
+        }
+        double mu = Math.log(median);
+        double sigma = Math.log(p99 / median) / Z_99;
+        return new LatencyDistribution(spec) {
+            @Override
+            protected double nextMillis(Random random) {
+                return Math.exp(mu + sigma * random.nextGaussian());
+            }
+        };
+    }
+}
@@ -0,0 +1,57 @@
+package juja.microservices.loadtest;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects latencies of one kind and reports their percentiles. Every latency is kept, a load run of an hour at
+ * a few hundred commands per second needs a few MB.
+ */
+public class LatencyRecorder {
+
+    private final String name;
+    private long[] nanos = new long[1024];
+    private int count;
+
+    public LatencyRecorder(String name) {
+        this.name = name;
+    }
+
+    public synchronized void record(long latencyNanos) {
+        if (count == nanos.length) {
+            nanos = Arrays.copyOf(nanos, count * 2);
+        }
+        nanos[count++] = latencyNanos;
+    }
+
+    public synchronized int getCount() {
+        return count;
+    }
+
+    /**
+     * @param quantile between 0 and 1
+     * @return latency in ms at the quantile by nearest rank, 0 if nothing was recorded
+     */
+    public synchronized double percentile(double quantile) {
+        if (count == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(nanos, count);
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(quantile * count);
+        return toMillis(sorted[Math.min(Math.max(rank, 1), count) - 1]);
+    }
+
+    public String report() {
+        return String.format("%-16s %8d %10.1f %10.1f %10.1f %10.1f", name, getCount(), percentile(0.5),
+                percentile(0.99), percentile(0.999), percentile(1));
+    }
+
+    public static String reportHeader() {
+        return String.format("%-16s %8s %10s %10s %10s %10s", "ms", "count", "p50", "p99", "p999", "max");
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
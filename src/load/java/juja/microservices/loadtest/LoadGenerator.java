@@ -0,0 +1,255 @@
+package juja.microservices.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.http.HttpResponse;
+import org.apache.http.NameValuePair;
+import org.apache.http.client.entity.UrlEncodedFormEntity;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.message.BasicNameValuePair;
+import org.apache.http.util.EntityUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop load generator: fires form-encoded slash commands at the bot at the given rate, whether or not the
+ * bot keeps up, like slack does.
+ * <p>
+ * Commands are sent at planned times, every latency is measured from the planned time, not from the moment the
+ * request actually left, so a stalled bot or a full connection pool shows up in the latencies instead of slowing
+ * down the load. The ack latency ends with the instant response, the result latency ends when the delayed
+ * response with the command result arrives at the slack stand-in. Commands planned during the warmup are sent
+ * but not recorded.
+ */
+public class LoadGenerator {
+
+    static final String INSTANT_MESSAGE = "Your command accepted. Please wait...";
+    static final String BUSY_MESSAGE = "Sorry! We are too busy right now. Please try again in a minute.";
+    private static final String RESULT_PREFIX = "Thanks";
+    private static final String SINK_PATH = "/sink/";
+    private static final int USERS = 100;
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Map<Long, Command> pending = new ConcurrentHashMap<>();
+    private final Random random = new Random();
+    private final CloseableHttpAsyncClient client;
+    private final List<String> commandMix;
+    private final String token;
+    private String botUrl;
+    private Map<String, String> endpoints;
+    private String sinkUrl;
+
+    private final LatencyRecorder ackLatency = new LatencyRecorder("instant ack");
+    private final LatencyRecorder resultLatency = new LatencyRecorder("delayed result");
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder busy = new LongAdder();
+    private final LongAdder ackFailed = new LongAdder();
+    private final LongAdder resultInAck = new LongAdder();
+    private final LongAdder resultFailed = new LongAdder();
+
+    /**
+     * @param commandMix command names to send at random, a name listed twice is sent twice as often
+     */
+    public LoadGenerator(List<String> commandMix, String token, int maxConnections) {
+        this.commandMix = commandMix;
+        this.token = token;
+        client = HttpAsyncClients.custom()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnections)
+                .build();
+    }
+
+    /**
+     * @return stand-in responder for the slack response_url of every command
+     */
+    public StandInServer.Responder slackResponder() {
+        return (path, body) -> {
+            onDelayedResponse(path, body);
+            return "ok";
+        };
+    }
+
+    /**
+     * @param endpoints command name -> bot endpoint path, like daily -> /v1/commands/daily
+     */
+    public void setBot(String botUrl, Map<String, String> endpoints) {
+        this.botUrl = botUrl;
+        this.endpoints = endpoints;
+    }
+
+    /**
+     * @param sinkUrl url of the slack stand-in, response_url of every command points to it
+     */
+    public void setSinkUrl(String sinkUrl) {
+        this.sinkUrl = sinkUrl;
+    }
+
+    /**
+     * Sends commands for warmup + duration and waits up to resultTimeout for the delayed responses
+     *
+     * @param rate     commands per second
+     * @param poisson  true for random arrivals with the given mean rate, false for evenly spaced commands
+     */
+    public void run(double rate, long warmup, long duration, long resultTimeout, TimeUnit unit, boolean poisson)
+            throws InterruptedException {
+        client.start();
+        double meanInterval = TimeUnit.SECONDS.toNanos(1) / rate;
+        long start = System.nanoTime();
+        long measureFrom = start + unit.toNanos(warmup);
+        long end = measureFrom + unit.toNanos(duration);
+        long planned = start;
+        long id = 0;
+        logger.info("Sending {} commands/s for {} {} after {} {} of warmup", rate, duration, unit, warmup, unit);
+        while (planned < end) {
+            long wait;
+            while ((wait = planned - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            send(++id, planned, planned >= measureFrom);
+            planned += poisson ? (long) (-meanInterval * Math.log(1 - random.nextDouble())) : (long) meanInterval;
+        }
+
+        long deadline = System.nanoTime() + unit.toNanos(resultTimeout);
+        while (!pending.isEmpty() && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(50);
+        }
+    }
+
+    public void close() throws IOException {
+        client.close();
+    }
+
+    public String report() {
+        long missing = pending.values().stream().filter(command -> command.measured).count();
+        return String.format("commands sent %d, busy %d, ack failed %d, result in ack %d, " +
+                        "failed results %d, missing results %d%n%s%n%s%n%s",
+                sent.sum(), busy.sum(), ackFailed.sum(), resultInAck.sum(), resultFailed.sum(), missing,
+                LatencyRecorder.reportHeader(), ackLatency.report(), resultLatency.report());
+    }
+
+    private void send(long id, long planned, boolean measured) {
+        String commandName = commandMix.get(random.nextInt(commandMix.size()));
+        Command command = new Command(planned, measured);
+        pending.put(id, command);
+        if (measured) {
+            sent.increment();
+        }
+
+        List<NameValuePair> form = new ArrayList<>();
+        form.add(new BasicNameValuePair("token", token));
+        form.add(new BasicNameValuePair("user_name", "@load-user" + id % USERS));
+        form.add(new BasicNameValuePair("command", "/" + commandName));
+        form.add(new BasicNameValuePair("text", commandText(commandName, id)));
+        form.add(new BasicNameValuePair("response_url", sinkUrl + SINK_PATH + id));
+        form.add(new BasicNameValuePair("trigger_id", "load-" + id));
+        HttpPost post = new HttpPost(botUrl + endpoints.get(commandName));
+        post.setEntity(new UrlEncodedFormEntity(form, StandardCharsets.UTF_8));
+
+        client.execute(post, new FutureCallback<HttpResponse>() {
+            @Override
+            public void completed(HttpResponse response) {
+                long latency = System.nanoTime() - planned;
+                String body;
+                try {
+                    body = EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8);
+                } catch (IOException ex) {
+                    failed(ex);
+                    return;
+                }
+                if (response.getStatusLine().getStatusCode() == 200 && INSTANT_MESSAGE.equals(body)) {
+                    if (measured) {
+                        ackLatency.record(latency);
+                    }
+                    return;
+                }
+                pending.remove(id);
+                if (!measured) {
+                    return;
+                }
+                if (BUSY_MESSAGE.equals(body)) {
+                    busy.increment();
+                } else if (response.getStatusLine().getStatusCode() == 200) {
+                    // async controller returns a result which is ready in time as the instant response
+                    resultInAck.increment();
+                    ackLatency.record(latency);
+                    recordResult(body, latency);
+                } else {
+                    ackFailed.increment();
+                }
+            }
+
+            @Override
+            public void failed(Exception ex) {
+                pending.remove(id);
+                if (measured) {
+                    ackFailed.increment();
+                    logger.debug("Command {} failed: {}", id, ex.toString());
+                }
+            }
+
+            @Override
+            public void cancelled() {
+                failed(new IllegalStateException("cancelled"));
+            }
+        });
+    }
+
+    private void onDelayedResponse(String path, byte[] body) throws IOException {
+        long arrived = System.nanoTime();
+        if (!path.startsWith(SINK_PATH)) {
+            return;
+        }
+        Command command = pending.remove(Long.parseLong(path.substring(SINK_PATH.length())));
+        if (command != null && command.measured) {
+            JsonNode text = mapper.readTree(body).get("text");
+            recordResult(text == null ? "" : text.asText(), arrived - command.planned);
+        }
+    }
+
+    private void recordResult(String text, long latency) {
+        if (text.startsWith(RESULT_PREFIX)) {
+            resultLatency.record(latency);
+        } else {
+            resultFailed.increment();
+        }
+    }
+
+    private static String commandText(String commandName, long id) {
+        String mention = "@slack" + id % USERS;
+        switch (commandName) {
+            case "thanks":
+                return "thanks " + mention + " for help with task #" + id;
+            case "codenjoy":
+                return "-1th " + mention + " -2th @slack" + (id + 1) % USERS + " -3th @slack" + (id + 2) % USERS;
+            case "interview":
+                return "interview #" + id + " with the team lead went well";
+            default:
+                return "I did task #" + id + " yesterday and reviewed the pull request of " + mention;
+        }
+    }
+
+    private static class Command {
+        private final long planned;
+        private final boolean measured;
+
+        private Command(long planned, boolean measured) {
+            this.planned = planned;
+            this.measured = measured;
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package juja.microservices.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import juja.microservices.gamification.slackbot.GamificationSlackBotApplication;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Environment;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Load test of the bot on one box without network: stand-ins for the users service, the gamification service
+ * and slack response_url, the bot itself and an open-loop {@link LoadGenerator}.
+ * <p>
+ * Run with {@code ./gradlew loadTest -Pload.args="--load.rate=200 --load.duration=60"}. Options:
+ * <ul>
+ * <li>{@code load.rate} (50) commands per second, {@code load.arrivals} (poisson) or constant</li>
+ * <li>{@code load.warmup} (10) and {@code load.duration} (60) in seconds, {@code load.resultTimeout} (30)
+ * seconds to wait for delayed responses after the last command</li>
+ * <li>{@code load.commands} (daily,thanks,codenjoy,interview) command mix, repeat a name to send it more often</li>
+ * <li>{@code load.connections} (1000) max connections to the bot</li>
+ * <li>{@code load.users.*}, {@code load.gamification.*}, {@code load.slack.*}: {@code latency} as a
+ * {@link LatencyDistribution}, {@code errorRate} (0) share of failed requests, {@code errorStatus} (500),
+ * {@code port} (0, any free port)</li>
+ * <li>{@code load.bot.url} url of a bot started separately, it must use the stand-in urls printed at start.
+ * By default the bot is started in this jvm on a free port</li>
+ * </ul>
+ * Other {@code --name=value} arguments are passed to the bot started in this jvm, like
+ * {@code --gamification.slackbot.io.nonBlocking=true}.
+ */
+public class LoadRig {
+
+    private static final String PREFIX = "--load.";
+    private static final String[] COMMANDS = {"daily", "thanks", "codenjoy", "interview"};
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadRig.class);
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        List<String> botArgs = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith(PREFIX) && arg.contains("=")) {
+                options.put(arg.substring(PREFIX.length(), arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            } else {
+                botArgs.add(arg);
+            }
+        }
+
+        StandInServer users = standIn("users", options, "lognormal:5:50", StandInServer.JSON,
+                LoadRig::findUsers);
+        StandInServer gamification = standIn("gamification", options, "lognormal:10:100",
+                StandInServer.JSON, new GamificationResponder());
+        String token = options.getOrDefault("slashCommandToken", "slashCommandToken");
+        LoadGenerator generator = new LoadGenerator(
+                Arrays.asList(options.getOrDefault("commands", String.join(",", COMMANDS)).split(",")), token,
+                Integer.parseInt(options.getOrDefault("connections", "1000")));
+        StandInServer slack = standIn("slack", options, "lognormal:20:200", StandInServer.TEXT,
+                generator.slackResponder());
+        generator.setSinkUrl(slack.getUrl());
+        users.start();
+        gamification.start();
+        slack.start();
+
+        ConfigurableApplicationContext bot = null;
+        try {
+            Map<String, String> endpoints = new LinkedHashMap<>();
+            for (String command : COMMANDS) {
+                endpoints.put(command, "/v1/commands/" + command);
+            }
+            if (options.get("bot.url") == null) {
+                bot = startBot(botArgs, users, gamification, slack, token);
+                Environment environment = bot.getEnvironment();
+                for (String command : COMMANDS) {
+                    endpoints.put(command, environment.getProperty("gamification.slackbot.endpoint." + command));
+                }
+                generator.setBot("http://127.0.0.1:" + environment.getProperty("local.server.port"), endpoints);
+            } else {
+                generator.setBot(options.get("bot.url"), endpoints);
+            }
+            generator.run(Double.parseDouble(options.getOrDefault("rate", "50")),
+                    Long.parseLong(options.getOrDefault("warmup", "10")),
+                    Long.parseLong(options.getOrDefault("duration", "60")),
+                    Long.parseLong(options.getOrDefault("resultTimeout", "30")), TimeUnit.SECONDS,
+                    !"constant".equals(options.get("arrivals")));
+
+            System.out.println(generator.report());
+            for (StandInServer standIn : Arrays.asList(users, gamification, slack)) {
+                System.out.printf("%s stand-in: %d requests, %d injected errors%n", standIn.getName(),
+                        standIn.getRequestCount(), standIn.getErrorCount());
+            }
+        } finally {
+            generator.close();
+            if (bot != null) {
+                bot.close();
+            }
+            users.stop();
+            gamification.stop();
+            slack.stop();
+        }
+    }
+
+    private static StandInServer standIn(String name, Map<String, String> options, String defaultLatency,
+                                         String contentType, StandInServer.Responder responder)
+            throws Exception {
+        return new StandInServer(name,
+                Integer.parseInt(options.getOrDefault(name + ".port", "0")),
+                LatencyDistribution.parse(options.getOrDefault(name + ".latency", defaultLatency)),
+                Double.parseDouble(options.getOrDefault(name + ".errorRate", "0")),
+                Integer.parseInt(options.getOrDefault(name + ".errorStatus", "500")),
+                contentType, responder);
+    }
+
+    private static ConfigurableApplicationContext startBot(List<String> botArgs, StandInServer users,
+                                                           StandInServer gamification, StandInServer slack,
+                                                           String token) {
+        logger.info("Starting the bot with users at {}, gamification at {}, slack at {}", users.getUrl(),
+                gamification.getUrl(), slack.getUrl());
+        // command line arguments override application.properties, arguments given to the rig go last and win
+        List<String> args = new ArrayList<>(Arrays.asList("--server.port=0",
+                "--server.address=127.0.0.1",
+                "--slack.slashCommandToken=" + token,
+                "--users.baseURL=" + users.getUrl(),
+                "--gamification.baseURL=" + gamification.getUrl(),
+                "--gamification.slackbot.http.slack.url=" + slack.getUrl()));
+        args.addAll(botArgs);
+        return new SpringApplicationBuilder(GamificationSlackBotApplication.class)
+                .run(args.toArray(new String[args.size()]));
+    }
+
+    /**
+     * Users stand-in knows every slack name
+     */
+    private static String findUsers(String path, byte[] body) throws IOException {
+        StringBuilder users = new StringBuilder("[");
+        for (JsonNode slackName : mapper.readTree(body).get("slackNames")) {
+            if (users.length() > 1) {
+                users.append(',');
+            }
+            String name = slackName.asText();
+            users.append("{\"uuid\":\"uuid-").append(name.substring(1)).append("\",\"slack\":\"")
+                    .append(name).append("\"}");
+        }
+        return users.append(']').toString();
+    }
+
+    /**
+     * Gamification stand-in saves every achievement, codenjoy awards three users
+     */
+    private static class GamificationResponder implements StandInServer.Responder {
+        private final AtomicLong idGenerator = new AtomicLong();
+
+        @Override
+        public String respond(String path, byte[] body) throws IOException {
+            String type = path.substring(path.lastIndexOf('/') + 1);
+            if (!"batch".equals(type)) {
+                return ids(type);
+            }
+            StringBuilder result = new StringBuilder("[");
+            for (JsonNode entry : mapper.readTree(body).get("achievements")) {
+                if (result.length() > 1) {
+                    result.append(',');
+                }
+                result.append(ids(entry.get("type").asText()));
+            }
+            return result.append(']').toString();
+        }
+
+        private String ids(String type) {
+            int count = "codenjoy".equals(type) ? 3 : 1;
+            StringBuilder ids = new StringBuilder("[");
+            for (int i = 0; i < count; i++) {
+                if (i > 0) {
+                    ids.append(',');
+                }
+                ids.append('"').append(idGenerator.incrementAndGet()).append('"');
+            }
+            return ids.append(']').toString();
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package juja.microservices.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Embedded http stand-in for a remote service, listening on the loopback interface only.
+ * <p>
+ * Every request is answered after a response time drawn from the latency distribution, counted from the moment
+ * the request is read. A share of errorRate requests is answered with errorStatus and an ApiError body instead of
+ * the responder's answer.
+ */
+public class StandInServer {
+
+    public static final String JSON = "application/json;charset=UTF-8";
+    public static final String TEXT = "text/plain;charset=UTF-8";
+
+    private static final String ERROR_BODY = "{\"httpStatus\":%d,\"internalErrorCode\":\"LOAD-E1\"," +
+            "\"clientMessage\":\"Error injected by the load rig\",\"developerMessage\":\"%s stand-in error\"," +
+            "\"exceptionMessage\":\"injected\",\"detailErrors\":[]}";
+
+    static {
+        // the jdk server writes headers and body apart, with Nagle's algorithm the body waits for a delayed ack
+        // of the client and every request on a kept-alive connection takes 40 ms more
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+    private final String name;
+    private final LatencyDistribution latency;
+    private final double errorRate;
+    private final int errorStatus;
+    private final String contentType;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final LongAdder requestCount = new LongAdder();
+    private final LongAdder errorCount = new LongAdder();
+
+    /**
+     * @param port        port to listen on, 0 for any free port
+     * @param contentType content type of the responder's answers, errors are always json
+     */
+    public StandInServer(String name, int port, LatencyDistribution latency, double errorRate, int errorStatus,
+                         String contentType, Responder responder) throws IOException {
+        this.name = name;
+        this.latency = latency;
+        this.errorRate = errorRate;
+        this.errorStatus = errorStatus;
+        this.contentType = contentType;
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 1024);
+        executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, name + "-stand-in");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/", exchange -> handle(exchange, responder));
+    }
+
+    public void start() {
+        server.start();
+        logger.info("{} stand-in listens on {}, latency {} ms, error rate {}", name, getUrl(), latency, errorRate);
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    public String getUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getRequestCount() {
+        return requestCount.sum();
+    }
+
+    public long getErrorCount() {
+        return errorCount.sum();
+    }
+
+    private void handle(HttpExchange exchange, Responder responder) throws IOException {
+        long started = System.nanoTime();
+        requestCount.increment();
+        try {
+            byte[] request = readBody(exchange.getRequestBody());
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long delay = latency.nextNanos(random) - (System.nanoTime() - started);
+            if (delay > 0) {
+                TimeUnit.NANOSECONDS.sleep(delay);
+            }
+            if (errorRate > 0 && random.nextDouble() < errorRate) {
+                errorCount.increment();
+                send(exchange, errorStatus, JSON, String.format(ERROR_BODY, errorStatus, name));
+            } else {
+                send(exchange, 200, contentType, responder.respond(exchange.getRequestURI().getPath(), request));
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (Exception ex) {
+            logger.warn("{} stand-in failed to answer {}: {}", name, exchange.getRequestURI(), ex.toString());
+            send(exchange, 500, JSON, String.format(ERROR_BODY, 500, name));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, String body)
+            throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static byte[] readBody(InputStream in) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            body.write(buffer, 0, read);
+        }
+        return body.toByteArray();
+    }
+
+    /**
+     * Answer of a stand-in to a successful request
+     */
+    public interface Responder {
+        String respond(String path, byte[] body) throws IOException;
+    }
+}
@@ -1,18 +1,12 @@
 package juja.microservices.gamification.slackbot;
 
-import org.apache.http.impl.client.HttpClients;
+import juja.microservices.gamification.slackbot.concurrent.BoundedExecutor;
+import juja.microservices.gamification.slackbot.concurrent.ThreadPoolBoundedExecutor;
+import juja.microservices.gamification.slackbot.concurrent.VirtualThreadBoundedExecutor;
 import org.springframework.boot.SpringApplication;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
-import org.springframework.http.client.ClientHttpRequestFactory;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
-import org.springframework.http.converter.HttpMessageConverter;
-import org.springframework.http.converter.StringHttpMessageConverter;
-import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
-import org.springframework.web.client.RestTemplate;
-
-import java.util.ArrayList;
-import java.util.List;
 
 /**
  * @author Danil Kuznetsov
@@ -25,21 +19,18 @@ public class GamificationSlackBotApplication {
         SpringApplication.run(GamificationSlackBotApplication.class);
     }
 
-    @Bean
-    public RestTemplate restTemplate() {
-        RestTemplate restTemplate = new RestTemplate(httpRequestFactory());
-        restTemplate.setMessageConverters(getHttpMessageConverters());
-        return restTemplate;
-    }
-
-    private ClientHttpRequestFactory httpRequestFactory() {
-        return new HttpComponentsClientHttpRequestFactory(HttpClients.createDefault());
-    }
-
-    private List<HttpMessageConverter<?>> getHttpMessageConverters() {
-        List<HttpMessageConverter<?>> converters = new ArrayList<>();
-        converters.add(new MappingJackson2HttpMessageConverter());
-        converters.add(new StringHttpMessageConverter());
-        return converters;
+    @Bean(destroyMethod = "shutdown")
+    public BoundedExecutor commandExecutor(@Value("${gamification.slackbot.executor.type}") String type,
+                                           @Value("${gamification.slackbot.executor.corePoolSize}") int corePoolSize,
+                                           @Value("${gamification.slackbot.executor.maxPoolSize}") int maxPoolSize,
+                                           @Value("${gamification.slackbot.executor.queueCapacity}") int queueCapacity,
+                                           @Value("${gamification.slackbot.executor.maxConcurrentCommands}")
+                                                   int maxConcurrentCommands,
+                                           @Value("${gamification.slackbot.executor.commandTimeout}")
+                                                   long commandTimeout) {
+        if ("virtual".equals(type)) {
+            return new VirtualThreadBoundedExecutor("command", maxConcurrentCommands, commandTimeout);
+        }
+        return new ThreadPoolBoundedExecutor("command", corePoolSize, maxPoolSize, queueCapacity);
     }
 }
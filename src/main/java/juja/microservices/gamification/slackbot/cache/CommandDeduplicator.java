@@ -0,0 +1,203 @@
+package juja.microservices.gamification.slackbot.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.inject.Inject;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Idempotency stage in front of the gamification service.
+ * <p>
+ * Remembers the commands of the last window ms by the slack trigger_id and by a hash of the command name, user
+ * and text. A command with a known trigger_id or with a retry header is a redelivery of a command which is
+ * already answered to the same response_url, so it is only acknowledged. A command with the same content is
+ * a duplicate submission and is answered with the result of the first one. Failed commands are forgotten, so
+ * they can be repeated. Window 0 disables deduplication.
+ */
+@Component
+public class CommandDeduplicator {
+
+    private static final String TRIGGER_KEY_PREFIX = "trigger:";
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+    private final Cache<String, CompletableFuture<String>> commands;
+    private final boolean enabled;
+    private final LongAdder firstCount = new LongAdder();
+    private final LongAdder redeliveryCount = new LongAdder();
+    private final LongAdder duplicateCount = new LongAdder();
+
+    @Inject
+    public CommandDeduplicator(@Value("${gamification.slackbot.dedup.window}") long window,
+                               @Value("${gamification.slackbot.dedup.maximumSize}") long maximumSize) {
+        this(window, maximumSize, Ticker.systemTicker());
+    }
+
+    CommandDeduplicator(long window, long maximumSize, Ticker ticker) {
+        enabled = window > 0;
+        commands = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Math.max(window, 1), TimeUnit.MILLISECONDS)
+                .ticker(ticker)
+                .build();
+    }
+
+    /**
+     * @param triggerId slack trigger_id of the command, can be null
+     * @param retry     true if slack marked the request as a retry
+     */
+    public Submission open(String commandName, String fromUser, String text, String triggerId, boolean retry) {
+        if (!enabled) {
+            return new Submission(Kind.FIRST, null, new ArrayList<>());
+        }
+        ConcurrentMap<String, CompletableFuture<String>> map = commands.asMap();
+        String triggerKey = triggerId == null || triggerId.isEmpty() ? null : TRIGGER_KEY_PREFIX + triggerId;
+        if (triggerKey != null && map.containsKey(triggerKey)) {
+            return redelivery(commandName, fromUser, map.get(triggerKey));
+        }
+
+        CompletableFuture<String> result = new CompletableFuture<>();
+        String contentKey = contentKey(commandName, fromUser, text);
+        CompletableFuture<String> first = map.putIfAbsent(contentKey, result);
+        if (triggerKey != null) {
+            map.putIfAbsent(triggerKey, first == null ? result : first);
+        }
+        if (first == null) {
+            firstCount.increment();
+            List<String> keys = new ArrayList<>();
+            keys.add(contentKey);
+            if (triggerKey != null) {
+                keys.add(triggerKey);
+            }
+            return new Submission(Kind.FIRST, result, keys);
+        }
+        if (retry) {
+            return redelivery(commandName, fromUser, first);
+        }
+        duplicateCount.increment();
+        logger.info("{} command of user [{}] is a duplicate, it is answered with the first result",
+                commandName, fromUser);
+        return new Submission(Kind.DUPLICATE, first, new ArrayList<>());
+    }
+
+    public void invalidateAll() {
+        commands.invalidateAll();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long size() {
+        return commands.estimatedSize();
+    }
+
+    public long getFirstCount() {
+        return firstCount.sum();
+    }
+
+    public long getRedeliveryCount() {
+        return redeliveryCount.sum();
+    }
+
+    public long getDuplicateCount() {
+        return duplicateCount.sum();
+    }
+
+    private Submission redelivery(String commandName, String fromUser, CompletableFuture<String> first) {
+        redeliveryCount.increment();
+        logger.info("{} command of user [{}] is redelivered by slack, it is dropped", commandName, fromUser);
+        return new Submission(Kind.REDELIVERY, first, new ArrayList<>());
+    }
+
+    static String contentKey(String commandName, String fromUser, String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(commandName.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(UserCache.normalize(fromUser).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(text.trim().getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest.digest());
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private enum Kind {
+        FIRST, REDELIVERY, DUPLICATE
+    }
+
+    public class Submission {
+        private final Kind kind;
+        private final CompletableFuture<String> result;
+        private final List<String> keys;
+
+        private Submission(Kind kind, CompletableFuture<String> result, List<String> keys) {
+            this.kind = kind;
+            this.result = result;
+            this.keys = keys;
+        }
+
+        public boolean isFirst() {
+            return kind == Kind.FIRST;
+        }
+
+        public boolean isRedelivery() {
+            return kind == Kind.REDELIVERY;
+        }
+
+        /**
+         * @return result of the first command, to answer a duplicate
+         */
+        public CompletableFuture<String> getFirstResult() {
+            return result;
+        }
+
+        /**
+         * Shares the result of the first command with its duplicates
+         *
+         * @return the given result
+         */
+        public CompletableFuture<String> track(CompletableFuture<String> commandResult) {
+            if (result != null) {
+                commandResult.whenComplete((responseToSlack, error) -> {
+                    if (error == null) {
+                        result.complete(responseToSlack);
+                    } else {
+                        forget(error);
+                    }
+                });
+            }
+            return commandResult;
+        }
+
+        /**
+         * Forgets the first command, which was not accepted for processing
+         */
+        public void reject(Throwable error) {
+            if (result != null) {
+                forget(error);
+            }
+        }
+
+        private void forget(Throwable error) {
+            keys.forEach(key -> commands.asMap().remove(key, result));
+            result.completeExceptionally(error);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package juja.microservices.gamification.slackbot.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import juja.microservices.gamification.slackbot.model.DTO.UserDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Slack name to user cache in front of the users service.
+ * <p>
+ * Bounded by size with W-TinyLFU eviction and expired after ttl. Slack names which the users service
+ * doesn't know are cached separately for a shorter time, so a typo in a command doesn't hit the service
+ * on every retry. Slack names are kept with the leading '@'.
+ */
+@Component
+public class UserCache {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+    private final Cache<String, UserDTO> users;
+    private final Cache<String, Boolean> unknownSlackNames;
+
+    @Inject
+    public UserCache(@Value("${gamification.slackbot.userCache.maximumSize}") long maximumSize,
+                     @Value("${gamification.slackbot.userCache.ttl}") long ttl,
+                     @Value("${gamification.slackbot.userCache.negativeTtl}") long negativeTtl) {
+        this(maximumSize, ttl, negativeTtl, Ticker.systemTicker());
+    }
+
+    UserCache(long maximumSize, long ttl, long negativeTtl, Ticker ticker) {
+        users = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl, TimeUnit.MILLISECONDS)
+                .ticker(ticker)
+                .recordStats()
+                .build();
+        unknownSlackNames = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(negativeTtl, TimeUnit.MILLISECONDS)
+                .ticker(ticker)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * @return cached users and the slack names which are in neither of the caches
+     */
+    public Lookup lookup(Collection<String> slackNames) {
+        Set<String> requested = normalize(slackNames);
+        Map<String, UserDTO> found = users.getAllPresent(requested);
+
+        Set<String> misses = new LinkedHashSet<>(requested);
+        misses.removeAll(found.keySet());
+        if (!misses.isEmpty()) {
+            misses.removeAll(unknownSlackNames.getAllPresent(misses).keySet());
+        }
+        logger.debug("User cache lookup {}: found {}, misses {}", requested, found.keySet(), misses);
+        return new Lookup(requested, found, misses);
+    }
+
+    /**
+     * Caches users loaded for the missed slack names. Missed names absent in the loaded users are cached as unknown.
+     */
+    public void putLoaded(Collection<String> misses, List<UserDTO> loaded) {
+        Set<String> unknown = normalize(misses);
+        for (UserDTO user : loaded) {
+            String slackName = normalize(user.getSlack());
+            users.put(slackName, user);
+            unknown.remove(slackName);
+        }
+        for (String slackName : unknown) {
+            unknownSlackNames.put(slackName, Boolean.TRUE);
+        }
+        if (!unknown.isEmpty()) {
+            logger.debug("Slack names {} are unknown to users service", unknown);
+        }
+    }
+
+    public void invalidateAll() {
+        users.invalidateAll();
+        unknownSlackNames.invalidateAll();
+    }
+
+    public long size() {
+        return users.estimatedSize();
+    }
+
+    public CacheStats getStats() {
+        return users.stats();
+    }
+
+    public CacheStats getUnknownSlackNamesStats() {
+        return unknownSlackNames.stats();
+    }
+
+    public static String normalize(String slackName) {
+        return slackName.startsWith("@") ? slackName : "@" + slackName;
+    }
+
+    private static Set<String> normalize(Collection<String> slackNames) {
+        Set<String> result = new LinkedHashSet<>();
+        for (String slackName : slackNames) {
+            result.add(normalize(slackName));
+        }
+        return result;
+    }
+
+    public static class Lookup {
+        private final Set<String> requested;
+        private final Map<String, UserDTO> found;
+        private final Set<String> misses;
+
+        Lookup(Set<String> requested, Map<String, UserDTO> found, Set<String> misses) {
+            this.requested = requested;
+            this.found = found;
+            this.misses = misses;
+        }
+
+        public Set<String> getMisses() {
+            return misses;
+        }
+
+        /**
+         * @return users in the order of the requested slack names, cached ones and the loaded for misses
+         */
+        public List<UserDTO> complete(List<UserDTO> loaded) {
+            Map<String, UserDTO> result = new HashMap<>(found);
+            for (UserDTO user : loaded) {
+                result.putIfAbsent(normalize(user.getSlack()), user);
+            }
+            List<UserDTO> users = new ArrayList<>();
+            for (String slackName : requested) {
+                UserDTO user = result.get(slackName);
+                if (user != null) {
+                    users.add(user);
+                }
+            }
+            return users;
+        }
+    }
+}
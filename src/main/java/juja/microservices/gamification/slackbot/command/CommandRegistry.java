@@ -0,0 +1,169 @@
+package juja.microservices.gamification.slackbot.command;
+
+import juja.microservices.gamification.slackbot.dao.GamificationRepository;
+import juja.microservices.gamification.slackbot.model.achievements.AchievementBatch;
+import juja.microservices.gamification.slackbot.model.achievements.CodenjoyAchievement;
+import juja.microservices.gamification.slackbot.model.achievements.DailyAchievement;
+import juja.microservices.gamification.slackbot.model.achievements.InterviewAchievement;
+import juja.microservices.gamification.slackbot.model.achievements.ThanksAchievement;
+import juja.microservices.gamification.slackbot.service.GamificationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Table of the slash commands of the bot, built once at start. A command is found by its achievement type,
+ * by the slash command slack sends in the 'command' parameter or by the bot endpoint it is posted to.
+ * A new command is one more {@link #register(SlackCommand)} call.
+ */
+@Component
+public class CommandRegistry {
+
+    private static final String ENDPOINT_PROPERTY = "gamification.slackbot.endpoint.";
+
+    private static final String DAILY_SAVED = "Thanks, your daily report saved.";
+    private static final String CODENJOY_SAVED = "Thanks, we awarded the users. " +
+            "First place: %s, Second place: %s, Third place: %s";
+    private static final String THANKS_SAVED = "Thanks, your 'thanks' for %s saved.";
+    private static final String INTERVIEW_SAVED = "Thanks. Your interview saved.";
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+    private final Environment environment;
+    private final Map<String, SlackCommand<?>> commandsByType = new LinkedHashMap<>();
+    private final Map<String, SlackCommand<?>> commandsBySlashCommand = new HashMap<>();
+    private final Map<String, SlackCommand<?>> commandsByEndpoint = new HashMap<>();
+
+    @Inject
+    public CommandRegistry(Environment environment) {
+        this.environment = environment;
+
+        register(SlackCommand.<DailyAchievement>builder()
+                .type(AchievementBatch.DAILY)
+                .name("Daily")
+                .achievementClass(DailyAchievement.class)
+                .achievement(DailyAchievement::new)
+                .save(GamificationRepository::saveDailyAchievement)
+                .saveAsync(GamificationRepository::saveDailyAchievementAsync)
+                .response((daily, ids) -> expectIds(ids, 1, "Daily")
+                        ? DAILY_SAVED
+                        : "Something went wrong and we didn't save your daily report")
+                .acceptedResponse(daily -> DAILY_SAVED)
+                .handler(GamificationService::sendDailyAchievement)
+                .asyncHandler(GamificationService::sendDailyAchievementAsync)
+                .build());
+
+        register(SlackCommand.<CodenjoyAchievement>builder()
+                .type(AchievementBatch.CODENJOY)
+                .name("Codenjoy")
+                .achievementClass(CodenjoyAchievement.class)
+                .achievement(CodenjoyAchievement::new)
+                .save(GamificationRepository::saveCodenjoyAchievement)
+                .saveAsync(GamificationRepository::saveCodenjoyAchievementAsync)
+                .response((codenjoy, ids) -> expectIds(ids, 3, "Codenjoy")
+                        ? codenjoy.injectSlackNames(CODENJOY_SAVED)
+                        : "Something went wrong and we didn't award the users")
+                .acceptedResponse(codenjoy -> codenjoy.injectSlackNames(CODENJOY_SAVED))
+                .handler(GamificationService::sendCodenjoyAchievement)
+                .asyncHandler(GamificationService::sendCodenjoyAchievementAsync)
+                .build());
+
+        register(SlackCommand.<ThanksAchievement>builder()
+                .type(AchievementBatch.THANKS)
+                .name("Thanks")
+                .achievementClass(ThanksAchievement.class)
+                .achievement(ThanksAchievement::new)
+                .save(GamificationRepository::saveThanksAchievement)
+                .saveAsync(GamificationRepository::saveThanksAchievementAsync)
+                .response(CommandRegistry::thanksResponse)
+                .acceptedResponse(thanks -> thanks.injectSlackNames(THANKS_SAVED))
+                .handler(GamificationService::sendThanksAchievement)
+                .asyncHandler(GamificationService::sendThanksAchievementAsync)
+                .build());
+
+        register(SlackCommand.<InterviewAchievement>builder()
+                .type(AchievementBatch.INTERVIEW)
+                .name("Interview")
+                .achievementClass(InterviewAchievement.class)
+                .achievement(InterviewAchievement::new)
+                .save(GamificationRepository::saveInterviewAchievement)
+                .saveAsync(GamificationRepository::saveInterviewAchievementAsync)
+                .response((interview, ids) -> ids.length == 1
+                        ? INTERVIEW_SAVED
+                        : "Something went wrong and we didn't save your interview")
+                .acceptedResponse(interview -> INTERVIEW_SAVED)
+                .handler(GamificationService::sendInterviewAchievement)
+                .asyncHandler(GamificationService::sendInterviewAchievementAsync)
+                .build());
+    }
+
+    /**
+     * Adds the command to the table, at start before the bot receives commands. The bot endpoint of the command
+     * is optional, without it the command is posted to the common endpoint.
+     */
+    public void register(SlackCommand<?> command) {
+        if (commandsByType.putIfAbsent(command.getType(), command) != null) {
+            throw new IllegalStateException("Command " + command.getType() + " is already registered");
+        }
+        commandsBySlashCommand.put("/" + command.getType(), command);
+        String endpoint = environment.getProperty(ENDPOINT_PROPERTY + command.getType());
+        if (endpoint != null) {
+            commandsByEndpoint.put(endpoint, command);
+        }
+        logger.debug("Registered command {}, endpoint [{}]", command, endpoint);
+    }
+
+    /**
+     * @throws IllegalArgumentException if there is no command of the type
+     */
+    @SuppressWarnings("unchecked")
+    public <A> SlackCommand<A> get(String type) {
+        SlackCommand<?> command = commandsByType.get(type);
+        if (command == null) {
+            throw new IllegalArgumentException("Unknown command type: " + type);
+        }
+        return (SlackCommand<A>) command;
+    }
+
+    /**
+     * @return the command posted to the endpoint, or the command named by slack, null if there is none
+     */
+    public SlackCommand<?> find(String endpoint, String slashCommand) {
+        SlackCommand<?> command = commandsByEndpoint.get(endpoint);
+        if (command == null && slashCommand != null) {
+            command = commandsBySlashCommand.get(slashCommand);
+        }
+        return command;
+    }
+
+    public Collection<SlackCommand<?>> getCommands() {
+        return Collections.unmodifiableCollection(new ArrayList<>(commandsByType.values()));
+    }
+
+    private boolean expectIds(String[] ids, int expected, String name) {
+        if (ids.length == expected) {
+            return true;
+        }
+        logger.debug("Expected {} saved {} achievements, but gamification service saved: {} ",
+                expected, name, ids.length);
+        return false;
+    }
+
+    private static String thanksResponse(ThanksAchievement thanks, String[] ids) {
+        if (ids.length == 1) {
+            return thanks.injectSlackNames(THANKS_SAVED);
+        }
+        if (ids.length == 2) {
+            return thanks.injectSlackNames(THANKS_SAVED + " Also you received +1 for your activity.");
+        }
+        return "Something went wrong and we didn't save the thanks.";
+    }
+}
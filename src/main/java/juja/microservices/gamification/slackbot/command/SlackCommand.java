@@ -0,0 +1,60 @@
+package juja.microservices.gamification.slackbot.command;
+
+import juja.microservices.gamification.slackbot.dao.GamificationRepository;
+import juja.microservices.gamification.slackbot.model.SlackParsedCommand;
+import juja.microservices.gamification.slackbot.service.GamificationService;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Everything the bot knows about one slash command: how it is called, how its achievement is built from
+ * the parsed command, where the achievement is saved and what slack is answered. Commands are registered
+ * in {@link CommandRegistry}, the controllers and {@link GamificationService} process every command the same way.
+ *
+ * @param <A> achievement of the command
+ */
+@Getter
+@Builder
+@ToString(of = {"type", "name"})
+public class SlackCommand<A> {
+
+    /**
+     * Achievement type, one of the {@link juja.microservices.gamification.slackbot.model.achievements.AchievementBatch}
+     * constants. The slash command is '/' + type, the bot endpoint is gamification.slackbot.endpoint.{type}
+     */
+    private final String type;
+    /**
+     * Name in logs, metrics and traces
+     */
+    private final String name;
+    private final Class<A> achievementClass;
+    /**
+     * Builds the achievement, the achievement constructors validate the command
+     */
+    private final Function<SlackParsedCommand, A> achievement;
+    private final BiFunction<GamificationRepository, A, String[]> save;
+    private final BiFunction<GamificationRepository, A, CompletableFuture<String[]>> saveAsync;
+    /**
+     * Response to slack when the achievement is saved with the ids
+     */
+    private final BiFunction<A, String[], String> response;
+    /**
+     * Response to slack when the achievement is accepted by the outbox and will be saved later
+     */
+    private final Function<A, String> acceptedResponse;
+    private final Handler<String> handler;
+    private final Handler<CompletableFuture<String>> asyncHandler;
+
+    /**
+     * Calls the service for the command
+     */
+    @FunctionalInterface
+    public interface Handler<R> {
+        R handle(GamificationService service, String fromUser, String text);
+    }
+}
@@ -0,0 +1,31 @@
+package juja.microservices.gamification.slackbot.concurrent;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Executor with a bounded backlog which reports its current load.
+ */
+public interface BoundedExecutor extends Executor {
+
+    /**
+     * @throws RejectedExecutionException if the backlog is full
+     */
+    @Override
+    void execute(Runnable task);
+
+    /**
+     * Opens the scope for subtasks of a command which is run by this executor
+     */
+    CommandScope openScope();
+
+    String getName();
+
+    int getQueueSize();
+
+    int getActiveCount();
+
+    long getRejectedCount();
+
+    void shutdown();
+}
@@ -0,0 +1,102 @@
+package juja.microservices.gamification.slackbot.concurrent;
+
+import juja.microservices.gamification.slackbot.exceptions.BulkheadFullException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Limits the number of concurrent calls to one dependency, so a slow dependency holds at most maxConcurrent
+ * threads or in-flight requests and the calls to other dependencies still get theirs.
+ * <p>
+ * A blocking call waits up to maxWait for a permit, a non-blocking call never waits as it may be made
+ * on an http client thread. A call which gets no permit is rejected with {@link BulkheadFullException},
+ * a non-blocking one by the returned future.
+ */
+public class Bulkhead {
+
+    private final String name;
+    private final int maxConcurrent;
+    private final long maxWaitMillis;
+    private final Semaphore permits;
+    private final LongAdder rejected = new LongAdder();
+
+    public Bulkhead(String name, int maxConcurrent, long maxWaitMillis) {
+        if (maxConcurrent <= 0) {
+            throw new IllegalArgumentException("Bulkhead " + name + " must allow at least one call");
+        }
+        this.name = name;
+        this.maxConcurrent = maxConcurrent;
+        this.maxWaitMillis = maxWaitMillis;
+        this.permits = new Semaphore(maxConcurrent);
+    }
+
+    /**
+     * @throws BulkheadFullException if there was no free permit within maxWait
+     */
+    public <T> T call(Supplier<T> call) {
+        if (!acquire(maxWaitMillis)) {
+            throw new BulkheadFullException(name);
+        }
+        try {
+            return call.get();
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Holds the permit until the returned future is completed. The future fails with {@link BulkheadFullException}
+     * at once if there is no free permit.
+     */
+    public <T> CompletableFuture<T> callAsync(Supplier<CompletableFuture<T>> call) {
+        if (!acquire(0)) {
+            CompletableFuture<T> rejection = new CompletableFuture<>();
+            rejection.completeExceptionally(new BulkheadFullException(name));
+            return rejection;
+        }
+        CompletableFuture<T> result;
+        try {
+            result = call.get();
+        } catch (RuntimeException ex) {
+            permits.release();
+            throw ex;
+        }
+        return result.whenComplete((value, error) -> permits.release());
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public int getActiveCount() {
+        return maxConcurrent - permits.availablePermits();
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    private boolean acquire(long waitMillis) {
+        boolean acquired;
+        try {
+            acquired = waitMillis > 0
+                    ? permits.tryAcquire(waitMillis, TimeUnit.MILLISECONDS)
+                    : permits.tryAcquire();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            rejected.increment();
+        }
+        return acquired;
+    }
+}
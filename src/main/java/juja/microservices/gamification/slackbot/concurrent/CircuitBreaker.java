@@ -0,0 +1,194 @@
+package juja.microservices.gamification.slackbot.concurrent;
+
+import juja.microservices.gamification.slackbot.exceptions.CircuitBreakerOpenException;
+import juja.microservices.gamification.slackbot.util.Utils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Circuit breaker of one dependency. While closed it records the outcomes of the last windowSize calls, and opens
+ * when at least minimumCalls were recorded and the rate of failed or of slow calls reaches its threshold.
+ * An open breaker rejects calls with {@link CircuitBreakerOpenException} for openDuration, then lets
+ * halfOpenCalls probes through: a failed or slow probe opens it again, when all probes succeed it is closed.
+ * <p>
+ * Errors which are not failures of the dependency, for example 4xx responses, are recorded as successes.
+ * A non-blocking call is rejected by the returned future.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+    private final String name;
+    private final int minimumCalls;
+    private final int failureRateThreshold;
+    private final long slowCallNanos;
+    private final int slowCallRateThreshold;
+    private final long openDurationNanos;
+    private final int halfOpenCalls;
+    private final Predicate<Throwable> isFailure;
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * Outcomes of the last calls: 1 - failed, 2 - slow, 3 - failed and slow
+     */
+    private final byte[] window;
+    private int windowPosition;
+    private int recordedCalls;
+    private int failedCalls;
+    private int slowCalls;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int probesStarted;
+    private int probesSucceeded;
+
+    /**
+     * @param failureRateThreshold  percent of failed calls which opens the breaker
+     * @param slowCallMillis        calls which take longer are slow
+     * @param slowCallRateThreshold percent of slow calls which opens the breaker
+     * @param isFailure             whether the error is a failure of the dependency
+     */
+    public CircuitBreaker(String name, int windowSize, int minimumCalls, int failureRateThreshold,
+                          long slowCallMillis, int slowCallRateThreshold, long openDurationMillis,
+                          int halfOpenCalls, Predicate<Throwable> isFailure) {
+        if (windowSize <= 0 || minimumCalls <= 0 || halfOpenCalls <= 0) {
+            throw new IllegalArgumentException("Circuit breaker " + name + " must record at least one call");
+        }
+        this.name = name;
+        this.window = new byte[windowSize];
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(slowCallMillis);
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.openDurationNanos = TimeUnit.MILLISECONDS.toNanos(openDurationMillis);
+        this.halfOpenCalls = halfOpenCalls;
+        this.isFailure = isFailure;
+    }
+
+    /**
+     * @throws CircuitBreakerOpenException if the breaker is open
+     */
+    public <T> T call(Supplier<T> call) {
+        if (!tryAcquire()) {
+            throw new CircuitBreakerOpenException(name);
+        }
+        long started = System.nanoTime();
+        T result;
+        try {
+            result = call.get();
+        } catch (RuntimeException ex) {
+            record(System.nanoTime() - started, ex);
+            throw ex;
+        }
+        record(System.nanoTime() - started, null);
+        return result;
+    }
+
+    public <T> CompletableFuture<T> callAsync(Supplier<CompletableFuture<T>> call) {
+        if (!tryAcquire()) {
+            CompletableFuture<T> rejection = new CompletableFuture<>();
+            rejection.completeExceptionally(new CircuitBreakerOpenException(name));
+            return rejection;
+        }
+        long started = System.nanoTime();
+        CompletableFuture<T> result;
+        try {
+            result = call.get();
+        } catch (RuntimeException ex) {
+            record(System.nanoTime() - started, ex);
+            throw ex;
+        }
+        return result.whenComplete((value, error) -> record(System.nanoTime() - started, error));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    private synchronized boolean tryAcquire() {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openDurationNanos) {
+            transitionTo(State.HALF_OPEN);
+        }
+        if (state == State.CLOSED) {
+            return true;
+        }
+        if (state == State.HALF_OPEN && probesStarted < halfOpenCalls) {
+            probesStarted++;
+            return true;
+        }
+        rejected.increment();
+        return false;
+    }
+
+    private synchronized void record(long elapsedNanos, Throwable error) {
+        boolean failed = error != null && isFailure.test(Utils.unwrapAsyncError(error));
+        boolean slow = elapsedNanos >= slowCallNanos;
+        if (state == State.HALF_OPEN) {
+            if (failed || slow) {
+                transitionTo(State.OPEN);
+            } else if (++probesSucceeded >= halfOpenCalls) {
+                transitionTo(State.CLOSED);
+            }
+            return;
+        }
+        if (state == State.OPEN) {
+            // the call was started before the breaker opened
+            return;
+        }
+
+        byte evicted = window[windowPosition];
+        if (recordedCalls == window.length) {
+            failedCalls -= evicted & 1;
+            slowCalls -= (evicted >> 1) & 1;
+        } else {
+            recordedCalls++;
+        }
+        window[windowPosition] = (byte) ((failed ? 1 : 0) | (slow ? 2 : 0));
+        windowPosition = (windowPosition + 1) % window.length;
+        failedCalls += failed ? 1 : 0;
+        slowCalls += slow ? 1 : 0;
+
+        if (recordedCalls >= minimumCalls
+                && (failedCalls * 100 >= failureRateThreshold * recordedCalls
+                || slowCalls * 100 >= slowCallRateThreshold * recordedCalls)) {
+            logger.warn("Circuit breaker {} opens: {} of {} calls failed, {} were slow",
+                    name, failedCalls, recordedCalls, slowCalls);
+            transitionTo(State.OPEN);
+        }
+    }
+
+    private void transitionTo(State next) {
+        if (next == State.OPEN) {
+            openedAt = System.nanoTime();
+        }
+        if (next == State.HALF_OPEN) {
+            probesStarted = 0;
+            probesSucceeded = 0;
+        }
+        if (next == State.CLOSED) {
+            windowPosition = 0;
+            recordedCalls = 0;
+            failedCalls = 0;
+            slowCalls = 0;
+        }
+        logger.info("Circuit breaker {}: {} -> {}", name, state, next);
+        state = next;
+    }
+}
@@ -0,0 +1,83 @@
+package juja.microservices.gamification.slackbot.concurrent;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Structured scope of the subtasks of one command, similar to java 21 StructuredTaskScope.ShutdownOnFailure.
+ * <p>
+ * Subtasks are forked on their own threads and must be joined before the command deadline. If a subtask fails
+ * or the scope is closed, the unfinished subtasks are cancelled and their threads are interrupted,
+ * so no subtask outlives its command. A scope without a thread factory runs subtasks in the calling thread
+ * and has no deadline.
+ */
+public class CommandScope implements AutoCloseable {
+
+    private final ThreadFactory threadFactory;
+    private final long deadlineNanos;
+    private final List<FutureTask<?>> subtasks = new CopyOnWriteArrayList<>();
+
+    public CommandScope(ThreadFactory threadFactory, long timeoutMillis) {
+        this.threadFactory = threadFactory;
+        this.deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+    }
+
+    public static CommandScope inline() {
+        return new CommandScope(null, 0);
+    }
+
+    public <T> Future<T> fork(Callable<T> task) {
+        FutureTask<T> subtask = new FutureTask<T>(task) {
+            @Override
+            protected void setException(Throwable error) {
+                super.setException(error);
+                cancelAll();
+            }
+        };
+        subtasks.add(subtask);
+        if (threadFactory == null) {
+            subtask.run();
+        } else {
+            threadFactory.newThread(subtask).start();
+        }
+        return subtask;
+    }
+
+    /**
+     * Waits for all forked subtasks to complete or fail.
+     *
+     * @throws TimeoutException if the subtasks are still running at the command deadline
+     */
+    public void join() throws InterruptedException, TimeoutException {
+        for (FutureTask<?> subtask : subtasks) {
+            try {
+                if (threadFactory == null) {
+                    subtask.get();
+                } else {
+                    subtask.get(deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+                }
+            } catch (ExecutionException | CancellationException ignored) {
+                // the caller inspects results of its subtasks
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        cancelAll();
+    }
+
+    private void cancelAll() {
+        for (FutureTask<?> subtask : subtasks) {
+            subtask.cancel(true);
+        }
+    }
+}
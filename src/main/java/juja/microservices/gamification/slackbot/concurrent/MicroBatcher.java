@@ -0,0 +1,199 @@
+package juja.microservices.gamification.slackbot.concurrent;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Collects items submitted by concurrent commands and sends them to a remote service in one request.
+ * <p>
+ * A batch is open for maxWait ms after its first item or until it has maxBatchSize items. A blocking submit
+ * which opens a batch waits for it and sends the request in its own thread, so no thread is spent on blocking
+ * requests. A non-blocking submit schedules the request instead. The request must return one result per item
+ * in the order of the items, every submit gets the results of its own items.
+ *
+ * @param <I> request item
+ * @param <O> result of one item
+ */
+public class MicroBatcher<I, O> {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+    private final String name;
+    private final long maxWait;
+    private final int maxBatchSize;
+    private final Function<List<I>, List<O>> request;
+    private final Function<List<I>, CompletableFuture<List<O>>> asyncRequest;
+    private final ScheduledExecutorService scheduler;
+    private final Object lock = new Object();
+    private Batch currentBatch;
+
+    public MicroBatcher(String name, long maxWait, int maxBatchSize, Function<List<I>, List<O>> request,
+                        Function<List<I>, CompletableFuture<List<O>>> asyncRequest) {
+        this.name = name;
+        this.maxWait = maxWait;
+        this.maxBatchSize = maxBatchSize;
+        this.request = request;
+        this.asyncRequest = asyncRequest;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory(name + "-batch-"));
+    }
+
+    public List<O> submit(List<I> items) {
+        Slot slot = join(items, true);
+        if (slot.opened) {
+            awaitQuietly(slot.batch.full);
+            close(slot.batch);
+            send(slot.batch);
+        }
+        try {
+            return slot.results().join();
+        } catch (CompletionException ex) {
+            throw ex.getCause() instanceof RuntimeException ? (RuntimeException) ex.getCause() : ex;
+        }
+    }
+
+    public CompletableFuture<List<O>> submitAsync(List<I> items) {
+        return join(items, false).results();
+    }
+
+    /**
+     * Sends the open non-blocking batch at once instead of dropping its scheduled send, so its submits complete.
+     * An open blocking batch is sent by the submit which opened it.
+     */
+    public void shutdown() {
+        Batch open;
+        synchronized (lock) {
+            open = currentBatch;
+            currentBatch = null;
+        }
+        if (open != null && !open.blocking && open.scheduledSend.cancel(false)) {
+            logger.debug("Send open {} batch on shutdown", name);
+            sendAsync(open);
+        }
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Adds the items to the open batch, opens a new batch if there is no open one
+     */
+    private Slot join(List<I> items, boolean blocking) {
+        Slot slot = new Slot();
+        boolean sendNow = false;
+        synchronized (lock) {
+            if (currentBatch == null) {
+                Batch opened = new Batch(blocking);
+                if (!blocking) {
+                    opened.scheduledSend = scheduler.schedule(() -> {
+                        close(opened);
+                        sendAsync(opened);
+                    }, maxWait, TimeUnit.MILLISECONDS);
+                }
+                currentBatch = opened;
+                slot.opened = true;
+            }
+            slot.batch = currentBatch;
+            slot.offset = slot.batch.items.size();
+            slot.size = items.size();
+            slot.batch.items.addAll(items);
+            if (slot.batch.items.size() >= maxBatchSize) {
+                currentBatch = null;
+                if (slot.batch.blocking) {
+                    slot.batch.full.countDown();
+                } else {
+                    sendNow = slot.batch.scheduledSend.cancel(false);
+                }
+            }
+        }
+        if (sendNow) {
+            sendAsync(slot.batch);
+        }
+        return slot;
+    }
+
+    private void close(Batch batch) {
+        synchronized (lock) {
+            if (currentBatch == batch) {
+                currentBatch = null;
+            }
+        }
+    }
+
+    private void send(Batch batch) {
+        List<I> items = itemsOf(batch);
+        logger.debug("Send {} batch of {} items", name, items.size());
+        try {
+            complete(batch, request.apply(items), null);
+        } catch (RuntimeException ex) {
+            complete(batch, null, ex);
+        }
+    }
+
+    private void sendAsync(Batch batch) {
+        List<I> items = itemsOf(batch);
+        logger.debug("Send async {} batch of {} items", name, items.size());
+        try {
+            asyncRequest.apply(items).whenComplete((results, error) -> complete(batch, results, error));
+        } catch (RuntimeException ex) {
+            complete(batch, null, ex);
+        }
+    }
+
+    private void complete(Batch batch, List<O> results, Throwable error) {
+        if (error == null && results.size() != batch.items.size()) {
+            error = new IllegalStateException(String.format("Expected %d results of %s batch, but received %d",
+                    batch.items.size(), name, results.size()));
+        }
+        if (error == null) {
+            batch.results.complete(results);
+        } else {
+            batch.results.completeExceptionally(error);
+        }
+    }
+
+    private List<I> itemsOf(Batch batch) {
+        synchronized (lock) {
+            return new ArrayList<>(batch.items);
+        }
+    }
+
+    private void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(maxWait, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private class Batch {
+        private final List<I> items = new ArrayList<>();
+        private final CompletableFuture<List<O>> results = new CompletableFuture<>();
+        private final CountDownLatch full = new CountDownLatch(1);
+        private final boolean blocking;
+        private ScheduledFuture<?> scheduledSend;
+
+        private Batch(boolean blocking) {
+            this.blocking = blocking;
+        }
+    }
+
+    private class Slot {
+        private Batch batch;
+        private int offset;
+        private int size;
+        private boolean opened;
+
+        private CompletableFuture<List<O>> results() {
+            return batch.results.thenApply(results -> results.subList(offset, offset + size));
+        }
+    }
+}
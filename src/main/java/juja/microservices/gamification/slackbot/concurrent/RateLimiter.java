@@ -0,0 +1,265 @@
+package juja.microservices.gamification.slackbot.concurrent;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Token buckets which limit the rate of requests per key, like the rate limit slack applies to one channel.
+ * Every key gets ratePerSecond tokens and holds at most burst of them.
+ * <p>
+ * Waiting permits are granted by their deadline, the closest one first, across all keys whose bucket has
+ * a token. A permit which is not granted before its deadline fails with {@link TimeoutException} without
+ * taking a token. When the remote service throttles a key, the key is paused for the time it asked for and
+ * its rate is halved, one request is allowed when the pause is over and every permit granted afterwards gives
+ * a tenth of the rate back until the configured rate is reached again.
+ */
+public class RateLimiter {
+
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final long IDLE_NANOS = TimeUnit.MINUTES.toNanos(10);
+    private static final double MIN_RATE_SHARE = 1.0 / 16;
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+    private final String name;
+    private final double ratePerSecond;
+    private final double burst;
+    private final int maxWaiting;
+    private final ScheduledExecutorService scheduler;
+    private final Map<String, Bucket> buckets = new HashMap<>();
+    private final Set<Bucket> waitingBuckets = new HashSet<>();
+    private long sequence;
+    private int waitingCount;
+    private long rejectedCount;
+    private long throttledCount;
+    private long sweptAt = System.nanoTime();
+    private ScheduledFuture<?> wakeUp;
+    private long wakeUpAt;
+
+    public RateLimiter(String name, double ratePerSecond, int burst, int maxWaiting) {
+        if (ratePerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Rate limiter " + name + " must allow at least one request");
+        }
+        this.name = name;
+        this.ratePerSecond = ratePerSecond;
+        this.burst = burst;
+        this.maxWaiting = maxWaiting;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory(name + "-limiter-"));
+    }
+
+    /**
+     * The returned future is completed on the limiter thread, a long task must be handed to another executor.
+     * It fails with {@link RejectedExecutionException} at once if maxWaiting permits are waiting already.
+     *
+     * @param deadline time in ms since the epoch
+     */
+    public CompletableFuture<Void> acquire(String key, long deadline) {
+        CompletableFuture<Void> permit = new CompletableFuture<>();
+        synchronized (this) {
+            if (waitingCount >= maxWaiting) {
+                rejectedCount++;
+                permit.completeExceptionally(new RejectedExecutionException(
+                        "Rate limiter " + name + " has " + waitingCount + " waiting permits"));
+                return permit;
+            }
+            Bucket bucket = buckets.computeIfAbsent(key, Bucket::new);
+            bucket.waiters.add(new Waiter(deadline, sequence++, permit));
+            waitingBuckets.add(bucket);
+            waitingCount++;
+        }
+        dispatch();
+        return permit;
+    }
+
+    /**
+     * The remote service refused a request of the key: no permit of the key is granted for retryAfter ms
+     * and its rate is halved
+     */
+    public void throttle(String key, long retryAfterMillis) {
+        synchronized (this) {
+            Bucket bucket = buckets.computeIfAbsent(key, Bucket::new);
+            long now = System.nanoTime();
+            bucket.refill(now);
+            bucket.pausedUntil = Math.max(bucket.pausedUntil, now + TimeUnit.MILLISECONDS.toNanos(retryAfterMillis));
+            bucket.refilledAt = bucket.pausedUntil;
+            bucket.tokens = 1;
+            bucket.rate = Math.max(ratePerSecond * MIN_RATE_SHARE, bucket.rate / 2);
+            throttledCount++;
+            logger.warn("Rate limiter {} throttled key '{}' for {} ms, rate is {} per second now",
+                    name, key, retryAfterMillis, bucket.rate);
+        }
+        dispatch();
+    }
+
+    public synchronized int getWaitingCount() {
+        return waitingCount;
+    }
+
+    public synchronized long getRejectedCount() {
+        return rejectedCount;
+    }
+
+    public synchronized long getThrottledCount() {
+        return throttledCount;
+    }
+
+    public synchronized int getKeyCount() {
+        return buckets.size();
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Grants the permits whose bucket has a token by their deadline and schedules the next run for the
+     * bucket which gets a token first. Permits are completed outside the lock.
+     */
+    private void dispatch() {
+        List<CompletableFuture<Void>> granted = new ArrayList<>();
+        List<CompletableFuture<Void>> expired = new ArrayList<>();
+        synchronized (this) {
+            long now = System.nanoTime();
+            long nowMillis = System.currentTimeMillis();
+            PriorityQueue<Bucket> ready = new PriorityQueue<>(Comparator.comparing(bucket -> bucket.waiters.peek()));
+            for (Iterator<Bucket> iterator = waitingBuckets.iterator(); iterator.hasNext(); ) {
+                Bucket bucket = iterator.next();
+                expired.addAll(bucket.removeExpired(nowMillis));
+                if (bucket.waiters.isEmpty()) {
+                    iterator.remove();
+                } else if (bucket.readyAt(now) <= now) {
+                    ready.add(bucket);
+                }
+            }
+            Bucket bucket;
+            while ((bucket = ready.poll()) != null) {
+                granted.add(bucket.take(now).permit);
+                if (bucket.waiters.isEmpty()) {
+                    waitingBuckets.remove(bucket);
+                } else if (bucket.readyAt(now) <= now) {
+                    ready.add(bucket);
+                }
+            }
+            waitingCount -= granted.size() + expired.size();
+            scheduleNextDispatch(now);
+            sweepIdleBuckets(now);
+        }
+        expired.forEach(permit -> permit.completeExceptionally(
+                new TimeoutException("Rate limiter " + name + " didn't grant the permit before its deadline")));
+        granted.forEach(permit -> permit.complete(null));
+    }
+
+    private void scheduleNextDispatch(long now) {
+        long next = Long.MAX_VALUE;
+        for (Bucket bucket : waitingBuckets) {
+            next = Math.min(next, bucket.readyAt(now));
+        }
+        boolean pending = wakeUp != null && !wakeUp.isDone() && wakeUpAt > now;
+        if (next == Long.MAX_VALUE || pending && wakeUpAt <= next) {
+            return;
+        }
+        if (wakeUp != null) {
+            wakeUp.cancel(false);
+        }
+        wakeUpAt = next;
+        try {
+            wakeUp = scheduler.schedule(this::dispatch, next - now, TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException ex) {
+            logger.debug("Rate limiter {} is shut down", name);
+        }
+    }
+
+    private void sweepIdleBuckets(long now) {
+        if (now - sweptAt < IDLE_NANOS) {
+            return;
+        }
+        sweptAt = now;
+        buckets.values().removeIf(bucket -> bucket.waiters.isEmpty()
+                && now - bucket.usedAt > IDLE_NANOS && now > bucket.pausedUntil);
+    }
+
+    private class Bucket {
+
+        private final String key;
+        private final PriorityQueue<Waiter> waiters = new PriorityQueue<>();
+        private double rate = ratePerSecond;
+        private double tokens = burst;
+        private long refilledAt = System.nanoTime();
+        private long pausedUntil = refilledAt;
+        private long usedAt = refilledAt;
+
+        private Bucket(String key) {
+            this.key = key;
+        }
+
+        private void refill(long now) {
+            if (now > refilledAt) {
+                tokens = Math.min(burst, tokens + (now - refilledAt) * rate / NANOS_PER_SECOND);
+                refilledAt = now;
+            }
+        }
+
+        /**
+         * @return time in nanos when the bucket has a token
+         */
+        private long readyAt(long now) {
+            refill(now);
+            long refillAt = tokens >= 1 ? now : now + (long) ((1 - tokens) * NANOS_PER_SECOND / rate);
+            return Math.max(pausedUntil, refillAt);
+        }
+
+        private Waiter take(long now) {
+            tokens -= 1;
+            usedAt = now;
+            rate = Math.min(ratePerSecond, rate + ratePerSecond / 10);
+            return waiters.poll();
+        }
+
+        private List<CompletableFuture<Void>> removeExpired(long nowMillis) {
+            List<CompletableFuture<Void>> expired = new ArrayList<>();
+            while (!waiters.isEmpty() && waiters.peek().deadline <= nowMillis) {
+                expired.add(waiters.poll().permit);
+            }
+            if (!expired.isEmpty()) {
+                logger.debug("Rate limiter {} dropped {} expired permits of key '{}'", name, expired.size(), key);
+            }
+            return expired;
+        }
+    }
+
+    private static class Waiter implements Comparable<Waiter> {
+
+        private final long deadline;
+        private final long sequence;
+        private final CompletableFuture<Void> permit;
+
+        private Waiter(long deadline, long sequence, CompletableFuture<Void> permit) {
+            this.deadline = deadline;
+            this.sequence = sequence;
+            this.permit = permit;
+        }
+
+        @Override
+        public int compareTo(Waiter other) {
+            int byDeadline = Long.compare(deadline, other.deadline);
+            return byDeadline != 0 ? byDeadline : Long.compare(sequence, other.sequence);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package juja.microservices.gamification.slackbot.concurrent;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Retries one operation of a dependency when it fails with a transient error, up to maxAttempts calls in total.
+ * Before attempt n the retry waits for a random delay between 0 and min(maxDelay, baseDelay * 2^(n - 2)),
+ * the full jitter spreads the retries of concurrent commands. A retry is sent only when the {@link RetryBudget}
+ * of the dependency allows it, otherwise the last error is thrown.
+ * <p>
+ * A blocking call sleeps between attempts, a non-blocking one schedules the next attempt.
+ */
+public class Retry {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+    private final String name;
+    private final int maxAttempts;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+    private final Predicate<Throwable> isRetryable;
+    private final RetryBudget budget;
+    private final ScheduledExecutorService scheduler;
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder budgetExhausted = new LongAdder();
+    private final LongAdder attemptsExhausted = new LongAdder();
+
+    public Retry(String name, int maxAttempts, long baseDelayMillis, long maxDelayMillis,
+                 Predicate<Throwable> isRetryable, RetryBudget budget, ScheduledExecutorService scheduler) {
+        if (maxAttempts <= 0) {
+            throw new IllegalArgumentException("Retry " + name + " must make at least one attempt");
+        }
+        this.name = name;
+        this.maxAttempts = maxAttempts;
+        this.baseDelayMillis = baseDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+        this.isRetryable = isRetryable;
+        this.budget = budget;
+        this.scheduler = scheduler;
+    }
+
+    public <T> T call(Supplier<T> call) {
+        budget.onRequest();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return call.get();
+            } catch (RuntimeException ex) {
+                if (!shouldRetry(attempt, ex)) {
+                    throw ex;
+                }
+                try {
+                    Thread.sleep(delayMillis(attempt));
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw ex;
+                }
+            }
+        }
+    }
+
+    public <T> CompletableFuture<T> callAsync(Supplier<CompletableFuture<T>> call) {
+        budget.onRequest();
+        CompletableFuture<T> result = new CompletableFuture<>();
+        attemptAsync(call, 1, result);
+        return result;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getRetryCount() {
+        return retries.sum();
+    }
+
+    /**
+     * @return number of retries which were not sent as the budget of the dependency was spent
+     */
+    public long getBudgetExhaustedCount() {
+        return budgetExhausted.sum();
+    }
+
+    /**
+     * @return number of calls which failed after maxAttempts
+     */
+    public long getAttemptsExhaustedCount() {
+        return attemptsExhausted.sum();
+    }
+
+    private <T> void attemptAsync(Supplier<CompletableFuture<T>> call, int attempt, CompletableFuture<T> result) {
+        CompletableFuture<T> response;
+        try {
+            response = call.get();
+        } catch (RuntimeException ex) {
+            response = new CompletableFuture<>();
+            response.completeExceptionally(ex);
+        }
+        response.whenComplete((value, error) -> {
+            if (error == null) {
+                result.complete(value);
+            } else if (shouldRetry(attempt, error)) {
+                try {
+                    scheduler.schedule(() -> attemptAsync(call, attempt + 1, result), delayMillis(attempt),
+                            TimeUnit.MILLISECONDS);
+                } catch (RejectedExecutionException ex) {
+                    result.completeExceptionally(error);
+                }
+            } else {
+                result.completeExceptionally(error);
+            }
+        });
+    }
+
+    private boolean shouldRetry(int attempt, Throwable error) {
+        if (!isRetryable.test(error)) {
+            return false;
+        }
+        if (attempt >= maxAttempts) {
+            attemptsExhausted.increment();
+            return false;
+        }
+        if (!budget.tryRetry()) {
+            budgetExhausted.increment();
+            logger.debug("Retry budget of {} is spent, attempt {} is not retried", name, attempt);
+            return false;
+        }
+        retries.increment();
+        logger.debug("Retry {} after attempt {} failed: {}", name, attempt, error.getMessage());
+        return true;
+    }
+
+    private long delayMillis(int attempt) {
+        long backoff = Math.min(maxDelayMillis, baseDelayMillis << Math.min(attempt - 1, 30));
+        return backoff <= 0 ? 0 : ThreadLocalRandom.current().nextLong(backoff + 1);
+    }
+}
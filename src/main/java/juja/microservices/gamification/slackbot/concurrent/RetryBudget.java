@@ -0,0 +1,42 @@
+package juja.microservices.gamification.slackbot.concurrent;
+
+/**
+ * Token bucket which limits retries to a share of the requests to one dependency. Every request adds ratio
+ * tokens, every retry takes one, the bucket holds at most maxTokens. When the dependency fails every request,
+ * at most ratio retries per request are sent, so retries can't multiply the load of a service which is down.
+ * Every instance of the bot keeps its own bucket, so the ratio holds for the cluster too.
+ */
+public class RetryBudget {
+
+    private final double ratio;
+    private final double maxTokens;
+    private double tokens;
+
+    /**
+     * The bucket starts full, so a few retries are allowed before the first requests
+     */
+    public RetryBudget(double ratio, double maxTokens) {
+        this.ratio = ratio;
+        this.maxTokens = maxTokens;
+        this.tokens = maxTokens;
+    }
+
+    public synchronized void onRequest() {
+        tokens = Math.min(maxTokens, tokens + ratio);
+    }
+
+    /**
+     * @return true if the retry is allowed, its token is taken
+     */
+    public synchronized boolean tryRetry() {
+        if (tokens < 1) {
+            return false;
+        }
+        tokens -= 1;
+        return true;
+    }
+
+    public synchronized double getTokens() {
+        return tokens;
+    }
+}
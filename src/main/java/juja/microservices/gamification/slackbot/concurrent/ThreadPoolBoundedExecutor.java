@@ -0,0 +1,70 @@
+package juja.microservices.gamification.slackbot.concurrent;
+
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link BoundedExecutor} on top of a platform thread pool with a fixed size queue.
+ */
+public class ThreadPoolBoundedExecutor implements BoundedExecutor {
+
+    private static final long KEEP_ALIVE_SECONDS = 60;
+
+    private final String name;
+    private final ThreadPoolExecutor executor;
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    public ThreadPoolBoundedExecutor(String name, int corePoolSize, int maxPoolSize, int queueCapacity) {
+        this.name = name;
+        this.executor = new ThreadPoolExecutor(corePoolSize, maxPoolSize, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory(name + "-"),
+                (task, pool) -> {
+                    rejectedCount.incrementAndGet();
+                    throw new RejectedExecutionException(String.format("Executor '%s' is full: %d active, %d queued",
+                            name, pool.getActiveCount(), pool.getQueue().size()));
+                });
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        executor.execute(task);
+    }
+
+    /**
+     * Subtasks are run in the command thread, pool threads are too expensive to fork them
+     */
+    @Override
+    public CommandScope openScope() {
+        return CommandScope.inline();
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public int getQueueSize() {
+        return executor.getQueue().size();
+    }
+
+    @Override
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    @Override
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    @Override
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,94 @@
+package juja.microservices.gamification.slackbot.concurrent;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link BoundedExecutor} which runs every task on its own virtual thread.
+ * <p>
+ * There is no queue: a task starts immediately if less than maxConcurrency tasks are running and is rejected
+ * otherwise. Scopes opened by the tasks fork their subtasks on virtual threads too and cancel them
+ * after the command timeout.
+ */
+public class VirtualThreadBoundedExecutor implements BoundedExecutor {
+
+    private final String name;
+    private final ThreadFactory threadFactory;
+    private final ThreadFactory subtaskThreadFactory;
+    private final int maxConcurrency;
+    private final long commandTimeoutMillis;
+    private final Semaphore permits;
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private volatile boolean shutdown;
+
+    public VirtualThreadBoundedExecutor(String name, int maxConcurrency, long commandTimeoutMillis) {
+        this(name, VirtualThreads.newThreadFactory(name + "-"),
+                VirtualThreads.newThreadFactory(name + "-subtask-"), maxConcurrency, commandTimeoutMillis);
+    }
+
+    VirtualThreadBoundedExecutor(String name, ThreadFactory threadFactory, ThreadFactory subtaskThreadFactory,
+                                 int maxConcurrency, long commandTimeoutMillis) {
+        this.name = name;
+        this.threadFactory = threadFactory;
+        this.subtaskThreadFactory = subtaskThreadFactory;
+        this.maxConcurrency = maxConcurrency;
+        this.commandTimeoutMillis = commandTimeoutMillis;
+        this.permits = new Semaphore(maxConcurrency);
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (shutdown) {
+            throw new RejectedExecutionException(String.format("Executor '%s' is shut down", name));
+        }
+        if (!permits.tryAcquire()) {
+            rejectedCount.incrementAndGet();
+            throw new RejectedExecutionException(String.format("Executor '%s' is full: %d tasks are running",
+                    name, maxConcurrency));
+        }
+        try {
+            threadFactory.newThread(() -> {
+                try {
+                    task.run();
+                } finally {
+                    permits.release();
+                }
+            }).start();
+        } catch (RuntimeException | Error ex) {
+            permits.release();
+            throw ex;
+        }
+    }
+
+    @Override
+    public CommandScope openScope() {
+        return new CommandScope(subtaskThreadFactory, commandTimeoutMillis);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public int getQueueSize() {
+        return 0;
+    }
+
+    @Override
+    public int getActiveCount() {
+        return maxConcurrency - permits.availablePermits();
+    }
+
+    @Override
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    @Override
+    public void shutdown() {
+        shutdown = true;
+    }
+}
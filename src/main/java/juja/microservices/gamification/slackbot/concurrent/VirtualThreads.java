@@ -0,0 +1,37 @@
+package juja.microservices.gamification.slackbot.concurrent;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Access to java 21 virtual threads from code which is compiled for java 8.
+ */
+public final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    public static boolean isSupported() {
+        try {
+            Thread.class.getMethod("ofVirtual");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return factory of virtual threads named prefix0, prefix1, ...
+     * @throws IllegalStateException if the current JVM doesn't support virtual threads
+     */
+    public static ThreadFactory newThreadFactory(String prefix) {
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, prefix, 0L);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Virtual threads require java 21 or newer, current java version is " +
+                    System.getProperty("java.version"), e);
+        }
+    }
+}
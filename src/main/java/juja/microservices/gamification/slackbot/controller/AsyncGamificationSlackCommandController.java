@@ -0,0 +1,76 @@
+package juja.microservices.gamification.slackbot.controller;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.inject.Inject;
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * Servlet async variant of {@link GamificationSlackCommandController}.
+ * <p>
+ * The container thread is released as soon as the command is queued. If the command is processed before
+ * the instant response timeout its result is returned as the instant response, otherwise slack gets
+ * the usual instant message and the result is sent later to the response_url.
+ */
+@RestController
+@ConditionalOnProperty(name = "gamification.slackbot.controller.mode", havingValue = "async")
+public class AsyncGamificationSlackCommandController {
+
+    @Value("${gamification.slackbot.controller.instantResponseTimeout}")
+    private long instantResponseTimeout;
+    private SlashCommandIngress slashCommandIngress;
+
+    @Inject
+    public AsyncGamificationSlackCommandController(SlashCommandIngress slashCommandIngress) {
+        this.slashCommandIngress = slashCommandIngress;
+    }
+
+    /**
+     * Every slash command is posted either to its own endpoint or to the common endpoint, then it is found
+     * by the 'command' parameter slack sends
+     */
+    @PostMapping(value = {"${gamification.slackbot.endpoint.command}", "${gamification.slackbot.endpoint.codenjoy}",
+            "${gamification.slackbot.endpoint.daily}", "${gamification.slackbot.endpoint.thanks}",
+            "${gamification.slackbot.endpoint.interview}"},
+            consumes = MediaType.APPLICATION_FORM_URLENCODED_VALUE)
+    public DeferredResult<String> onReceiveSlashCommand(
+            @RequestParam("token") String token,
+            @RequestParam(value = "command", required = false) String slashCommand,
+            @RequestParam("user_name") String fromUser,
+            @RequestParam("text") String text,
+            @RequestParam("response_url") String responseUrl,
+            @RequestParam(value = "team_id", required = false) String teamId,
+            @RequestParam(value = "channel_id", required = false) String channelId,
+            @RequestParam(value = "trigger_id", required = false) String triggerId,
+            @RequestHeader(value = SlashCommandIngress.RETRY_HEADER, required = false) String retryNum,
+            HttpServletRequest servletRequest) {
+
+        SlashCommandRequest request = SlashCommandRequest.builder()
+                .endpoint((String) servletRequest.getAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE))
+                .token(token)
+                .command(slashCommand)
+                .fromUser(fromUser)
+                .text(text)
+                .responseUrl(responseUrl)
+                .teamId(teamId)
+                .channelId(channelId)
+                .triggerId(triggerId)
+                .retry(retryNum != null)
+                .build();
+        DeferredResult<String> instantResponse =
+                new DeferredResult<>(instantResponseTimeout, SlashCommandIngress.INSTANT_MESSAGE);
+        SlashCommandIngress.Ack ack = slashCommandIngress.receive(request, instantResponse::setResult);
+        if (!ack.isPending()) {
+            instantResponse.setResult(ack.getMessage());
+        }
+        return instantResponse;
+    }
+}
@@ -0,0 +1,157 @@
+package juja.microservices.gamification.slackbot.controller;
+
+import juja.microservices.gamification.slackbot.cache.CommandDeduplicator;
+import juja.microservices.gamification.slackbot.command.CommandRegistry;
+import juja.microservices.gamification.slackbot.command.SlackCommand;
+import juja.microservices.gamification.slackbot.delivery.SlackDelivery;
+import juja.microservices.gamification.slackbot.service.CommandPipeline;
+import juja.microservices.gamification.slackbot.service.GamificationService;
+import juja.microservices.gamification.slackbot.tracing.Span;
+import juja.microservices.gamification.slackbot.tracing.Tracer;
+import juja.microservices.gamification.slackbot.util.LogPayload;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.inject.Inject;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Predicate;
+
+/**
+ * What both controllers do with a slash command: the token and the command are checked, the command is
+ * deduplicated, traced and queued to the {@link CommandPipeline}. The controllers only turn the {@link Ack}
+ * into their response to slack.
+ * <p>
+ * The command result is offered to the controller as the instant response first. If slack has got its
+ * instant response already, the result or the error is sent to the response_url.
+ */
+@Component
+public class SlashCommandIngress {
+
+    public final static String INSTANT_MESSAGE = "Your command accepted. Please wait...";
+    public final static String SORRY_MESSAGE = "Sorry! You're not lucky enough to use our slack command.";
+    public final static String BUSY_MESSAGE = "Sorry! We are too busy right now. Please try again in a minute.";
+    public final static String UNKNOWN_MESSAGE = "Sorry! We don't know the command %s.";
+    public final static String RETRY_HEADER = "X-Slack-Retry-Num";
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+    private final String slackToken;
+    private final boolean nonBlockingIo;
+    private final GamificationService gamificationService;
+    private final CommandPipeline commandPipeline;
+    private final CommandDeduplicator commandDeduplicator;
+    private final CommandRegistry commandRegistry;
+    private final SlackDelivery slackDelivery;
+    private final Tracer tracer;
+
+    @Inject
+    public SlashCommandIngress(@Value("${slack.slashCommandToken}") String slackToken,
+                               @Value("${gamification.slackbot.io.nonBlocking}") boolean nonBlockingIo,
+                               GamificationService gamificationService,
+                               CommandPipeline commandPipeline,
+                               CommandDeduplicator commandDeduplicator,
+                               CommandRegistry commandRegistry,
+                               SlackDelivery slackDelivery,
+                               Tracer tracer) {
+        this.slackToken = slackToken;
+        this.nonBlockingIo = nonBlockingIo;
+        this.gamificationService = gamificationService;
+        this.commandPipeline = commandPipeline;
+        this.commandDeduplicator = commandDeduplicator;
+        this.commandRegistry = commandRegistry;
+        this.slackDelivery = slackDelivery;
+        this.tracer = tracer;
+    }
+
+    /**
+     * Starts the trace of the command, it is finished when the command result is ready. The delayed response
+     * to slack is a child span of the command.
+     *
+     * @param instantResponse is offered the command result, or the instant message when the command failed,
+     *                        and returns true if slack got it as the instant response
+     */
+    public Ack receive(SlashCommandRequest request, Predicate<String> instantResponse) {
+        SlackCommand<?> command = commandRegistry.find(request.getEndpoint(), request.getCommand());
+        String commandName = command == null ? request.getCommand() : command.getName();
+        String fromUser = request.getFromUser();
+        String text = request.getText();
+        logger.debug("Received slash command {} achievement: user: [{}] command: [{}] token: [{}]",
+                commandName, fromUser, LogPayload.of(text), request.getToken());
+
+        if (!request.getToken().equals(slackToken)) {
+            logger.warn("Received invalid slack token: [{}] in command {} for user: [{}]",
+                    request.getToken(), commandName, fromUser);
+            return new Ack(SORRY_MESSAGE, false);
+        }
+        if (command == null) {
+            logger.warn("Received unknown slash command: [{}] from user: [{}]", request.getCommand(), fromUser);
+            return new Ack(String.format(UNKNOWN_MESSAGE, request.getCommand()), false);
+        }
+
+        Span span = tracer.startTrace("command." + commandName.toLowerCase(Locale.ROOT))
+                .tag("user", fromUser);
+        try (Tracer.Scope ignored = tracer.activate(span)) {
+            CommandDeduplicator.Submission submission =
+                    commandDeduplicator.open(commandName, fromUser, text, request.getTriggerId(), request.isRetry());
+            if (submission.isRedelivery()) {
+                span.tag("outcome", "redelivery").finish();
+                return new Ack(INSTANT_MESSAGE, false);
+            }
+            CompletableFuture<String> result;
+            if (submission.isFirst()) {
+                try {
+                    result = submission.track(nonBlockingIo
+                            ? commandPipeline.executeAsync(commandName,
+                                    () -> command.getAsyncHandler().handle(gamificationService, fromUser, text))
+                            : commandPipeline.execute(commandName,
+                                    () -> command.getHandler().handle(gamificationService, fromUser, text)));
+                } catch (RejectedExecutionException ex) {
+                    submission.reject(ex);
+                    span.tag("outcome", "rejected").finish();
+                    return new Ack(BUSY_MESSAGE, false);
+                }
+            } else {
+                span.tag("outcome", "duplicate");
+                result = submission.getFirstResult();
+            }
+
+            result.whenComplete(tracer.wrapCallback((responseToSlack, error) -> {
+                span.error(error).finish();
+                if (error != null) {
+                    instantResponse.test(INSTANT_MESSAGE);
+                    registerChannel(request);
+                    commandPipeline.sendErrorResponse(request.getResponseUrl(), error);
+                } else if (instantResponse.test(responseToSlack)) {
+                    logger.debug("Sent {} command result as instant response", commandName);
+                } else {
+                    registerChannel(request);
+                    commandPipeline.sendDelayedResponse(request.getResponseUrl(), responseToSlack);
+                }
+            }));
+            return new Ack(INSTANT_MESSAGE, true);
+        }
+    }
+
+    private void registerChannel(SlashCommandRequest request) {
+        slackDelivery.register(request.getResponseUrl(), request.getTeamId(), request.getChannelId());
+    }
+
+    /**
+     * Answer to slack right now. A pending ack means the command is queued, its result may still be sent as
+     * the instant response, the message is the answer when it is not ready in time.
+     */
+    @Getter
+    public static class Ack {
+        private final String message;
+        private final boolean pending;
+
+        private Ack(String message, boolean pending) {
+            this.message = message;
+            this.pending = pending;
+        }
+    }
+}
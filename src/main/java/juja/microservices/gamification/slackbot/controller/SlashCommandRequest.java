@@ -0,0 +1,34 @@
+package juja.microservices.gamification.slackbot.controller;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Slash command as slack posts it to one of the bot endpoints
+ */
+@Getter
+@Builder
+@ToString(exclude = {"token", "responseUrl"})
+public class SlashCommandRequest {
+
+    /**
+     * Path of the bot endpoint the command was posted to
+     */
+    private final String endpoint;
+    private final String token;
+    /**
+     * The slash command, null if slack didn't send it
+     */
+    private final String command;
+    private final String fromUser;
+    private final String text;
+    private final String responseUrl;
+    private final String teamId;
+    private final String channelId;
+    private final String triggerId;
+    /**
+     * Slack sent the command again as it didn't get the instant response in time
+     */
+    private final boolean retry;
+}
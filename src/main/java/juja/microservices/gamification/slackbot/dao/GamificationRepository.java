@@ -1,10 +1,13 @@
 package juja.microservices.gamification.slackbot.dao;
 
+import juja.microservices.gamification.slackbot.model.achievements.AchievementBatch;
 import juja.microservices.gamification.slackbot.model.achievements.CodenjoyAchievement;
 import juja.microservices.gamification.slackbot.model.achievements.DailyAchievement;
 import juja.microservices.gamification.slackbot.model.achievements.InterviewAchievement;
 import juja.microservices.gamification.slackbot.model.achievements.ThanksAchievement;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * @author Danil Kuznetsov
  */
@@ -19,4 +22,16 @@ public interface GamificationRepository {
 
     String[] saveInterviewAchievement(InterviewAchievement interview);
 
+    CompletableFuture<String[]> saveDailyAchievementAsync(DailyAchievement daily);
+
+    CompletableFuture<String[]> saveCodenjoyAchievementAsync(CodenjoyAchievement codenjoy);
+
+    CompletableFuture<String[]> saveThanksAchievementAsync(ThanksAchievement thanks);
+
+    CompletableFuture<String[]> saveInterviewAchievementAsync(InterviewAchievement interview);
+
+    String[][] saveAchievementBatch(AchievementBatch batch);
+
+    CompletableFuture<String[][]> saveAchievementBatchAsync(AchievementBatch batch);
+
 }
\ No newline at end of file
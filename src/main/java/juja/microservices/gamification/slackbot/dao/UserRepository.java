@@ -3,6 +3,7 @@ package juja.microservices.gamification.slackbot.dao;
 import juja.microservices.gamification.slackbot.model.DTO.UserDTO;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * @author Artem
@@ -10,4 +11,9 @@ import java.util.List;
 public interface UserRepository {
 
     List<UserDTO> findUsersBySlackNames(List<String> slackNames);
+
+    /**
+     * Non-blocking variant of {@link #findUsersBySlackNames(List)}
+     */
+    CompletableFuture<List<UserDTO>> findUsersBySlackNamesAsync(List<String> slackNames);
 }
\ No newline at end of file
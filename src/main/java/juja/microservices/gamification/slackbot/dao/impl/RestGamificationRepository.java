@@ -1,12 +1,23 @@
 package juja.microservices.gamification.slackbot.dao.impl;
 
 import juja.microservices.gamification.slackbot.dao.GamificationRepository;
+import juja.microservices.gamification.slackbot.concurrent.Bulkhead;
+import juja.microservices.gamification.slackbot.concurrent.CircuitBreaker;
+import juja.microservices.gamification.slackbot.concurrent.Retry;
 import juja.microservices.gamification.slackbot.exceptions.ApiError;
+import juja.microservices.gamification.slackbot.exceptions.DownstreamUnavailableException;
 import juja.microservices.gamification.slackbot.exceptions.GamificationExchangeException;
+import juja.microservices.gamification.slackbot.http.Bulkheads;
+import juja.microservices.gamification.slackbot.http.CircuitBreakers;
+import juja.microservices.gamification.slackbot.http.Retries;
+import juja.microservices.gamification.slackbot.metrics.BotMetrics;
+import juja.microservices.gamification.slackbot.model.achievements.AchievementBatch;
 import juja.microservices.gamification.slackbot.model.achievements.CodenjoyAchievement;
 import juja.microservices.gamification.slackbot.model.achievements.DailyAchievement;
 import juja.microservices.gamification.slackbot.model.achievements.InterviewAchievement;
 import juja.microservices.gamification.slackbot.model.achievements.ThanksAchievement;
+import juja.microservices.gamification.slackbot.tracing.Tracer;
+import juja.microservices.gamification.slackbot.util.LogPayload;
 import juja.microservices.gamification.slackbot.util.Utils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -15,11 +26,18 @@ import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Repository;
+import org.springframework.web.client.AsyncRestTemplate;
 import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 
 import javax.inject.Inject;
-import java.util.Arrays;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
 
 /**
  * @author Danil Kuznetsov
@@ -29,6 +47,12 @@ import java.util.Arrays;
 public class RestGamificationRepository implements GamificationRepository {
 
     private final RestTemplate restTemplate;
+    private final AsyncRestTemplate asyncRestTemplate;
+    private final BotMetrics metrics;
+    private final Tracer tracer;
+    private final Bulkhead bulkhead;
+    private final CircuitBreaker circuitBreaker;
+    private final Retries retries;
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
 
     @Value("${gamification.endpoint.daily}")
@@ -39,97 +63,183 @@ public class RestGamificationRepository implements GamificationRepository {
     private String gamificationSendThanksUrl;
     @Value("${gamification.endpoint.interview}")
     private String gamificationSendInterviewUrl;
+    @Value("${gamification.endpoint.batch}")
+    private String gamificationSendBatchUrl;
 
     @Inject
-    public RestGamificationRepository(RestTemplate restTemplate) {
+    public RestGamificationRepository(RestTemplate restTemplate, AsyncRestTemplate asyncRestTemplate,
+                                      BotMetrics metrics, Tracer tracer, Bulkheads bulkheads,
+                                      CircuitBreakers circuitBreakers, Retries retries) {
         this.restTemplate = restTemplate;
+        this.asyncRestTemplate = asyncRestTemplate;
+        this.metrics = metrics;
+        this.tracer = tracer;
+        this.bulkhead = bulkheads.get(Bulkheads.GAMIFICATION);
+        this.circuitBreaker = circuitBreakers.get(Bulkheads.GAMIFICATION);
+        this.retries = retries;
     }
 
     @Override
     public String[] saveDailyAchievement(DailyAchievement daily) {
-        logger.debug("Received Daily achievement: [{}]", daily.toString());
+        return saveAchievement("Daily", gamificationSendDailyUrl, daily);
+    }
 
-        HttpEntity<DailyAchievement> request = new HttpEntity<>(daily, Utils.setupJsonHttpHeaders());
-        String[] result;
-        try {
-            logger.debug("Started request to Gamification service. Request is : [{}]", request.toString());
-            ResponseEntity<String[]> response = restTemplate.exchange(gamificationSendDailyUrl,
-                    HttpMethod.POST, request, String[].class);
-            result = response.getBody();
-            logger.debug("Finished request to Gamification service. Response is: [{}]", response.toString());
-        } catch (HttpClientErrorException ex) {
-            ApiError error = Utils.convertToApiError(ex);
-            logger.warn("Gamification service returned an error: [{}]", error);
-            throw new GamificationExchangeException(Utils.convertToApiError(ex), ex);
-        }
+    @Override
+    public String[] saveCodenjoyAchievement(CodenjoyAchievement codenjoy) {
+        return saveAchievement("Codenjoy", gamificationSendCodenjoyUrl, codenjoy);
+    }
 
-        logger.info("Saved Daily achievement: [{}]", Arrays.toString(result));
-        return result;
+    @Override
+    public String[] saveThanksAchievement(ThanksAchievement thanks) {
+        return saveAchievement("Thanks", gamificationSendThanksUrl, thanks);
     }
 
     @Override
-    public String[] saveCodenjoyAchievement(CodenjoyAchievement codenjoy) {
-        logger.debug("Received Codenjoy achievement: [{}]", codenjoy.toString());
+    public String[] saveInterviewAchievement(InterviewAchievement interview) {
+        return saveAchievement("Interview", gamificationSendInterviewUrl, interview);
+    }
 
-        HttpEntity<CodenjoyAchievement> request = new HttpEntity<>(codenjoy, Utils.setupJsonHttpHeaders());
-        String[] result;
+    @Override
+    public CompletableFuture<String[]> saveDailyAchievementAsync(DailyAchievement daily) {
+        return saveAchievementAsync("Daily", gamificationSendDailyUrl, daily);
+    }
 
-        try {
-            logger.debug("Started request to Gamification service. Request is : [{}]", request.toString());
-            ResponseEntity<String[]> response = restTemplate.exchange(gamificationSendCodenjoyUrl,
-                    HttpMethod.POST, request, String[].class);
-            result = response.getBody();
-            logger.debug("Finished request to Gamification service. Response is: [{}]", response.toString());
-        } catch (HttpClientErrorException ex) {
-            ApiError error = Utils.convertToApiError(ex);
-            logger.warn("Gamification service returned an error: [{}]", error);
-            throw new GamificationExchangeException(error, ex);
-        }
-        logger.info("Saved Codenjoy achievements: [{}]", Arrays.toString(result));
-        return result;
+    @Override
+    public CompletableFuture<String[]> saveCodenjoyAchievementAsync(CodenjoyAchievement codenjoy) {
+        return saveAchievementAsync("Codenjoy", gamificationSendCodenjoyUrl, codenjoy);
     }
 
     @Override
-    public String[] saveThanksAchievement(ThanksAchievement thanks) {
-        logger.debug("Received Thanks achievement: [{}]", thanks.toString());
+    public CompletableFuture<String[]> saveThanksAchievementAsync(ThanksAchievement thanks) {
+        return saveAchievementAsync("Thanks", gamificationSendThanksUrl, thanks);
+    }
 
-        HttpEntity<ThanksAchievement> request = new HttpEntity<>(thanks, Utils.setupJsonHttpHeaders());
-        String[] result;
+    @Override
+    public CompletableFuture<String[]> saveInterviewAchievementAsync(InterviewAchievement interview) {
+        return saveAchievementAsync("Interview", gamificationSendInterviewUrl, interview);
+    }
+
+    @Override
+    public String[][] saveAchievementBatch(AchievementBatch batch) {
+        logger.debug("Received batch of {} achievements", batch.getAchievements().size());
+
+        HttpEntity<AchievementBatch> request = new HttpEntity<>(batch, Utils.setupJsonHttpHeaders());
+        String[][] result;
         try {
-            logger.debug("Started request to Gamification service. Request is : [{}]", request.toString());
-            ResponseEntity<String[]> response = restTemplate.exchange(gamificationSendThanksUrl,
-                    HttpMethod.POST, request, String[].class);
+            logger.debug("Started request to Gamification service. Request is : [{}]", LogPayload.of(request));
+            ResponseEntity<String[][]> response = callDownstream("gamification.batch", () ->
+                    restTemplate.exchange(gamificationSendBatchUrl, HttpMethod.POST, request, String[][].class));
             result = response.getBody();
-            logger.debug("Finished request to Gamification service. Response is: [{}]", response.toString());
+            logger.debug("Finished request to Gamification service. Response is: [{}]", LogPayload.of(response));
         } catch (HttpClientErrorException ex) {
             ApiError error = Utils.convertToApiError(ex);
             logger.warn("Gamification service returned an error: [{}]", error);
-            throw new GamificationExchangeException(Utils.convertToApiError(ex), ex);
+            throw new GamificationExchangeException(error, ex);
+        } catch (HttpServerErrorException | ResourceAccessException ex) {
+            logger.warn("Gamification service is not available: [{}]", ex.getMessage());
+            throw new DownstreamUnavailableException(Bulkheads.GAMIFICATION, ex);
         }
 
-        logger.info("Saved Thanks achievements: [{}]", Arrays.toString(result));
+        logger.info("Saved batch of achievements: [{}]", LogPayload.of(result));
         return result;
     }
 
     @Override
-    public String[] saveInterviewAchievement(InterviewAchievement interview) {
-        logger.debug("Received Interview achievement: [{}]", interview.toString());
+    public CompletableFuture<String[][]> saveAchievementBatchAsync(AchievementBatch batch) {
+        logger.debug("Received batch of {} achievements", batch.getAchievements().size());
+
+        HttpEntity<AchievementBatch> request = new HttpEntity<>(batch, Utils.setupJsonHttpHeaders());
+        logger.debug("Started async request to Gamification service. Request is : [{}]", LogPayload.of(request));
+        return callDownstreamAsync("gamification.batch", () -> Utils.toCompletableFuture(
+                asyncRestTemplate.exchange(gamificationSendBatchUrl, HttpMethod.POST, request, String[][].class)))
+                .handle((response, error) -> {
+                    if (error != null) {
+                        throw convertError(error);
+                    }
+                    logger.debug("Finished async request to Gamification service. Response is: [{}]",
+                            LogPayload.of(response));
+                    String[][] result = response.getBody();
+                    logger.info("Saved batch of achievements: [{}]", LogPayload.of(result));
+                    return result;
+                });
+    }
+
+    private <T> String[] saveAchievement(String achievementName, String url, T achievement) {
+        logger.debug("Received {} achievement: [{}]", achievementName, LogPayload.of(achievement));
 
-        HttpEntity<InterviewAchievement> request = new HttpEntity<>(interview, Utils.setupJsonHttpHeaders());
+        String downstream = "gamification." + achievementName.toLowerCase(Locale.ROOT);
+        HttpEntity<T> request = new HttpEntity<>(achievement, Utils.setupJsonHttpHeaders());
         String[] result;
         try {
-            logger.debug("Started request to Gamification service. Request is : [{}]", request.toString());
-            ResponseEntity<String[]> response = restTemplate.exchange(gamificationSendInterviewUrl,
-                    HttpMethod.POST, request, String[].class);
+            logger.debug("Started request to Gamification service. Request is : [{}]", LogPayload.of(request));
+            ResponseEntity<String[]> response = callDownstream(downstream, () ->
+                    restTemplate.exchange(url, HttpMethod.POST, request, String[].class));
             result = response.getBody();
-            logger.debug("Finished request to Gamification service. Response is: [{}]", response.toString());
+            logger.debug("Finished request to Gamification service. Response is: [{}]", LogPayload.of(response));
         } catch (HttpClientErrorException ex) {
             ApiError error = Utils.convertToApiError(ex);
             logger.warn("Gamification service returned an error: [{}]", error);
-            throw new GamificationExchangeException(Utils.convertToApiError(ex), ex);
+            throw new GamificationExchangeException(error, ex);
+        } catch (HttpServerErrorException | ResourceAccessException ex) {
+            logger.warn("Gamification service is not available: [{}]", ex.getMessage());
+            throw new DownstreamUnavailableException(Bulkheads.GAMIFICATION, ex);
         }
 
-        logger.info("Saved Interview achievements: [{}]", Arrays.toString(result));
+        logger.info("Saved {} achievement: [{}]", achievementName, LogPayload.of(result));
         return result;
     }
+
+    private <T> CompletableFuture<String[]> saveAchievementAsync(String achievementName, String url, T achievement) {
+        logger.debug("Received {} achievement: [{}]", achievementName, LogPayload.of(achievement));
+
+        HttpEntity<T> request = new HttpEntity<>(achievement, Utils.setupJsonHttpHeaders());
+        logger.debug("Started async request to Gamification service. Request is : [{}]", LogPayload.of(request));
+        return callDownstreamAsync("gamification." + achievementName.toLowerCase(Locale.ROOT),
+                () -> Utils.toCompletableFuture(asyncRestTemplate.exchange(url, HttpMethod.POST, request,
+                        String[].class)))
+                .handle((response, error) -> {
+                    if (error != null) {
+                        throw convertError(error);
+                    }
+                    logger.debug("Finished async request to Gamification service. Response is: [{}]",
+                            LogPayload.of(response));
+                    String[] result = response.getBody();
+                    logger.info("Saved {} achievement: [{}]", achievementName, LogPayload.of(result));
+                    return result;
+                });
+    }
+
+    /**
+     * Times the request to the downstream service and traces it as a span of the same name. The request is
+     * rejected without being sent when the bulkhead of the service is full or its circuit breaker is open,
+     * it is retried after transient errors. Every attempt is timed.
+     */
+    private <T> T callDownstream(String downstream, Supplier<T> request) {
+        Supplier<T> timedRequest = () -> metrics.timeDownstream(downstream, request);
+        Retry retry = retries.get(downstream);
+        return tracer.trace(downstream,
+                () -> retry.call(() -> bulkhead.call(() -> circuitBreaker.call(timedRequest))));
+    }
+
+    private <T> CompletableFuture<T> callDownstreamAsync(String downstream, Supplier<CompletableFuture<T>> request) {
+        Supplier<CompletableFuture<T>> timedRequest = () -> metrics.timeDownstreamAsync(downstream, request);
+        Retry retry = retries.get(downstream);
+        return tracer.traceAsync(downstream,
+                () -> retry.callAsync(() -> bulkhead.callAsync(() -> circuitBreaker.callAsync(timedRequest))));
+    }
+
+    private RuntimeException convertError(Throwable error) {
+        Throwable cause = Utils.unwrapAsyncError(error);
+        if (cause instanceof HttpClientErrorException) {
+            ApiError apiError = Utils.convertToApiError((HttpClientErrorException) cause);
+            logger.warn("Gamification service returned an error: [{}]", apiError);
+            return new GamificationExchangeException(apiError, (HttpClientErrorException) cause);
+        }
+        if (cause instanceof HttpServerErrorException || cause instanceof ResourceAccessException
+                || cause instanceof IOException) {
+            logger.warn("Gamification service is not available: [{}]", cause.getMessage());
+            return new DownstreamUnavailableException(Bulkheads.GAMIFICATION, cause);
+        }
+        return cause instanceof RuntimeException ? (RuntimeException) cause : new CompletionException(cause);
+    }
 }
\ No newline at end of file
@@ -1,10 +1,20 @@
 package juja.microservices.gamification.slackbot.dao.impl;
 
 import juja.microservices.gamification.slackbot.dao.UserRepository;
+import juja.microservices.gamification.slackbot.concurrent.Bulkhead;
+import juja.microservices.gamification.slackbot.concurrent.CircuitBreaker;
+import juja.microservices.gamification.slackbot.concurrent.Retry;
 import juja.microservices.gamification.slackbot.exceptions.ApiError;
+import juja.microservices.gamification.slackbot.exceptions.DownstreamUnavailableException;
 import juja.microservices.gamification.slackbot.exceptions.UserExchangeException;
+import juja.microservices.gamification.slackbot.http.Bulkheads;
+import juja.microservices.gamification.slackbot.http.CircuitBreakers;
+import juja.microservices.gamification.slackbot.http.Retries;
+import juja.microservices.gamification.slackbot.metrics.BotMetrics;
 import juja.microservices.gamification.slackbot.model.DTO.SlackNameRequest;
 import juja.microservices.gamification.slackbot.model.DTO.UserDTO;
+import juja.microservices.gamification.slackbot.tracing.Tracer;
+import juja.microservices.gamification.slackbot.util.LogPayload;
 import juja.microservices.gamification.slackbot.util.Utils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -13,12 +23,19 @@ import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Repository;
+import org.springframework.web.client.AsyncRestTemplate;
 import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 
 import javax.inject.Inject;
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
 
 /**
  * @author Artem
@@ -27,7 +44,15 @@ import java.util.List;
 @Repository
 public class RestUserRepository implements UserRepository {
 
+    private static final String DOWNSTREAM = "users";
+
     private final RestTemplate restTemplate;
+    private final AsyncRestTemplate asyncRestTemplate;
+    private final BotMetrics metrics;
+    private final Tracer tracer;
+    private final Bulkhead bulkhead;
+    private final CircuitBreaker circuitBreaker;
+    private final Retries retries;
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
 
     @Value("${users.endpoint.usersBySlackNames}")
@@ -35,14 +60,63 @@ public class RestUserRepository implements UserRepository {
 
 
     @Inject
-    public RestUserRepository(RestTemplate restTemplate) {
+    public RestUserRepository(RestTemplate restTemplate, AsyncRestTemplate asyncRestTemplate, BotMetrics metrics,
+                              Tracer tracer, Bulkheads bulkheads,
+                              CircuitBreakers circuitBreakers, Retries retries) {
         this.restTemplate = restTemplate;
+        this.asyncRestTemplate = asyncRestTemplate;
+        this.metrics = metrics;
+        this.tracer = tracer;
+        this.bulkhead = bulkheads.get(Bulkheads.USERS);
+        this.circuitBreaker = circuitBreakers.get(Bulkheads.USERS);
+        this.retries = retries;
     }
 
     @Override
     public List<UserDTO> findUsersBySlackNames(List<String> slackNames) {
-        logger.debug("Received SlackNames : [{}]", slackNames);
+        logger.debug("Received SlackNames : [{}]", LogPayload.of(slackNames));
+        HttpEntity<SlackNameRequest> request = createRequest(slackNames);
+
+        List<UserDTO> result;
+        try {
+            logger.debug("Started request to Users service. Request is : [{}]", LogPayload.of(request));
+            ResponseEntity<UserDTO[]> response = callDownstream(DOWNSTREAM, () -> restTemplate.exchange(
+                    usersFindUsersBySlackNamesUrl, HttpMethod.POST, request, UserDTO[].class));
+            logger.debug("Finished request to Users service. Response is: [{}]", LogPayload.of(response));
+            result = Arrays.asList(response.getBody());
+        } catch (HttpClientErrorException ex) {
+            ApiError error = Utils.convertToApiError(ex);
+            logger.warn("Users service returned an error: [{}]", error);
+            throw new UserExchangeException(error, ex);
+        } catch (HttpServerErrorException | ResourceAccessException ex) {
+            logger.warn("Users service is not available: [{}]", ex.getMessage());
+            throw new DownstreamUnavailableException(Bulkheads.USERS, ex);
+        }
+
+        logger.info("Got UserDTO:{} by users: {}", LogPayload.of(result), LogPayload.of(slackNames));
+        return result;
+    }
+
+    @Override
+    public CompletableFuture<List<UserDTO>> findUsersBySlackNamesAsync(List<String> slackNames) {
+        logger.debug("Received SlackNames : [{}]", LogPayload.of(slackNames));
+        HttpEntity<SlackNameRequest> request = createRequest(slackNames);
+
+        logger.debug("Started async request to Users service. Request is : [{}]", LogPayload.of(request));
+        return callDownstreamAsync(DOWNSTREAM, () -> Utils.toCompletableFuture(asyncRestTemplate.exchange(
+                usersFindUsersBySlackNamesUrl, HttpMethod.POST, request, UserDTO[].class)))
+                .handle((response, error) -> {
+                    if (error != null) {
+                        throw convertError(error);
+                    }
+                    logger.debug("Finished async request to Users service. Response is: [{}]", LogPayload.of(response));
+                    List<UserDTO> result = Arrays.asList(response.getBody());
+                    logger.info("Got UserDTO:{} by users: {}", LogPayload.of(result), LogPayload.of(slackNames));
+                    return result;
+                });
+    }
 
+    private HttpEntity<SlackNameRequest> createRequest(List<String> slackNames) {
         for (int i = 0; i < slackNames.size(); i++) {
             if (!slackNames.get(i).startsWith("@")) {
                 logger.debug("add '@' to SlackName : [{}]", slackNames.get(i));
@@ -52,22 +126,40 @@ public class RestUserRepository implements UserRepository {
         }
 
         SlackNameRequest slackNameRequest = new SlackNameRequest(slackNames);
-        HttpEntity<SlackNameRequest> request = new HttpEntity<>(slackNameRequest, Utils.setupJsonHttpHeaders());
+        return new HttpEntity<>(slackNameRequest, Utils.setupJsonHttpHeaders());
+    }
 
-        List<UserDTO> result;
-        try {
-            logger.debug("Started request to Users service. Request is : [{}]", request.toString());
-            ResponseEntity<UserDTO[]> response = restTemplate.exchange(usersFindUsersBySlackNamesUrl,
-                    HttpMethod.POST, request, UserDTO[].class);
-            logger.debug("Finished request to Users service. Response is: [{}]", response.toString());
-            result = Arrays.asList(response.getBody());
-        } catch (HttpClientErrorException ex) {
-            ApiError error = Utils.convertToApiError(ex);
-            logger.warn("Users service returned an error: [{}]", error);
-            throw new UserExchangeException(error, ex);
-        }
+    /**
+     * Times the request to the downstream service and traces it as a span of the same name. The request is
+     * rejected without being sent when the bulkhead of the service is full or its circuit breaker is open,
+     * it is retried after transient errors. Every attempt is timed.
+     */
+    private <T> T callDownstream(String downstream, Supplier<T> request) {
+        Supplier<T> timedRequest = () -> metrics.timeDownstream(downstream, request);
+        Retry retry = retries.get(downstream);
+        return tracer.trace(downstream,
+                () -> retry.call(() -> bulkhead.call(() -> circuitBreaker.call(timedRequest))));
+    }
 
-        logger.info("Got UserDTO:{} by users: {}", result, slackNames);
-        return result;
+    private <T> CompletableFuture<T> callDownstreamAsync(String downstream, Supplier<CompletableFuture<T>> request) {
+        Supplier<CompletableFuture<T>> timedRequest = () -> metrics.timeDownstreamAsync(downstream, request);
+        Retry retry = retries.get(downstream);
+        return tracer.traceAsync(downstream,
+                () -> retry.callAsync(() -> bulkhead.callAsync(() -> circuitBreaker.callAsync(timedRequest))));
+    }
+
+    private RuntimeException convertError(Throwable error) {
+        Throwable cause = Utils.unwrapAsyncError(error);
+        if (cause instanceof HttpClientErrorException) {
+            ApiError apiError = Utils.convertToApiError((HttpClientErrorException) cause);
+            logger.warn("Users service returned an error: [{}]", apiError);
+            return new UserExchangeException(apiError, (HttpClientErrorException) cause);
+        }
+        if (cause instanceof HttpServerErrorException || cause instanceof ResourceAccessException
+                || cause instanceof IOException) {
+            logger.warn("Users service is not available: [{}]", cause.getMessage());
+            return new DownstreamUnavailableException(Bulkheads.USERS, cause);
+        }
+        return cause instanceof RuntimeException ? (RuntimeException) cause : new CompletionException(cause);
     }
 }
\ No newline at end of file
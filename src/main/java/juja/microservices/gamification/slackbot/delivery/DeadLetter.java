@@ -0,0 +1,37 @@
+package juja.microservices.gamification.slackbot.delivery;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Getter;
+import lombok.ToString;
+import me.ramswaroop.jbot.core.slack.models.RichMessage;
+
+/**
+ * Delayed response which was not delivered to slack
+ */
+@Getter
+@ToString(exclude = "responseUrl")
+public class DeadLetter {
+    private final long id;
+    /**
+     * Anyone who has the response_url can post to the channel, it is never serialized nor logged
+     */
+    @JsonIgnore
+    private final String responseUrl;
+    private final RichMessage message;
+    /**
+     * When the response was queued for the first time (epoch ms), its response_url expires from then
+     */
+    private final long createdAt;
+    private final long failedAt;
+    private final String error;
+
+    public DeadLetter(long id, String responseUrl, RichMessage message, long createdAt, long failedAt,
+                      String error) {
+        this.id = id;
+        this.responseUrl = responseUrl;
+        this.message = message;
+        this.createdAt = createdAt;
+        this.failedAt = failedAt;
+        this.error = error;
+    }
+}
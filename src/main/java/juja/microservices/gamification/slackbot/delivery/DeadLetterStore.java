@@ -0,0 +1,72 @@
+package juja.microservices.gamification.slackbot.delivery;
+
+import juja.microservices.gamification.slackbot.util.LogPayload;
+import me.ramswaroop.jbot.core.slack.models.RichMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the last maxSize responses which were not delivered to slack, in memory: a response_url is valid for
+ * 30 minutes only, a dead letter which outlives the bot could not be replayed anyway. When the store is full
+ * the oldest dead letter is dropped.
+ */
+@Component
+public class DeadLetterStore {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+    private final int maxSize;
+    private final Map<Long, DeadLetter> deadLetters = new LinkedHashMap<>();
+    private long lastId;
+    private long droppedCount;
+
+    @Inject
+    public DeadLetterStore(@Value("${gamification.slackbot.delivery.deadLetters.maxSize}") int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public synchronized DeadLetter add(String responseUrl, RichMessage message, long createdAt, Throwable error) {
+        if (deadLetters.size() >= maxSize) {
+            Iterator<DeadLetter> oldest = deadLetters.values().iterator();
+            DeadLetter dropped = oldest.next();
+            oldest.remove();
+            droppedCount++;
+            logger.warn("Dead letter store is full, dropped dead letter {} with text '{}'", dropped.getId(),
+                    LogPayload.of(dropped.getMessage().getText()));
+        }
+        DeadLetter deadLetter = new DeadLetter(++lastId, responseUrl, message, createdAt,
+                System.currentTimeMillis(), error.getClass().getSimpleName() + ": " + error.getMessage());
+        deadLetters.put(deadLetter.getId(), deadLetter);
+        return deadLetter;
+    }
+
+    /**
+     * @return null if there is no dead letter with the id
+     */
+    public synchronized DeadLetter remove(long id) {
+        return deadLetters.remove(id);
+    }
+
+    /**
+     * @return dead letters from the oldest one
+     */
+    public synchronized List<DeadLetter> getDeadLetters() {
+        return new ArrayList<>(deadLetters.values());
+    }
+
+    public synchronized int size() {
+        return deadLetters.size();
+    }
+
+    public synchronized long getDroppedCount() {
+        return droppedCount;
+    }
+}
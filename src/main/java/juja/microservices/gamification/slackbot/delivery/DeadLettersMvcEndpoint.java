@@ -0,0 +1,69 @@
+package juja.microservices.gamification.slackbot.delivery;
+
+import org.springframework.boot.actuate.endpoint.mvc.AbstractMvcEndpoint;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Management endpoint of the undelivered slack responses: GET /deadLetters lists them by id without their
+ * response_url, POST /deadLetters/{id}/replay delivers one of them again and POST /deadLetters/replay all of them.
+ * Disabled unless endpoints.deadLetters.enabled is set. The endpoint is sensitive, it is served only to
+ * authenticated users of the management port.
+ */
+@ConfigurationProperties(prefix = "endpoints.deadLetters")
+public class DeadLettersMvcEndpoint extends AbstractMvcEndpoint {
+
+    private final DeadLetterStore deadLetters;
+    private final SlackDelivery slackDelivery;
+
+    public DeadLettersMvcEndpoint(DeadLetterStore deadLetters, SlackDelivery slackDelivery) {
+        super("/deadLetters", true);
+        this.deadLetters = deadLetters;
+        this.slackDelivery = slackDelivery;
+    }
+
+    @GetMapping
+    @ResponseBody
+    public ResponseEntity<?> list() {
+        if (!isEnabled()) {
+            return DISABLED_RESPONSE;
+        }
+        Map<Long, DeadLetter> byId = new LinkedHashMap<>();
+        for (DeadLetter deadLetter : deadLetters.getDeadLetters()) {
+            byId.put(deadLetter.getId(), deadLetter);
+        }
+        return ResponseEntity.ok(byId);
+    }
+
+    @PostMapping("/{id}/replay")
+    @ResponseBody
+    public ResponseEntity<?> replay(@PathVariable long id) {
+        if (!isEnabled()) {
+            return DISABLED_RESPONSE;
+        }
+        return slackDelivery.replay(id) ? ResponseEntity.accepted().build() : ResponseEntity.notFound().build();
+    }
+
+    @PostMapping("/replay")
+    @ResponseBody
+    public ResponseEntity<?> replayAll() {
+        if (!isEnabled()) {
+            return DISABLED_RESPONSE;
+        }
+        int replayed = 0;
+        for (DeadLetter deadLetter : deadLetters.getDeadLetters()) {
+            if (slackDelivery.replay(deadLetter.getId())) {
+                replayed++;
+            }
+        }
+        return ResponseEntity.accepted().body(Collections.singletonMap("replayed", replayed));
+    }
+}
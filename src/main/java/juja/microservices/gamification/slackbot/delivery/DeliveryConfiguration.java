@@ -0,0 +1,17 @@
+package juja.microservices.gamification.slackbot.delivery;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Management endpoint of the slack delivery. It is declared here and not scanned as a component, web mvc
+ * test slices pick up every mvc endpoint they scan
+ */
+@Configuration
+public class DeliveryConfiguration {
+
+    @Bean
+    public DeadLettersMvcEndpoint deadLettersMvcEndpoint(DeadLetterStore deadLetters, SlackDelivery slackDelivery) {
+        return new DeadLettersMvcEndpoint(deadLetters, slackDelivery);
+    }
+}
@@ -0,0 +1,34 @@
+package juja.microservices.gamification.slackbot.delivery;
+
+import me.ramswaroop.jbot.core.slack.models.RichMessage;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Delivers delayed responses to the slack response_url in background, the caller never waits for slack.
+ * A response which can't be delivered is kept in the {@link DeadLetterStore}.
+ */
+public interface SlackDelivery {
+
+    /**
+     * Queues the message for the response_url
+     *
+     * @return future which is completed when slack accepted the message, or exceptionally with the last error
+     * when the message became a dead letter
+     */
+    CompletableFuture<Void> deliver(String responseUrl, RichMessage message);
+
+    /**
+     * Remembers the workspace and the channel of the response_url until it expires. Responses to one channel
+     * share its slack rate limit, a response_url which is not registered gets a rate limit of its own.
+     */
+    void register(String responseUrl, String teamId, String channelId);
+
+    /**
+     * Takes the dead letter out of the store and delivers it again. Its response_url expires at the same time
+     * as before.
+     *
+     * @return false if there is no dead letter with the id
+     */
+    boolean replay(long deadLetterId);
+}
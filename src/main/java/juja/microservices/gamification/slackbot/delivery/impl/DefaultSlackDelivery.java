@@ -0,0 +1,220 @@
+package juja.microservices.gamification.slackbot.delivery.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import juja.microservices.gamification.slackbot.concurrent.BoundedExecutor;
+import juja.microservices.gamification.slackbot.concurrent.RateLimiter;
+import juja.microservices.gamification.slackbot.concurrent.Retry;
+import juja.microservices.gamification.slackbot.concurrent.ThreadPoolBoundedExecutor;
+import juja.microservices.gamification.slackbot.delivery.DeadLetter;
+import juja.microservices.gamification.slackbot.delivery.DeadLetterStore;
+import juja.microservices.gamification.slackbot.delivery.SlackDelivery;
+import juja.microservices.gamification.slackbot.http.Retries;
+import juja.microservices.gamification.slackbot.metrics.BotMetrics;
+import juja.microservices.gamification.slackbot.tracing.Tracer;
+import juja.microservices.gamification.slackbot.util.LogPayload;
+import juja.microservices.gamification.slackbot.util.Utils;
+import me.ramswaroop.jbot.core.slack.models.RichMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.RestTemplate;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import javax.inject.Named;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Posts delayed responses with the slack client on a pool of delivery workers. Failed posts are retried by the
+ * slack {@link Retry} until the response_url expires, then the response becomes a dead letter. A full worker
+ * queue turns the response into a dead letter at once.
+ * <p>
+ * Every post waits for a permit of the {@link RateLimiter} of its channel, the response which expires first
+ * is posted first. A post which slack refuses with 429 pauses the channel for the Retry-After time and waits
+ * for a permit again, it is not counted as a retry.
+ */
+@Service
+public class DefaultSlackDelivery implements SlackDelivery {
+
+    private static final String SLACK = "slack";
+    private static final String EXPIRED_MESSAGE = "The response_url has expired";
+    private static final long DEFAULT_RETRY_AFTER_MILLIS = 1000;
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+    private final RestTemplate restTemplate;
+    private final BoundedExecutor workers;
+    private final Retry retry;
+    private final RateLimiter rateLimiter;
+    private final Cache<String, String> channels;
+    private final DeadLetterStore deadLetters;
+    private final BotMetrics metrics;
+    private final Tracer tracer;
+    private final long responseUrlValidityMillis;
+
+    @Inject
+    public DefaultSlackDelivery(@Named("slackRestTemplate") RestTemplate restTemplate,
+                                Retries retries,
+                                DeadLetterStore deadLetters,
+                                BotMetrics metrics,
+                                Tracer tracer,
+                                @Value("${gamification.slackbot.delivery.workers}") int workers,
+                                @Value("${gamification.slackbot.delivery.queueCapacity}") int queueCapacity,
+                                @Value("${gamification.slackbot.delivery.responseUrlValidity}")
+                                        long responseUrlValidityMillis,
+                                @Value("${gamification.slackbot.delivery.rateLimit.rate}") double rate,
+                                @Value("${gamification.slackbot.delivery.rateLimit.burst}") int burst) {
+        this.restTemplate = restTemplate;
+        this.workers = new ThreadPoolBoundedExecutor("slack-delivery", workers, workers, queueCapacity);
+        this.retry = retries.get(SLACK);
+        this.rateLimiter = new RateLimiter(SLACK, rate, burst, queueCapacity);
+        this.channels = Caffeine.newBuilder()
+                .maximumSize(queueCapacity)
+                .expireAfterWrite(responseUrlValidityMillis, TimeUnit.MILLISECONDS)
+                .build();
+        this.deadLetters = deadLetters;
+        this.metrics = metrics;
+        this.tracer = tracer;
+        this.responseUrlValidityMillis = responseUrlValidityMillis;
+    }
+
+    @Override
+    public CompletableFuture<Void> deliver(String responseUrl, RichMessage message) {
+        return send(responseUrl, message, System.currentTimeMillis());
+    }
+
+    @Override
+    public void register(String responseUrl, String teamId, String channelId) {
+        if (channelId != null) {
+            channels.put(responseUrl, Objects.toString(teamId, "") + "/" + channelId);
+        }
+    }
+
+    @Override
+    public boolean replay(long deadLetterId) {
+        DeadLetter deadLetter = deadLetters.remove(deadLetterId);
+        if (deadLetter == null) {
+            return false;
+        }
+        logger.info("Replaying dead letter {} to slack", deadLetterId);
+        send(deadLetter.getResponseUrl(), deadLetter.getMessage(), deadLetter.getCreatedAt());
+        return true;
+    }
+
+    public BoundedExecutor getWorkers() {
+        return workers;
+    }
+
+    public RateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rateLimiter.shutdown();
+        workers.shutdown();
+    }
+
+    private CompletableFuture<Void> send(String responseUrl, RichMessage message, long createdAt) {
+        long expiresAt = createdAt + responseUrlValidityMillis;
+        logger.debug("Queueing delayed response message '{}' to slack", LogPayload.of(message));
+        CompletableFuture<Void> delivered = new CompletableFuture<>();
+        tracer.traceAsync("slack.response", () -> retry.callAsync(() -> post(responseUrl, message, expiresAt)))
+                .whenComplete((response, error) -> {
+                    if (error == null) {
+                        metrics.deliveryCompleted(true);
+                        logger.debug("After sending delayed response message. Response is '{}'", response);
+                        delivered.complete(null);
+                        return;
+                    }
+                    Throwable cause = Utils.unwrapAsyncError(error);
+                    DeadLetter deadLetter = deadLetters.add(responseUrl, message, createdAt, cause);
+                    metrics.deliveryCompleted(false);
+                    logger.warn("Unable to send response with text '{}' to slack: {}. Kept as dead letter {}",
+                            LogPayload.of(message.getText()), LogPayload.of(cause.getMessage()), deadLetter.getId());
+                    delivered.completeExceptionally(cause);
+                });
+        return delivered;
+    }
+
+    /**
+     * One attempt on a delivery worker after a permit of the rate limiter. An expired response_url is not posted,
+     * slack would reject it anyway
+     */
+    private CompletableFuture<String> post(String responseUrl, RichMessage message, long expiresAt) {
+        CompletableFuture<String> response = new CompletableFuture<>();
+        if (System.currentTimeMillis() >= expiresAt) {
+            response.completeExceptionally(new IllegalStateException(EXPIRED_MESSAGE));
+            return response;
+        }
+        String channel = channels.getIfPresent(responseUrl);
+        // the rate limiter logs its keys, so a response_url of an unknown channel is not used as the key itself
+        String rateLimitKey = channel == null ? "url-" + Integer.toHexString(responseUrl.hashCode()) : channel;
+        Runnable attempt = tracer.wrap(() -> {
+            try {
+                response.complete(metrics.timeDownstream(SLACK,
+                        () -> restTemplate.postForObject(responseUrl, message, String.class)));
+            } catch (HttpClientErrorException ex) {
+                if (ex.getStatusCode() != HttpStatus.TOO_MANY_REQUESTS) {
+                    response.completeExceptionally(ex);
+                    return;
+                }
+                long retryAfter = retryAfterMillis(ex);
+                logger.debug("Slack rate limited '{}', posting again in {} ms", rateLimitKey, retryAfter);
+                metrics.deliveryThrottled();
+                rateLimiter.throttle(rateLimitKey, retryAfter);
+                post(responseUrl, message, expiresAt).whenComplete((value, error) -> {
+                    if (error == null) {
+                        response.complete(value);
+                    } else {
+                        response.completeExceptionally(error);
+                    }
+                });
+            } catch (RuntimeException ex) {
+                response.completeExceptionally(ex);
+            }
+        });
+        rateLimiter.acquire(rateLimitKey, expiresAt).whenComplete((permit, error) -> {
+            if (error != null) {
+                response.completeExceptionally(error instanceof TimeoutException
+                        ? new IllegalStateException(EXPIRED_MESSAGE) : error);
+                return;
+            }
+            try {
+                workers.execute(attempt);
+            } catch (RejectedExecutionException ex) {
+                response.completeExceptionally(ex);
+            }
+        });
+        return response;
+    }
+
+    /**
+     * Slack sends the delay in seconds, a missing or unreadable Retry-After header is taken as one second
+     */
+    private static long retryAfterMillis(HttpStatusCodeException ex) {
+        HttpHeaders headers = ex.getResponseHeaders();
+        String retryAfter = headers == null ? null : headers.getFirst(HttpHeaders.RETRY_AFTER);
+        if (retryAfter == null) {
+            return DEFAULT_RETRY_AFTER_MILLIS;
+        }
+        try {
+            return TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter.trim()));
+        } catch (NumberFormatException notSeconds) {
+            try {
+                return Math.max(0, headers.getFirstDate(HttpHeaders.RETRY_AFTER) - System.currentTimeMillis());
+            } catch (IllegalArgumentException notDate) {
+                return DEFAULT_RETRY_AFTER_MILLIS;
+            }
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package juja.microservices.gamification.slackbot.exceptions;
+
+public class BulkheadFullException extends RuntimeException {
+    public BulkheadFullException(String dependency) {
+        super(String.format("Sorry, the %s service is busy right now. Please try again later.", dependency));
+    }
+}
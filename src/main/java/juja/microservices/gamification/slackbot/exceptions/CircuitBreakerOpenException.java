@@ -0,0 +1,8 @@
+package juja.microservices.gamification.slackbot.exceptions;
+
+public class CircuitBreakerOpenException extends RuntimeException {
+    public CircuitBreakerOpenException(String dependency) {
+        super(String.format("Sorry, the %s service is not available right now. Please try again in a few minutes.",
+                dependency));
+    }
+}
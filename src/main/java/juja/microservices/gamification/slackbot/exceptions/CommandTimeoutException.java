@@ -0,0 +1,8 @@
+package juja.microservices.gamification.slackbot.exceptions;
+
+public class CommandTimeoutException extends RuntimeException {
+    public CommandTimeoutException(String commandName) {
+        super(String.format("Sorry, your %s command took too long and was cancelled. Please try again later.",
+                commandName.toLowerCase()));
+    }
+}
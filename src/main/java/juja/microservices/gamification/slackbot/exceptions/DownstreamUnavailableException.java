@@ -0,0 +1,11 @@
+package juja.microservices.gamification.slackbot.exceptions;
+
+/**
+ * The service answered 5xx or didn't answer at all
+ */
+public class DownstreamUnavailableException extends RuntimeException {
+    public DownstreamUnavailableException(String dependency, Throwable cause) {
+        super(String.format("Sorry, the %s service is not responding right now. Please try again later.",
+                dependency), cause);
+    }
+}
@@ -1,11 +1,13 @@
 package juja.microservices.gamification.slackbot.exceptions;
 
+import juja.microservices.gamification.slackbot.delivery.SlackDelivery;
+import juja.microservices.gamification.slackbot.metrics.BotMetrics;
+import juja.microservices.gamification.slackbot.util.LogPayload;
 import me.ramswaroop.jbot.core.slack.models.RichMessage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
-import org.springframework.web.client.RestTemplate;
 
 import javax.inject.Inject;
 
@@ -14,50 +16,95 @@ import javax.inject.Inject;
  */
 @RestControllerAdvice
 public class ExceptionsHandler {
-    private RestTemplate restTemplate;
+    private final SlackDelivery slackDelivery;
+    private final BotMetrics metrics;
 
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
     private ThreadLocal<String> responseUrl = new ThreadLocal<>();
 
     @Inject
-    public ExceptionsHandler(RestTemplate restTemplate) {
-        this.restTemplate = restTemplate;
+    public ExceptionsHandler(SlackDelivery slackDelivery, BotMetrics metrics) {
+        this.slackDelivery = slackDelivery;
+        this.metrics = metrics;
     }
 
     @ExceptionHandler(Exception.class)
     public void handleAllOtherExceptions(Exception ex) {
-        logger.warn("Other Exception': {}", ex.getMessage());
+        logger.warn("Other Exception': {}", LogPayload.of(ex.getMessage()));
+        metrics.errorHandled("other");
         sendErrorResponseAsRichMessage(new RichMessage(ex.getMessage()));
     }
 
     @ExceptionHandler(WrongCommandFormatException.class)
     public void handleWrongCommandFormatException(Exception ex) {
-        logger.warn("WrongCommandFormatException: {}", ex.getMessage());
+        logger.warn("WrongCommandFormatException: {}", LogPayload.of(ex.getMessage()));
+        metrics.errorHandled("wrongCommandFormat");
         sendErrorResponseAsRichMessage(new RichMessage(ex.getMessage()));
     }
 
     @ExceptionHandler(UserExchangeException.class)
     public void handleUserExchangeException(UserExchangeException ex) {
-        logger.warn("UserExchangeException: {}", ex.detailMessage());
+        logger.warn("UserExchangeException: {}", LogPayload.of(ex.detailMessage()));
+        metrics.errorHandled("userExchange");
         sendErrorResponseAsRichMessage(new RichMessage(ex.getMessage()));
     }
 
     @ExceptionHandler(GamificationExchangeException.class)
     public void handleGamificationExchangeException(GamificationExchangeException ex) {
-        logger.warn("GamificationExchangeException : {}", ex.detailMessage());
+        logger.warn("GamificationExchangeException : {}", LogPayload.of(ex.detailMessage()));
+        metrics.errorHandled("gamificationExchange");
         sendErrorResponseAsRichMessage(new RichMessage(ex.getMessage()));
     }
 
-    public void setResponseUrl(String responseUrl) {
+    @ExceptionHandler(CircuitBreakerOpenException.class)
+    public void handleCircuitBreakerOpenException(CircuitBreakerOpenException ex) {
+        logger.warn("CircuitBreakerOpenException: {}", LogPayload.of(ex.getMessage()));
+        metrics.errorHandled("circuitOpen");
+        sendErrorResponseAsRichMessage(new RichMessage(ex.getMessage()));
+    }
+
+    @ExceptionHandler(DownstreamUnavailableException.class)
+    public void handleDownstreamUnavailableException(DownstreamUnavailableException ex) {
+        logger.warn("DownstreamUnavailableException: {}, cause: {}", LogPayload.of(ex.getMessage()),
+                LogPayload.of(ex.getCause() == null ? null : ex.getCause().getMessage()));
+        metrics.errorHandled("downstreamUnavailable");
+        sendErrorResponseAsRichMessage(new RichMessage(ex.getMessage()));
+    }
+
+    /**
+     * Handles an exception which was thrown outside of the request thread, for example in the command pipeline
+     */
+    public void handleException(Exception ex, String responseUrl) {
         this.responseUrl.set(responseUrl);
+        try {
+            if (ex instanceof WrongCommandFormatException) {
+                handleWrongCommandFormatException(ex);
+            } else if (ex instanceof UserExchangeException) {
+                handleUserExchangeException((UserExchangeException) ex);
+            } else if (ex instanceof GamificationExchangeException) {
+                handleGamificationExchangeException((GamificationExchangeException) ex);
+            } else if (ex instanceof CircuitBreakerOpenException) {
+                handleCircuitBreakerOpenException((CircuitBreakerOpenException) ex);
+            } else if (ex instanceof DownstreamUnavailableException) {
+                handleDownstreamUnavailableException((DownstreamUnavailableException) ex);
+            } else {
+                handleAllOtherExceptions(ex);
+            }
+        } finally {
+            this.responseUrl.remove();
+        }
     }
 
+    /**
+     * The error response is queued to the slack delivery, a response which can't be sent becomes a dead letter.
+     * An error of the request itself, like a missing parameter, has no response_url to answer to.
+     */
     private void sendErrorResponseAsRichMessage(RichMessage richMessage) {
-        try {
-            restTemplate.postForObject(responseUrl.get(), richMessage, String.class);
-        } catch (Exception ex) {
-            logger.warn("Nested exception : '{}' with text '{}' . Unable to send response to slack", ex.getMessage(),
-                    richMessage.getText());
+        String url = responseUrl.get();
+        if (url == null) {
+            logger.warn("No response_url to send error response '{}' to slack", LogPayload.of(richMessage.getText()));
+            return;
         }
+        slackDelivery.deliver(url, richMessage);
     }
 }
\ No newline at end of file
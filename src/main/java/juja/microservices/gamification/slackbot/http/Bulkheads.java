@@ -0,0 +1,57 @@
+package juja.microservices.gamification.slackbot.http;
+
+import juja.microservices.gamification.slackbot.concurrent.Bulkhead;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bulkheads of the downstream services, one per dependency: users and gamification. The limits are
+ * gamification.slackbot.http.{dependency}.maxConcurrent and .maxWait (ms). Slack responses are limited
+ * by the workers of the slack delivery.
+ */
+@Component
+public class Bulkheads {
+
+    public static final String USERS = "users";
+    public static final String GAMIFICATION = "gamification";
+
+    private static final String PROPERTY = "gamification.slackbot.http.";
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+    private final Map<String, Bulkhead> bulkheads = new LinkedHashMap<>();
+
+    @Inject
+    public Bulkheads(Environment environment) {
+        for (String dependency : new String[]{USERS, GAMIFICATION}) {
+            String prefix = PROPERTY + dependency;
+            int maxConcurrent = environment.getRequiredProperty(prefix + ".maxConcurrent", Integer.class);
+            long maxWait = environment.getRequiredProperty(prefix + ".maxWait", Long.class);
+            bulkheads.put(dependency, new Bulkhead(dependency, maxConcurrent, maxWait));
+            logger.info("Bulkhead for {}: max {} concurrent calls, max wait {} ms", dependency, maxConcurrent, maxWait);
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException if there is no bulkhead for the dependency
+     */
+    public Bulkhead get(String dependency) {
+        Bulkhead bulkhead = bulkheads.get(dependency);
+        if (bulkhead == null) {
+            throw new IllegalArgumentException("Unknown dependency: " + dependency);
+        }
+        return bulkhead;
+    }
+
+    public Collection<Bulkhead> getBulkheads() {
+        return Collections.unmodifiableCollection(new ArrayList<>(bulkheads.values()));
+    }
+}
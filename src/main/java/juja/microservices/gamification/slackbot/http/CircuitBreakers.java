@@ -0,0 +1,74 @@
+package juja.microservices.gamification.slackbot.http;
+
+import juja.microservices.gamification.slackbot.concurrent.CircuitBreaker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Circuit breakers of the users and the gamification services. The settings are
+ * gamification.slackbot.circuitBreaker.*, a dependency overrides them with
+ * gamification.slackbot.http.{dependency}.circuitBreaker.*
+ * <p>
+ * A 4xx response means the service is up and rejected the request, so it is not a failure. 5xx responses,
+ * timeouts and other i/o errors are.
+ */
+@Component
+public class CircuitBreakers {
+
+    private static final String PROPERTY = "gamification.slackbot.circuitBreaker.";
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+    private final Environment environment;
+    private final Map<String, CircuitBreaker> circuitBreakers = new LinkedHashMap<>();
+
+    @Inject
+    public CircuitBreakers(Environment environment) {
+        this.environment = environment;
+        for (String dependency : new String[]{Bulkheads.USERS, Bulkheads.GAMIFICATION}) {
+            CircuitBreaker circuitBreaker = new CircuitBreaker(dependency,
+                    property(dependency, "windowSize"),
+                    property(dependency, "minimumCalls"),
+                    property(dependency, "failureRateThreshold"),
+                    property(dependency, "slowCallDuration"),
+                    property(dependency, "slowCallRateThreshold"),
+                    property(dependency, "openDuration"),
+                    property(dependency, "halfOpenCalls"),
+                    error -> !(error instanceof HttpClientErrorException));
+            circuitBreakers.put(dependency, circuitBreaker);
+            logger.info("Circuit breaker for {}: window {} calls, opens at {}% failed or {}% slower than {} ms",
+                    dependency, property(dependency, "windowSize"), property(dependency, "failureRateThreshold"),
+                    property(dependency, "slowCallRateThreshold"), property(dependency, "slowCallDuration"));
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException if there is no circuit breaker for the dependency
+     */
+    public CircuitBreaker get(String dependency) {
+        CircuitBreaker circuitBreaker = circuitBreakers.get(dependency);
+        if (circuitBreaker == null) {
+            throw new IllegalArgumentException("Unknown dependency: " + dependency);
+        }
+        return circuitBreaker;
+    }
+
+    public Collection<CircuitBreaker> getCircuitBreakers() {
+        return Collections.unmodifiableCollection(new ArrayList<>(circuitBreakers.values()));
+    }
+
+    private int property(String dependency, String name) {
+        Integer value = environment.getProperty(
+                "gamification.slackbot.http." + dependency + ".circuitBreaker." + name, Integer.class);
+        return value != null ? value : environment.getRequiredProperty(PROPERTY + name, Integer.class);
+    }
+}
@@ -0,0 +1,52 @@
+package juja.microservices.gamification.slackbot.http;
+
+import org.apache.http.HttpHost;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.protocol.HttpContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.HttpComponentsAsyncClientHttpRequestFactory;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Request factory of the blocking and the non-blocking client which applies the timeouts of the downstream
+ * a request is sent to. Requests to other hosts get the default request config of the clients.
+ */
+public class DownstreamHttpRequestFactory extends HttpComponentsAsyncClientHttpRequestFactory {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+    private final Map<HttpHost, RequestConfig> requestConfigs = new HashMap<>();
+
+    public DownstreamHttpRequestFactory(CloseableHttpClient httpClient, CloseableHttpAsyncClient httpAsyncClient) {
+        super(httpClient, httpAsyncClient);
+    }
+
+    /**
+     * Sets the timeouts for the host of the url, at start before the clients send requests
+     */
+    public void addDownstream(String name, String url, RequestConfig requestConfig) {
+        HttpHost host = HttpConnectionPools.toRoute(url).getTargetHost();
+        requestConfigs.put(host, requestConfig);
+        logger.info("Http timeouts for {} [{}]: connect {} ms, read {} ms, pool {} ms", name, host,
+                requestConfig.getConnectTimeout(), requestConfig.getSocketTimeout(),
+                requestConfig.getConnectionRequestTimeout());
+    }
+
+    @Override
+    protected HttpContext createHttpContext(HttpMethod httpMethod, URI uri) {
+        RequestConfig requestConfig = requestConfigs.get(HttpConnectionPools.toRoute(uri).getTargetHost());
+        if (requestConfig == null) {
+            return null;
+        }
+        HttpClientContext context = HttpClientContext.create();
+        context.setRequestConfig(requestConfig);
+        return context;
+    }
+}
@@ -0,0 +1,190 @@
+package juja.microservices.gamification.slackbot.http;
+
+import juja.microservices.gamification.slackbot.tracing.Tracer;
+import juja.microservices.gamification.slackbot.tracing.TracingHttpRequestInterceptor;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.StringHttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.web.client.AsyncRestTemplate;
+import org.springframework.web.client.RestTemplate;
+
+import javax.inject.Named;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Blocking and non-blocking http clients for the users and gamification services, every downstream has its own
+ * connection limit and timeouts, requests to other hosts get the default ones. The slack response_url has
+ * a separate blocking client with a pool of its own, it is used by the slack delivery only.
+ */
+@Configuration
+public class HttpClientConfiguration {
+
+    @Value("${gamification.slackbot.http.maxTotal}")
+    private int maxTotal;
+    @Value("${gamification.slackbot.http.defaultMaxPerRoute}")
+    private int defaultMaxPerRoute;
+    @Value("${gamification.slackbot.http.users.maxPerRoute}")
+    private int usersMaxPerRoute;
+    @Value("${gamification.slackbot.http.gamification.maxPerRoute}")
+    private int gamificationMaxPerRoute;
+    @Value("${gamification.slackbot.http.slack.maxPerRoute}")
+    private int slackMaxPerRoute;
+    @Value("${gamification.slackbot.http.slack.url}")
+    private String slackUrl;
+    @Value("${gamification.slackbot.http.keepAlive}")
+    private long keepAlive;
+    @Value("${gamification.slackbot.http.timeToLive}")
+    private long timeToLive;
+    @Value("${gamification.slackbot.http.idleTimeout}")
+    private long idleTimeout;
+    @Value("${gamification.slackbot.http.evictionInterval}")
+    private long evictionInterval;
+    @Value("${gamification.slackbot.http.validateAfterInactivity}")
+    private int validateAfterInactivity;
+    @Value("${gamification.slackbot.http.connectionRequestTimeout}")
+    private int connectionRequestTimeout;
+    @Value("${gamification.slackbot.http.connectTimeout}")
+    private int connectTimeout;
+    @Value("${gamification.slackbot.http.readTimeout}")
+    private int readTimeout;
+    @Value("${gamification.slackbot.http.users.connectTimeout}")
+    private int usersConnectTimeout;
+    @Value("${gamification.slackbot.http.users.readTimeout}")
+    private int usersReadTimeout;
+    @Value("${gamification.slackbot.http.gamification.connectTimeout}")
+    private int gamificationConnectTimeout;
+    @Value("${gamification.slackbot.http.gamification.readTimeout}")
+    private int gamificationReadTimeout;
+    @Value("${gamification.slackbot.http.slack.connectTimeout}")
+    private int slackConnectTimeout;
+    @Value("${gamification.slackbot.http.slack.readTimeout}")
+    private int slackReadTimeout;
+
+    @Value("${users.baseURL}")
+    private String usersUrl;
+    @Value("${gamification.baseURL}")
+    private String gamificationUrl;
+
+    /**
+     * Requests get B3 headers of the current span only when tracing is enabled, as interceptors buffer
+     * request bodies
+     */
+    @Bean
+    @Primary
+    public RestTemplate restTemplate(DownstreamHttpRequestFactory httpRequestFactory, Tracer tracer) {
+        RestTemplate restTemplate = new RestTemplate(httpRequestFactory);
+        restTemplate.setMessageConverters(getHttpMessageConverters());
+        if (tracer.isEnabled()) {
+            restTemplate.setInterceptors(
+                    Collections.singletonList(new TracingHttpRequestInterceptor(tracer)));
+        }
+        return restTemplate;
+    }
+
+    @Bean
+    public AsyncRestTemplate asyncRestTemplate(DownstreamHttpRequestFactory httpRequestFactory, Tracer tracer) {
+        AsyncRestTemplate asyncRestTemplate = new AsyncRestTemplate(httpRequestFactory);
+        asyncRestTemplate.setMessageConverters(getHttpMessageConverters());
+        if (tracer.isEnabled()) {
+            asyncRestTemplate.setInterceptors(
+                    Collections.singletonList(new TracingHttpRequestInterceptor(tracer)));
+        }
+        return asyncRestTemplate;
+    }
+
+    /**
+     * Shared by both templates, sets the timeouts of the downstream per request. Declared as a bean so the io reactor
+     * of the non-blocking client is started and closed with the context
+     */
+    @Bean
+    public DownstreamHttpRequestFactory httpRequestFactory(CloseableHttpClient httpClient,
+                                                           CloseableHttpAsyncClient httpAsyncClient) {
+        DownstreamHttpRequestFactory factory = new DownstreamHttpRequestFactory(httpClient, httpAsyncClient);
+        factory.addDownstream("users", usersUrl, requestConfig(usersConnectTimeout, usersReadTimeout));
+        factory.addDownstream("gamification", gamificationUrl,
+                requestConfig(gamificationConnectTimeout, gamificationReadTimeout));
+        return factory;
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public HttpConnectionPools httpConnectionPools() {
+        HttpConnectionPools pools = new HttpConnectionPools(maxTotal, defaultMaxPerRoute, timeToLive,
+                validateAfterInactivity);
+        pools.addDownstream("users", usersUrl, usersMaxPerRoute);
+        pools.addDownstream("gamification", gamificationUrl, gamificationMaxPerRoute);
+        pools.startEviction(idleTimeout, evictionInterval);
+        return pools;
+    }
+
+    @Bean
+    @Primary
+    public CloseableHttpClient httpClient(HttpConnectionPools httpConnectionPools) {
+        return HttpClients.custom()
+                .setConnectionManager(httpConnectionPools.getConnectionManager())
+                .setConnectionManagerShared(true)
+                .setKeepAliveStrategy(new KeepAliveStrategy(keepAlive))
+                .setDefaultRequestConfig(requestConfig(connectTimeout, readTimeout))
+                .build();
+    }
+
+    /**
+     * Client of the slack delivery, slack responses neither wait for nor take connections of the users
+     * and gamification services. Requests are not traced, slack doesn't read B3 headers
+     */
+    @Bean
+    public RestTemplate slackRestTemplate(@Named("slackHttpClient") CloseableHttpClient slackHttpClient) {
+        RestTemplate restTemplate = new RestTemplate(new HttpComponentsClientHttpRequestFactory(slackHttpClient));
+        restTemplate.setMessageConverters(getHttpMessageConverters());
+        return restTemplate;
+    }
+
+    @Bean
+    public CloseableHttpClient slackHttpClient(HttpConnectionPools httpConnectionPools) {
+        return HttpClients.custom()
+                .setConnectionManager(httpConnectionPools.addDedicatedDownstream("slack", slackUrl, slackMaxPerRoute))
+                .setConnectionManagerShared(true)
+                .setKeepAliveStrategy(new KeepAliveStrategy(keepAlive))
+                .setDefaultRequestConfig(requestConfig(slackConnectTimeout, slackReadTimeout))
+                .build();
+    }
+
+    /**
+     * The connection manager is not marked as shared: the client runs the io reactor of an unshared manager only,
+     * with a shared one requests would wait for connections forever. The pools still shut the manager down.
+     */
+    @Bean
+    public CloseableHttpAsyncClient httpAsyncClient(HttpConnectionPools httpConnectionPools) {
+        return HttpAsyncClients.custom()
+                .setConnectionManager(httpConnectionPools.getAsyncConnectionManager())
+                .setKeepAliveStrategy(new KeepAliveStrategy(keepAlive))
+                .setDefaultRequestConfig(requestConfig(connectTimeout, readTimeout))
+                .build();
+    }
+
+    private RequestConfig requestConfig(int connectTimeout, int readTimeout) {
+        return RequestConfig.custom()
+                .setConnectionRequestTimeout(connectionRequestTimeout)
+                .setConnectTimeout(connectTimeout)
+                .setSocketTimeout(readTimeout)
+                .build();
+    }
+
+    private List<HttpMessageConverter<?>> getHttpMessageConverters() {
+        List<HttpMessageConverter<?>> converters = new ArrayList<>();
+        converters.add(new MappingJackson2HttpMessageConverter());
+        converters.add(new StringHttpMessageConverter());
+        return converters;
+    }
+}
@@ -0,0 +1,175 @@
+package juja.microservices.gamification.slackbot.http;
+
+import org.apache.http.HttpHost;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.reactor.IOReactorException;
+import org.apache.http.pool.PoolStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Connection pools of the blocking and the non-blocking http clients.
+ * <p>
+ * Both pools share the limits: total connections, connections per route by default and per downstream
+ * (users, gamification). A dedicated downstream (slack response_url) gets a blocking pool of its own, so it
+ * neither waits for nor takes connections of the other downstreams. Expired and idle connections are evicted
+ * in background. Lease counters are collected for the shared blocking pool only, the other pools expose pool stats.
+ */
+public class HttpConnectionPools {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+    private final InstrumentedHttpClientConnectionManager connectionManager;
+    private final PoolingNHttpClientConnectionManager asyncConnectionManager;
+    private final Map<String, HttpRoute> downstreams = new LinkedHashMap<>();
+    private final Map<String, HttpRoute> dedicatedDownstreams = new LinkedHashMap<>();
+    private final Map<String, InstrumentedHttpClientConnectionManager> dedicatedConnectionManagers =
+            new LinkedHashMap<>();
+    private final long timeToLiveMillis;
+    private final int validateAfterInactivityMillis;
+    private final ScheduledExecutorService evictor;
+
+    public HttpConnectionPools(int maxTotal, int defaultMaxPerRoute, long timeToLiveMillis,
+                               int validateAfterInactivityMillis) {
+        this.timeToLiveMillis = timeToLiveMillis;
+        this.validateAfterInactivityMillis = validateAfterInactivityMillis;
+        connectionManager = new InstrumentedHttpClientConnectionManager(timeToLiveMillis, TimeUnit.MILLISECONDS);
+        connectionManager.setMaxTotal(maxTotal);
+        connectionManager.setDefaultMaxPerRoute(defaultMaxPerRoute);
+        connectionManager.setValidateAfterInactivity(validateAfterInactivityMillis);
+
+        try {
+            asyncConnectionManager = new PoolingNHttpClientConnectionManager(
+                    new DefaultConnectingIOReactor(IOReactorConfig.DEFAULT));
+        } catch (IOReactorException ex) {
+            throw new IllegalStateException("Unable to create io reactor for the non-blocking http client", ex);
+        }
+        asyncConnectionManager.setMaxTotal(maxTotal);
+        asyncConnectionManager.setDefaultMaxPerRoute(defaultMaxPerRoute);
+
+        evictor = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("http-pool-evictor-"));
+    }
+
+    /**
+     * Sets the connection limit for the host of the url
+     */
+    public void addDownstream(String name, String url, int maxPerRoute) {
+        HttpRoute route = toRoute(url);
+        downstreams.put(name, route);
+        connectionManager.setMaxPerRoute(route, maxPerRoute);
+        asyncConnectionManager.setMaxPerRoute(route, maxPerRoute);
+        logger.info("Http connection pool for {} [{}]: max {} connections", name, route, maxPerRoute);
+    }
+
+    /**
+     * Creates a separate blocking pool with maxConnections for the host of the url
+     *
+     * @return the connection manager of the pool, for the client of the downstream
+     */
+    public InstrumentedHttpClientConnectionManager addDedicatedDownstream(String name, String url,
+                                                                          int maxConnections) {
+        HttpRoute route = toRoute(url);
+        InstrumentedHttpClientConnectionManager manager =
+                new InstrumentedHttpClientConnectionManager(timeToLiveMillis, TimeUnit.MILLISECONDS);
+        manager.setMaxTotal(maxConnections);
+        manager.setDefaultMaxPerRoute(maxConnections);
+        manager.setValidateAfterInactivity(validateAfterInactivityMillis);
+        dedicatedDownstreams.put(name, route);
+        dedicatedConnectionManagers.put(name, manager);
+        logger.info("Dedicated http connection pool for {} [{}]: max {} connections", name, route, maxConnections);
+        return manager;
+    }
+
+    /**
+     * Closes expired connections and connections which were idle longer than idleTimeout in background
+     */
+    public void startEviction(long idleTimeoutMillis, long evictionIntervalMillis) {
+        evictor.scheduleWithFixedDelay(() -> {
+            try {
+                connectionManager.closeExpiredConnections();
+                connectionManager.closeIdleConnections(idleTimeoutMillis, TimeUnit.MILLISECONDS);
+                asyncConnectionManager.closeExpiredConnections();
+                asyncConnectionManager.closeIdleConnections(idleTimeoutMillis, TimeUnit.MILLISECONDS);
+                for (InstrumentedHttpClientConnectionManager manager : dedicatedConnectionManagers.values()) {
+                    manager.closeExpiredConnections();
+                    manager.closeIdleConnections(idleTimeoutMillis, TimeUnit.MILLISECONDS);
+                }
+                logger.debug("Evicted stale http connections. Blocking pool: {}, non-blocking pool: {}",
+                        connectionManager.getTotalStats(), asyncConnectionManager.getTotalStats());
+            } catch (RuntimeException ex) {
+                logger.warn("Http connection eviction failed: {}", ex.getMessage());
+            }
+        }, evictionIntervalMillis, evictionIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public InstrumentedHttpClientConnectionManager getConnectionManager() {
+        return connectionManager;
+    }
+
+    public PoolingNHttpClientConnectionManager getAsyncConnectionManager() {
+        return asyncConnectionManager;
+    }
+
+    public PoolStats getTotalStats() {
+        return connectionManager.getTotalStats();
+    }
+
+    public PoolStats getAsyncTotalStats() {
+        return asyncConnectionManager.getTotalStats();
+    }
+
+    /**
+     * @return blocking pool stats by downstream name, a dedicated downstream reports its own pool
+     */
+    public Map<String, PoolStats> getDownstreamStats() {
+        Map<String, PoolStats> result = new LinkedHashMap<>();
+        downstreams.forEach((name, route) -> result.put(name, connectionManager.getStats(route)));
+        dedicatedDownstreams.forEach((name, route) ->
+                result.put(name, dedicatedConnectionManagers.get(name).getStats(route)));
+        return result;
+    }
+
+    /**
+     * @return non-blocking pool stats by downstream name
+     */
+    public Map<String, PoolStats> getAsyncDownstreamStats() {
+        Map<String, PoolStats> result = new LinkedHashMap<>();
+        downstreams.forEach((name, route) -> result.put(name, asyncConnectionManager.getStats(route)));
+        return result;
+    }
+
+    public void shutdown() {
+        evictor.shutdownNow();
+        connectionManager.shutdown();
+        dedicatedConnectionManagers.values().forEach(InstrumentedHttpClientConnectionManager::shutdown);
+        try {
+            asyncConnectionManager.shutdown();
+        } catch (IOException ex) {
+            logger.warn("Unable to shutdown non-blocking http connection pool: {}", ex.getMessage());
+        }
+    }
+
+    /**
+     * Builds the route the same way the client route planner does: the default port of the scheme is explicit
+     */
+    static HttpRoute toRoute(String url) {
+        return toRoute(URI.create(url));
+    }
+
+    static HttpRoute toRoute(URI uri) {
+        boolean secure = "https".equalsIgnoreCase(uri.getScheme());
+        int port = uri.getPort() > 0 ? uri.getPort() : (secure ? 443 : 80);
+        return new HttpRoute(new HttpHost(uri.getHost(), port, uri.getScheme()), null, secure);
+    }
+}
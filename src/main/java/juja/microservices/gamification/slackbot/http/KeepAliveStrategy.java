@@ -0,0 +1,25 @@
+package juja.microservices.gamification.slackbot.http;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.protocol.HttpContext;
+
+/**
+ * Honours the Keep-Alive header of the server, without it a connection is kept alive for the default time
+ * instead of forever. A server which silently drops idle connections then doesn't break the next request.
+ */
+public class KeepAliveStrategy implements ConnectionKeepAliveStrategy {
+
+    private final long defaultKeepAliveMillis;
+
+    public KeepAliveStrategy(long defaultKeepAliveMillis) {
+        this.defaultKeepAliveMillis = defaultKeepAliveMillis;
+    }
+
+    @Override
+    public long getKeepAliveDuration(HttpResponse response, HttpContext context) {
+        long keepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+        return keepAlive > 0 ? keepAlive : defaultKeepAliveMillis;
+    }
+}
@@ -0,0 +1,123 @@
+package juja.microservices.gamification.slackbot.http;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import juja.microservices.gamification.slackbot.concurrent.Retry;
+import juja.microservices.gamification.slackbot.concurrent.RetryBudget;
+import juja.microservices.gamification.slackbot.metrics.BotMetrics;
+import juja.microservices.gamification.slackbot.util.Utils;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Retry policies of the downstream operations, an operation is named as its downstream metrics: users,
+ * gamification.daily, gamification.batch, slack... A setting is looked up from the most specific name, for example
+ * gamification.slackbot.retry.gamification.daily.maxAttempts, then gamification.slackbot.retry.gamification.maxAttempts
+ * and then gamification.slackbot.retry.maxAttempts. All operations of a dependency share its retry budget.
+ * <p>
+ * An idempotent operation is retried after 5xx responses and i/o errors. Any other operation only when the request
+ * surely was not processed: the connection was not established or the service answered 503.
+ * <p>
+ * Gauges {@code retry.<operation>.retries}, {@code .budgetExhausted} and {@code .attemptsExhausted} are registered
+ * with the first call of the operation.
+ */
+@Component
+public class Retries {
+
+    private static final String PROPERTY = "gamification.slackbot.retry";
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+    private final Environment environment;
+    private final BotMetrics metrics;
+    private final ScheduledExecutorService scheduler =
+            Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("retry-scheduler-"));
+    private final Map<String, RetryBudget> budgets = new ConcurrentHashMap<>();
+    private final Map<String, Retry> retries = new ConcurrentHashMap<>();
+
+    @Inject
+    public Retries(Environment environment, BotMetrics metrics) {
+        this.environment = environment;
+        this.metrics = metrics;
+    }
+
+    public Retry get(String operation) {
+        return retries.computeIfAbsent(operation, this::createRetry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * @param idempotent whether the operation may be repeated after the request reached the service
+     */
+    static boolean isTransient(Throwable error, boolean idempotent) {
+        Throwable cause = Utils.unwrapAsyncError(error);
+        if (cause instanceof HttpServerErrorException) {
+            return idempotent || ((HttpServerErrorException) cause).getStatusCode() == HttpStatus.SERVICE_UNAVAILABLE;
+        }
+        if (!(cause instanceof ResourceAccessException) && !(cause instanceof IOException)) {
+            return false;
+        }
+        for (Throwable nested = cause; nested != null; nested = nested.getCause()) {
+            if (nested instanceof ConnectException || nested instanceof ConnectTimeoutException) {
+                return true;
+            }
+        }
+        return idempotent;
+    }
+
+    private Retry createRetry(String operation) {
+        String dependency = operation.split("\\.")[0];
+        RetryBudget budget = budgets.computeIfAbsent(dependency, name -> new RetryBudget(
+                property(name, "budget.ratio", Double.class), property(name, "budget.maxTokens", Double.class)));
+        boolean idempotent = property(operation, "idempotent", Boolean.class);
+        int maxAttempts = property(operation, "maxAttempts", Integer.class);
+        Retry retry = new Retry(operation, maxAttempts,
+                property(operation, "baseDelay", Long.class),
+                property(operation, "maxDelay", Long.class),
+                error -> isTransient(error, idempotent),
+                budget,
+                scheduler);
+
+        metrics.gauge(MetricRegistry.name("retry", operation, "retries"), (Gauge<Long>) retry::getRetryCount);
+        metrics.gauge(MetricRegistry.name("retry", operation, "budgetExhausted"),
+                (Gauge<Long>) retry::getBudgetExhaustedCount);
+        metrics.gauge(MetricRegistry.name("retry", operation, "attemptsExhausted"),
+                (Gauge<Long>) retry::getAttemptsExhaustedCount);
+        logger.info("Retry of {}: max {} attempts, idempotent: {}", operation, maxAttempts, idempotent);
+        return retry;
+    }
+
+    /**
+     * Looks the setting up for the operation, then for the operation without its last part and so on
+     */
+    private <T> T property(String operation, String name, Class<T> type) {
+        for (String scope = operation; !scope.isEmpty(); ) {
+            T value = environment.getProperty(PROPERTY + "." + scope + "." + name, type);
+            if (value != null) {
+                return value;
+            }
+            int dot = scope.lastIndexOf('.');
+            scope = dot < 0 ? "" : scope.substring(0, dot);
+        }
+        return environment.getRequiredProperty(PROPERTY + "." + name, type);
+    }
+}
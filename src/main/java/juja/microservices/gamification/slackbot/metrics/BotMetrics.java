@@ -0,0 +1,166 @@
+package juja.microservices.gamification.slackbot.metrics;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import org.springframework.stereotype.Component;
+
+import javax.inject.Inject;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Metrics of the bot in the dropwizard registry, exposed by the actuator /metrics endpoint.
+ * <ul>
+ * <li>{@code command.<name>.accepted}, {@code .rejected} - meters of commands accepted by and rejected by
+ * the command executor</li>
+ * <li>{@code command.<name>.queue} - timer of the wait in the executor queue</li>
+ * <li>{@code command.<name>.succeeded}, {@code .failed} - timers from acceptance to the command result</li>
+ * <li>{@code error.<outcome>} - meters of errors reported to slack by the exceptions handler</li>
+ * <li>{@code downstream.<name>} - timer of requests to a remote service, {@code downstream.<name>.errors}
+ * - meter of the failed ones</li>
+ * <li>{@code delivery.delivered}, {@code .deadLettered} - meters of delayed responses which were delivered
+ * to slack and which were kept as dead letters, {@code delivery.throttled} - meter of posts slack refused
+ * with 429</li>
+ * </ul>
+ * Gauges of pools, queues and caches are registered by {@link ResourceGauges}, metrics of logging by
+ * {@link LoggingMetrics}.
+ */
+@Component
+public class BotMetrics {
+
+    private final MetricRegistry registry;
+    private final Map<String, CommandMetrics> commands = new ConcurrentHashMap<>();
+    private final Map<String, DownstreamMetrics> downstreams = new ConcurrentHashMap<>();
+
+    @Inject
+    public BotMetrics(MetricRegistry registry) {
+        this.registry = registry;
+    }
+
+    public MetricRegistry getRegistry() {
+        return registry;
+    }
+
+    public void commandAccepted(String commandName) {
+        command(commandName).accepted.mark();
+    }
+
+    public void commandRejected(String commandName) {
+        command(commandName).rejected.mark();
+    }
+
+    public void commandStarted(String commandName, long queuedNanos) {
+        command(commandName).queue.update(queuedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void commandCompleted(String commandName, long elapsedNanos, boolean succeeded) {
+        CommandMetrics metrics = command(commandName);
+        (succeeded ? metrics.succeeded : metrics.failed).update(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @return commands accepted since the start, of all names
+     */
+    public long getAcceptedCommandCount() {
+        return commands.values().stream().mapToLong(metrics -> metrics.accepted.getCount()).sum();
+    }
+
+    public void errorHandled(String outcome) {
+        registry.meter(MetricRegistry.name("error", outcome)).mark();
+    }
+
+    public void deliveryCompleted(boolean delivered) {
+        registry.meter(MetricRegistry.name("delivery", delivered ? "delivered" : "deadLettered")).mark();
+    }
+
+    public void deliveryThrottled() {
+        registry.meter("delivery.throttled").mark();
+    }
+
+    /**
+     * Times a blocking request to the downstream, a thrown exception counts as an error
+     */
+    public <T> T timeDownstream(String downstream, Supplier<T> request) {
+        DownstreamMetrics metrics = downstream(downstream);
+        long started = System.nanoTime();
+        try {
+            return request.get();
+        } catch (RuntimeException ex) {
+            metrics.errors.mark();
+            throw ex;
+        } finally {
+            metrics.timer.update(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Times a non-blocking request to the downstream until its future is completed
+     */
+    public <T> CompletableFuture<T> timeDownstreamAsync(String downstream, Supplier<CompletableFuture<T>> request) {
+        DownstreamMetrics metrics = downstream(downstream);
+        long started = System.nanoTime();
+        CompletableFuture<T> response;
+        try {
+            response = request.get();
+        } catch (RuntimeException ex) {
+            metrics.errors.mark();
+            metrics.timer.update(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            throw ex;
+        }
+        return response.whenComplete((result, error) -> {
+            if (error != null) {
+                metrics.errors.mark();
+            }
+            metrics.timer.update(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        });
+    }
+
+    /**
+     * Registers the gauge, replacing a gauge with the same name
+     */
+    public void gauge(String name, Gauge<?> gauge) {
+        registry.remove(name);
+        registry.register(name, gauge);
+    }
+
+    private CommandMetrics command(String commandName) {
+        return commands.computeIfAbsent(commandName, CommandMetrics::new);
+    }
+
+    private DownstreamMetrics downstream(String name) {
+        return downstreams.computeIfAbsent(name, DownstreamMetrics::new);
+    }
+
+    private class CommandMetrics {
+        private final Meter accepted;
+        private final Meter rejected;
+        private final Timer queue;
+        private final Timer succeeded;
+        private final Timer failed;
+
+        private CommandMetrics(String commandName) {
+            String prefix = MetricRegistry.name("command", commandName.toLowerCase(Locale.ROOT));
+            accepted = registry.meter(MetricRegistry.name(prefix, "accepted"));
+            rejected = registry.meter(MetricRegistry.name(prefix, "rejected"));
+            queue = registry.timer(MetricRegistry.name(prefix, "queue"));
+            succeeded = registry.timer(MetricRegistry.name(prefix, "succeeded"));
+            failed = registry.timer(MetricRegistry.name(prefix, "failed"));
+        }
+    }
+
+    private class DownstreamMetrics {
+        private final Timer timer;
+        private final Meter errors;
+
+        private DownstreamMetrics(String name) {
+            timer = registry.timer(MetricRegistry.name("downstream", name));
+            errors = registry.meter(MetricRegistry.name("downstream", name, "errors"));
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package juja.microservices.gamification.slackbot.metrics;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.AsyncAppenderBase;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import org.slf4j.ILoggerFactory;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Metrics of the cost of logging:
+ * <ul>
+ * <li>{@code logging.events}, {@code logging.events.<level>} - meters of written log messages of the bot and
+ * of the libraries</li>
+ * <li>{@code logging.eventsPerCommand} - written log messages per accepted command since the start</li>
+ * <li>{@code logging.async.<appender>.queue}, {@code .remainingCapacity} - queues of the async appenders,
+ * a full queue discards messages</li>
+ * </ul>
+ * Only messages of enabled levels are counted, those are the ones which are formatted and written.
+ */
+@Component
+public class LoggingMetrics {
+
+    static final String BOT_LOGGER = "juja.microservices";
+
+    private final List<Logger> loggers = new ArrayList<>();
+    private final EventMeterAppender appender;
+
+    @Inject
+    public LoggingMetrics(BotMetrics metrics) {
+        MetricRegistry registry = metrics.getRegistry();
+        appender = new EventMeterAppender(registry);
+        ILoggerFactory loggerFactory = LoggerFactory.getILoggerFactory();
+        if (!(loggerFactory instanceof LoggerContext)) {
+            return;
+        }
+        LoggerContext context = (LoggerContext) loggerFactory;
+        appender.setContext(context);
+        appender.start();
+        loggers.add(context.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME));
+        Logger botLogger = context.getLogger(BOT_LOGGER);
+        // logback-spring.xml doesn't pass messages of the bot to the root logger, then both are metered
+        if (!botLogger.isAdditive()) {
+            loggers.add(botLogger);
+        }
+        for (Logger logger : loggers) {
+            logger.addAppender(appender);
+            for (Iterator<Appender<ILoggingEvent>> it = logger.iteratorForAppenders(); it.hasNext(); ) {
+                Appender<ILoggingEvent> attached = it.next();
+                if (attached instanceof AsyncAppenderBase) {
+                    AsyncAppenderBase<ILoggingEvent> async = (AsyncAppenderBase<ILoggingEvent>) attached;
+                    metrics.gauge(MetricRegistry.name("logging.async", async.getName(), "queue"),
+                            async::getNumberOfElementsInQueue);
+                    metrics.gauge(MetricRegistry.name("logging.async", async.getName(), "remainingCapacity"),
+                            async::getRemainingCapacity);
+                }
+            }
+        }
+        metrics.gauge("logging.eventsPerCommand", () -> {
+            long commands = metrics.getAcceptedCommandCount();
+            return commands == 0 ? 0.0 : (double) appender.total.getCount() / commands;
+        });
+    }
+
+    @PreDestroy
+    public void detach() {
+        for (Logger logger : loggers) {
+            logger.detachAppender(appender);
+        }
+        appender.stop();
+    }
+
+    private static class EventMeterAppender extends UnsynchronizedAppenderBase<ILoggingEvent> {
+        private static final Level[] LEVELS = {Level.TRACE, Level.DEBUG, Level.INFO, Level.WARN, Level.ERROR};
+
+        private final Meter total;
+        private final Map<Level, Meter> levels = new HashMap<>();
+
+        private EventMeterAppender(MetricRegistry registry) {
+            total = registry.meter("logging.events");
+            for (Level level : LEVELS) {
+                levels.put(level, registry.meter(MetricRegistry.name("logging.events",
+                        level.toString().toLowerCase(Locale.ROOT))));
+            }
+            setName("Metrics-Appender");
+        }
+
+        @Override
+        protected void append(ILoggingEvent event) {
+            total.mark();
+            Meter level = levels.get(event.getLevel());
+            if (level != null) {
+                level.mark();
+            }
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package juja.microservices.gamification.slackbot.metrics;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import juja.microservices.gamification.slackbot.cache.CommandDeduplicator;
+import juja.microservices.gamification.slackbot.cache.UserCache;
+import juja.microservices.gamification.slackbot.concurrent.BoundedExecutor;
+import juja.microservices.gamification.slackbot.concurrent.Bulkhead;
+import juja.microservices.gamification.slackbot.concurrent.CircuitBreaker;
+import juja.microservices.gamification.slackbot.delivery.DeadLetterStore;
+import juja.microservices.gamification.slackbot.delivery.impl.DefaultSlackDelivery;
+import juja.microservices.gamification.slackbot.http.Bulkheads;
+import juja.microservices.gamification.slackbot.http.CircuitBreakers;
+import juja.microservices.gamification.slackbot.http.HttpConnectionPools;
+import juja.microservices.gamification.slackbot.outbox.AchievementOutbox;
+import org.apache.http.pool.PoolStats;
+import org.springframework.stereotype.Component;
+
+import javax.inject.Inject;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Gauges of the resources which limit the capacity of the bot:
+ * <ul>
+ * <li>{@code executor.queue}, {@code .active}, {@code .rejected} - the command executor</li>
+ * <li>{@code http.pool.<downstream>.leased}, {@code .pending}, {@code .available} - connections of the blocking
+ * pool per downstream, {@code http.asyncPool.*} - the same for the non-blocking pool, {@code http.pool.leases},
+ * {@code .leaseTimeouts}, {@code .leaseWaitMillis} - lease counters of the blocking pool</li>
+ * <li>{@code bulkhead.<dependency>.active}, {@code .rejected} - calls to the dependency which run now and calls
+ * which were rejected as the bulkhead was full</li>
+ * <li>{@code circuitBreaker.<dependency>.state} - 0 closed, 1 open, 2 half open, {@code .rejected} - calls
+ * rejected while the breaker was open</li>
+ * <li>{@code cache.users.size}, {@code .hitRate}, {@code .evictions}, {@code cache.unknownSlackNames.hitRate}</li>
+ * <li>{@code dedup.size}, {@code .redeliveries}, {@code .duplicates} - the command deduplicator</li>
+ * <li>{@code outbox.pending} - achievements which are not shipped to the gamification service yet,
+ * {@code outbox.shipping} - 1 if the shipper runs, {@code outbox.lagMillis} - time since the shipper last made
+ * progress while achievements are pending</li>
+ * <li>{@code delivery.queue}, {@code .active}, {@code .rejected} - workers of the slack delivery,
+ * {@code delivery.waiting}, {@code .channels} - posts waiting for the rate limit and channels it keeps,
+ * {@code deadLetters.size}, {@code .dropped} - dead letters kept and dropped as the store was full</li>
+ * </ul>
+ * Gauges are read when metrics are scraped, nothing is computed per command.
+ */
+@Component
+public class ResourceGauges {
+
+    private final BotMetrics metrics;
+
+    @Inject
+    public ResourceGauges(BotMetrics metrics, BoundedExecutor commandExecutor, HttpConnectionPools pools,
+                          Bulkheads bulkheads, CircuitBreakers circuitBreakers, UserCache userCache,
+                          CommandDeduplicator deduplicator, AchievementOutbox outbox,
+                          DefaultSlackDelivery slackDelivery, DeadLetterStore deadLetters) {
+        this.metrics = metrics;
+
+        gauge("executor.queue", commandExecutor::getQueueSize);
+        gauge("executor.active", commandExecutor::getActiveCount);
+        gauge("executor.rejected", commandExecutor::getRejectedCount);
+
+        for (String downstream : pools.getDownstreamStats().keySet()) {
+            poolGauges("http.pool", downstream, () -> pools.getDownstreamStats());
+        }
+        for (String downstream : pools.getAsyncDownstreamStats().keySet()) {
+            poolGauges("http.asyncPool", downstream, () -> pools.getAsyncDownstreamStats());
+        }
+        gauge("http.pool.leased", () -> pools.getTotalStats().getLeased());
+        gauge("http.pool.pending", () -> pools.getTotalStats().getPending());
+        gauge("http.asyncPool.leased", () -> pools.getAsyncTotalStats().getLeased());
+        gauge("http.asyncPool.pending", () -> pools.getAsyncTotalStats().getPending());
+        gauge("http.pool.leases", () -> pools.getConnectionManager().getLeaseCount());
+        gauge("http.pool.leaseTimeouts", () -> pools.getConnectionManager().getLeaseTimeoutCount());
+        gauge("http.pool.leaseWaitMillis", () -> pools.getConnectionManager().getLeaseWaitMillis());
+
+        for (Bulkhead bulkhead : bulkheads.getBulkheads()) {
+            gauge(MetricRegistry.name("bulkhead", bulkhead.getName(), "active"), bulkhead::getActiveCount);
+            gauge(MetricRegistry.name("bulkhead", bulkhead.getName(), "rejected"), bulkhead::getRejectedCount);
+        }
+        for (CircuitBreaker circuitBreaker : circuitBreakers.getCircuitBreakers()) {
+            String name = circuitBreaker.getName();
+            gauge(MetricRegistry.name("circuitBreaker", name, "state"), () -> circuitBreaker.getState().ordinal());
+            gauge(MetricRegistry.name("circuitBreaker", name, "rejected"), circuitBreaker::getRejectedCount);
+        }
+
+        gauge("cache.users.size", userCache::size);
+        gauge("cache.users.hitRate", () -> userCache.getStats().hitRate());
+        gauge("cache.users.evictions", () -> userCache.getStats().evictionCount());
+        gauge("cache.unknownSlackNames.hitRate", () -> userCache.getUnknownSlackNamesStats().hitRate());
+
+        gauge("dedup.size", deduplicator::size);
+        gauge("dedup.redeliveries", deduplicator::getRedeliveryCount);
+        gauge("dedup.duplicates", deduplicator::getDuplicateCount);
+
+        gauge("outbox.pending", outbox::getPendingCount);
+        gauge("outbox.shipping", () -> outbox.isShipping() ? 1 : 0);
+        gauge("outbox.lagMillis", outbox::getShipLagMillis);
+
+        BoundedExecutor deliveryWorkers = slackDelivery.getWorkers();
+        gauge("delivery.queue", deliveryWorkers::getQueueSize);
+        gauge("delivery.active", deliveryWorkers::getActiveCount);
+        gauge("delivery.rejected", deliveryWorkers::getRejectedCount);
+        gauge("delivery.waiting", slackDelivery.getRateLimiter()::getWaitingCount);
+        gauge("delivery.channels", slackDelivery.getRateLimiter()::getKeyCount);
+        gauge("deadLetters.size", deadLetters::size);
+        gauge("deadLetters.dropped", deadLetters::getDroppedCount);
+    }
+
+    private void poolGauges(String pool, String downstream, Supplier<Map<String, PoolStats>> stats) {
+        gauge(MetricRegistry.name(pool, downstream, "leased"), () -> stats.get().get(downstream).getLeased());
+        gauge(MetricRegistry.name(pool, downstream, "pending"), () -> stats.get().get(downstream).getPending());
+        gauge(MetricRegistry.name(pool, downstream, "available"),
+                () -> stats.get().get(downstream).getAvailable());
+    }
+
+    private <T> void gauge(String name, Supplier<T> value) {
+        metrics.gauge(name, (Gauge<T>) value::get);
+    }
+}
@@ -0,0 +1,56 @@
+package juja.microservices.gamification.slackbot.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Slack names found in a command text with their offsets in the text, in the order of the text
+ */
+public class SlackNames {
+
+    private final List<String> names = new ArrayList<>();
+    private int[] offsets = new int[4];
+
+    public void add(String name, int offset) {
+        if (names.size() == offsets.length) {
+            offsets = Arrays.copyOf(offsets, offsets.length * 2);
+        }
+        offsets[names.size()] = offset;
+        names.add(name);
+    }
+
+    public List<String> getNames() {
+        return Collections.unmodifiableList(names);
+    }
+
+    public int size() {
+        return names.size();
+    }
+
+    public String getName(int index) {
+        return names.get(index);
+    }
+
+    public int getOffset(int index) {
+        return offsets[index];
+    }
+
+    /**
+     * @return index of the first slack name which starts at the position or after it, -1 if there is no such name
+     */
+    public int indexOfFirstFrom(int position) {
+        int low = 0;
+        int high = names.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (offsets[middle] < position) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low < names.size() ? low : -1;
+    }
+}
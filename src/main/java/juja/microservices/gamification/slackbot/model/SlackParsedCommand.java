@@ -2,6 +2,9 @@ package juja.microservices.gamification.slackbot.model;
 
 import juja.microservices.gamification.slackbot.exceptions.WrongCommandFormatException;
 import juja.microservices.gamification.slackbot.model.DTO.UserDTO;
+import juja.microservices.gamification.slackbot.util.LogPayload;
+import juja.microservices.gamification.slackbot.util.SlackNameScanner;
+import juja.microservices.gamification.slackbot.util.TokenLexer;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.ToString;
@@ -9,29 +12,33 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.TreeSet;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * @author Nikolay Horushko
  */
-@ToString(exclude = {"SLACK_NAME_PATTERN", "logger"})
+@ToString(exclude = {"logger", "slackNames"})
 public class SlackParsedCommand {
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
-    private final String SLACK_NAME_PATTERN = "@([a-zA-z0-9\\.\\_\\-]){1,21}";
     private String fromSlackName;
     private String text;
     private List<String> slackNamesInText;
+    private SlackNames slackNames;
     private int userCountInText;
     private Map<String, UserDTO> users;
 
     public SlackParsedCommand(String fromSlackName, String text, Map<String, UserDTO> users) {
+        this(fromSlackName, text, SlackNameScanner.scan(text), users);
+    }
+
+    /**
+     * @param slackNames slack names of the text, found by {@link SlackNameScanner}
+     */
+    public SlackParsedCommand(String fromSlackName, String text, SlackNames slackNames, Map<String, UserDTO> users) {
 
         if (!fromSlackName.startsWith("@")) {
             logger.debug("add '@' to slack name [{}]", fromSlackName);
@@ -39,7 +46,8 @@ public class SlackParsedCommand {
         }
         this.fromSlackName = fromSlackName;
         this.text = text;
-        this.slackNamesInText = receiveAllSlackNames(text);
+        this.slackNames = slackNames;
+        this.slackNamesInText = slackNames.getNames();
         this.users = users;
         this.userCountInText = slackNamesInText.size();
     }
@@ -59,7 +67,7 @@ public class SlackParsedCommand {
     public UserDTO getFirstUser() {
         checkIsTextContainsSlackName();
         UserDTO result = users.get(slackNamesInText.get(0));
-        logger.debug("Found the user: {} in the text: [{}]", result.toString(), text);
+        logger.debug("Found the user: {} in the text: [{}]", LogPayload.of(result), LogPayload.of(text));
         return result;
     }
 
@@ -67,21 +75,11 @@ public class SlackParsedCommand {
         return userCountInText;
     }
 
-    private List<String> receiveAllSlackNames(String text) {
-        List<String> result = new ArrayList<>();
-        Pattern pattern = Pattern.compile(SLACK_NAME_PATTERN);
-        Matcher matcher = pattern.matcher(text);
-        while (matcher.find()) {
-            result.add(matcher.group().trim());
-        }
-        return result;
-    }
-
     public List<UserDTO> getAllUsers() {
         checkIsTextContainsSlackName();
         List<UserDTO> result = new LinkedList(users.values());
         result.remove(result.stream().filter(res -> res.getSlack().equals(fromSlackName)).findFirst().get());
-        logger.debug("Found {} users in the text: [{}]", result.size(), text);
+        logger.debug("Found {} users in the text: [{}]", result.size(), LogPayload.of(text));
         return result;
     }
 
@@ -93,62 +91,66 @@ public class SlackParsedCommand {
     }
 
     public Map<String, UserDTO> getUsersWithTokens(String[] tokens) {
-        logger.debug("Recieve tokens: [{}] for searching. in the text: [{}]", tokens, text);
-        List<Token> sortedTokenList = receiveTokensWithPositionInText(tokens);
+        return getUsersWithTokens(new TokenLexer(tokens));
+    }
+
+    /**
+     * Binds every token of the lexer to the first slack name after it. The slack name must be before the next
+     * token of the text.
+     *
+     * @param tokenLexer compiled tokens, can be shared between commands
+     */
+    public Map<String, UserDTO> getUsersWithTokens(TokenLexer tokenLexer) {
+        logger.debug("Recieve tokens: [{}] for searching. in the text: [{}]", tokenLexer.getTokens(),
+                LogPayload.of(text));
+        List<Token> sortedTokenList = receiveTokensWithPositionInText(tokenLexer);
         Map<String, UserDTO> result = new HashMap<>();
         for (int i = 0; i < sortedTokenList.size(); i++) {
             Token currentToken = sortedTokenList.get(i);
-            Pattern slackNamePattern = Pattern.compile(SLACK_NAME_PATTERN);
-            Matcher matcher = slackNamePattern.matcher(text.substring(text.indexOf(currentToken.getToken())));
-            if (matcher.find()) {
-                String foundedSlackName = matcher.group().trim();
-                int indexFoundedSlackName = text.indexOf(foundedSlackName);
-                for (int j = i + 1; j < sortedTokenList.size(); j++) {
-                    if (indexFoundedSlackName > sortedTokenList.get(j).getPositionInText()) {
-                        logger.warn("The text: [{}] doesn't contain slack name for token: [{}]",
-                                text, currentToken.getToken());
-                        throw new WrongCommandFormatException(String.format("The text '%s' doesn't contain slackName " +
-                                "for token '%s'", text, currentToken.getToken()));
-                    }
-                }
-                logger.debug("Found user: {} for token:", users.get(foundedSlackName), currentToken.getToken());
-                result.put(currentToken.getToken(), users.get(foundedSlackName));
-            } else {
+            int slackNameIndex = slackNames.indexOfFirstFrom(currentToken.getPositionInText());
+            boolean isLastToken = i == sortedTokenList.size() - 1;
+            if (slackNameIndex < 0 || (!isLastToken
+                    && slackNames.getOffset(slackNameIndex) > sortedTokenList.get(i + 1).getPositionInText())) {
                 logger.warn("The text: [{}] doesn't contain slack name for token: [{}]",
-                        text, sortedTokenList.get(i).getToken());
-                throw new WrongCommandFormatException(String.format("The text '%s' " +
-                        "doesn't contain slackName for token '%s'", text, sortedTokenList.get(i).getToken()));
+                        LogPayload.of(text), currentToken.getToken());
+                throw new WrongCommandFormatException(String.format("The text '%s' doesn't contain slackName " +
+                        "for token '%s'", text, currentToken.getToken()));
             }
+            String foundedSlackName = slackNames.getName(slackNameIndex);
+            logger.debug("Found user: {} for token: {}", users.get(foundedSlackName), currentToken.getToken());
+            result.put(currentToken.getToken(), users.get(foundedSlackName));
         }
         return result;
     }
 
-    private List<Token> receiveTokensWithPositionInText(String[] tokens) {
-        Set<Token> result = new TreeSet<>();
-        for (String token : tokens) {
-            if (!text.contains(token)) {
+    private List<Token> receiveTokensWithPositionInText(TokenLexer tokenLexer) {
+        TokenLexer.Matches matches = tokenLexer.match(text);
+        List<Token> result = new ArrayList<>(tokenLexer.getTokenCount());
+        for (int i = 0; i < tokenLexer.getTokenCount(); i++) {
+            String token = tokenLexer.getToken(i);
+            int tokenCounts = matches.getCount(i);
+            if (tokenCounts == 0) {
                 throw new WrongCommandFormatException(String.format("Token '%s' didn't find in the string '%s'",
                         token, text));
             }
-            int tokenCounts = text.split(token).length - 1;
             if (tokenCounts > 1) {
                 throw new WrongCommandFormatException(String.format("The text '%s' contains %d tokens '%s', " +
                         "but expected 1", text, tokenCounts, token));
             }
-            result.add(new Token(token, text.indexOf(token)));
+            result.add(new Token(token, matches.getPosition(i)));
         }
-        return new ArrayList<>(result);
+        Collections.sort(result);
+        return result;
     }
 
     @AllArgsConstructor
     @Getter
-    class Token implements Comparable {
+    class Token implements Comparable<Token> {
         private String token;
         private int positionInText;
 
         @Override
-        public int compareTo(Object object) {
-            Token thatToken = (Token) object;
+        public int compareTo(Token thatToken) {
             return positionInText - thatToken.getPositionInText();
         }
     }
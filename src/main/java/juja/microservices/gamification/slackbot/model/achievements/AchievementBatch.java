@@ -0,0 +1,35 @@
+package juja.microservices.gamification.slackbot.model.achievements;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * Achievements of several commands saved by one request. The gamification service returns the ids
+ * of every achievement in the order of the achievements.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class AchievementBatch {
+    public static final String DAILY = "daily";
+    public static final String CODENJOY = "codenjoy";
+    public static final String THANKS = "thanks";
+    public static final String INTERVIEW = "interview";
+
+    @JsonProperty
+    private List<Entry> achievements;
+
+    @Getter
+    @ToString
+    @AllArgsConstructor
+    public static class Entry {
+        @JsonProperty
+        private String type;
+        @JsonProperty
+        private Object achievement;
+    }
+}
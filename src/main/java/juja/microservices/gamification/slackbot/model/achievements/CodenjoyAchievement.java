@@ -4,6 +4,7 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import juja.microservices.gamification.slackbot.model.DTO.UserDTO;
 import juja.microservices.gamification.slackbot.model.SlackParsedCommand;
+import juja.microservices.gamification.slackbot.util.TokenLexer;
 import lombok.Getter;
 import lombok.ToString;
 
@@ -17,6 +18,8 @@ import java.util.Map;
 @JsonIgnoreProperties({"tokens", "okSlackResponse", "firstPlaceUser",
         "secondPlaceUser", "thirdPlaceUser"})
 public class CodenjoyAchievement implements ResponseWithSlackName {
+    private static final TokenLexer TOKEN_LEXER = new TokenLexer("-1th", "-2th", "-3th");
+
     @JsonProperty("from")
     private String fromUuid;
     @JsonProperty("firstPlace")
@@ -30,7 +33,7 @@ public class CodenjoyAchievement implements ResponseWithSlackName {
     private UserDTO thirdPlaceUser;
 
 
-    private String[] tokens = new String[]{"-1th", "-2th", "-3th"};
+    private String[] tokens = TOKEN_LEXER.getTokens();
 
     public CodenjoyAchievement(String fromUuid, String firstPlaceUuid, String secondPlaceUuid, String thirdPlaceUuid) {
         this.fromUuid = fromUuid;
@@ -41,7 +44,7 @@ public class CodenjoyAchievement implements ResponseWithSlackName {
 
     public CodenjoyAchievement(SlackParsedCommand parsedCommand) {
         this.fromUuid = parsedCommand.getFromUser().getUuid();
-        Map<String, UserDTO> usersWithTokens = parsedCommand.getUsersWithTokens(tokens);
+        Map<String, UserDTO> usersWithTokens = parsedCommand.getUsersWithTokens(TOKEN_LEXER);
         this.firstPlaceUser = usersWithTokens.get(tokens[0]);
         this.firstPlaceUuid = firstPlaceUser.getUuid();
 
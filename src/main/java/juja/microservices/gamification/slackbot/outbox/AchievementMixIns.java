@@ -0,0 +1,53 @@
+package juja.microservices.gamification.slackbot.outbox;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import juja.microservices.gamification.slackbot.model.achievements.CodenjoyAchievement;
+import juja.microservices.gamification.slackbot.model.achievements.DailyAchievement;
+import juja.microservices.gamification.slackbot.model.achievements.InterviewAchievement;
+import juja.microservices.gamification.slackbot.model.achievements.ThanksAchievement;
+
+/**
+ * Creators of the achievements read from the outbox. They are mixed in to the outbox mapper only, so the
+ * achievements are sent to the gamification service exactly as before.
+ */
+final class AchievementMixIns {
+
+    private AchievementMixIns() {
+    }
+
+    static ObjectMapper register(ObjectMapper mapper) {
+        return mapper.addMixIn(DailyAchievement.class, DailyMixIn.class)
+                .addMixIn(CodenjoyAchievement.class, CodenjoyMixIn.class)
+                .addMixIn(ThanksAchievement.class, ThanksMixIn.class)
+                .addMixIn(InterviewAchievement.class, InterviewMixIn.class);
+    }
+
+    abstract static class DailyMixIn {
+        @JsonCreator
+        DailyMixIn(@JsonProperty("from") String fromUuid, @JsonProperty("description") String description) {
+        }
+    }
+
+    abstract static class CodenjoyMixIn {
+        @JsonCreator
+        CodenjoyMixIn(@JsonProperty("from") String fromUuid, @JsonProperty("firstPlace") String firstPlaceUuid,
+                      @JsonProperty("secondPlace") String secondPlaceUuid,
+                      @JsonProperty("thirdPlace") String thirdPlaceUuid) {
+        }
+    }
+
+    abstract static class ThanksMixIn {
+        @JsonCreator
+        ThanksMixIn(@JsonProperty("from") String fromUuid, @JsonProperty("to") String to,
+                    @JsonProperty("description") String description) {
+        }
+    }
+
+    abstract static class InterviewMixIn {
+        @JsonCreator
+        InterviewMixIn(@JsonProperty("from") String fromUuid, @JsonProperty("description") String description) {
+        }
+    }
+}
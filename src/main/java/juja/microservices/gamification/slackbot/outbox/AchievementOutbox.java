@@ -0,0 +1,275 @@
+package juja.microservices.gamification.slackbot.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import juja.microservices.gamification.slackbot.command.CommandRegistry;
+import juja.microservices.gamification.slackbot.command.SlackCommand;
+import juja.microservices.gamification.slackbot.dao.GamificationRepository;
+import juja.microservices.gamification.slackbot.exceptions.GamificationExchangeException;
+import juja.microservices.gamification.slackbot.model.achievements.AchievementBatch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import java.io.IOException;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Durable outbox of achievements. Commands append achievements to the local {@link OutboxLog} and are
+ * confirmed as soon as the log is synced to disk, appends of concurrent commands are synced together every
+ * syncInterval ms. A background shipper sends the synced achievements to the gamification service in order
+ * and retries while the service is unavailable. Achievements which were not acknowledged before a restart are
+ * shipped after it, so an achievement may be shipped twice. An achievement rejected by the gamification
+ * service is logged and skipped. The shipper survives any failure, it tries again after retryDelay ms.
+ */
+@Service
+public class AchievementOutbox {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+    private final ObjectMapper mapper = AchievementMixIns.register(new ObjectMapper());
+    private final GamificationRepository gamificationRepository;
+    private final CommandRegistry commandRegistry;
+    private final boolean enabled;
+    private final String directory;
+    private final int segmentSize;
+    private final long syncInterval;
+    private final int shipBatchSize;
+    private final long retryDelay;
+
+    private final Object syncLock = new Object();
+    private final List<PendingAppend> pendingAppends = new ArrayList<>();
+    private final Object shipLock = new Object();
+    private volatile boolean running;
+    private volatile long shippedAt;
+    private OutboxLog log;
+    private Thread syncer;
+    private Thread shipper;
+
+    @Inject
+    public AchievementOutbox(GamificationRepository gamificationRepository,
+                             CommandRegistry commandRegistry,
+                             @Value("${gamification.slackbot.outbox.enabled}") boolean enabled,
+                             @Value("${gamification.slackbot.outbox.directory}") String directory,
+                             @Value("${gamification.slackbot.outbox.segmentSize}") int segmentSize,
+                             @Value("${gamification.slackbot.outbox.syncInterval}") long syncInterval,
+                             @Value("${gamification.slackbot.outbox.shipBatchSize}") int shipBatchSize,
+                             @Value("${gamification.slackbot.outbox.retryDelay}") long retryDelay) {
+        this.gamificationRepository = gamificationRepository;
+        this.commandRegistry = commandRegistry;
+        this.enabled = enabled;
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.syncInterval = syncInterval;
+        this.shipBatchSize = shipBatchSize;
+        this.retryDelay = retryDelay;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        log = OutboxLog.open(Paths.get(directory), segmentSize);
+        running = true;
+        shippedAt = System.currentTimeMillis();
+        syncer = new CustomizableThreadFactory("outbox-sync-").newThread(this::syncLoop);
+        shipper = new CustomizableThreadFactory("outbox-shipper-").newThread(this::shipLoop);
+        syncer.start();
+        shipper.start();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Appends the achievement and waits until it is synced to disk
+     *
+     * @param type achievement type, one of the {@link AchievementBatch} constants
+     * @return sequence of the achievement in the outbox
+     */
+    public long append(String type, Object achievement) {
+        try {
+            return appendAsync(type, achievement).join();
+        } catch (CompletionException ex) {
+            throw ex.getCause() instanceof RuntimeException ? (RuntimeException) ex.getCause() : ex;
+        }
+    }
+
+    public CompletableFuture<Long> appendAsync(String type, Object achievement) {
+        byte[] payload;
+        try {
+            payload = mapper.writeValueAsBytes(new AchievementBatch.Entry(type, achievement));
+        } catch (JsonProcessingException ex) {
+            throw new IllegalArgumentException("Can't serialize " + type + " achievement", ex);
+        }
+        PendingAppend append = new PendingAppend();
+        synchronized (syncLock) {
+            if (!running) {
+                throw new IllegalStateException("Outbox is not running");
+            }
+            append.sequence = log.append(payload);
+            pendingAppends.add(append);
+            syncLock.notifyAll();
+        }
+        logger.debug("Appended {} achievement to outbox: [{}]", type, append.sequence);
+        return append.synced;
+    }
+
+    /**
+     * @return number of appended achievements which are not shipped yet
+     */
+    public long getPendingCount() {
+        return log == null ? 0 : log.getLastSequence() - log.getAcknowledged();
+    }
+
+    /**
+     * @return true if the shipper thread runs, false when the outbox is disabled or stopped
+     */
+    public boolean isShipping() {
+        return shipper != null && shipper.isAlive();
+    }
+
+    /**
+     * @return ms since the shipper last acknowledged achievements or found nothing to ship, 0 if nothing is pending
+     */
+    public long getShipLagMillis() {
+        return getPendingCount() == 0 ? 0 : Math.max(0, System.currentTimeMillis() - shippedAt);
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException, InterruptedException {
+        if (!running) {
+            return;
+        }
+        synchronized (syncLock) {
+            running = false;
+        }
+        syncer.interrupt();
+        shipper.interrupt();
+        syncer.join();
+        shipper.join();
+        log.close();
+    }
+
+    private void syncLoop() {
+        while (running) {
+            try {
+                synchronized (syncLock) {
+                    while (pendingAppends.isEmpty()) {
+                        syncLock.wait();
+                    }
+                }
+                if (syncInterval > 0) {
+                    Thread.sleep(syncInterval);
+                }
+            } catch (InterruptedException ex) {
+                break;
+            }
+            syncPendingAppends();
+            synchronized (shipLock) {
+                shipLock.notifyAll();
+            }
+        }
+        syncPendingAppends();
+    }
+
+    private void syncPendingAppends() {
+        List<PendingAppend> appends;
+        synchronized (syncLock) {
+            appends = new ArrayList<>(pendingAppends);
+            pendingAppends.clear();
+        }
+        try {
+            log.sync();
+            appends.forEach(append -> append.synced.complete(append.sequence));
+        } catch (RuntimeException ex) {
+            logger.error("Can't sync outbox: {}", ex.getMessage());
+            appends.forEach(append -> append.synced.completeExceptionally(ex));
+        }
+    }
+
+    private void shipLoop() {
+        while (running) {
+            try {
+                shipBatch();
+            } catch (InterruptedException | ClosedByInterruptException ex) {
+                break;
+            } catch (Exception | Error ex) {
+                logger.error("Outbox shipper failed, retry in {} ms: {}", retryDelay, ex.toString());
+                try {
+                    Thread.sleep(retryDelay);
+                } catch (InterruptedException interrupted) {
+                    break;
+                }
+            }
+        }
+        logger.debug("Outbox shipper stopped");
+    }
+
+    private void shipBatch() throws IOException, InterruptedException {
+        List<OutboxLog.Record> records = log.read(log.getAcknowledged() + 1, shipBatchSize);
+        if (records.isEmpty()) {
+            shippedAt = System.currentTimeMillis();
+            synchronized (shipLock) {
+                shipLock.wait(retryDelay);
+            }
+            return;
+        }
+        for (OutboxLog.Record record : records) {
+            ship(record);
+        }
+        log.acknowledge(records.get(records.size() - 1).getSequence());
+        shippedAt = System.currentTimeMillis();
+    }
+
+    /**
+     * Sends the achievement to the gamification service, retries until it is saved or rejected
+     */
+    private void ship(OutboxLog.Record record) throws InterruptedException {
+        while (true) {
+            try {
+                String[] ids = save(mapper.readTree(record.getPayload()));
+                logger.debug("Shipped outbox achievement [{}], ids: {}", record.getSequence(), ids.length);
+                return;
+            } catch (GamificationExchangeException ex) {
+                logger.error("Gamification service rejected outbox achievement [{}], it is skipped: {}",
+                        record.getSequence(), ex.getMessage());
+                return;
+            } catch (IOException | IllegalArgumentException ex) {
+                logger.error("Can't read outbox achievement [{}], it is skipped: {}",
+                        record.getSequence(), ex.getMessage());
+                return;
+            } catch (RuntimeException ex) {
+                logger.warn("Can't ship outbox achievement [{}], retry in {} ms: {}",
+                        record.getSequence(), retryDelay, ex.getMessage());
+                Thread.sleep(retryDelay);
+            }
+        }
+    }
+
+    private String[] save(JsonNode entry) throws JsonProcessingException {
+        return save(commandRegistry.get(entry.path("type").asText()), entry.path("achievement"));
+    }
+
+    private <A> String[] save(SlackCommand<A> command, JsonNode achievement) throws JsonProcessingException {
+        return command.getSave().apply(gamificationRepository,
+                mapper.treeToValue(achievement, command.getAchievementClass()));
+    }
+
+    private static class PendingAppend {
+        private final CompletableFuture<Long> synced = new CompletableFuture<>();
+        private long sequence;
+    }
+}
@@ -0,0 +1,320 @@
+package juja.microservices.gamification.slackbot.outbox;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of outbox records in memory-mapped segment files.
+ * <p>
+ * A record is [payload length][crc32 of payload][sequence][payload]. Segment files are named by the sequence
+ * of their first record and pre-allocated to segmentSize, a zero length marks the end of the written records.
+ * Appended records become durable and readable after {@link #sync()}, so one sync covers all appends since
+ * the previous one. The sequence of the last shipped record is kept in the ack file, segments with shipped
+ * records only are deleted. On open, a torn or corrupted record and everything after it are discarded.
+ */
+public class OutboxLog implements Closeable {
+
+    private static final int HEADER_SIZE = 16;
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String ACK_FILE = "acknowledged";
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+    private final Path directory;
+    private final int segmentSize;
+    private final FileChannel ackChannel;
+    private final List<Segment> segments = new ArrayList<>();
+    private final Set<Segment> dirty = new LinkedHashSet<>();
+    private long nextSequence;
+    private long syncedSequence;
+    private volatile long acknowledged;
+
+    private OutboxLog(Path directory, int segmentSize, FileChannel ackChannel, long acknowledged) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.ackChannel = ackChannel;
+        this.acknowledged = acknowledged;
+    }
+
+    public static OutboxLog open(Path directory, int segmentSize) throws IOException {
+        Files.createDirectories(directory);
+        FileChannel ackChannel = FileChannel.open(directory.resolve(ACK_FILE), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        ByteBuffer ack = ByteBuffer.allocate(Long.BYTES);
+        long acknowledged = ackChannel.read(ack, 0) == Long.BYTES ? ack.getLong(0) : 0;
+
+        OutboxLog log = new OutboxLog(directory, segmentSize, ackChannel, acknowledged);
+        log.recover();
+        return log;
+    }
+
+    /**
+     * @return sequence of the appended record
+     */
+    public synchronized long append(byte[] payload) {
+        int recordSize = HEADER_SIZE + payload.length;
+        if (payload.length == 0 || recordSize > segmentSize) {
+            throw new IllegalArgumentException(String.format("Record of %d bytes doesn't fit segment of %d bytes",
+                    payload.length, segmentSize));
+        }
+        Segment segment = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        if (segment == null || segment.buffer.capacity() - segment.writePosition < recordSize) {
+            segment = openSegment(nextSequence, segmentSize);
+            segments.add(segment);
+        }
+        long sequence = nextSequence++;
+        int position = segment.writePosition;
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+
+        ByteBuffer buffer = segment.buffer.duplicate();
+        buffer.position(position + HEADER_SIZE);
+        buffer.put(payload);
+        segment.buffer.putInt(position + 4, (int) crc.getValue());
+        segment.buffer.putLong(position + 8, sequence);
+        segment.buffer.putInt(position, payload.length);
+
+        segment.positions.add(position);
+        segment.writePosition += recordSize;
+        dirty.add(segment);
+        return sequence;
+    }
+
+    /**
+     * Writes the appended records to disk. Appends are not blocked while the segments are synced.
+     */
+    public void sync() {
+        List<Segment> toSync;
+        long sequence;
+        synchronized (this) {
+            toSync = new ArrayList<>(dirty);
+            dirty.clear();
+            sequence = nextSequence - 1;
+        }
+        toSync.forEach(segment -> segment.buffer.force());
+        synchronized (this) {
+            syncedSequence = Math.max(syncedSequence, sequence);
+        }
+    }
+
+    /**
+     * @return synced records starting from the given sequence
+     */
+    public synchronized List<Record> read(long fromSequence, int maxRecords) {
+        List<Record> records = new ArrayList<>();
+        for (Segment segment : segments) {
+            int index = (int) Math.max(0, fromSequence - segment.firstSequence);
+            for (; index < segment.positions.size(); index++) {
+                long sequence = segment.firstSequence + index;
+                if (sequence > syncedSequence || records.size() == maxRecords) {
+                    return records;
+                }
+                records.add(new Record(sequence, readPayload(segment.buffer, segment.positions.get(index))));
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Marks records up to the given sequence as shipped and deletes segments with shipped records only
+     */
+    public void acknowledge(long sequence) throws IOException {
+        if (sequence <= acknowledged) {
+            return;
+        }
+        ByteBuffer ack = ByteBuffer.allocate(Long.BYTES);
+        ack.putLong(0, sequence);
+        ackChannel.write(ack, 0);
+        ackChannel.force(false);
+        acknowledged = sequence;
+
+        synchronized (this) {
+            Iterator<Segment> iterator = segments.iterator();
+            while (iterator.hasNext()) {
+                Segment segment = iterator.next();
+                if (segment == segments.get(segments.size() - 1) || segment.lastSequence() > sequence) {
+                    break;
+                }
+                iterator.remove();
+                dirty.remove(segment);
+                deleteSegment(segment);
+            }
+        }
+    }
+
+    public long getAcknowledged() {
+        return acknowledged;
+    }
+
+    public synchronized long getLastSequence() {
+        return nextSequence - 1;
+    }
+
+    public synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        sync();
+        synchronized (this) {
+            for (Segment segment : segments) {
+                segment.channel.close();
+            }
+            segments.clear();
+        }
+        ackChannel.close();
+    }
+
+    private void recover() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+            stream.forEach(files::add);
+        }
+        files.sort(null);
+
+        long expectedSequence = -1;
+        boolean discard = false;
+        for (Path file : files) {
+            long firstSequence = Long.parseLong(file.getFileName().toString().replace(SEGMENT_SUFFIX, ""));
+            if (discard || (expectedSequence != -1 && firstSequence != expectedSequence)) {
+                logger.warn("Discard outbox segment [{}] after a gap in the sequence", file);
+                discard = true;
+                Files.delete(file);
+                continue;
+            }
+            Segment segment = openSegment(firstSequence, 0);
+            discard = !scan(segment);
+            segments.add(segment);
+            expectedSequence = segment.firstSequence + segment.positions.size();
+        }
+
+        nextSequence = Math.max(acknowledged + 1, expectedSequence);
+        Iterator<Segment> iterator = segments.iterator();
+        while (iterator.hasNext()) {
+            Segment segment = iterator.next();
+            if (segment.positions.isEmpty() || segment.lastSequence() <= acknowledged) {
+                iterator.remove();
+                deleteSegment(segment);
+            }
+        }
+        segments.forEach(segment -> segment.buffer.force());
+        syncedSequence = nextSequence - 1;
+        logger.info("Opened outbox [{}]: {} records to ship", directory, nextSequence - 1 - acknowledged);
+    }
+
+    /**
+     * Indexes the records of the segment
+     *
+     * @return false if the segment ends with a torn or corrupted record
+     */
+    private boolean scan(Segment segment) {
+        MappedByteBuffer buffer = segment.buffer;
+        int position = 0;
+        while (position + HEADER_SIZE <= buffer.capacity()) {
+            int length = buffer.getInt(position);
+            if (length == 0) {
+                break;
+            }
+            long expectedSequence = segment.firstSequence + segment.positions.size();
+            if (length < 0 || position + HEADER_SIZE + length > buffer.capacity()
+                    || buffer.getLong(position + 8) != expectedSequence
+                    || buffer.getInt(position + 4) != crcOf(readPayload(buffer, position))) {
+                logger.warn("Discard torn outbox record [{}] in [{}]", expectedSequence, segment.path);
+                for (int i = position; i < buffer.capacity(); i++) {
+                    buffer.put(i, (byte) 0);
+                }
+                segment.writePosition = position;
+                return false;
+            }
+            segment.positions.add(position);
+            position += HEADER_SIZE + length;
+        }
+        segment.writePosition = position;
+        return true;
+    }
+
+    private Segment openSegment(long firstSequence, int size) {
+        Path path = directory.resolve(String.format("%020d%s", firstSequence, SEGMENT_SUFFIX));
+        try {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            long mappedSize = size > 0 ? size : channel.size();
+            return new Segment(path, firstSequence, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    mappedSize));
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * The mapping of a deleted segment is released by the garbage collector
+     */
+    private void deleteSegment(Segment segment) {
+        try {
+            segment.channel.close();
+            Files.deleteIfExists(segment.path);
+        } catch (IOException ex) {
+            logger.warn("Can't delete outbox segment [{}]: {}", segment.path, ex.getMessage());
+        }
+    }
+
+    private static byte[] readPayload(MappedByteBuffer buffer, int position) {
+        byte[] payload = new byte[buffer.getInt(position)];
+        ByteBuffer record = buffer.duplicate();
+        record.position(position + HEADER_SIZE);
+        record.get(payload);
+        return payload;
+    }
+
+    private static int crcOf(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Record {
+        private final long sequence;
+        private final byte[] payload;
+    }
+
+    private static class Segment {
+        private final Path path;
+        private final long firstSequence;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private final List<Integer> positions = new ArrayList<>();
+        private int writePosition;
+
+        private Segment(Path path, long firstSequence, FileChannel channel, MappedByteBuffer buffer) {
+            this.path = path;
+            this.firstSequence = firstSequence;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        private long lastSequence() {
+            return firstSequence + positions.size() - 1;
+        }
+    }
+}
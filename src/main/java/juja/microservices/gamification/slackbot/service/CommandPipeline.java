@@ -0,0 +1,27 @@
+package juja.microservices.gamification.slackbot.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+public interface CommandPipeline {
+
+    /**
+     * Queues the command for background processing and leaves the delivery of the result to the caller.
+     *
+     * @throws RejectedExecutionException if the pipeline is overloaded
+     */
+    CompletableFuture<String> execute(String commandName, Supplier<String> command);
+
+    /**
+     * Same as {@link #execute(String, Supplier)} for a non-blocking command. The executor thread is only used
+     * to start the command, the returned future is completed with the result of the command.
+     *
+     * @throws RejectedExecutionException if the pipeline is overloaded
+     */
+    CompletableFuture<String> executeAsync(String commandName, Supplier<CompletableFuture<String>> command);
+
+    void sendDelayedResponse(String responseUrl, String responseToSlack);
+
+    void sendErrorResponse(String responseUrl, Throwable error);
+}
@@ -1,5 +1,9 @@
 package juja.microservices.gamification.slackbot.service;
 
+import juja.microservices.gamification.slackbot.command.SlackCommand;
+
+import java.util.concurrent.CompletableFuture;
+
 /**
  * @author Danil Kuznetsov
  */
@@ -12,4 +16,25 @@ public interface GamificationService {
     String sendThanksAchievement(String fromUser, String text);
 
     String sendInterviewAchievement(String fromUser, String text);
+
+    /*
+     * Non-blocking variants: parse -> resolve users -> save achievement -> reply are chained
+     * on the http client callbacks, no thread waits for the remote services
+     */
+
+    CompletableFuture<String> sendDailyAchievementAsync(String fromUser, String text);
+
+    CompletableFuture<String> sendCodenjoyAchievementAsync(String fromUser, String text);
+
+    CompletableFuture<String> sendThanksAchievementAsync(String fromUser, String text);
+
+    CompletableFuture<String> sendInterviewAchievementAsync(String fromUser, String text);
+
+    /**
+     * Parses the command, builds its achievement, saves it and renders the response to slack,
+     * the same way for every command of {@link juja.microservices.gamification.slackbot.command.CommandRegistry}
+     */
+    <A> String sendAchievement(SlackCommand<A> command, String fromUser, String text);
+
+    <A> CompletableFuture<String> sendAchievementAsync(SlackCommand<A> command, String fromUser, String text);
 }
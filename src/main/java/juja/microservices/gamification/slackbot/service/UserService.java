@@ -3,6 +3,7 @@ package juja.microservices.gamification.slackbot.service;
 import juja.microservices.gamification.slackbot.model.DTO.UserDTO;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * @author Artem
@@ -11,4 +12,6 @@ import java.util.List;
 public interface UserService {
 
     List<UserDTO> findUsersBySlackNames(List<String> slackNames);
+
+    CompletableFuture<List<UserDTO>> findUsersBySlackNamesAsync(List<String> slackNames);
 }
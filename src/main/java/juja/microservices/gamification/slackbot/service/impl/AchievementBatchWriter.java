@@ -0,0 +1,101 @@
+package juja.microservices.gamification.slackbot.service.impl;
+
+import juja.microservices.gamification.slackbot.concurrent.MicroBatcher;
+import juja.microservices.gamification.slackbot.dao.GamificationRepository;
+import juja.microservices.gamification.slackbot.exceptions.GamificationExchangeException;
+import juja.microservices.gamification.slackbot.model.achievements.AchievementBatch;
+import juja.microservices.gamification.slackbot.util.Utils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Saves achievements of concurrent commands by one gamification service request, see {@link MicroBatcher}.
+ * Every command gets the ids of its own achievement. If the gamification service rejects a batch, the
+ * achievements are saved one by one, so only the command with a wrong achievement gets the error.
+ * maxWait 0 disables batching.
+ */
+@Service
+public class AchievementBatchWriter {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+    private final GamificationRepository gamificationRepository;
+    private final MicroBatcher<AchievementBatch.Entry, String[]> batcher;
+
+    @Inject
+    public AchievementBatchWriter(GamificationRepository gamificationRepository,
+                                  @Value("${gamification.slackbot.achievementBatch.maxWait}") long maxWait,
+                                  @Value("${gamification.slackbot.achievementBatch.maxBatchSize}") int maxBatchSize) {
+        this.gamificationRepository = gamificationRepository;
+        this.batcher = maxWait > 0
+                ? new MicroBatcher<>("achievements", maxWait, maxBatchSize, this::saveBatch, this::saveBatchAsync)
+                : null;
+    }
+
+    /**
+     * @param type   achievement type in the batch, one of the {@link AchievementBatch} constants
+     * @param single saves the achievement by its own request
+     */
+    public <T> String[] save(String type, T achievement, Function<T, String[]> single) {
+        if (batcher == null) {
+            return single.apply(achievement);
+        }
+        try {
+            return batcher.submit(entryOf(type, achievement)).get(0);
+        } catch (GamificationExchangeException ex) {
+            logger.warn("Gamification service rejected batch, save {} achievement alone", type);
+            return single.apply(achievement);
+        }
+    }
+
+    public <T> CompletableFuture<String[]> saveAsync(String type, T achievement,
+                                                     Function<T, CompletableFuture<String[]>> single) {
+        if (batcher == null) {
+            return single.apply(achievement);
+        }
+        return batcher.submitAsync(entryOf(type, achievement))
+                .handle((ids, error) -> {
+                    if (error == null) {
+                        return CompletableFuture.completedFuture(ids.get(0));
+                    }
+                    Throwable cause = Utils.unwrapAsyncError(error);
+                    if (cause instanceof GamificationExchangeException) {
+                        logger.warn("Gamification service rejected batch, save {} achievement alone", type);
+                        return single.apply(achievement);
+                    }
+                    CompletableFuture<String[]> failed = new CompletableFuture<>();
+                    failed.completeExceptionally(cause);
+                    return failed;
+                })
+                .thenCompose(Function.identity());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (batcher != null) {
+            batcher.shutdown();
+        }
+    }
+
+    private List<String[]> saveBatch(List<AchievementBatch.Entry> entries) {
+        return Arrays.asList(gamificationRepository.saveAchievementBatch(new AchievementBatch(entries)));
+    }
+
+    private CompletableFuture<List<String[]>> saveBatchAsync(List<AchievementBatch.Entry> entries) {
+        return gamificationRepository.saveAchievementBatchAsync(new AchievementBatch(entries))
+                .thenApply(Arrays::asList);
+    }
+
+    private List<AchievementBatch.Entry> entryOf(String type, Object achievement) {
+        return Collections.singletonList(new AchievementBatch.Entry(type, achievement));
+    }
+}
@@ -0,0 +1,147 @@
+package juja.microservices.gamification.slackbot.service.impl;
+
+import juja.microservices.gamification.slackbot.concurrent.BoundedExecutor;
+import juja.microservices.gamification.slackbot.concurrent.CommandScope;
+import juja.microservices.gamification.slackbot.delivery.SlackDelivery;
+import juja.microservices.gamification.slackbot.exceptions.CommandTimeoutException;
+import juja.microservices.gamification.slackbot.exceptions.ExceptionsHandler;
+import juja.microservices.gamification.slackbot.metrics.BotMetrics;
+import juja.microservices.gamification.slackbot.service.CommandPipeline;
+import juja.microservices.gamification.slackbot.tracing.Span;
+import juja.microservices.gamification.slackbot.tracing.Tracer;
+import juja.microservices.gamification.slackbot.util.LogPayload;
+import me.ramswaroop.jbot.core.slack.models.RichMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import javax.inject.Inject;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+@Service
+public class DefaultCommandPipeline implements CommandPipeline {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+    private final BoundedExecutor commandExecutor;
+    private final SlackDelivery slackDelivery;
+    private final ExceptionsHandler exceptionsHandler;
+    private final BotMetrics metrics;
+    private final Tracer tracer;
+
+    @Inject
+    public DefaultCommandPipeline(BoundedExecutor commandExecutor,
+                                  SlackDelivery slackDelivery,
+                                  ExceptionsHandler exceptionsHandler,
+                                  BotMetrics metrics,
+                                  Tracer tracer) {
+        this.commandExecutor = commandExecutor;
+        this.slackDelivery = slackDelivery;
+        this.exceptionsHandler = exceptionsHandler;
+        this.metrics = metrics;
+        this.tracer = tracer;
+    }
+
+    @Override
+    public CompletableFuture<String> execute(String commandName, Supplier<String> command) {
+        CompletableFuture<String> result = new CompletableFuture<>();
+        enqueue(commandName, result, () -> {
+            try {
+                String responseToSlack = runCommand(commandName, command);
+                logger.info("{} command processed. Response to slack: [{}]", commandName,
+                        LogPayload.of(responseToSlack));
+                result.complete(responseToSlack);
+            } catch (Exception ex) {
+                result.completeExceptionally(ex);
+            }
+        });
+        return result;
+    }
+
+    @Override
+    public CompletableFuture<String> executeAsync(String commandName, Supplier<CompletableFuture<String>> command) {
+        CompletableFuture<String> result = new CompletableFuture<>();
+        enqueue(commandName, result, () -> {
+            try {
+                command.get().whenComplete((responseToSlack, error) -> {
+                    if (error == null) {
+                        logger.info("{} command processed. Response to slack: [{}]", commandName,
+                                LogPayload.of(responseToSlack));
+                        result.complete(responseToSlack);
+                    } else {
+                        result.completeExceptionally(error);
+                    }
+                });
+            } catch (Exception ex) {
+                result.completeExceptionally(ex);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Queues the command task, the command is timed from now until its result is completed. The task runs
+     * with the span of the caller, the wait in the queue is its child span.
+     */
+    private void enqueue(String commandName, CompletableFuture<String> result, Runnable task) {
+        long queued = System.nanoTime();
+        Span queueSpan = tracer.startSpan("queue");
+        try {
+            commandExecutor.execute(tracer.wrap(() -> {
+                queueSpan.finish();
+                metrics.commandStarted(commandName, System.nanoTime() - queued);
+                task.run();
+            }));
+        } catch (RejectedExecutionException ex) {
+            queueSpan.tag("outcome", "rejected").finish();
+            metrics.commandRejected(commandName);
+            logger.warn("{} command rejected: {}. Rejected commands total: [{}]",
+                    commandName, ex.getMessage(), commandExecutor.getRejectedCount());
+            throw ex;
+        }
+        metrics.commandAccepted(commandName);
+        result.whenComplete((responseToSlack, error) ->
+                metrics.commandCompleted(commandName, System.nanoTime() - queued, error == null));
+        logger.debug("{} command queued. Executor '{}' queue size: [{}], active: [{}]", commandName,
+                commandExecutor.getName(), commandExecutor.getQueueSize(), commandExecutor.getActiveCount());
+    }
+
+    private String runCommand(String commandName, Supplier<String> command) throws Exception {
+        try (CommandScope scope = commandExecutor.openScope()) {
+            Future<String> responseToSlack = scope.fork(tracer.wrapCallable(command::get));
+            scope.join();
+            return responseToSlack.get();
+        } catch (TimeoutException ex) {
+            logger.warn("{} command was cancelled after timeout", commandName);
+            throw new CommandTimeoutException(commandName);
+        } catch (ExecutionException ex) {
+            throw ex.getCause() instanceof Exception ? (Exception) ex.getCause() : ex;
+        }
+    }
+
+    /**
+     * The response is queued to the slack delivery, the calling thread never waits for slack
+     */
+    @Override
+    public void sendDelayedResponse(String responseUrl, String responseToSlack) {
+        slackDelivery.deliver(responseUrl, new RichMessage(responseToSlack));
+    }
+
+    @Override
+    public void sendErrorResponse(String responseUrl, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        tracer.trace("slack.errorResponse", () -> {
+            if (cause instanceof Exception) {
+                exceptionsHandler.handleException((Exception) cause, responseUrl);
+            } else {
+                exceptionsHandler.handleException(new CompletionException(cause), responseUrl);
+            }
+            return null;
+        });
+    }
+}
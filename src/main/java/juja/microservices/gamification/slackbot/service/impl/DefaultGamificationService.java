@@ -1,18 +1,20 @@
 package juja.microservices.gamification.slackbot.service.impl;
 
+import juja.microservices.gamification.slackbot.command.CommandRegistry;
+import juja.microservices.gamification.slackbot.command.SlackCommand;
 import juja.microservices.gamification.slackbot.dao.GamificationRepository;
 import juja.microservices.gamification.slackbot.model.SlackParsedCommand;
-import juja.microservices.gamification.slackbot.model.achievements.CodenjoyAchievement;
-import juja.microservices.gamification.slackbot.model.achievements.DailyAchievement;
-import juja.microservices.gamification.slackbot.model.achievements.InterviewAchievement;
-import juja.microservices.gamification.slackbot.model.achievements.ThanksAchievement;
+import juja.microservices.gamification.slackbot.model.achievements.AchievementBatch;
+import juja.microservices.gamification.slackbot.outbox.AchievementOutbox;
 import juja.microservices.gamification.slackbot.service.GamificationService;
+import juja.microservices.gamification.slackbot.tracing.Tracer;
+import juja.microservices.gamification.slackbot.util.LogPayload;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import javax.inject.Inject;
-import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * @author Danil Kuznetsov
@@ -25,96 +27,119 @@ public class DefaultGamificationService implements GamificationService {
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
     private final GamificationRepository gamificationRepository;
     private final SlackNameHandlerService slackNameHandlerService;
+    private final AchievementBatchWriter achievementBatchWriter;
+    private final AchievementOutbox achievementOutbox;
+    private final CommandRegistry commandRegistry;
+    private final Tracer tracer;
 
     @Inject
     public DefaultGamificationService(GamificationRepository gamificationRepository,
-                                      SlackNameHandlerService slackNameHandlerService) {
+                                      SlackNameHandlerService slackNameHandlerService,
+                                      AchievementBatchWriter achievementBatchWriter,
+                                      AchievementOutbox achievementOutbox,
+                                      CommandRegistry commandRegistry,
+                                      Tracer tracer) {
         this.gamificationRepository = gamificationRepository;
         this.slackNameHandlerService = slackNameHandlerService;
+        this.achievementBatchWriter = achievementBatchWriter;
+        this.achievementOutbox = achievementOutbox;
+        this.commandRegistry = commandRegistry;
+        this.tracer = tracer;
     }
 
     @Override
     public String sendDailyAchievement(String fromUser, String text) {
-
-        logger.debug("Start create Daily achievement from slack parsed command");
-        DailyAchievement daily = new DailyAchievement(createSlackParsedCommand(fromUser, text));
-        logger.debug("Daily achievement was created. Daily: {}", daily.toString());
-
-        String[] ids = gamificationRepository.saveDailyAchievement(daily);
-        logger.info("Daily achievement was saved with id: {}", Arrays.toString(ids));
-
-        if (ids.length == 1) {
-            return "Thanks, your daily report saved.";
-        } else {
-            logger.debug("Expected 1 saved achievements, but gamification service saved: {} ", ids.length);
-            return "Something went wrong and we didn't save your daily report";
-        }
+        return sendAchievement(commandRegistry.get(AchievementBatch.DAILY), fromUser, text);
     }
 
     @Override
     public String sendCodenjoyAchievement(String fromUser, String text) {
-
-        logger.debug("Start create Codenjoy achievement from slack parsed command");
-        CodenjoyAchievement codenjoy = new CodenjoyAchievement(createSlackParsedCommand(fromUser, text));
-        logger.debug("Codenjoy achievement was created. codenjoy: {}", codenjoy.toString());
-
-        String[] ids = gamificationRepository.saveCodenjoyAchievement(codenjoy);
-        logger.info("Codenjoy achievement was saved with id: {}", Arrays.toString(ids));
-
-        if (ids.length == 3) {
-            return codenjoy.injectSlackNames("Thanks, we awarded the users. " +
-                    "First place: %s, Second place: %s, Third place: %s");
-        } else {
-            logger.debug("Expected 3 saved achievements, but gamification service saved: {} ", ids.length);
-            return "Something went wrong and we didn't award the users";
-        }
+        return sendAchievement(commandRegistry.get(AchievementBatch.CODENJOY), fromUser, text);
     }
 
     @Override
     public String sendThanksAchievement(String fromUser, String text) {
+        return sendAchievement(commandRegistry.get(AchievementBatch.THANKS), fromUser, text);
+    }
 
-        logger.debug("Start create Thanks achievement from slack parsed command");
-        ThanksAchievement thanks = new ThanksAchievement(createSlackParsedCommand(fromUser, text));
-        logger.debug("Thanks achievement was created. thanks: {}", thanks.toString());
-
-        String[] ids = gamificationRepository.saveThanksAchievement(thanks);
-        logger.info("Thanks achievement was saved with id: {}", Arrays.toString(ids));
+    @Override
+    public String sendInterviewAchievement(String fromUser, String text) {
+        return sendAchievement(commandRegistry.get(AchievementBatch.INTERVIEW), fromUser, text);
+    }
 
-        String response = "Something went wrong and we didn't save the thanks.";
+    @Override
+    public CompletableFuture<String> sendDailyAchievementAsync(String fromUser, String text) {
+        return sendAchievementAsync(commandRegistry.get(AchievementBatch.DAILY), fromUser, text);
+    }
 
-        if (ids.length == 1) {
-            response = thanks.injectSlackNames("Thanks, your 'thanks' for %s saved.");
-        }
-        if (ids.length == 2) {
-            response = thanks.injectSlackNames("Thanks, your 'thanks' for %s saved. " +
-                    "Also you received +1 for your activity.");
-        }
+    @Override
+    public CompletableFuture<String> sendCodenjoyAchievementAsync(String fromUser, String text) {
+        return sendAchievementAsync(commandRegistry.get(AchievementBatch.CODENJOY), fromUser, text);
+    }
 
-        return response;
+    @Override
+    public CompletableFuture<String> sendThanksAchievementAsync(String fromUser, String text) {
+        return sendAchievementAsync(commandRegistry.get(AchievementBatch.THANKS), fromUser, text);
     }
 
     @Override
-    public String sendInterviewAchievement(String fromUser, String text) {
+    public CompletableFuture<String> sendInterviewAchievementAsync(String fromUser, String text) {
+        return sendAchievementAsync(commandRegistry.get(AchievementBatch.INTERVIEW), fromUser, text);
+    }
 
-        logger.debug("Start create Interview achievement from slack parsed command");
-        InterviewAchievement interview = new InterviewAchievement(createSlackParsedCommand(fromUser, text));
-        logger.debug("Interview achievement was created. interview: {}", interview.toString());
+    @Override
+    public <A> String sendAchievement(SlackCommand<A> command, String fromUser, String text) {
 
-        String[] ids = gamificationRepository.saveInterviewAchievement(interview);
-        logger.info("Interview achievement was saved with id: {}", Arrays.toString(ids));
+        logger.debug("Start create {} achievement from slack parsed command", command.getName());
+        A achievement = command.getAchievement().apply(createSlackParsedCommand(fromUser, text));
+        logger.debug("{} achievement was created: {}", command.getName(), LogPayload.of(achievement));
 
-        if (ids.length == 1) {
-            return "Thanks. Your interview saved.";
-        } else {
-            return "Something went wrong and we didn't save your interview";
+        if (achievementOutbox.isEnabled()) {
+            achievementOutbox.append(command.getType(), achievement);
+            return command.getAcceptedResponse().apply(achievement);
         }
+        String[] ids = achievementBatchWriter.save(command.getType(), achievement,
+                saved -> command.getSave().apply(gamificationRepository, saved));
+        return response(command, achievement, ids);
+    }
+
+    @Override
+    public <A> CompletableFuture<String> sendAchievementAsync(SlackCommand<A> command, String fromUser, String text) {
+        return createSlackParsedCommandAsync(fromUser, text)
+                .thenApply(command.getAchievement())
+                .thenCompose(tracer.wrapFunction(achievement -> {
+                    logger.debug("{} achievement was created: {}", command.getName(), LogPayload.of(achievement));
+                    if (achievementOutbox.isEnabled()) {
+                        return achievementOutbox.appendAsync(command.getType(), achievement)
+                                .thenApply(sequence -> command.getAcceptedResponse().apply(achievement));
+                    }
+                    return achievementBatchWriter.saveAsync(command.getType(), achievement,
+                            saved -> command.getSaveAsync().apply(gamificationRepository, saved))
+                            .thenApply(ids -> response(command, achievement, ids));
+                }));
+    }
+
+    private <A> String response(SlackCommand<A> command, A achievement, String[] ids) {
+        logger.info("{} achievement was saved with id: {}", command.getName(), LogPayload.of(ids));
+        return command.getResponse().apply(achievement, ids);
     }
 
     private SlackParsedCommand createSlackParsedCommand(String fromUser, String text) {
 
         logger.debug("Start create slackParsedCommand");
-        SlackParsedCommand slackParsedCommand = slackNameHandlerService.createSlackParsedCommand(fromUser, text);
-        logger.debug("Finish create slackParsedCommand: {}", slackParsedCommand.toString());
+        SlackParsedCommand slackParsedCommand = tracer.trace("parse",
+                () -> slackNameHandlerService.createSlackParsedCommand(fromUser, text));
+        logger.debug("Finish create slackParsedCommand: {}", LogPayload.of(slackParsedCommand));
         return slackParsedCommand;
     }
+
+    private CompletableFuture<SlackParsedCommand> createSlackParsedCommandAsync(String fromUser, String text) {
+
+        logger.debug("Start create slackParsedCommand asynchronously");
+        return tracer.traceAsync("parse", () -> slackNameHandlerService.createSlackParsedCommandAsync(fromUser, text))
+                .thenApply(slackParsedCommand -> {
+                    logger.debug("Finish create slackParsedCommand: {}", LogPayload.of(slackParsedCommand));
+                    return slackParsedCommand;
+                });
+    }
 }
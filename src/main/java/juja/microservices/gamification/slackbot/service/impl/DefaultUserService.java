@@ -1,35 +1,173 @@
 package juja.microservices.gamification.slackbot.service.impl;
 
-import juja.microservices.gamification.slackbot.dao.UserRepository;
+import juja.microservices.gamification.slackbot.cache.UserCache;
+import juja.microservices.gamification.slackbot.exceptions.DownstreamUnavailableException;
+import juja.microservices.gamification.slackbot.http.Bulkheads;
 import juja.microservices.gamification.slackbot.model.DTO.UserDTO;
 import juja.microservices.gamification.slackbot.service.UserService;
+import juja.microservices.gamification.slackbot.util.LogPayload;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
+ * Resolves slack names from the cache. Missed names are requested from the users service, concurrent lookups
+ * of the same name share one outstanding request: a name already requested by another command is awaited
+ * instead of being requested again, at most joinTimeout ms. Requests of different commands are batched by
+ * {@link UserLookupBatcher}.
+ *
  * @author Artem
  */
 
 @Service
 public class DefaultUserService implements UserService {
 
-    private final UserRepository userRepository;
+    private final UserLookupBatcher userLookupBatcher;
+    private final UserCache userCache;
+    private final long joinTimeout;
+    private final ConcurrentMap<String, CompletableFuture<UserDTO>> inFlightLookups = new ConcurrentHashMap<>();
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
 
     @Inject
-    public DefaultUserService(UserRepository userRepository) {
-        this.userRepository = userRepository;
+    public DefaultUserService(UserLookupBatcher userLookupBatcher, UserCache userCache,
+                              @Value("${gamification.slackbot.userBatch.joinTimeout}") long joinTimeout) {
+        this.userLookupBatcher = userLookupBatcher;
+        this.userCache = userCache;
+        this.joinTimeout = joinTimeout;
     }
 
     @Override
     public List<UserDTO> findUsersBySlackNames(List<String> slackNames) {
-        logger.debug("Received SlackName: [{}] for conversion", slackNames.toString());
-        List<UserDTO> users = userRepository.findUsersBySlackNames(slackNames);
-        logger.info("Found users: [{}] by SlackName: [{}]", users.toString(), slackNames.toString());
+        logger.debug("Received SlackName: [{}] for conversion", LogPayload.of(slackNames));
+        UserCache.Lookup lookup = userCache.lookup(slackNames);
+        List<UserDTO> loaded = new ArrayList<>();
+        if (!lookup.getMisses().isEmpty()) {
+            Map<String, CompletableFuture<UserDTO>> lookups = new LinkedHashMap<>();
+            List<String> owned = joinInFlightLookups(lookup.getMisses(), lookups);
+            if (!owned.isEmpty()) {
+                try {
+                    List<UserDTO> users = userLookupBatcher.lookup(owned);
+                    completeInFlightLookups(owned, users, null);
+                } catch (Throwable ex) {
+                    completeInFlightLookups(owned, null, ex);
+                    throw ex;
+                }
+            }
+            for (CompletableFuture<UserDTO> user : lookups.values()) {
+                addIfFound(loaded, awaitUser(user));
+            }
+        }
+        List<UserDTO> users = lookup.complete(loaded);
+        logger.debug("Found users: [{}] by SlackName: [{}]", LogPayload.of(users), LogPayload.of(slackNames));
         return users;
     }
+
+    @Override
+    public CompletableFuture<List<UserDTO>> findUsersBySlackNamesAsync(List<String> slackNames) {
+        logger.debug("Received SlackName: [{}] for async conversion", LogPayload.of(slackNames));
+        UserCache.Lookup lookup = userCache.lookup(slackNames);
+        Map<String, CompletableFuture<UserDTO>> lookups = new LinkedHashMap<>();
+        if (!lookup.getMisses().isEmpty()) {
+            List<String> owned = joinInFlightLookups(lookup.getMisses(), lookups);
+            if (!owned.isEmpty()) {
+                try {
+                    userLookupBatcher.lookupAsync(owned)
+                            .whenComplete((users, error) -> completeInFlightLookups(owned, users, error));
+                } catch (Throwable ex) {
+                    completeInFlightLookups(owned, null, ex);
+                }
+            }
+        }
+        return CompletableFuture.allOf(lookups.values().toArray(new CompletableFuture<?>[lookups.size()]))
+                .thenApply(ignored -> {
+                    List<UserDTO> loaded = new ArrayList<>();
+                    lookups.values().forEach(user -> addIfFound(loaded, user.join()));
+                    List<UserDTO> result = lookup.complete(loaded);
+                    logger.debug("Found users: [{}] by SlackName: [{}]", LogPayload.of(result),
+                            LogPayload.of(slackNames));
+                    return result;
+                });
+    }
+
+    /**
+     * Registers lookups of the missed slack names. Names which are already being requested by another
+     * command are joined.
+     *
+     * @return slack names which the caller must request from the users service
+     */
+    private List<String> joinInFlightLookups(Collection<String> misses,
+                                             Map<String, CompletableFuture<UserDTO>> lookups) {
+        List<String> owned = new ArrayList<>();
+        for (String slackName : misses) {
+            CompletableFuture<UserDTO> lookup = new CompletableFuture<>();
+            CompletableFuture<UserDTO> inFlight = inFlightLookups.putIfAbsent(slackName, lookup);
+            if (inFlight == null) {
+                owned.add(slackName);
+                lookups.put(slackName, lookup);
+            } else {
+                logger.debug("Joined in-flight lookup of SlackName: [{}]", slackName);
+                lookups.put(slackName, inFlight);
+            }
+        }
+        return owned;
+    }
+
+    /**
+     * Caches the loaded users before the lookups are removed, so a later lookup finds the user either
+     * in the cache or in flight. Lookups which are completed already are skipped, so it can be called again
+     * with the error when caching the users failed.
+     */
+    private void completeInFlightLookups(List<String> owned, List<UserDTO> users, Throwable error) {
+        Map<String, UserDTO> usersBySlackName = new HashMap<>();
+        if (error == null) {
+            userCache.putLoaded(owned, users);
+            users.forEach(user -> usersBySlackName.put(UserCache.normalize(user.getSlack()), user));
+        }
+        for (String slackName : owned) {
+            CompletableFuture<UserDTO> lookup = inFlightLookups.remove(slackName);
+            if (lookup == null) {
+                continue;
+            }
+            if (error == null) {
+                lookup.complete(usersBySlackName.get(slackName));
+            } else {
+                lookup.completeExceptionally(error);
+            }
+        }
+    }
+
+    private UserDTO awaitUser(CompletableFuture<UserDTO> user) {
+        try {
+            return user.get(joinTimeout, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException ex) {
+            throw ex.getCause() instanceof RuntimeException ? (RuntimeException) ex.getCause()
+                    : new IllegalStateException(ex.getCause());
+        } catch (TimeoutException ex) {
+            throw new DownstreamUnavailableException(Bulkheads.USERS, ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for users", ex);
+        }
+    }
+
+    private void addIfFound(List<UserDTO> users, UserDTO user) {
+        if (user != null) {
+            users.add(user);
+        }
+    }
 }
@@ -1,8 +1,12 @@
 package juja.microservices.gamification.slackbot.service.impl;
 
 import juja.microservices.gamification.slackbot.model.DTO.UserDTO;
+import juja.microservices.gamification.slackbot.model.SlackNames;
 import juja.microservices.gamification.slackbot.model.SlackParsedCommand;
 import juja.microservices.gamification.slackbot.service.UserService;
+import juja.microservices.gamification.slackbot.tracing.Tracer;
+import juja.microservices.gamification.slackbot.util.LogPayload;
+import juja.microservices.gamification.slackbot.util.SlackNameScanner;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -11,8 +15,7 @@ import javax.inject.Inject;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 /**
@@ -23,20 +26,14 @@ import java.util.stream.Collectors;
 public class SlackNameHandlerService {
 
     private UserService userService;
-
-    /**
-     * Slack name cannot be longer than 21 characters and
-     * can only contain letters, numbers, periods, hyphens, and underscores.
-     * ([a-z0-9\.\_\-]){1,21}
-     * quick test regExp http://regexr.com/
-     */
-    private final String SLACK_NAME_PATTERN = "@([a-zA-z0-9\\.\\_\\-]){1,21}";
+    private final Tracer tracer;
 
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
 
     @Inject
-    public SlackNameHandlerService(UserService userService) {
+    public SlackNameHandlerService(UserService userService, Tracer tracer) {
         this.userService = userService;
+        this.tracer = tracer;
     }
 
     public SlackParsedCommand createSlackParsedCommand(String fromSlackName, String text) {
@@ -44,27 +41,47 @@ public class SlackNameHandlerService {
             logger.debug("add '@' to slack name: [{}]", fromSlackName);
             fromSlackName = "@" + fromSlackName;
         }
-        return new SlackParsedCommand(fromSlackName, text, receiveUsersMap(fromSlackName, text));
+        SlackNames slackNames = tracer.trace("slackNames.scan", () -> receiveAllSlackNames(text));
+        return new SlackParsedCommand(fromSlackName, text, slackNames,
+                receiveUsersMap(fromSlackName, slackNames));
+    }
+
+    /**
+     * Non-blocking variant of {@link #createSlackParsedCommand(String, String)}: the text is parsed
+     * in the calling thread, the command is completed when the users service responds
+     */
+    public CompletableFuture<SlackParsedCommand> createSlackParsedCommandAsync(String fromSlackName, String text) {
+        if (!fromSlackName.startsWith("@")) {
+            logger.debug("add '@' to slack name: [{}]", fromSlackName);
+            fromSlackName = "@" + fromSlackName;
+        }
+        String from = fromSlackName;
+        SlackNames slackNames = tracer.trace("slackNames.scan", () -> receiveAllSlackNames(text));
+        return userService.findUsersBySlackNamesAsync(collectSlackNames(from, slackNames))
+                .thenApply(users -> new SlackParsedCommand(from, text, slackNames, toUsersMap(users)));
+    }
+
+    private Map<String, UserDTO> receiveUsersMap(String fromSlackName, SlackNames slackNames) {
+        List<UserDTO> users = userService.findUsersBySlackNames(collectSlackNames(fromSlackName, slackNames));
+        return toUsersMap(users);
     }
 
-    private Map<String, UserDTO> receiveUsersMap(String fromSlackName, String text) {
-        List<String> slackNames = receiveAllSlackNames(text);
+    private List<String> collectSlackNames(String fromSlackName, SlackNames namesInText) {
+        List<String> slackNames = new ArrayList<>(namesInText.getNames());
         slackNames.add(fromSlackName);
         logger.debug("added \"fromSlackName\" slack name to request: [{}]", fromSlackName);
-        logger.debug("send slack names: {} to user service", slackNames);
-        List<UserDTO> users = userService.findUsersBySlackNames(slackNames);
+        logger.debug("send slack names: {} to user service", LogPayload.of(slackNames));
+        return slackNames;
+    }
+
+    private Map<String, UserDTO> toUsersMap(List<UserDTO> users) {
         return users.stream()
                 .collect(Collectors.toMap(UserDTO::getSlack, user -> user));
     }
 
-    private List<String> receiveAllSlackNames(String text) {
-        List<String> result = new ArrayList<>();
-        Pattern pattern = Pattern.compile(SLACK_NAME_PATTERN);
-        Matcher matcher = pattern.matcher(text);
-        while (matcher.find()) {
-            result.add(matcher.group().trim());
-        }
-        logger.debug("Recieved slack names: {} from text:", result.toString(), text);
+    private SlackNames receiveAllSlackNames(String text) {
+        SlackNames result = SlackNameScanner.scan(text);
+        logger.debug("Recieved slack names: {} from text: [{}]", result.getNames(), LogPayload.of(text));
         return result;
     }
 }
@@ -0,0 +1,87 @@
+package juja.microservices.gamification.slackbot.service.impl;
+
+import juja.microservices.gamification.slackbot.cache.UserCache;
+import juja.microservices.gamification.slackbot.concurrent.MicroBatcher;
+import juja.microservices.gamification.slackbot.dao.UserRepository;
+import juja.microservices.gamification.slackbot.model.DTO.UserDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+/**
+ * Collects slack names of concurrent lookups into one users service request, see {@link MicroBatcher}.
+ * Every lookup gets the users of its own slack names. maxWait 0 disables batching.
+ */
+@Service
+public class UserLookupBatcher {
+
+    private final UserRepository userRepository;
+    private final MicroBatcher<String, UserDTO> batcher;
+
+    @Inject
+    public UserLookupBatcher(UserRepository userRepository,
+                             @Value("${gamification.slackbot.userBatch.maxWait}") long maxWait,
+                             @Value("${gamification.slackbot.userBatch.maxBatchSize}") int maxBatchSize) {
+        this.userRepository = userRepository;
+        this.batcher = maxWait > 0
+                ? new MicroBatcher<>("users", maxWait, maxBatchSize, this::requestUsers, this::requestUsersAsync)
+                : null;
+    }
+
+    public List<UserDTO> lookup(Collection<String> slackNames) {
+        if (batcher == null) {
+            return userRepository.findUsersBySlackNames(new ArrayList<>(slackNames));
+        }
+        return found(batcher.submit(normalized(slackNames)));
+    }
+
+    public CompletableFuture<List<UserDTO>> lookupAsync(Collection<String> slackNames) {
+        if (batcher == null) {
+            return userRepository.findUsersBySlackNamesAsync(new ArrayList<>(slackNames));
+        }
+        return batcher.submitAsync(normalized(slackNames)).thenApply(this::found);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (batcher != null) {
+            batcher.shutdown();
+        }
+    }
+
+    private List<UserDTO> requestUsers(List<String> slackNames) {
+        return alignedWith(slackNames, userRepository.findUsersBySlackNames(new ArrayList<>(slackNames)));
+    }
+
+    private CompletableFuture<List<UserDTO>> requestUsersAsync(List<String> slackNames) {
+        return userRepository.findUsersBySlackNamesAsync(new ArrayList<>(slackNames))
+                .thenApply(users -> alignedWith(slackNames, users));
+    }
+
+    /**
+     * @return the user of every slack name or null if the users service doesn't know the name
+     */
+    private List<UserDTO> alignedWith(List<String> slackNames, List<UserDTO> users) {
+        Map<String, UserDTO> usersBySlackName = new HashMap<>();
+        users.forEach(user -> usersBySlackName.put(UserCache.normalize(user.getSlack()), user));
+        return slackNames.stream().map(usersBySlackName::get).collect(Collectors.toList());
+    }
+
+    private List<String> normalized(Collection<String> slackNames) {
+        return slackNames.stream().map(UserCache::normalize).collect(Collectors.toList());
+    }
+
+    private List<UserDTO> found(List<UserDTO> users) {
+        return users.stream().filter(Objects::nonNull).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,121 @@
+package juja.microservices.gamification.slackbot.tracing;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Timed operation of a command. Spans of one command share the trace id, a child span refers to its parent span.
+ * A span is exported once, when it is finished. Ids are 64 bit hex strings, as in zipkin B3 headers.
+ */
+public class Span {
+
+    /**
+     * Span of a disabled tracer or of a trace which is not sampled, it is never exported
+     */
+    static final Span NOOP = new Span(null, null, null, null, "noop");
+
+    private final Tracer tracer;
+    private final String traceId;
+    private final String id;
+    private final String parentId;
+    private final String name;
+    private final long timestampMicros;
+    private final long startNanos;
+    private final AtomicBoolean finished = new AtomicBoolean();
+    private Map<String, String> tags;
+    private volatile long durationMicros;
+
+    Span(Tracer tracer, String traceId, String id, String parentId, String name) {
+        this.tracer = tracer;
+        this.traceId = traceId;
+        this.id = id;
+        this.parentId = parentId;
+        this.name = name;
+        this.timestampMicros = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+        this.startNanos = System.nanoTime();
+    }
+
+    static String nextId() {
+        long id;
+        do {
+            id = ThreadLocalRandom.current().nextLong();
+        } while (id == 0);
+        String hex = Long.toHexString(id);
+        return hex.length() == 16 ? hex : "0000000000000000".substring(hex.length()) + hex;
+    }
+
+    public boolean isNoop() {
+        return this == NOOP;
+    }
+
+    public synchronized Span tag(String key, Object value) {
+        if (!isNoop()) {
+            if (tags == null) {
+                tags = new LinkedHashMap<>();
+            }
+            tags.put(key, String.valueOf(value));
+        }
+        return this;
+    }
+
+    /**
+     * Tags the span with the error, if there is one
+     */
+    public Span error(Throwable error) {
+        if (error != null) {
+            tag("error", error.getClass().getSimpleName() + ": " + error.getMessage());
+        }
+        return this;
+    }
+
+    public void finish() {
+        if (!isNoop() && finished.compareAndSet(false, true)) {
+            durationMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos);
+            tracer.export(this);
+        }
+    }
+
+    public String getTraceId() {
+        return traceId;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getParentId() {
+        return parentId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return start of the span, microseconds since the epoch
+     */
+    public long getTimestamp() {
+        return timestampMicros;
+    }
+
+    /**
+     * @return microseconds from the start to the finish of the span
+     */
+    public long getDuration() {
+        return durationMicros;
+    }
+
+    public synchronized Map<String, String> getTags() {
+        return tags == null ? Collections.emptyMap() : new LinkedHashMap<>(tags);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Span{name=%s, traceId=%s, id=%s, parentId=%s, duration=%d us, tags=%s}",
+                name, traceId, id, parentId, durationMicros, getTags());
+    }
+}
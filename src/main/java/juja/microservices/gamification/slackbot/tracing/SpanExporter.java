@@ -0,0 +1,19 @@
+package juja.microservices.gamification.slackbot.tracing;
+
+/**
+ * Receives finished spans. Spans are exported in the thread which finishes them, so an exporter must not block.
+ */
+public interface SpanExporter extends AutoCloseable {
+
+    /**
+     * Exporter of a disabled tracer
+     */
+    SpanExporter NONE = span -> {
+    };
+
+    void export(Span span);
+
+    @Override
+    default void close() {
+    }
+}
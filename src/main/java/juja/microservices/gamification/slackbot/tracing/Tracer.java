@@ -0,0 +1,225 @@
+package juja.microservices.gamification.slackbot.tracing;
+
+import org.springframework.http.HttpHeaders;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Creates spans of commands and keeps the current span of the thread.
+ * <p>
+ * A command starts its trace in the controller. New spans are children of the current span of the thread,
+ * a span without a current span starts a new trace, like a batch sent by a scheduler thread. The current span
+ * doesn't follow a command to other threads by itself: tasks and callbacks which run in the executor, in subtask
+ * threads or in http client threads are wrapped by the caller. Requests to remote services get the current span
+ * as zipkin B3 headers.
+ * <p>
+ * A share of sampleRate traces is sampled, spans of other traces are not created at all. A disabled tracer costs
+ * nothing but a thread local read.
+ */
+public class Tracer {
+
+    public static final String TRACE_ID_HEADER = "X-B3-TraceId";
+    public static final String SPAN_ID_HEADER = "X-B3-SpanId";
+    public static final String PARENT_SPAN_ID_HEADER = "X-B3-ParentSpanId";
+    public static final String SAMPLED_HEADER = "X-B3-Sampled";
+
+    private static final Scope NOOP_SCOPE = () -> {
+    };
+
+    private final SpanExporter exporter;
+    private final double sampleRate;
+    private final ThreadLocal<Span> currentSpan = new ThreadLocal<>();
+
+    public Tracer(SpanExporter exporter, double sampleRate) {
+        this.exporter = exporter;
+        this.sampleRate = exporter == SpanExporter.NONE ? 0 : sampleRate;
+    }
+
+    public static Tracer disabled() {
+        return new Tracer(SpanExporter.NONE, 0);
+    }
+
+    public boolean isEnabled() {
+        return sampleRate > 0;
+    }
+
+    /**
+     * @return span of the current thread, a noop span if there is none
+     */
+    public Span currentSpan() {
+        Span span = currentSpan.get();
+        return span == null ? Span.NOOP : span;
+    }
+
+    /**
+     * Starts a new trace, regardless of the current span
+     */
+    public Span startTrace(String name) {
+        if (!isEnabled() || (sampleRate < 1 && ThreadLocalRandom.current().nextDouble() >= sampleRate)) {
+            return Span.NOOP;
+        }
+        return new Span(this, Span.nextId(), Span.nextId(), null, name);
+    }
+
+    /**
+     * Starts a child of the current span. Without the current span it starts a new trace.
+     */
+    public Span startSpan(String name) {
+        Span parent = currentSpan.get();
+        if (parent == null) {
+            return startTrace(name);
+        }
+        if (parent.isNoop()) {
+            return Span.NOOP;
+        }
+        return new Span(this, parent.getTraceId(), Span.nextId(), parent.getId(), name);
+    }
+
+    /**
+     * Makes the span current in this thread until the scope is closed
+     */
+    public Scope activate(Span span) {
+        if (!isEnabled()) {
+            return NOOP_SCOPE;
+        }
+        Span previous = currentSpan.get();
+        currentSpan.set(span);
+        return () -> {
+            if (previous == null) {
+                currentSpan.remove();
+            } else {
+                currentSpan.set(previous);
+            }
+        };
+    }
+
+    /**
+     * Runs the work in a child span of the current span, an exception is tagged as an error
+     */
+    public <T> T trace(String name, Supplier<T> work) {
+        if (!isEnabled()) {
+            return work.get();
+        }
+        Span span = startSpan(name);
+        try (Scope ignored = activate(span)) {
+            return work.get();
+        } catch (RuntimeException ex) {
+            span.error(ex);
+            throw ex;
+        } finally {
+            span.finish();
+        }
+    }
+
+    /**
+     * Starts the non-blocking work in a child span of the current span. The span is finished when the future
+     * is completed.
+     */
+    public <T> CompletableFuture<T> traceAsync(String name, Supplier<CompletableFuture<T>> work) {
+        if (!isEnabled()) {
+            return work.get();
+        }
+        Span span = startSpan(name);
+        CompletableFuture<T> result;
+        try (Scope ignored = activate(span)) {
+            result = work.get();
+        } catch (RuntimeException ex) {
+            span.error(ex).finish();
+            throw ex;
+        }
+        return result.whenComplete((value, error) -> span.error(error).finish());
+    }
+
+    /**
+     * @return the task which runs with the current span of the caller
+     */
+    public Runnable wrap(Runnable task) {
+        Span span = currentSpan.get();
+        if (span == null) {
+            return task;
+        }
+        return () -> {
+            try (Scope ignored = activate(span)) {
+                task.run();
+            }
+        };
+    }
+
+    /**
+     * @return the task which runs with the current span of the caller
+     */
+    public <T> Callable<T> wrapCallable(Callable<T> task) {
+        Span span = currentSpan.get();
+        if (span == null) {
+            return task;
+        }
+        return () -> {
+            try (Scope ignored = activate(span)) {
+                return task.call();
+            }
+        };
+    }
+
+    /**
+     * @return the function which runs with the current span of the caller, for stages of non-blocking commands
+     */
+    public <T, R> Function<T, R> wrapFunction(Function<T, R> function) {
+        Span span = currentSpan.get();
+        if (span == null) {
+            return function;
+        }
+        return value -> {
+            try (Scope ignored = activate(span)) {
+                return function.apply(value);
+            }
+        };
+    }
+
+    /**
+     * @return the callback which runs with the current span of the caller
+     */
+    public <T, U> BiConsumer<T, U> wrapCallback(BiConsumer<T, U> callback) {
+        Span span = currentSpan.get();
+        if (span == null) {
+            return callback;
+        }
+        return (value, error) -> {
+            try (Scope ignored = activate(span)) {
+                callback.accept(value, error);
+            }
+        };
+    }
+
+    /**
+     * Adds B3 headers of the current span to an outbound request
+     */
+    public void inject(HttpHeaders headers) {
+        Span span = currentSpan();
+        if (span.isNoop()) {
+            return;
+        }
+        headers.set(TRACE_ID_HEADER, span.getTraceId());
+        headers.set(SPAN_ID_HEADER, span.getId());
+        if (span.getParentId() != null) {
+            headers.set(PARENT_SPAN_ID_HEADER, span.getParentId());
+        }
+        headers.set(SAMPLED_HEADER, "1");
+    }
+
+    void export(Span span) {
+        exporter.export(span);
+    }
+
+    /**
+     * Restores the previous current span when closed
+     */
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
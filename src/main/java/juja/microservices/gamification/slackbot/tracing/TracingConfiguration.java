@@ -0,0 +1,48 @@
+package juja.microservices.gamification.slackbot.tracing;
+
+import juja.microservices.gamification.slackbot.tracing.impl.FileSpanExporter;
+import juja.microservices.gamification.slackbot.tracing.impl.InMemorySpanExporter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Paths;
+
+/**
+ * Tracer of commands and its span exporter: none (tracing is disabled), memory or file. Another exporter
+ * implements {@link SpanExporter} and is added here.
+ */
+@Configuration
+public class TracingConfiguration {
+
+    @Value("${gamification.slackbot.tracing.exporter}")
+    private String exporter;
+    @Value("${gamification.slackbot.tracing.sampleRate}")
+    private double sampleRate;
+    @Value("${gamification.slackbot.tracing.memory.maxSpans}")
+    private int maxSpans;
+    @Value("${gamification.slackbot.tracing.file.path}")
+    private String filePath;
+    @Value("${gamification.slackbot.tracing.file.maxPending}")
+    private int maxPending;
+
+    @Bean(destroyMethod = "close")
+    public SpanExporter spanExporter() {
+        switch (exporter) {
+            case "none":
+                return SpanExporter.NONE;
+            case "memory":
+                return new InMemorySpanExporter(maxSpans);
+            case "file":
+                return new FileSpanExporter(Paths.get(filePath), maxPending);
+            default:
+                throw new IllegalArgumentException("Unknown span exporter: " + exporter +
+                        ", expected none, memory or file");
+        }
+    }
+
+    @Bean
+    public Tracer tracer(SpanExporter spanExporter) {
+        return new Tracer(spanExporter, sampleRate);
+    }
+}
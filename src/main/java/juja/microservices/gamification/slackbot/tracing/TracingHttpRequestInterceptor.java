@@ -0,0 +1,40 @@
+package juja.microservices.gamification.slackbot.tracing;
+
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.AsyncClientHttpRequestExecution;
+import org.springframework.http.client.AsyncClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.util.concurrent.ListenableFuture;
+
+import java.io.IOException;
+
+/**
+ * Propagates the current span of the caller thread to remote services as B3 headers, for the blocking
+ * and the non-blocking rest templates. Both run interceptors in the thread which sends the request.
+ */
+public class TracingHttpRequestInterceptor implements ClientHttpRequestInterceptor,
+        AsyncClientHttpRequestInterceptor {
+
+    private final Tracer tracer;
+
+    public TracingHttpRequestInterceptor(Tracer tracer) {
+        this.tracer = tracer;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        tracer.inject(request.getHeaders());
+        return execution.execute(request, body);
+    }
+
+    @Override
+    public ListenableFuture<ClientHttpResponse> intercept(HttpRequest request, byte[] body,
+                                                          AsyncClientHttpRequestExecution execution)
+            throws IOException {
+        tracer.inject(request.getHeaders());
+        return execution.executeAsync(request, body);
+    }
+}
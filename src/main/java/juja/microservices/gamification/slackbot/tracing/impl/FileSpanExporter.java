@@ -0,0 +1,112 @@
+package juja.microservices.gamification.slackbot.tracing.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import juja.microservices.gamification.slackbot.tracing.Span;
+import juja.microservices.gamification.slackbot.tracing.SpanExporter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Appends finished spans to a file, one zipkin v2 json span per line, for local runs. The file can be loaded
+ * into zipkin or read with jq.
+ * <p>
+ * Spans are written by a single writer thread. When maxPending spans wait for it, new spans are dropped and
+ * counted, a command never waits for the disk.
+ */
+public class FileSpanExporter implements SpanExporter {
+
+    private static final String SERVICE_NAME = "gamification-slack-bot";
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final BufferedWriter writer;
+    private final ThreadPoolExecutor writerThread;
+    private final LongAdder droppedCount = new LongAdder();
+
+    public FileSpanExporter(Path file, int maxPending) {
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                    StandardOpenOption.APPEND);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Can't open span file " + file, ex);
+        }
+        writerThread = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(maxPending), new CustomizableThreadFactory("span-writer-"),
+                (task, executor) -> droppedCount.increment());
+        logger.info("Spans are written to [{}]", file.toAbsolutePath());
+    }
+
+    @Override
+    public void export(Span span) {
+        writerThread.execute(() -> write(span));
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.sum();
+    }
+
+    @Override
+    public void close() {
+        writerThread.shutdown();
+        try {
+            if (!writerThread.awaitTermination(5, TimeUnit.SECONDS)) {
+                logger.warn("Span writer didn't finish in 5 seconds, some spans are lost");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            writer.close();
+        } catch (IOException ex) {
+            logger.warn("Can't close span file: {}", ex.getMessage());
+        }
+    }
+
+    private void write(Span span) {
+        try {
+            writer.write(mapper.writeValueAsString(toZipkin(span)));
+            writer.newLine();
+            if (writerThread.getQueue().isEmpty()) {
+                writer.flush();
+            }
+        } catch (IOException ex) {
+            logger.warn("Can't write span {}: {}", span.getName(), ex.getMessage());
+        }
+    }
+
+    static Map<String, Object> toZipkin(Span span) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("traceId", span.getTraceId());
+        json.put("id", span.getId());
+        if (span.getParentId() != null) {
+            json.put("parentId", span.getParentId());
+        }
+        json.put("name", span.getName());
+        json.put("timestamp", span.getTimestamp());
+        json.put("duration", span.getDuration());
+        json.put("localEndpoint", Collections.singletonMap("serviceName", SERVICE_NAME));
+        if (!span.getTags().isEmpty()) {
+            json.put("tags", span.getTags());
+        }
+        return json;
+    }
+}
@@ -0,0 +1,46 @@
+package juja.microservices.gamification.slackbot.tracing.impl;
+
+import juja.microservices.gamification.slackbot.tracing.Span;
+import juja.microservices.gamification.slackbot.tracing.SpanExporter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the last maxSpans finished spans in memory, for tests and local runs
+ */
+public class InMemorySpanExporter implements SpanExporter {
+
+    private final int maxSpans;
+    private final Deque<Span> spans = new ArrayDeque<>();
+
+    public InMemorySpanExporter(int maxSpans) {
+        this.maxSpans = maxSpans;
+    }
+
+    @Override
+    public synchronized void export(Span span) {
+        if (spans.size() == maxSpans) {
+            spans.removeFirst();
+        }
+        spans.addLast(span);
+    }
+
+    /**
+     * @return finished spans in the order of their finish
+     */
+    public synchronized List<Span> getSpans() {
+        return new ArrayList<>(spans);
+    }
+
+    public synchronized List<Span> getTrace(String traceId) {
+        return spans.stream().filter(span -> span.getTraceId().equals(traceId)).collect(Collectors.toList());
+    }
+
+    public synchronized void clear() {
+        spans.clear();
+    }
+}
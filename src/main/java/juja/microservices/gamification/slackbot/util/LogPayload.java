@@ -0,0 +1,37 @@
+package juja.microservices.gamification.slackbot.util;
+
+import java.util.Arrays;
+
+/**
+ * Log argument which is formatted only when the message is written, as slf4j calls toString() of arguments
+ * of enabled messages only. Arrays are formatted deeply. Texts longer than
+ * {@code gamification.slackbot.logging.maxPayloadLength} system property (500 chars by default) are truncated,
+ * so a long daily report doesn't end up in every log line of the command.
+ */
+public final class LogPayload {
+
+    static final int MAX_LENGTH = Integer.getInteger("gamification.slackbot.logging.maxPayloadLength", 500);
+
+    private final Object value;
+
+    private LogPayload(Object value) {
+        this.value = value;
+    }
+
+    public static LogPayload of(Object value) {
+        return new LogPayload(value);
+    }
+
+    static String abbreviate(String text, int maxLength) {
+        if (text.length() <= maxLength) {
+            return text;
+        }
+        return text.substring(0, maxLength) + "...(" + text.length() + " chars)";
+    }
+
+    @Override
+    public String toString() {
+        String text = value instanceof Object[] ? Arrays.deepToString((Object[]) value) : String.valueOf(value);
+        return abbreviate(text, MAX_LENGTH);
+    }
+}
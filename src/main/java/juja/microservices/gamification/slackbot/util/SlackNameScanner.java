@@ -0,0 +1,43 @@
+package juja.microservices.gamification.slackbot.util;
+
+import juja.microservices.gamification.slackbot.model.SlackNames;
+
+/**
+ * Finds slack names in a command text in one pass, without regular expressions.
+ * <p>
+ * Slack name cannot be longer than 21 characters and can only contain letters, numbers, periods, hyphens,
+ * and underscores. A name in the text starts with '@', longer names are cut to 21 characters like the former
+ * pattern {@code @([a-zA-Z0-9._-]){1,21}} did.
+ */
+public final class SlackNameScanner {
+
+    public static final int MAX_SLACK_NAME_LENGTH = 21;
+
+    private SlackNameScanner() {
+    }
+
+    public static SlackNames scan(String text) {
+        SlackNames slackNames = new SlackNames();
+        int length = text.length();
+        int position = text.indexOf('@');
+        while (position >= 0 && position < length) {
+            int end = position + 1;
+            int limit = Math.min(length, end + MAX_SLACK_NAME_LENGTH);
+            while (end < limit && isSlackNameChar(text.charAt(end))) {
+                end++;
+            }
+            if (end > position + 1) {
+                slackNames.add(text.substring(position, end), position);
+                position = text.indexOf('@', end);
+            } else {
+                position = text.indexOf('@', position + 1);
+            }
+        }
+        return slackNames;
+    }
+
+    public static boolean isSlackNameChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                || c == '.' || c == '_' || c == '-';
+    }
+}
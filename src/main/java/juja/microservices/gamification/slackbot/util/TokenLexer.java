@@ -0,0 +1,167 @@
+package juja.microservices.gamification.slackbot.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Finds all tokens of a command in the text in one pass.
+ * <p>
+ * The tokens are compiled once into an Aho-Corasick automaton, so matching costs O(text length + matches)
+ * whatever the number of tokens is. Occurrences of a token are counted without overlapping, from left to
+ * right. The lexer is immutable and can be shared between threads.
+ */
+public final class TokenLexer {
+
+    private static final int ASCII = 128;
+
+    private final String[] tokens;
+    private final int[] asciiColumns = new int[ASCII];
+    private final Map<Character, Integer> otherColumns = new HashMap<>();
+    private final int[][] transitions;
+    private final int[][] outputs;
+    private int columnCount;
+
+    public TokenLexer(String... tokens) {
+        this.tokens = tokens.clone();
+        Arrays.fill(asciiColumns, -1);
+
+        List<Map<Character, Integer>> trie = new ArrayList<>();
+        List<List<Integer>> terminals = new ArrayList<>();
+        trie.add(new LinkedHashMap<>());
+        terminals.add(new ArrayList<>());
+        for (int i = 0; i < this.tokens.length; i++) {
+            String token = this.tokens[i];
+            if (token == null || token.isEmpty()) {
+                throw new IllegalArgumentException("Token can't be empty");
+            }
+            int state = 0;
+            for (char c : token.toCharArray()) {
+                addColumn(c);
+                Integer next = trie.get(state).get(c);
+                if (next == null) {
+                    next = trie.size();
+                    trie.add(new LinkedHashMap<>());
+                    terminals.add(new ArrayList<>());
+                    trie.get(state).put(c, next);
+                }
+                state = next;
+            }
+            terminals.get(state).add(i);
+        }
+
+        transitions = new int[trie.size()][columnCount];
+        outputs = new int[trie.size()][];
+        int[] failures = new int[trie.size()];
+        outputs[0] = toArray(terminals.get(0));
+
+        Queue<Integer> queue = new ArrayDeque<>();
+        for (Map.Entry<Character, Integer> child : trie.get(0).entrySet()) {
+            transitions[0][columnOf(child.getKey())] = child.getValue();
+            queue.add(child.getValue());
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            int failure = failures[state];
+            outputs[state] = concat(terminals.get(state), outputs[failure]);
+            System.arraycopy(transitions[failure], 0, transitions[state], 0, columnCount);
+            for (Map.Entry<Character, Integer> child : trie.get(state).entrySet()) {
+                int column = columnOf(child.getKey());
+                failures[child.getValue()] = transitions[failure][column];
+                transitions[state][column] = child.getValue();
+                queue.add(child.getValue());
+            }
+        }
+    }
+
+    public String[] getTokens() {
+        return tokens.clone();
+    }
+
+    public int getTokenCount() {
+        return tokens.length;
+    }
+
+    public String getToken(int index) {
+        return tokens[index];
+    }
+
+    public Matches match(String text) {
+        Matches matches = new Matches(tokens.length);
+        int[] nextFree = new int[tokens.length];
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            int column = columnOf(text.charAt(i));
+            state = column < 0 ? 0 : transitions[state][column];
+            for (int token : outputs[state]) {
+                int start = i - tokens[token].length() + 1;
+                if (start >= nextFree[token]) {
+                    if (matches.counts[token]++ == 0) {
+                        matches.positions[token] = start;
+                    }
+                    nextFree[token] = i + 1;
+                }
+            }
+        }
+        return matches;
+    }
+
+    private void addColumn(char c) {
+        if (columnOf(c) >= 0) {
+            return;
+        }
+        if (c < ASCII) {
+            asciiColumns[c] = columnCount++;
+        } else {
+            otherColumns.put(c, columnCount++);
+        }
+    }
+
+    private int columnOf(char c) {
+        if (c < ASCII) {
+            return asciiColumns[c];
+        }
+        Integer column = otherColumns.get(c);
+        return column == null ? -1 : column;
+    }
+
+    private static int[] toArray(List<Integer> values) {
+        return values.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static int[] concat(List<Integer> own, int[] inherited) {
+        int[] result = Arrays.copyOf(toArray(own), own.size() + inherited.length);
+        System.arraycopy(inherited, 0, result, own.size(), inherited.length);
+        return result;
+    }
+
+    /**
+     * Occurrences of the tokens in a text, by the index of the token in the lexer
+     */
+    public static final class Matches {
+        private final int[] counts;
+        private final int[] positions;
+
+        private Matches(int tokenCount) {
+            counts = new int[tokenCount];
+            positions = new int[tokenCount];
+            Arrays.fill(positions, -1);
+        }
+
+        public int getCount(int tokenIndex) {
+            return counts[tokenIndex];
+        }
+
+        /**
+         * @return position of the first occurrence of the token, -1 if the text doesn't contain it
+         */
+        public int getPosition(int tokenIndex) {
+            return positions[tokenIndex];
+        }
+    }
+}
@@ -5,10 +5,14 @@ import juja.microservices.gamification.slackbot.exceptions.ApiError;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.util.concurrent.ListenableFuture;
 import org.springframework.web.client.HttpClientErrorException;
 
 import java.io.IOException;
 import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
 
 /**
  * @author Ivan Shapovalov
@@ -36,4 +40,29 @@ public class Utils {
             );
         }
     }
+
+    /**
+     * Adapts a spring ListenableFuture (AsyncRestTemplate result) to a CompletableFuture.
+     * Cancelling the returned future cancels the request.
+     */
+    public static <T> CompletableFuture<T> toCompletableFuture(ListenableFuture<T> listenableFuture) {
+        CompletableFuture<T> result = new CompletableFuture<T>() {
+            @Override
+            public boolean cancel(boolean mayInterruptIfRunning) {
+                listenableFuture.cancel(mayInterruptIfRunning);
+                return super.cancel(mayInterruptIfRunning);
+            }
+        };
+        listenableFuture.addCallback(result::complete, result::completeExceptionally);
+        return result;
+    }
+
+    public static Throwable unwrapAsyncError(Throwable error) {
+        Throwable result = error;
+        while ((result instanceof CompletionException || result instanceof ExecutionException)
+                && result.getCause() != null) {
+            result = result.getCause();
+        }
+        return result;
+    }
 }
@@ -0,0 +1,115 @@
+package juja.microservices.gamification.slackbot.cache;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CommandDeduplicatorTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final Ticker ticker = nanos::get;
+    private CommandDeduplicator deduplicator;
+
+    @Before
+    public void setup() {
+        deduplicator = new CommandDeduplicator(1000, 100, ticker);
+    }
+
+    @Test
+    public void shouldAnswerDuplicateWithFirstResult() {
+        //given
+        CommandDeduplicator.Submission first = deduplicator.open("Thanks", "@from", "thanks @slack1", "t1", false);
+        CompletableFuture<String> firstResult = first.track(new CompletableFuture<>());
+
+        //when
+        CommandDeduplicator.Submission duplicate = deduplicator.open("Thanks", "from", "thanks @slack1 ", "t2",
+                false);
+        firstResult.complete("Thanks, your 'thanks' for @slack1 saved.");
+
+        //then
+        assertTrue(first.isFirst());
+        assertFalse(duplicate.isFirst());
+        assertFalse(duplicate.isRedelivery());
+        assertEquals("Thanks, your 'thanks' for @slack1 saved.", duplicate.getFirstResult().join());
+        assertEquals(1, deduplicator.getFirstCount());
+        assertEquals(1, deduplicator.getDuplicateCount());
+    }
+
+    @Test
+    public void shouldDropRedeliveryByTriggerIdOrRetryHeader() {
+        //given
+        deduplicator.open("Daily", "@from", "daily report", "t1", false);
+
+        //when
+        CommandDeduplicator.Submission sameTrigger = deduplicator.open("Daily", "@from", "daily report", "t1",
+                false);
+        CommandDeduplicator.Submission retry = deduplicator.open("Daily", "@from", "daily report", null, true);
+
+        //then
+        assertTrue(sameTrigger.isRedelivery());
+        assertTrue(retry.isRedelivery());
+        assertEquals(2, deduplicator.getRedeliveryCount());
+    }
+
+    @Test
+    public void shouldProcessCommandsWithOtherContentOrAfterWindow() {
+        //given
+        deduplicator.open("Daily", "@from", "daily report", null, false);
+
+        //when
+        CommandDeduplicator.Submission otherUser = deduplicator.open("Daily", "@other", "daily report", null,
+                false);
+        CommandDeduplicator.Submission otherCommand = deduplicator.open("Interview", "@from", "daily report", null,
+                false);
+        nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(1001));
+        CommandDeduplicator.Submission afterWindow = deduplicator.open("Daily", "@from", "daily report", null,
+                false);
+
+        //then
+        assertTrue(otherUser.isFirst());
+        assertTrue(otherCommand.isFirst());
+        assertTrue(afterWindow.isFirst());
+    }
+
+    @Test
+    public void shouldForgetFailedOrRejectedCommand() {
+        //given
+        CommandDeduplicator.Submission failed = deduplicator.open("Daily", "@from", "daily report", null, false);
+        CommandDeduplicator.Submission duplicate = deduplicator.open("Daily", "@from", "daily report", null, false);
+        CommandDeduplicator.Submission rejected = deduplicator.open("Thanks", "@from", "thanks @slack1", null,
+                false);
+
+        //when
+        CompletableFuture<String> result = failed.track(new CompletableFuture<>());
+        result.completeExceptionally(new IllegalStateException("users service is unavailable"));
+        rejected.reject(new RejectedExecutionException("busy"));
+
+        //then
+        assertTrue(duplicate.getFirstResult().isCompletedExceptionally());
+        assertTrue(deduplicator.open("Daily", "@from", "daily report", null, false).isFirst());
+        assertTrue(deduplicator.open("Thanks", "@from", "thanks @slack1", null, false).isFirst());
+    }
+
+    @Test
+    public void shouldNotDeduplicateWhenWindowIsZero() {
+        //given
+        CommandDeduplicator disabled = new CommandDeduplicator(0, 100, ticker);
+        disabled.open("Daily", "@from", "daily report", "t1", false);
+
+        //when
+        CommandDeduplicator.Submission repeated = disabled.open("Daily", "@from", "daily report", "t1", true);
+
+        //then
+        assertTrue(repeated.isFirst());
+        assertEquals(0, disabled.size());
+    }
+}
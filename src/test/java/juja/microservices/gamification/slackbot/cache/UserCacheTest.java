@@ -0,0 +1,74 @@
+package juja.microservices.gamification.slackbot.cache;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+import juja.microservices.gamification.slackbot.model.DTO.UserDTO;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class UserCacheTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final Ticker ticker = nanos::get;
+    private UserCache userCache;
+
+    @Before
+    public void setup() {
+        userCache = new UserCache(100, 1000, 100, ticker);
+    }
+
+    @Test
+    public void shouldReturnMissesForUncachedSlackNames() {
+        //given
+        userCache.putLoaded(Collections.singletonList("@slack1"),
+                Collections.singletonList(new UserDTO("uuid1", "@slack1")));
+
+        //when
+        UserCache.Lookup lookup = userCache.lookup(Arrays.asList("slack1", "@slack2"));
+
+        //then
+        assertEquals("[@slack2]", lookup.getMisses().toString());
+        assertEquals("[UserDTO(uuid=uuid1, slack=@slack1), UserDTO(uuid=uuid2, slack=@slack2)]",
+                lookup.complete(Collections.singletonList(new UserDTO("uuid2", "@slack2"))).toString());
+        assertEquals(1, userCache.getStats().hitCount());
+        assertEquals(1, userCache.getStats().missCount());
+    }
+
+    @Test
+    public void shouldCacheUnknownSlackNamesUntilNegativeTtl() {
+        //given
+        userCache.putLoaded(Collections.singletonList("@unknown"), Collections.emptyList());
+
+        //when
+        UserCache.Lookup cached = userCache.lookup(Collections.singletonList("@unknown"));
+        nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(101));
+        UserCache.Lookup expired = userCache.lookup(Collections.singletonList("@unknown"));
+
+        //then
+        assertTrue(cached.getMisses().isEmpty());
+        assertTrue(cached.complete(Collections.emptyList()).isEmpty());
+        assertEquals("[@unknown]", expired.getMisses().toString());
+        assertEquals(1, userCache.getUnknownSlackNamesStats().hitCount());
+    }
+
+    @Test
+    public void shouldExpireUsersAfterTtl() {
+        //given
+        userCache.putLoaded(Collections.singletonList("@slack1"),
+                Collections.singletonList(new UserDTO("uuid1", "@slack1")));
+
+        //when
+        nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(1001));
+        UserCache.Lookup lookup = userCache.lookup(Collections.singletonList("@slack1"));
+
+        //then
+        assertEquals("[@slack1]", lookup.getMisses().toString());
+    }
+}
@@ -0,0 +1,96 @@
+package juja.microservices.gamification.slackbot.command;
+
+import juja.microservices.gamification.slackbot.dao.GamificationRepository;
+import juja.microservices.gamification.slackbot.model.DTO.UserDTO;
+import juja.microservices.gamification.slackbot.model.SlackParsedCommand;
+import juja.microservices.gamification.slackbot.model.achievements.AchievementBatch;
+import juja.microservices.gamification.slackbot.model.achievements.ThanksAchievement;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class CommandRegistryTest {
+
+    private CommandRegistry registry;
+
+    @Before
+    public void setup() {
+        registry = new CommandRegistry(new MockEnvironment()
+                .withProperty("gamification.slackbot.endpoint.daily", "/v1/commands/daily")
+                .withProperty("gamification.slackbot.endpoint.thanks", "/v1/commands/thanks"));
+    }
+
+    @Test
+    public void shouldRegisterAllCommands() {
+        //when
+        String types = registry.getCommands().stream().map(SlackCommand::getType).collect(Collectors.joining(","));
+
+        //then
+        assertEquals("daily,codenjoy,thanks,interview", types);
+    }
+
+    @Test
+    public void shouldFindCommandByEndpointBeforeSlashCommand() {
+        //when
+        SlackCommand<?> command = registry.find("/v1/commands/daily", "/thanks");
+
+        //then
+        assertSame(registry.get(AchievementBatch.DAILY), command);
+    }
+
+    @Test
+    public void shouldFindCommandBySlashCommandOnCommonEndpoint() {
+        //when
+        SlackCommand<?> codenjoy = registry.find("/v1/commands", "/codenjoy");
+        SlackCommand<?> unknown = registry.find("/v1/commands", "/karma");
+
+        //then
+        assertEquals("Codenjoy", codenjoy.getName());
+        assertNull(unknown);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldThrowExceptionWhenTypeIsUnknown() {
+        //when
+        registry.get("karma");
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldThrowExceptionWhenCommandIsRegisteredTwice() {
+        //when
+        registry.register(registry.get(AchievementBatch.DAILY));
+    }
+
+    @Test
+    public void shouldBuildSaveAndRenderThanksAchievement() {
+        //given
+        Map<String, UserDTO> users = new HashMap<>();
+        users.put("@from-user", new UserDTO("uuid-from-user", "@from-user"));
+        users.put("@slack1", new UserDTO("uuid-user-1", "@slack1"));
+        SlackParsedCommand parsedCommand = new SlackParsedCommand("@from-user", "thanks @slack1 for help", users);
+        GamificationRepository repository = mock(GamificationRepository.class);
+        when(repository.saveThanksAchievement(any(ThanksAchievement.class))).thenReturn(new String[]{"100", "101"});
+        SlackCommand<ThanksAchievement> thanks = registry.get(AchievementBatch.THANKS);
+
+        //when
+        ThanksAchievement achievement = thanks.getAchievement().apply(parsedCommand);
+        String[] ids = thanks.getSave().apply(repository, achievement);
+        String response = thanks.getResponse().apply(achievement, ids);
+
+        //then
+        verify(repository).saveThanksAchievement(achievement);
+        assertEquals("Thanks, your 'thanks' for @slack1 saved. Also you received +1 for your activity.", response);
+    }
+}
@@ -0,0 +1,119 @@
+package juja.microservices.gamification.slackbot.concurrent;
+
+import juja.microservices.gamification.slackbot.exceptions.BulkheadFullException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BulkheadTest {
+
+    private static final long TIMEOUT_MILLIS = 1000;
+
+    private ExecutorService executor;
+
+    @Before
+    public void setup() {
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void shouldRejectCallWhenAllPermitsAreTaken() throws Exception {
+        //given
+        Bulkhead bulkhead = new Bulkhead("gamification", 1, 10);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<String> hung = executor.submit(() -> bulkhead.call(() -> {
+            started.countDown();
+            awaitQuietly(release);
+            return "saved";
+        }));
+        assertTrue(started.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+
+        //when
+        try {
+            bulkhead.call(() -> "rejected");
+            fail("Expected BulkheadFullException");
+        } catch (BulkheadFullException ex) {
+            //then
+            assertEquals("Sorry, the gamification service is busy right now. Please try again later.",
+                    ex.getMessage());
+        }
+        assertEquals(1, bulkhead.getActiveCount());
+        assertEquals(1, bulkhead.getRejectedCount());
+
+        release.countDown();
+        assertEquals("saved", hung.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        assertEquals(0, bulkhead.getActiveCount());
+        assertEquals("next", bulkhead.call(() -> "next"));
+    }
+
+    @Test
+    public void shouldReleasePermitWhenCallFails() {
+        //given
+        Bulkhead bulkhead = new Bulkhead("users", 1, 0);
+
+        //when
+        try {
+            bulkhead.call(() -> {
+                throw new IllegalStateException("users service is unavailable");
+            });
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException ex) {
+            //expected
+        }
+
+        //then
+        assertEquals(0, bulkhead.getActiveCount());
+        assertEquals("found", bulkhead.call(() -> "found"));
+    }
+
+    @Test
+    public void shouldHoldPermitOfAsyncCallUntilFutureIsCompleted() throws Exception {
+        //given
+        Bulkhead bulkhead = new Bulkhead("slack", 1, 1000);
+        CompletableFuture<String> response = new CompletableFuture<>();
+        CompletableFuture<String> first = bulkhead.callAsync(() -> response);
+
+        //when
+        CompletableFuture<String> second = bulkhead.callAsync(() -> CompletableFuture.completedFuture("second"));
+
+        //then
+        assertEquals(1, bulkhead.getActiveCount());
+        assertTrue(second.isCompletedExceptionally());
+        try {
+            second.get();
+            fail("Expected BulkheadFullException");
+        } catch (ExecutionException ex) {
+            assertTrue(ex.getCause() instanceof BulkheadFullException);
+        }
+        response.complete("first");
+        assertEquals("first", first.get());
+        assertEquals(0, bulkhead.getActiveCount());
+        assertEquals(1, bulkhead.getRejectedCount());
+    }
+
+    private void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package juja.microservices.gamification.slackbot.concurrent;
+
+import juja.microservices.gamification.slackbot.exceptions.CircuitBreakerOpenException;
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CircuitBreakerTest {
+
+    private static final long OPEN_DURATION_MILLIS = 50;
+
+    private final CircuitBreaker circuitBreaker = new CircuitBreaker("gamification", 4, 4, 50, 1000, 100,
+            OPEN_DURATION_MILLIS, 2, error -> !(error instanceof HttpClientErrorException));
+
+    @Test
+    public void shouldOpenWhenFailureRateReachesThreshold() {
+        //given
+        succeed();
+        callFailing(new HttpServerErrorException(HttpStatus.BAD_GATEWAY));
+        succeed();
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+
+        //when
+        callFailing(new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE));
+
+        //then
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        try {
+            circuitBreaker.call(() -> "rejected");
+            fail("Expected CircuitBreakerOpenException");
+        } catch (CircuitBreakerOpenException ex) {
+            assertEquals("Sorry, the gamification service is not available right now. " +
+                    "Please try again in a few minutes.", ex.getMessage());
+        }
+        assertEquals(1, circuitBreaker.getRejectedCount());
+    }
+
+    @Test
+    public void shouldNotCountClientErrorsAsFailures() {
+        //when
+        for (int i = 0; i < 4; i++) {
+            callFailing(new HttpClientErrorException(HttpStatus.BAD_REQUEST));
+        }
+
+        //then
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    public void shouldOpenWhenSlowCallRateReachesThreshold() {
+        //given
+        CircuitBreaker slowCalls = new CircuitBreaker("users", 2, 2, 100, 10, 100, OPEN_DURATION_MILLIS, 1,
+                error -> true);
+
+        //when
+        slowCalls.call(this::sleepLong);
+        slowCalls.call(this::sleepLong);
+
+        //then
+        assertEquals(CircuitBreaker.State.OPEN, slowCalls.getState());
+    }
+
+    @Test
+    public void shouldCloseWhenAllHalfOpenProbesSucceed() throws Exception {
+        //given
+        openCircuit();
+        Thread.sleep(OPEN_DURATION_MILLIS * 2);
+
+        //when
+        CompletableFuture<String> probe = new CompletableFuture<>();
+        CompletableFuture<String> firstProbe = circuitBreaker.callAsync(() -> probe);
+        succeed();
+        CompletableFuture<String> rejected = circuitBreaker.callAsync(() -> CompletableFuture.completedFuture("no"));
+        probe.complete("saved");
+
+        //then
+        assertEquals("saved", firstProbe.get());
+        try {
+            rejected.get();
+            fail("Expected CircuitBreakerOpenException");
+        } catch (ExecutionException ex) {
+            assertTrue(ex.getCause() instanceof CircuitBreakerOpenException);
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    public void shouldOpenAgainWhenHalfOpenProbeFails() throws Exception {
+        //given
+        openCircuit();
+        Thread.sleep(OPEN_DURATION_MILLIS * 2);
+
+        //when
+        callFailing(new HttpServerErrorException(HttpStatus.INTERNAL_SERVER_ERROR));
+
+        //then
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    private void openCircuit() {
+        for (int i = 0; i < 4; i++) {
+            callFailing(new HttpServerErrorException(HttpStatus.BAD_GATEWAY));
+        }
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    private void succeed() {
+        assertEquals("saved", circuitBreaker.call(() -> "saved"));
+    }
+
+    private void callFailing(RuntimeException error) {
+        try {
+            circuitBreaker.call(() -> {
+                throw error;
+            });
+            fail("Expected " + error.getClass().getSimpleName());
+        } catch (RuntimeException ex) {
+            assertEquals(error, ex);
+        }
+    }
+
+    private String sleepLong() {
+        try {
+            Thread.sleep(20);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        return "found";
+    }
+}
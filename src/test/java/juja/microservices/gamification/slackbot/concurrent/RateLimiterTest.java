@@ -0,0 +1,130 @@
+package juja.microservices.gamification.slackbot.concurrent;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RateLimiterTest {
+
+    private static final long TIMEOUT_MILLIS = 2000;
+
+    private RateLimiter rateLimiter;
+
+    @After
+    public void tearDown() {
+        rateLimiter.shutdown();
+    }
+
+    @Test
+    public void shouldGrantWaitingPermitsByDeadline() throws Exception {
+        //given
+        rateLimiter = new RateLimiter("test", 20, 1, 10);
+        rateLimiter.acquire("channel", deadline(10000)).get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        List<Long> granted = Collections.synchronizedList(new ArrayList<>());
+
+        //when
+        for (long deadline : Arrays.asList(deadline(30000), deadline(10000), deadline(20000))) {
+            rateLimiter.acquire("channel", deadline).thenRun(() -> granted.add(deadline));
+        }
+
+        //then
+        awaitGranted(granted, 3);
+        assertTrue(granted.get(0) < granted.get(1));
+        assertTrue(granted.get(1) < granted.get(2));
+    }
+
+    @Test
+    public void shouldNotLimitOtherKeys() throws Exception {
+        //given
+        rateLimiter = new RateLimiter("test", 0.1, 1, 10);
+        rateLimiter.acquire("channel", deadline(10000)).get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+
+        //when
+        CompletableFuture<Void> sameChannel = rateLimiter.acquire("channel", deadline(10000));
+        CompletableFuture<Void> otherChannel = rateLimiter.acquire("other", deadline(10000));
+
+        //then
+        assertFalse(sameChannel.isDone());
+        assertTrue(otherChannel.isDone());
+        assertEquals(1, rateLimiter.getWaitingCount());
+    }
+
+    @Test
+    public void shouldPauseThrottledKeyForRetryAfter() throws Exception {
+        //given
+        rateLimiter = new RateLimiter("test", 1000, 10, 10);
+        long started = System.nanoTime();
+
+        //when
+        rateLimiter.throttle("channel", 200);
+        rateLimiter.acquire("channel", deadline(10000)).get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+
+        //then
+        assertTrue(System.nanoTime() - started >= TimeUnit.MILLISECONDS.toNanos(200));
+        assertEquals(1, rateLimiter.getThrottledCount());
+    }
+
+    @Test
+    public void shouldRejectPermitWhenTooManyAreWaiting() throws Exception {
+        //given
+        rateLimiter = new RateLimiter("test", 0.1, 1, 1);
+        rateLimiter.acquire("channel", deadline(10000)).get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        rateLimiter.acquire("channel", deadline(10000));
+
+        //when
+        CompletableFuture<Void> permit = rateLimiter.acquire("channel", deadline(10000));
+
+        //then
+        assertFailure(permit, RejectedExecutionException.class);
+        assertEquals(1, rateLimiter.getRejectedCount());
+    }
+
+    @Test
+    public void shouldFailPermitWhichIsNotGrantedBeforeDeadline() throws Exception {
+        //given
+        rateLimiter = new RateLimiter("test", 2, 1, 10);
+        rateLimiter.acquire("channel", deadline(10000)).get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+
+        //when
+        CompletableFuture<Void> permit = rateLimiter.acquire("channel", deadline(50));
+
+        //then
+        assertFailure(permit, TimeoutException.class);
+        assertEquals(0, rateLimiter.getWaitingCount());
+    }
+
+    private long deadline(long millisFromNow) {
+        return System.currentTimeMillis() + millisFromNow;
+    }
+
+    private void awaitGranted(List<Long> granted, int count) throws InterruptedException {
+        long waitUntil = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (granted.size() < count && System.currentTimeMillis() < waitUntil) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, granted.size());
+    }
+
+    private void assertFailure(CompletableFuture<Void> permit, Class<? extends Throwable> expected) throws Exception {
+        try {
+            permit.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            fail("Expected " + expected.getSimpleName());
+        } catch (ExecutionException ex) {
+            assertEquals(expected, ex.getCause().getClass());
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package juja.microservices.gamification.slackbot.concurrent;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RetryTest {
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private final AtomicInteger attempts = new AtomicInteger();
+
+    @After
+    public void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void shouldRetryTransientErrorUntilSuccess() {
+        //given
+        Retry retry = retry(3, new RetryBudget(0.1, 10));
+
+        //when
+        String result = retry.call(() -> failTimes(2, new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE)));
+
+        //then
+        assertEquals("saved", result);
+        assertEquals(3, attempts.get());
+        assertEquals(2, retry.getRetryCount());
+    }
+
+    @Test
+    public void shouldThrowLastErrorWhenAttemptsAreExhausted() {
+        //given
+        Retry retry = retry(2, new RetryBudget(0.1, 10));
+        HttpServerErrorException error = new HttpServerErrorException(HttpStatus.BAD_GATEWAY);
+
+        //when
+        try {
+            retry.call(() -> failTimes(5, error));
+            fail("Expected HttpServerErrorException");
+        } catch (HttpServerErrorException ex) {
+            //then
+            assertEquals(error, ex);
+        }
+        assertEquals(2, attempts.get());
+        assertEquals(1, retry.getAttemptsExhaustedCount());
+    }
+
+    @Test
+    public void shouldNotRetryWhenErrorIsNotTransient() {
+        //given
+        Retry retry = retry(3, new RetryBudget(0.1, 10));
+
+        //when
+        try {
+            retry.call(() -> failTimes(1, new HttpClientErrorException(HttpStatus.BAD_REQUEST)));
+            fail("Expected HttpClientErrorException");
+        } catch (HttpClientErrorException ex) {
+            //then
+            assertEquals(1, attempts.get());
+            assertEquals(0, retry.getRetryCount());
+        }
+    }
+
+    @Test
+    public void shouldStopRetryingWhenBudgetIsSpent() {
+        //given
+        RetryBudget budget = new RetryBudget(0.1, 1);
+        Retry retry = retry(3, budget);
+
+        //when
+        try {
+            retry.call(() -> failTimes(5, new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE)));
+            fail("Expected HttpServerErrorException");
+        } catch (HttpServerErrorException ex) {
+            //then
+            assertEquals(2, attempts.get());
+            assertEquals(1, retry.getRetryCount());
+            assertEquals(1, retry.getBudgetExhaustedCount());
+            assertTrue(budget.getTokens() < 1);
+        }
+    }
+
+    @Test
+    public void shouldScheduleAsyncRetry() throws Exception {
+        //given
+        Retry retry = retry(3, new RetryBudget(0.1, 10));
+
+        //when
+        CompletableFuture<String> result = retry.callAsync(() -> failTimesAsync(2));
+
+        //then
+        assertEquals("saved", result.get(1, TimeUnit.SECONDS));
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    public void shouldCompleteAsyncCallWithLastError() throws Exception {
+        //given
+        Retry retry = retry(2, new RetryBudget(0.1, 10));
+
+        //when
+        CompletableFuture<String> result = retry.callAsync(() -> failTimesAsync(5));
+
+        //then
+        try {
+            result.get(1, TimeUnit.SECONDS);
+            fail("Expected HttpServerErrorException");
+        } catch (ExecutionException ex) {
+            assertTrue(ex.getCause() instanceof HttpServerErrorException);
+        }
+        assertEquals(2, attempts.get());
+    }
+
+    private Retry retry(int maxAttempts, RetryBudget budget) {
+        return new Retry("gamification.daily", maxAttempts, 1, 5,
+                error -> error instanceof HttpServerErrorException, budget, scheduler);
+    }
+
+    private String failTimes(int failures, RuntimeException error) {
+        if (attempts.incrementAndGet() <= failures) {
+            throw error;
+        }
+        return "saved";
+    }
+
+    private CompletableFuture<String> failTimesAsync(int failures) {
+        CompletableFuture<String> response = new CompletableFuture<>();
+        if (attempts.incrementAndGet() <= failures) {
+            response.completeExceptionally(new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE));
+        } else {
+            response.complete("saved");
+        }
+        return response;
+    }
+}
@@ -0,0 +1,130 @@
+package juja.microservices.gamification.slackbot.concurrent;
+
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class VirtualThreadBoundedExecutorTest {
+
+    private final static long TIMEOUT_MILLIS = 1000;
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    @Test
+    public void shouldRunTaskOnVirtualThread() throws InterruptedException {
+        //given
+        Assume.assumeTrue(VirtualThreads.isSupported());
+        BoundedExecutor executor = new VirtualThreadBoundedExecutor("test", 10, TIMEOUT_MILLIS);
+        CountDownLatch finished = new CountDownLatch(1);
+        AtomicReference<String> threadName = new AtomicReference<>();
+
+        //when
+        executor.execute(() -> {
+            threadName.set(Thread.currentThread().getName());
+            finished.countDown();
+        });
+
+        //then
+        assertTrue(finished.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        assertTrue(threadName.get().startsWith("test-"));
+    }
+
+    @Test
+    public void shouldRejectTaskWhenMaxConcurrencyReached() throws InterruptedException {
+        //given
+        BoundedExecutor executor = platformThreadExecutor(1, TIMEOUT_MILLIS);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> awaitQuietly(release));
+
+        //when
+        try {
+            executor.execute(() -> {
+            });
+        } catch (RejectedExecutionException ex) {
+            //then
+            assertEquals(1, executor.getRejectedCount());
+            assertEquals(1, executor.getActiveCount());
+            release.countDown();
+            return;
+        }
+        throw new AssertionError("Task must be rejected");
+    }
+
+    @Test
+    public void shouldCancelSubtaskAfterCommandTimeout() throws Exception {
+        //given
+        BoundedExecutor executor = platformThreadExecutor(1, 50);
+        CountDownLatch interrupted = new CountDownLatch(1);
+
+        //when
+        try (CommandScope scope = executor.openScope()) {
+            scope.fork(() -> {
+                try {
+                    Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+                } catch (InterruptedException ex) {
+                    interrupted.countDown();
+                }
+                return "late result";
+            });
+            thrown.expect(TimeoutException.class);
+            scope.join();
+        } finally {
+            //then
+            assertTrue(interrupted.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        }
+    }
+
+    @Test
+    public void shouldCancelOtherSubtasksWhenSubtaskFails() throws Exception {
+        //given
+        BoundedExecutor executor = platformThreadExecutor(1, TIMEOUT_MILLIS);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+
+        //when
+        try (CommandScope scope = executor.openScope()) {
+            scope.fork(() -> {
+                started.countDown();
+                try {
+                    Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+                } catch (InterruptedException ex) {
+                    interrupted.countDown();
+                }
+                return "late result";
+            });
+            assertTrue(started.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+            scope.fork(() -> {
+                throw new IllegalStateException("failed subtask");
+            });
+            scope.join();
+        }
+
+        //then
+        assertTrue(interrupted.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+    }
+
+    private BoundedExecutor platformThreadExecutor(int maxConcurrency, long commandTimeoutMillis) {
+        return new VirtualThreadBoundedExecutor("test", Executors.defaultThreadFactory(),
+                Executors.defaultThreadFactory(), maxConcurrency, commandTimeoutMillis);
+    }
+
+    private void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package juja.microservices.gamification.slackbot.controller;
+
+import com.codahale.metrics.MetricRegistry;
+import juja.microservices.gamification.slackbot.cache.CommandDeduplicator;
+import juja.microservices.gamification.slackbot.command.CommandRegistry;
+import juja.microservices.gamification.slackbot.delivery.SlackDelivery;
+import juja.microservices.gamification.slackbot.exceptions.ExceptionsHandler;
+import juja.microservices.gamification.slackbot.metrics.BotMetrics;
+import juja.microservices.gamification.slackbot.service.GamificationService;
+import juja.microservices.gamification.slackbot.service.impl.DefaultCommandPipeline;
+import juja.microservices.gamification.slackbot.tracing.TracingConfiguration;
+import juja.microservices.utils.SlackUrlUtils;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import javax.inject.Inject;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+@WebMvcTest(AsyncGamificationSlackCommandController.class)
+@Import({DefaultCommandPipeline.class, CommandDeduplicator.class, BotMetrics.class, MetricRegistry.class,
+        TracingConfiguration.class, CommandRegistry.class, SlashCommandIngress.class})
+@TestPropertySource(properties = "gamification.slackbot.controller.mode=async")
+public class AsyncGamificationSlackCommandControllerTest {
+
+    private final String SORRY_MESSAGE = "Sorry! You're not lucky enough to use our slack command.";
+    private final String INSTANT_MESSAGE = "Your command accepted. Please wait...";
+    private final String responseUrl = "http://example.com";
+    private final long TIMEOUT_MILLIS = 1000;
+
+    private final String FROM_USER_SLACK_NAME = "@from-user";
+    private final String VALID_SLASH_COMMAND_TOKEN = "slashCommandToken";
+
+    @Value("${gamification.slackbot.endpoint.daily}")
+    private String gamificationSlackbotDailyUrl;
+    @Value("${gamification.slackbot.endpoint.thanks}")
+    private String gamificationSlackbotThanksUrl;
+
+    @Inject
+    private MockMvc mvc;
+
+    @MockBean
+    private GamificationService gamificationService;
+
+    @MockBean
+    private ExceptionsHandler exceptionsHandler;
+
+    @MockBean
+    private SlackDelivery slackDelivery;
+
+    @Test
+    public void onReceiveSlashCommandWhenIncorrectTokenShouldReturnSorryMessage() throws Exception {
+        final String DAILY_COMMAND_TEXT = "daily report";
+
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.post(
+                SlackUrlUtils.getUrlTemplate(gamificationSlackbotDailyUrl),
+                SlackUrlUtils.getUriVars("wrongSlackToken", "/daily", DAILY_COMMAND_TEXT))
+                .contentType(MediaType.APPLICATION_FORM_URLENCODED))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string(SORRY_MESSAGE));
+        verifyZeroInteractions(gamificationService, slackDelivery);
+    }
+
+    @Test
+    public void onReceiveSlashCommandShouldReturnCommandResultAsInstantResponse() throws Exception {
+        final String DAILY_COMMAND_TEXT = "daily report";
+        final String RESPONSE_TO_SLACK = "Ok response";
+
+        when(gamificationService.sendDailyAchievement(any(String.class), any(String.class)))
+                .thenReturn(RESPONSE_TO_SLACK);
+
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.post(
+                SlackUrlUtils.getUrlTemplate(gamificationSlackbotDailyUrl),
+                SlackUrlUtils.getUriVars(VALID_SLASH_COMMAND_TOKEN, "/daily", DAILY_COMMAND_TEXT))
+                .contentType(MediaType.APPLICATION_FORM_URLENCODED))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string(RESPONSE_TO_SLACK));
+        verify(gamificationService).sendDailyAchievement(FROM_USER_SLACK_NAME, DAILY_COMMAND_TEXT);
+        verifyNoMoreInteractions(gamificationService);
+        verifyZeroInteractions(slackDelivery);
+    }
+
+    @Test
+    public void onReceiveSlashCommandShouldSendErrorToResponseUrlIfOccurException() throws Exception {
+        final String THANKS_COMMAND_TEXT = "thanks @slack1 for help";
+        final RuntimeException exception = new RuntimeException("Error response");
+
+        when(gamificationService.sendThanksAchievement(any(String.class), any(String.class))).thenThrow(exception);
+
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.post(
+                SlackUrlUtils.getUrlTemplate(gamificationSlackbotThanksUrl),
+                SlackUrlUtils.getUriVars(VALID_SLASH_COMMAND_TOKEN, "/thanks", THANKS_COMMAND_TEXT))
+                .contentType(MediaType.APPLICATION_FORM_URLENCODED))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string(INSTANT_MESSAGE));
+        verify(exceptionsHandler, timeout(TIMEOUT_MILLIS)).handleException(eq(exception), eq(responseUrl));
+    }
+}
@@ -1,7 +1,14 @@
 package juja.microservices.gamification.slackbot.controller;
 
+import com.codahale.metrics.MetricRegistry;
+import juja.microservices.gamification.slackbot.cache.CommandDeduplicator;
+import juja.microservices.gamification.slackbot.command.CommandRegistry;
+import juja.microservices.gamification.slackbot.delivery.SlackDelivery;
 import juja.microservices.gamification.slackbot.exceptions.ExceptionsHandler;
+import juja.microservices.gamification.slackbot.metrics.BotMetrics;
 import juja.microservices.gamification.slackbot.service.GamificationService;
+import juja.microservices.gamification.slackbot.service.impl.DefaultCommandPipeline;
+import juja.microservices.gamification.slackbot.tracing.TracingConfiguration;
 import juja.microservices.utils.SlackUrlUtils;
 import me.ramswaroop.jbot.core.slack.models.RichMessage;
 import org.junit.Rule;
@@ -12,20 +19,21 @@ import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
-import org.springframework.web.client.RestTemplate;
 
 import javax.inject.Inject;
 
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
-import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -35,11 +43,14 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
  */
 @RunWith(SpringRunner.class)
 @WebMvcTest(GamificationSlackCommandController.class)
+@Import({DefaultCommandPipeline.class, CommandDeduplicator.class, BotMetrics.class, MetricRegistry.class,
+        TracingConfiguration.class, CommandRegistry.class, SlashCommandIngress.class})
 public class GamificationSlackCommandControllerTest {
 
     private final String SORRY_MESSAGE = "Sorry! You're not lucky enough to use our slack command.";
     private final String INSTANT_MESSAGE = "Your command accepted. Please wait...";
     private final String responseUrl = "http://example.com";
+    private final long TIMEOUT_MILLIS = 1000;
 
     private final String FROM_USER_SLACK_NAME = "@from-user";
     private final String VALID_SLASH_COMMAND_TOKEN = "slashCommandToken";
@@ -55,6 +66,8 @@ public class GamificationSlackCommandControllerTest {
     private String gamificationSlackbotCodenjoyUrl;
     @Value("${gamification.slackbot.endpoint.interview}")
     private String gamificationSlackbotInterviewUrl;
+    @Value("${gamification.slackbot.endpoint.command}")
+    private String gamificationSlackbotCommandUrl;
 
     @Inject
     private MockMvc mvc;
@@ -66,7 +79,7 @@ public class GamificationSlackCommandControllerTest {
     private ExceptionsHandler exceptionsHandler;
 
     @MockBean
-    private RestTemplate restTemplate;
+    private SlackDelivery slackDelivery;
 
     @Test
     public void onReceiveSlashCommandCodenjoyWhenIncorrectTokenShouldReturnSorryRichMessage() throws Exception {
@@ -77,7 +90,7 @@ public class GamificationSlackCommandControllerTest {
                 .contentType(MediaType.APPLICATION_FORM_URLENCODED))
                 .andExpect(status().isOk())
                 .andExpect(content().string(SORRY_MESSAGE));
-        verify(exceptionsHandler).setResponseUrl(anyString());
+        verifyZeroInteractions(exceptionsHandler);
     }
 
     @Test
@@ -93,13 +106,29 @@ public class GamificationSlackCommandControllerTest {
                 .contentType(MediaType.APPLICATION_FORM_URLENCODED))
                 .andExpect(status().isOk())
                 .andExpect(content().string(INSTANT_MESSAGE));
-        verify(exceptionsHandler).setResponseUrl(anyString());
-        verify(gamificationService).sendCodenjoyAchievement(FROM_USER_SLACK_NAME, CODENJOY_COMMAND_TEXT);
+        verify(gamificationService, timeout(TIMEOUT_MILLIS)).sendCodenjoyAchievement(FROM_USER_SLACK_NAME, CODENJOY_COMMAND_TEXT);
 
         assertDelayedResponseMessage(RESPONSE_TO_SLACK);
+        verifyZeroInteractions(exceptionsHandler);
         verifyNoMoreInteractions(gamificationService);
     }
 
+    @Test
+    public void onReceiveSlashCommandShouldRegisterChannelOfResponseUrl() throws Exception {
+
+        final String CODENJOY_COMMAND_TEXT = "-1th @slack1 -2th @slack2 -3th @slack3";
+
+        when(gamificationService.sendCodenjoyAchievement(any(String.class), any(String.class))).thenReturn("Ok");
+
+        mvc.perform(MockMvcRequestBuilders.post(SlackUrlUtils.getUrlTemplate(gamificationSlackbotCodenjoyUrl),
+                SlackUrlUtils.getUriVars(VALID_SLASH_COMMAND_TOKEN, "/codenjoy", CODENJOY_COMMAND_TEXT))
+                .contentType(MediaType.APPLICATION_FORM_URLENCODED))
+                .andExpect(status().isOk())
+                .andExpect(content().string(INSTANT_MESSAGE));
+        assertDelayedResponseMessage("Ok");
+        verify(slackDelivery).register(responseUrl, "any_team_id", "UHASHB8JB");
+    }
+
     @Test
     public void onReceiveSlashCommandCodenjoyShouldReturnErrorMessageIfOccurException() throws Exception {
 
@@ -114,7 +143,7 @@ public class GamificationSlackCommandControllerTest {
                 .contentType(MediaType.APPLICATION_FORM_URLENCODED))
                 .andExpect(status().isOk())
                 .andExpect(content().string(INSTANT_MESSAGE));
-        verify(exceptionsHandler).setResponseUrl(anyString());
+        verify(exceptionsHandler, timeout(TIMEOUT_MILLIS)).handleException(any(RuntimeException.class), eq(responseUrl));
 
         exceptions.expect(RuntimeException.class);
         exceptions.expectMessage(RESPONSE_TO_SLACK);
@@ -130,7 +159,7 @@ public class GamificationSlackCommandControllerTest {
                 .contentType(MediaType.APPLICATION_FORM_URLENCODED))
                 .andExpect(status().isOk())
                 .andExpect(content().string(SORRY_MESSAGE));
-        verify(exceptionsHandler).setResponseUrl(anyString());
+        verifyZeroInteractions(exceptionsHandler);
     }
 
     @Test
@@ -146,10 +175,10 @@ public class GamificationSlackCommandControllerTest {
                 .contentType(MediaType.APPLICATION_FORM_URLENCODED))
                 .andExpect(status().isOk())
                 .andExpect(content().string(INSTANT_MESSAGE));
-        verify(exceptionsHandler).setResponseUrl(anyString());
-        verify(gamificationService).sendDailyAchievement(FROM_USER_SLACK_NAME, DAILY_COMMAND_TEXT);
+        verify(gamificationService, timeout(TIMEOUT_MILLIS)).sendDailyAchievement(FROM_USER_SLACK_NAME, DAILY_COMMAND_TEXT);
 
         assertDelayedResponseMessage(RESPONSE_TO_SLACK);
+        verifyZeroInteractions(exceptionsHandler);
         verifyNoMoreInteractions(gamificationService);
     }
 
@@ -167,7 +196,7 @@ public class GamificationSlackCommandControllerTest {
                 .contentType(MediaType.APPLICATION_FORM_URLENCODED))
                 .andExpect(status().isOk())
                 .andExpect(content().string(INSTANT_MESSAGE));
-        verify(exceptionsHandler).setResponseUrl(anyString());
+        verify(exceptionsHandler, timeout(TIMEOUT_MILLIS)).handleException(any(RuntimeException.class), eq(responseUrl));
 
         exceptions.expect(RuntimeException.class);
         exceptions.expectMessage(RESPONSE_TO_SLACK);
@@ -183,7 +212,7 @@ public class GamificationSlackCommandControllerTest {
                 .contentType(MediaType.APPLICATION_FORM_URLENCODED))
                 .andExpect(status().isOk())
                 .andExpect(content().string(SORRY_MESSAGE));
-        verify(exceptionsHandler).setResponseUrl(anyString());
+        verifyZeroInteractions(exceptionsHandler);
     }
 
     @Test
@@ -199,10 +228,10 @@ public class GamificationSlackCommandControllerTest {
                 .contentType(MediaType.APPLICATION_FORM_URLENCODED))
                 .andExpect(status().isOk())
                 .andExpect(content().string(INSTANT_MESSAGE));
-        verify(exceptionsHandler).setResponseUrl(anyString());
-        verify(gamificationService).sendThanksAchievement(FROM_USER_SLACK_NAME, THANKS_COMMAND_TEXT);
+        verify(gamificationService, timeout(TIMEOUT_MILLIS)).sendThanksAchievement(FROM_USER_SLACK_NAME, THANKS_COMMAND_TEXT);
 
         assertDelayedResponseMessage(RESPONSE_TO_SLACK);
+        verifyZeroInteractions(exceptionsHandler);
         verifyNoMoreInteractions(gamificationService);
     }
 
@@ -220,7 +249,7 @@ public class GamificationSlackCommandControllerTest {
                 .contentType(MediaType.APPLICATION_FORM_URLENCODED))
                 .andExpect(status().isOk())
                 .andExpect(content().string(INSTANT_MESSAGE));
-        verify(exceptionsHandler).setResponseUrl(anyString());
+        verify(exceptionsHandler, timeout(TIMEOUT_MILLIS)).handleException(any(RuntimeException.class), eq(responseUrl));
 
         exceptions.expect(RuntimeException.class);
         exceptions.expectMessage(RESPONSE_TO_SLACK);
@@ -236,7 +265,7 @@ public class GamificationSlackCommandControllerTest {
                 .contentType(MediaType.APPLICATION_FORM_URLENCODED))
                 .andExpect(status().isOk())
                 .andExpect(content().string(SORRY_MESSAGE));
-        verify(exceptionsHandler).setResponseUrl(anyString());
+        verifyZeroInteractions(exceptionsHandler);
     }
 
     @Test
@@ -252,10 +281,10 @@ public class GamificationSlackCommandControllerTest {
                 .contentType(MediaType.APPLICATION_FORM_URLENCODED))
                 .andExpect(status().isOk())
                 .andExpect(content().string(INSTANT_MESSAGE));
-        verify(exceptionsHandler).setResponseUrl(anyString());
-        verify(gamificationService).sendInterviewAchievement(FROM_USER_SLACK_NAME, INTERVIEW_COMMAND_TEXT);
+        verify(gamificationService, timeout(TIMEOUT_MILLIS)).sendInterviewAchievement(FROM_USER_SLACK_NAME, INTERVIEW_COMMAND_TEXT);
 
         assertDelayedResponseMessage(RESPONSE_TO_SLACK);
+        verifyZeroInteractions(exceptionsHandler);
         verifyNoMoreInteractions(gamificationService);
     }
 
@@ -272,16 +301,46 @@ public class GamificationSlackCommandControllerTest {
                 .contentType(MediaType.APPLICATION_FORM_URLENCODED))
                 .andExpect(status().isOk())
                 .andExpect(content().string(INSTANT_MESSAGE));
-        verify(exceptionsHandler).setResponseUrl(anyString());
+        verify(exceptionsHandler, timeout(TIMEOUT_MILLIS)).handleException(any(RuntimeException.class), eq(responseUrl));
 
         exceptions.expect(RuntimeException.class);
         exceptions.expectMessage(RESPONSE_TO_SLACK);
         gamificationService.sendInterviewAchievement(any(String.class), any(String.class));
     }
 
+    @Test
+    public void onReceiveSlashCommandOnCommonEndpointShouldDispatchBySlackCommand() throws Exception {
+        final String THANKS_COMMAND_TEXT = "@slack1 thanks for help";
+        final String RESPONSE_TO_SLACK = "Ok response";
+
+        when(gamificationService.sendThanksAchievement(any(String.class), any(String.class)))
+                .thenReturn(RESPONSE_TO_SLACK);
+
+        mvc.perform(MockMvcRequestBuilders.post(SlackUrlUtils.getUrlTemplate(gamificationSlackbotCommandUrl),
+                SlackUrlUtils.getUriVars(VALID_SLASH_COMMAND_TOKEN, "/thanks", THANKS_COMMAND_TEXT))
+                .contentType(MediaType.APPLICATION_FORM_URLENCODED))
+                .andExpect(status().isOk())
+                .andExpect(content().string(INSTANT_MESSAGE));
+        verify(gamificationService, timeout(TIMEOUT_MILLIS))
+                .sendThanksAchievement(FROM_USER_SLACK_NAME, THANKS_COMMAND_TEXT);
+
+        assertDelayedResponseMessage(RESPONSE_TO_SLACK);
+        verifyNoMoreInteractions(gamificationService);
+    }
+
+    @Test
+    public void onReceiveUnknownSlashCommandOnCommonEndpointShouldReturnSorryMessage() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.post(SlackUrlUtils.getUrlTemplate(gamificationSlackbotCommandUrl),
+                SlackUrlUtils.getUriVars(VALID_SLASH_COMMAND_TOKEN, "/karma", "@slack1 ++"))
+                .contentType(MediaType.APPLICATION_FORM_URLENCODED))
+                .andExpect(status().isOk())
+                .andExpect(content().string("Sorry! We don't know the command /karma."));
+        verifyZeroInteractions(gamificationService);
+    }
+
     private void assertDelayedResponseMessage(String message) {
         ArgumentCaptor<RichMessage> captor = ArgumentCaptor.forClass(RichMessage.class);
-        verify(restTemplate).postForObject(eq(responseUrl), captor.capture(), eq(String.class));
+        verify(slackDelivery, timeout(TIMEOUT_MILLIS)).deliver(eq(responseUrl), captor.capture());
         assertTrue(captor.getValue().getText().contains(message));
     }
 }
\ No newline at end of file
@@ -0,0 +1,147 @@
+package juja.microservices.gamification.slackbot.controller;
+
+import juja.microservices.gamification.slackbot.cache.CommandDeduplicator;
+import juja.microservices.gamification.slackbot.command.CommandRegistry;
+import juja.microservices.gamification.slackbot.command.SlackCommand;
+import juja.microservices.gamification.slackbot.delivery.SlackDelivery;
+import juja.microservices.gamification.slackbot.service.CommandPipeline;
+import juja.microservices.gamification.slackbot.service.GamificationService;
+import juja.microservices.gamification.slackbot.tracing.Tracer;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+public class SlashCommandIngressTest {
+
+    private static final String TOKEN = "slack_token";
+    private static final String RESPONSE_URL = "https://hooks.slack.com/commands/T1/2/3";
+
+    private final CommandPipeline commandPipeline = mock(CommandPipeline.class);
+    private final CommandRegistry commandRegistry = mock(CommandRegistry.class);
+    private final SlackDelivery slackDelivery = mock(SlackDelivery.class);
+    private final GamificationService gamificationService = mock(GamificationService.class);
+    private SlashCommandIngress ingress;
+
+    @Before
+    public void setup() {
+        SlackCommand<?> daily = SlackCommand.builder()
+                .type("daily")
+                .name("Daily")
+                .handler((service, fromUser, text) -> service.sendDailyAchievement(fromUser, text))
+                .build();
+        when(commandRegistry.find("/daily", "/daily")).then(invocation -> daily);
+        ingress = new SlashCommandIngress(TOKEN, false, gamificationService, commandPipeline,
+                new CommandDeduplicator(60000, 100), commandRegistry, slackDelivery, Tracer.disabled());
+    }
+
+    @Test
+    public void shouldAnswerSorryToInvalidToken() {
+        //when
+        SlashCommandIngress.Ack ack = ingress.receive(request("wrong_token", "/daily", "t1"), result -> false);
+
+        //then
+        assertEquals(SlashCommandIngress.SORRY_MESSAGE, ack.getMessage());
+        assertFalse(ack.isPending());
+        verifyZeroInteractions(commandPipeline);
+    }
+
+    @Test
+    public void shouldAnswerUnknownCommandWithItsName() {
+        //when
+        SlashCommandIngress.Ack ack = ingress.receive(request(TOKEN, "/unknown", "t1"), result -> false);
+
+        //then
+        assertEquals("Sorry! We don't know the command /unknown.", ack.getMessage());
+        assertFalse(ack.isPending());
+        verifyZeroInteractions(commandPipeline);
+    }
+
+    @Test
+    public void shouldOfferResultAsInstantResponseBeforeDelayedResponse() {
+        //given
+        CompletableFuture<String> result = new CompletableFuture<>();
+        when(commandPipeline.execute(eq("Daily"), any())).thenReturn(result);
+
+        //when
+        SlashCommandIngress.Ack ack = ingress.receive(request(TOKEN, "/daily", "t1"), "Ok"::equals);
+        result.complete("Ok");
+
+        //then
+        assertEquals(SlashCommandIngress.INSTANT_MESSAGE, ack.getMessage());
+        assertTrue(ack.isPending());
+        verify(commandPipeline, never()).sendDelayedResponse(anyString(), anyString());
+        verifyZeroInteractions(slackDelivery);
+    }
+
+    @Test
+    public void shouldSendDelayedResponseWhenInstantResponseIsGone() {
+        //given
+        when(commandPipeline.execute(eq("Daily"), any())).thenReturn(CompletableFuture.completedFuture("Ok"));
+
+        //when
+        SlashCommandIngress.Ack ack = ingress.receive(request(TOKEN, "/daily", "t1"), result -> false);
+
+        //then
+        assertTrue(ack.isPending());
+        verify(slackDelivery).register(RESPONSE_URL, "T1", "C1");
+        verify(commandPipeline).sendDelayedResponse(RESPONSE_URL, "Ok");
+    }
+
+    @Test
+    public void shouldAnswerBusyWhenPipelineRejectsCommand() {
+        //given
+        when(commandPipeline.execute(eq("Daily"), any())).thenThrow(new RejectedExecutionException("full"));
+
+        //when
+        SlashCommandIngress.Ack ack = ingress.receive(request(TOKEN, "/daily", "t1"), result -> false);
+
+        //then
+        assertEquals(SlashCommandIngress.BUSY_MESSAGE, ack.getMessage());
+        assertFalse(ack.isPending());
+        verify(commandPipeline, never()).sendErrorResponse(anyString(), any());
+    }
+
+    @Test
+    public void shouldExecuteRedeliveredCommandOnce() {
+        //given
+        when(commandPipeline.execute(eq("Daily"), any())).thenReturn(new CompletableFuture<>());
+        ingress.receive(request(TOKEN, "/daily", "t1"), result -> false);
+
+        //when
+        SlashCommandIngress.Ack ack = ingress.receive(request(TOKEN, "/daily", "t1"), result -> false);
+
+        //then
+        assertEquals(SlashCommandIngress.INSTANT_MESSAGE, ack.getMessage());
+        assertFalse(ack.isPending());
+        verify(commandPipeline, times(1)).execute(eq("Daily"), any());
+    }
+
+    private SlashCommandRequest request(String token, String command, String triggerId) {
+        return SlashCommandRequest.builder()
+                .endpoint("/daily")
+                .token(token)
+                .command(command)
+                .fromUser("@from-user")
+                .text("daily report")
+                .responseUrl(RESPONSE_URL)
+                .teamId("T1")
+                .channelId("C1")
+                .triggerId(triggerId)
+                .build();
+    }
+}
@@ -1,6 +1,8 @@
 package juja.microservices.gamification.slackbot.dao;
 
+import juja.microservices.gamification.slackbot.exceptions.DownstreamUnavailableException;
 import juja.microservices.gamification.slackbot.exceptions.GamificationExchangeException;
+import juja.microservices.gamification.slackbot.model.achievements.AchievementBatch;
 import juja.microservices.gamification.slackbot.model.achievements.CodenjoyAchievement;
 import juja.microservices.gamification.slackbot.model.achievements.DailyAchievement;
 import juja.microservices.gamification.slackbot.model.achievements.InterviewAchievement;
@@ -13,21 +15,27 @@ import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.AsyncRestTemplate;
 import org.springframework.web.client.RestTemplate;
 
 import javax.inject.Inject;
 import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
 
 import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.Assert.assertEquals;
 import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
 import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
 import static org.springframework.test.web.client.response.MockRestResponseCreators.withBadRequest;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withServerError;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
 import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
 
 /**
@@ -45,6 +53,8 @@ public class RestGamificationRepositoryTest {
     private GamificationRepository gamificationRepository;
     @Inject
     private RestTemplate restTemplate;
+    @Inject
+    private AsyncRestTemplate asyncRestTemplate;
     private MockRestServiceServer mockServer;
     @Value("${gamification.endpoint.daily}")
     private String gamificationDailyUrl;
@@ -54,6 +64,8 @@ public class RestGamificationRepositoryTest {
     private String gamificationThanksUrl;
     @Value("${gamification.endpoint.interview}")
     private String gamificationInterviewUrl;
+    @Value("${gamification.endpoint.batch}")
+    private String gamificationBatchUrl;
 
     @Before
     public void setup() {
@@ -79,6 +91,36 @@ public class RestGamificationRepositoryTest {
         assertEquals("[1000]", Arrays.toString(result));
     }
 
+    @Test
+    public void shouldRetryDailyWhenGamificationServiceIsUnavailable() {
+        //given
+        mockServer.expect(requestTo(gamificationDailyUrl))
+                .andRespond(withStatus(HttpStatus.SERVICE_UNAVAILABLE));
+        mockServer.expect(requestTo(gamificationDailyUrl))
+                .andRespond(withSuccess("[\"1000\"]", MediaType.APPLICATION_JSON));
+
+        //when
+        String[] result = gamificationRepository.saveDailyAchievement(new DailyAchievement("101", "description"));
+
+        //then
+        mockServer.verify();
+        assertEquals("[1000]", Arrays.toString(result));
+    }
+
+    @Test
+    public void shouldNotRetryDailyAfterInternalServerError() {
+        //given
+        mockServer.expect(requestTo(gamificationDailyUrl))
+                .andRespond(withServerError());
+
+        //then
+        thrown.expect(DownstreamUnavailableException.class);
+        thrown.expectMessage(containsString("the gamification service is not responding"));
+
+        //when
+        gamificationRepository.saveDailyAchievement(new DailyAchievement("101", "description"));
+    }
+
     @Test
     public void shouldThrowExceptionWhenSendDailyToRemoteGamificationServiceThrowException() {
         // given
@@ -218,5 +260,80 @@ public class RestGamificationRepositoryTest {
         //when
         gamificationRepository.saveInterviewAchievement(new InterviewAchievement("101", "description"));
     }
-}
 
+    @Test
+    public void shouldReturnIdAchievementWhenSendThanksToRemoteGamificationServiceAsync() throws Exception {
+        //given
+        MockRestServiceServer asyncMockServer = MockRestServiceServer.bindTo(asyncRestTemplate).build();
+        String expectedRequestBody = "{\"description\":\"Thanks to Bob\",\"from\":\"Bill\",\"to\":\"Bob\"}";
+        String expectedRequestHeader = "application/json";
+        asyncMockServer.expect(requestTo(gamificationThanksUrl))
+                .andExpect(method(HttpMethod.POST))
+                .andExpect(request -> assertThat(request.getHeaders().getContentType().toString(), containsString(expectedRequestHeader)))
+                .andExpect(request -> assertThat(request.getBody().toString(), equalTo(expectedRequestBody)))
+                .andRespond(withSuccess("[\"1000\", \"1001\"]", MediaType.APPLICATION_JSON));
+        //when
+        String[] result = gamificationRepository.saveThanksAchievementAsync(
+                new ThanksAchievement("Bill", "Bob", "Thanks to Bob")).get();
+
+        // then
+        asyncMockServer.verify();
+        assertEquals(2, result.length);
+        assertEquals("[1000, 1001]", Arrays.toString(result));
+    }
+
+    @Test
+    public void shouldCompleteExceptionallyWhenSendDailyToRemoteGamificationServiceThrowExceptionAsync()
+            throws Exception {
+        // given
+        MockRestServiceServer asyncMockServer = MockRestServiceServer.bindTo(asyncRestTemplate).build();
+        asyncMockServer.expect(requestTo(gamificationDailyUrl))
+                .andExpect(method(HttpMethod.POST))
+                .andRespond(withBadRequest().body("{\"httpStatus\":400,\"internalErrorCode\":1," +
+                        "\"clientMessage\":\"Oops something went wrong :(\"," +
+                        "\"developerMessage\":\"General exception for this service\"," +
+                        "\"exceptionMessage\":\"very big and scare error\",\"detailErrors\":[]}"));
+        //then
+        thrown.expect(ExecutionException.class);
+        thrown.expectCause(instanceOf(GamificationExchangeException.class));
+        thrown.expectMessage(containsString("Oops something went wrong :("));
+        //when
+        gamificationRepository.saveDailyAchievementAsync(new DailyAchievement("101", "description")).get();
+    }
+
+    @Test
+    public void shouldReturnIdsOfEveryAchievementWhenSendBatchToRemoteGamificationService() {
+        //given
+        String expectedRequestBody = "{\"achievements\":[" +
+                "{\"type\":\"daily\",\"achievement\":{\"description\":\"description\",\"from\":\"101\"}}," +
+                "{\"type\":\"thanks\",\"achievement\":{\"description\":\"Thanks to Bob\",\"from\":\"Bill\",\"to\":\"Bob\"}}]}";
+        mockServer.expect(requestTo(gamificationBatchUrl))
+                .andExpect(method(HttpMethod.POST))
+                .andExpect(request -> assertThat(request.getBody().toString(), equalTo(expectedRequestBody)))
+                .andRespond(withSuccess("[[\"1000\"], [\"1001\", \"1002\"]]", MediaType.APPLICATION_JSON));
+        //when
+        String[][] result = gamificationRepository.saveAchievementBatch(new AchievementBatch(Arrays.asList(
+                new AchievementBatch.Entry(AchievementBatch.DAILY, new DailyAchievement("101", "description")),
+                new AchievementBatch.Entry(AchievementBatch.THANKS,
+                        new ThanksAchievement("Bill", "Bob", "Thanks to Bob")))));
+        // then
+        mockServer.verify();
+        assertEquals("[[1000], [1001, 1002]]", Arrays.deepToString(result));
+    }
+
+    @Test
+    public void shouldReturnIdsOfEveryAchievementWhenSendBatchToRemoteGamificationServiceAsync() throws Exception {
+        //given
+        MockRestServiceServer asyncMockServer = MockRestServiceServer.bindTo(asyncRestTemplate).build();
+        asyncMockServer.expect(requestTo(gamificationBatchUrl))
+                .andExpect(method(HttpMethod.POST))
+                .andRespond(withSuccess("[[\"1000\"]]", MediaType.APPLICATION_JSON));
+        //when
+        String[][] result = gamificationRepository.saveAchievementBatchAsync(new AchievementBatch(
+                Arrays.asList(new AchievementBatch.Entry(AchievementBatch.DAILY,
+                        new DailyAchievement("101", "description"))))).get();
+        // then
+        asyncMockServer.verify();
+        assertEquals("[[1000]]", Arrays.deepToString(result));
+    }
+}
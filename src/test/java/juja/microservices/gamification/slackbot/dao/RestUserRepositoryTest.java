@@ -1,5 +1,6 @@
 package juja.microservices.gamification.slackbot.dao;
 
+import juja.microservices.gamification.slackbot.exceptions.UserExchangeException;
 import juja.microservices.gamification.slackbot.model.DTO.UserDTO;
 import org.junit.Before;
 import org.junit.Rule;
@@ -12,17 +13,22 @@ import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.AsyncRestTemplate;
 import org.springframework.web.client.RestTemplate;
 
 import javax.inject.Inject;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
 
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.junit.Assert.assertEquals;
 import static org.springframework.http.MediaType.APPLICATION_JSON_UTF8;
 import static org.springframework.test.web.client.match.MockRestRequestMatchers.content;
 import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
 import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withBadRequest;
 import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
 
 /**
@@ -39,6 +45,8 @@ public class RestUserRepositoryTest {
     private UserRepository userRepository;
     @Inject
     private RestTemplate restTemplate;
+    @Inject
+    private AsyncRestTemplate asyncRestTemplate;
     private MockRestServiceServer mockServer;
     @Value("${users.endpoint.usersBySlackNames}")
     private String usersFindUsersBySlackNamesUrl;
@@ -67,4 +75,45 @@ public class RestUserRepositoryTest {
         assertEquals("[UserDTO(uuid=AAAA123, slack=@bob.slack), UserDTO(uuid=AAAA321, slack=@john.slack)]",
                 result.toString());
     }
+
+    @Test
+    public void shouldReturnListUserDTOWhenSendSlackNameListAsync() throws Exception {
+        //given
+        MockRestServiceServer asyncMockServer = MockRestServiceServer.bindTo(asyncRestTemplate).build();
+        List<String> slackNames = new ArrayList<>();
+        slackNames.add("bob.slack");
+        slackNames.add("@john.slack");
+        asyncMockServer.expect(requestTo(usersFindUsersBySlackNamesUrl))
+                .andExpect(method(HttpMethod.POST))
+                .andExpect(content().contentType(APPLICATION_JSON_UTF8))
+                .andExpect(content().string("{\"slackNames\":[\"@bob.slack\",\"@john.slack\"]}"))
+                .andRespond(withSuccess("[{\"uuid\":\"AAAA123\",\"slack\":\"@bob.slack\"}, " +
+                        "{\"uuid\":\"AAAA321\",\"slack\":\"@john.slack\"}]", MediaType.APPLICATION_JSON_UTF8));
+        //when
+        List<UserDTO> result = userRepository.findUsersBySlackNamesAsync(slackNames).get();
+        // then
+        asyncMockServer.verify();
+        assertEquals("[UserDTO(uuid=AAAA123, slack=@bob.slack), UserDTO(uuid=AAAA321, slack=@john.slack)]",
+                result.toString());
+    }
+
+    @Test
+    public void shouldCompleteExceptionallyWhenUsersServiceReturnErrorAsync() throws Exception {
+        //given
+        MockRestServiceServer asyncMockServer = MockRestServiceServer.bindTo(asyncRestTemplate).build();
+        List<String> slackNames = new ArrayList<>();
+        slackNames.add("@bob.slack");
+        asyncMockServer.expect(requestTo(usersFindUsersBySlackNamesUrl))
+                .andExpect(method(HttpMethod.POST))
+                .andRespond(withBadRequest().body("{\"httpStatus\":400,\"internalErrorCode\":1," +
+                        "\"clientMessage\":\"Oops something went wrong :(\"," +
+                        "\"developerMessage\":\"General exception for this service\"," +
+                        "\"exceptionMessage\":\"very big and scare error\",\"detailErrors\":[]}"));
+        //then
+        thrown.expect(ExecutionException.class);
+        thrown.expectCause(instanceOf(UserExchangeException.class));
+        thrown.expectMessage(containsString("Oops something went wrong :("));
+        //when
+        userRepository.findUsersBySlackNamesAsync(slackNames).get();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,52 @@
+package juja.microservices.gamification.slackbot.delivery;
+
+import me.ramswaroop.jbot.core.slack.models.RichMessage;
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpServerErrorException;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class DeadLetterStoreTest {
+
+    private final DeadLetterStore deadLetters = new DeadLetterStore(2);
+
+    @Test
+    public void shouldDropOldestDeadLetterWhenFull() {
+        //given
+        add("first");
+        add("second");
+
+        //when
+        add("third");
+
+        //then
+        List<DeadLetter> result = deadLetters.getDeadLetters();
+        assertEquals(2, result.size());
+        assertEquals("second", result.get(0).getMessage().getText());
+        assertEquals("third", result.get(1).getMessage().getText());
+        assertEquals(1, deadLetters.getDroppedCount());
+    }
+
+    @Test
+    public void shouldRemoveDeadLetterOnlyOnce() {
+        //given
+        DeadLetter deadLetter = add("first");
+
+        //when
+        DeadLetter removed = deadLetters.remove(deadLetter.getId());
+
+        //then
+        assertEquals(deadLetter, removed);
+        assertNull(deadLetters.remove(deadLetter.getId()));
+        assertEquals(0, deadLetters.size());
+    }
+
+    private DeadLetter add(String text) {
+        return deadLetters.add("http://example.com", new RichMessage(text), System.currentTimeMillis(),
+                new HttpServerErrorException(HttpStatus.BAD_GATEWAY));
+    }
+}
@@ -0,0 +1,49 @@
+package juja.microservices.gamification.slackbot.delivery;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import me.ramswaroop.jbot.core.slack.models.RichMessage;
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.HttpServerErrorException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+public class DeadLettersMvcEndpointTest {
+
+    private final DeadLetterStore deadLetters = new DeadLetterStore(10);
+    private final DeadLettersMvcEndpoint endpoint = new DeadLettersMvcEndpoint(deadLetters, mock(SlackDelivery.class));
+
+    @Test
+    public void shouldListDeadLettersByIdWithoutResponseUrl() throws Exception {
+        //given
+        DeadLetter deadLetter = deadLetters.add("https://hooks.slack.com/commands/T1/2/secret",
+                new RichMessage("Ok response"), System.currentTimeMillis(),
+                new HttpServerErrorException(HttpStatus.BAD_GATEWAY));
+
+        //when
+        ResponseEntity<?> response = endpoint.list();
+
+        //then
+        String json = new ObjectMapper().writeValueAsString(response.getBody());
+        assertTrue(json.startsWith("{\"" + deadLetter.getId() + "\":{"));
+        assertTrue(json.contains("Ok response"));
+        assertFalse(json.contains("hooks.slack.com"));
+        assertFalse(deadLetter.toString().contains("hooks.slack.com"));
+    }
+
+    @Test
+    public void shouldNotServeDeadLettersWhenDisabled() {
+        //given
+        endpoint.setEnabled(false);
+
+        //when
+        ResponseEntity<?> response = endpoint.list();
+
+        //then
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    }
+}
@@ -0,0 +1,187 @@
+package juja.microservices.gamification.slackbot.delivery;
+
+import com.codahale.metrics.MetricRegistry;
+import juja.microservices.gamification.slackbot.delivery.impl.DefaultSlackDelivery;
+import juja.microservices.gamification.slackbot.http.Retries;
+import juja.microservices.gamification.slackbot.metrics.BotMetrics;
+import juja.microservices.gamification.slackbot.tracing.Tracer;
+import me.ramswaroop.jbot.core.slack.models.RichMessage;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+public class DefaultSlackDeliveryTest {
+
+    private final static String responseUrl = "http://example.com";
+    private final static long TIMEOUT_MILLIS = 1000;
+
+    private RestTemplate restTemplate;
+    private Retries retries;
+    private DeadLetterStore deadLetters;
+    private MetricRegistry registry;
+    private DefaultSlackDelivery slackDelivery;
+
+    @Before
+    public void setup() {
+        restTemplate = mock(RestTemplate.class);
+        retries = new Retries(new MockEnvironment()
+                .withProperty("gamification.slackbot.retry.maxAttempts", "3")
+                .withProperty("gamification.slackbot.retry.baseDelay", "1")
+                .withProperty("gamification.slackbot.retry.maxDelay", "5")
+                .withProperty("gamification.slackbot.retry.idempotent", "true")
+                .withProperty("gamification.slackbot.retry.budget.ratio", "1")
+                .withProperty("gamification.slackbot.retry.budget.maxTokens", "10"),
+                new BotMetrics(new MetricRegistry()));
+        deadLetters = new DeadLetterStore(10);
+        registry = new MetricRegistry();
+        slackDelivery = delivery(60000);
+    }
+
+    @After
+    public void tearDown() {
+        slackDelivery.shutdown();
+        retries.shutdown();
+    }
+
+    @Test
+    public void shouldPostMessageToResponseUrl() throws Exception {
+        //given
+        RichMessage message = new RichMessage("Ok response");
+
+        //when
+        slackDelivery.deliver(responseUrl, message).get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+
+        //then
+        verify(restTemplate).postForObject(eq(responseUrl), eq(message), eq(String.class));
+        assertEquals(1, registry.meter("delivery.delivered").getCount());
+        assertEquals(1, registry.timer("downstream.slack").getCount());
+    }
+
+    @Test
+    public void shouldRetryServerErrorUntilDelivered() throws Exception {
+        //given
+        when(restTemplate.postForObject(eq(responseUrl), any(RichMessage.class), eq(String.class)))
+                .thenThrow(new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE))
+                .thenReturn("ok");
+
+        //when
+        slackDelivery.deliver(responseUrl, new RichMessage("Ok response")).get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+
+        //then
+        verify(restTemplate, times(2)).postForObject(eq(responseUrl), any(RichMessage.class), eq(String.class));
+        assertEquals(0, deadLetters.size());
+    }
+
+    @Test
+    public void shouldPostAgainAfterRetryAfterWhenSlackRateLimits() throws Exception {
+        //given
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, "0");
+        when(restTemplate.postForObject(eq(responseUrl), any(RichMessage.class), eq(String.class)))
+                .thenThrow(new HttpClientErrorException(HttpStatus.TOO_MANY_REQUESTS, "Too Many Requests",
+                        headers, null, null))
+                .thenReturn("ok");
+        slackDelivery.register(responseUrl, "any_team_id", "UHASHB8JB");
+
+        //when
+        slackDelivery.deliver(responseUrl, new RichMessage("Ok response")).get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+
+        //then
+        verify(restTemplate, times(2)).postForObject(eq(responseUrl), any(RichMessage.class), eq(String.class));
+        assertEquals(1, registry.meter("delivery.throttled").getCount());
+        assertEquals(1, slackDelivery.getRateLimiter().getThrottledCount());
+        assertEquals(0, deadLetters.size());
+    }
+
+    @Test
+    public void shouldKeepDeadLetterWhenRetriesAreSpent() throws Exception {
+        //given
+        when(restTemplate.postForObject(eq(responseUrl), any(RichMessage.class), eq(String.class)))
+                .thenThrow(new HttpServerErrorException(HttpStatus.BAD_GATEWAY));
+
+        //when
+        CompletableFuture<Void> delivered = slackDelivery.deliver(responseUrl, new RichMessage("Ok response"));
+
+        //then
+        awaitFailure(delivered);
+        verify(restTemplate, times(3)).postForObject(eq(responseUrl), any(RichMessage.class), eq(String.class));
+        DeadLetter deadLetter = deadLetters.getDeadLetters().get(0);
+        assertEquals(responseUrl, deadLetter.getResponseUrl());
+        assertEquals("Ok response", deadLetter.getMessage().getText());
+        assertEquals("HttpServerErrorException: 502 BAD_GATEWAY", deadLetter.getError());
+        assertEquals(1, registry.meter("delivery.deadLettered").getCount());
+    }
+
+    @Test
+    public void shouldNotPostToExpiredResponseUrl() throws Exception {
+        //given
+        slackDelivery.shutdown();
+        slackDelivery = delivery(0);
+
+        //when
+        CompletableFuture<Void> delivered = slackDelivery.deliver(responseUrl, new RichMessage("Ok response"));
+
+        //then
+        awaitFailure(delivered);
+        verifyZeroInteractions(restTemplate);
+        assertEquals("IllegalStateException: The response_url has expired",
+                deadLetters.getDeadLetters().get(0).getError());
+    }
+
+    @Test
+    public void shouldReplayDeadLetter() throws Exception {
+        //given
+        when(restTemplate.postForObject(eq(responseUrl), any(RichMessage.class), eq(String.class)))
+                .thenThrow(new HttpClientErrorException(HttpStatus.NOT_FOUND))
+                .thenReturn("ok");
+        awaitFailure(slackDelivery.deliver(responseUrl, new RichMessage("Ok response")));
+        long id = deadLetters.getDeadLetters().get(0).getId();
+
+        //when
+        boolean replayed = slackDelivery.replay(id);
+
+        //then
+        assertTrue(replayed);
+        verify(restTemplate, timeout(TIMEOUT_MILLIS).times(2))
+                .postForObject(eq(responseUrl), any(RichMessage.class), eq(String.class));
+        assertEquals(0, deadLetters.size());
+        assertFalse(slackDelivery.replay(id));
+    }
+
+    private DefaultSlackDelivery delivery(long responseUrlValidityMillis) {
+        return new DefaultSlackDelivery(restTemplate, retries, deadLetters, new BotMetrics(registry),
+                Tracer.disabled(), 2, 10, responseUrlValidityMillis, 100, 10);
+    }
+
+    private void awaitFailure(CompletableFuture<Void> delivered) throws Exception {
+        try {
+            delivered.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            fail("Expected the message to become a dead letter");
+        } catch (ExecutionException ex) {
+            //expected
+        }
+    }
+}
@@ -1,7 +1,15 @@
 package juja.microservices.gamification.slackbot.exceptions;
 
+import com.codahale.metrics.MetricRegistry;
+import juja.microservices.gamification.slackbot.cache.CommandDeduplicator;
+import juja.microservices.gamification.slackbot.command.CommandRegistry;
 import juja.microservices.gamification.slackbot.controller.GamificationSlackCommandController;
+import juja.microservices.gamification.slackbot.controller.SlashCommandIngress;
+import juja.microservices.gamification.slackbot.delivery.SlackDelivery;
+import juja.microservices.gamification.slackbot.metrics.BotMetrics;
 import juja.microservices.gamification.slackbot.service.GamificationService;
+import juja.microservices.gamification.slackbot.service.impl.DefaultCommandPipeline;
+import juja.microservices.gamification.slackbot.tracing.TracingConfiguration;
 import juja.microservices.utils.SlackUrlUtils;
 import me.ramswaroop.jbot.core.slack.models.RichMessage;
 import org.junit.Test;
@@ -10,11 +18,11 @@ import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
-import org.springframework.web.client.RestTemplate;
 
 import javax.inject.Inject;
 import java.util.Collections;
@@ -22,6 +30,8 @@ import java.util.Collections;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
@@ -33,9 +43,12 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
  */
 @RunWith(SpringRunner.class)
 @WebMvcTest(GamificationSlackCommandController.class)
+@Import({DefaultCommandPipeline.class, CommandDeduplicator.class, BotMetrics.class, MetricRegistry.class,
+        TracingConfiguration.class, CommandRegistry.class, SlashCommandIngress.class})
 public class ExceptionHandlerTest {
     private final static String INSTANT_MESSAGE = "Your command accepted. Please wait...";
     private final static String responseUrl = "http://example.com";
+    private final static long TIMEOUT_MILLIS = 1000;
 
     @Inject
     private MockMvc mvc;
@@ -44,7 +57,7 @@ public class ExceptionHandlerTest {
     private GamificationService gamificationService;
 
     @MockBean
-    private RestTemplate restTemplate;
+    private SlackDelivery slackDelivery;
 
     @Value("${gamification.slackbot.endpoint.daily}")
     private String gamificationSlackbotDailyUrl;
@@ -78,7 +91,7 @@ public class ExceptionHandlerTest {
                 .andExpect(content().string(INSTANT_MESSAGE));
 
         ArgumentCaptor<RichMessage> captor = ArgumentCaptor.forClass(RichMessage.class);
-        verify(restTemplate).postForObject(eq(responseUrl), captor.capture(), eq(String.class));
+        verify(slackDelivery, timeout(TIMEOUT_MILLIS)).deliver(eq(responseUrl), captor.capture());
         assertTrue(captor.getValue().getText().contains("You cannot give more than one thanks for day to one person"));
     }
 
@@ -105,7 +118,7 @@ public class ExceptionHandlerTest {
                 .andExpect(content().string(INSTANT_MESSAGE));
 
         ArgumentCaptor<RichMessage> captor = ArgumentCaptor.forClass(RichMessage.class);
-        verify(restTemplate).postForObject(eq(responseUrl), captor.capture(), eq(String.class));
+        verify(slackDelivery, timeout(TIMEOUT_MILLIS)).deliver(eq(responseUrl), captor.capture());
         assertTrue(captor.getValue().getText().contains("User not found"));
     }
 
@@ -124,7 +137,7 @@ public class ExceptionHandlerTest {
                 .andExpect(content().string(INSTANT_MESSAGE));
 
         ArgumentCaptor<RichMessage> captor = ArgumentCaptor.forClass(RichMessage.class);
-        verify(restTemplate).postForObject(eq(responseUrl), captor.capture(), eq(String.class));
+        verify(slackDelivery, timeout(TIMEOUT_MILLIS)).deliver(eq(responseUrl), captor.capture());
         assertTrue(captor.getValue().getText().contains("Wrong command exception"));
     }
 
@@ -143,7 +156,43 @@ public class ExceptionHandlerTest {
                 .andExpect(content().string(INSTANT_MESSAGE));
 
         ArgumentCaptor<RichMessage> captor = ArgumentCaptor.forClass(RichMessage.class);
-        verify(restTemplate).postForObject(eq(responseUrl), captor.capture(), eq(String.class));
+        verify(slackDelivery, timeout(TIMEOUT_MILLIS)).deliver(eq(responseUrl), captor.capture());
         assertTrue(captor.getValue().getText().contains("Runtime exception"));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldHandleCircuitBreakerOpenException() throws Exception {
+
+        final String COMMAND_TEXT = "thanks @slack1 for help";
+
+        when(gamificationService.sendThanksAchievement(any(String.class), any(String.class))).
+                thenThrow(new CircuitBreakerOpenException("gamification"));
+
+        mvc.perform(MockMvcRequestBuilders.post(SlackUrlUtils.getUrlTemplate(gamificationSlackbotThanksUrl),
+                SlackUrlUtils.getUriVars("slashCommandToken", "/thanks", COMMAND_TEXT))
+                .contentType(MediaType.APPLICATION_FORM_URLENCODED))
+                .andExpect(status().isOk())
+                .andExpect(content().string(INSTANT_MESSAGE));
+
+        ArgumentCaptor<RichMessage> captor = ArgumentCaptor.forClass(RichMessage.class);
+        verify(slackDelivery, timeout(TIMEOUT_MILLIS)).deliver(eq(responseUrl), captor.capture());
+        assertTrue(captor.getValue().getText().contains("the gamification service is not available right now"));
+    }
+
+    @Test
+    public void shouldNotSendRequestErrorToResponseUrlOfPreviousCommand() throws Exception {
+
+        mvc.perform(MockMvcRequestBuilders.post(SlackUrlUtils.getUrlTemplate(gamificationSlackbotDailyUrl),
+                SlackUrlUtils.getUriVars("wrongSlackToken", "/daily", "daily report"))
+                .contentType(MediaType.APPLICATION_FORM_URLENCODED))
+                .andExpect(status().isOk());
+
+        mvc.perform(MockMvcRequestBuilders.post(gamificationSlackbotDailyUrl)
+                .param("token", "slashCommandToken")
+                .param("command", "/daily")
+                .param("user_name", "@from-user")
+                .contentType(MediaType.APPLICATION_FORM_URLENCODED));
+
+        verify(slackDelivery, never()).deliver(any(String.class), any(RichMessage.class));
+    }
+}
@@ -0,0 +1,75 @@
+package juja.microservices.gamification.slackbot.http;
+
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class DownstreamHttpRequestFactoryTest {
+
+    private HttpServer server;
+    private DownstreamHttpRequestFactory factory;
+    private String port;
+
+    @Before
+    public void setup() throws Exception {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            try {
+                Thread.sleep(300);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = "ok".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+        port = String.valueOf(server.getAddress().getPort());
+
+        CloseableHttpClient httpClient = HttpClients.createDefault();
+        CloseableHttpAsyncClient httpAsyncClient = HttpAsyncClients.createDefault();
+        factory = new DownstreamHttpRequestFactory(httpClient, httpAsyncClient);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        factory.destroy();
+        server.stop(0);
+    }
+
+    @Test
+    public void shouldApplyReadTimeoutOfTheDownstreamOnly() {
+        //given
+        factory.addDownstream("gamification", "http://127.0.0.1:" + port,
+                RequestConfig.custom().setConnectTimeout(1000).setSocketTimeout(50).build());
+        RestTemplate restTemplate = new RestTemplate(factory);
+
+        //when
+        try {
+            restTemplate.getForObject("http://127.0.0.1:" + port + "/v1/gamification/achieve/daily", String.class);
+            fail("Expected ResourceAccessException");
+        } catch (ResourceAccessException ex) {
+            //then
+            assertTrue(ex.getCause() instanceof SocketTimeoutException);
+        }
+        assertEquals("ok", restTemplate.getForObject("http://localhost:" + port + "/", String.class));
+    }
+}
@@ -0,0 +1,131 @@
+package juja.microservices.gamification.slackbot.http;
+
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.pool.PoolStats;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class HttpConnectionPoolsTest {
+
+    private HttpConnectionPools pools;
+
+    @Before
+    public void setup() {
+        pools = new HttpConnectionPools(10, 2, 60000, 2000);
+        pools.addDownstream("users", "http://users", 1);
+        pools.addDownstream("slack", "https://hooks.slack.com", 5);
+    }
+
+    @After
+    public void tearDown() {
+        pools.shutdown();
+    }
+
+    @Test
+    public void shouldApplyMaxConnectionsPerDownstream() {
+        //when
+        Map<String, PoolStats> stats = pools.getDownstreamStats();
+        Map<String, PoolStats> asyncStats = pools.getAsyncDownstreamStats();
+
+        //then
+        assertEquals(1, stats.get("users").getMax());
+        assertEquals(5, stats.get("slack").getMax());
+        assertEquals(1, asyncStats.get("users").getMax());
+        assertEquals(5, asyncStats.get("slack").getMax());
+        assertEquals(10, pools.getTotalStats().getMax());
+        assertEquals(2, pools.getConnectionManager().getMaxPerRoute(HttpConnectionPools.toRoute("http://other")));
+    }
+
+    @Test
+    public void shouldNotShareConnectionsOfDedicatedDownstream() throws Exception {
+        //given
+        InstrumentedHttpClientConnectionManager dedicated =
+                pools.addDedicatedDownstream("delivery", "https://slack.example.com", 3);
+        HttpRoute route = HttpConnectionPools.toRoute("https://slack.example.com");
+
+        //when
+        HttpClientConnection connection = dedicated.requestConnection(route, null).get(100, TimeUnit.MILLISECONDS);
+
+        //then
+        assertEquals(3, pools.getDownstreamStats().get("delivery").getMax());
+        assertEquals(1, pools.getDownstreamStats().get("delivery").getLeased());
+        assertEquals(0, pools.getTotalStats().getLeased());
+        dedicated.releaseConnection(connection, null, 0, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void shouldBuildRouteWithDefaultPortOfScheme() {
+        //when
+        HttpRoute httpRoute = HttpConnectionPools.toRoute("http://users/v1/users");
+        HttpRoute httpsRoute = HttpConnectionPools.toRoute("https://hooks.slack.com/commands/123");
+
+        //then
+        assertEquals("{}->http://users:80", httpRoute.toString());
+        assertEquals("{s}->https://hooks.slack.com:443", httpsRoute.toString());
+    }
+
+    @Test
+    public void shouldCountLeasesAndLeaseTimeouts() throws Exception {
+        //given
+        InstrumentedHttpClientConnectionManager connectionManager = pools.getConnectionManager();
+        HttpRoute route = HttpConnectionPools.toRoute("http://users");
+        HttpClientConnection connection = connectionManager.requestConnection(route, null)
+                .get(100, TimeUnit.MILLISECONDS);
+
+        //when
+        try {
+            connectionManager.requestConnection(route, null).get(50, TimeUnit.MILLISECONDS);
+            fail("Expected ConnectionPoolTimeoutException");
+        } catch (ConnectionPoolTimeoutException ex) {
+            //expected, the only connection of the route is leased
+        }
+
+        //then
+        assertEquals(1, connectionManager.getLeaseCount());
+        assertEquals(1, connectionManager.getLeaseTimeoutCount());
+        assertEquals(1, pools.getDownstreamStats().get("users").getLeased());
+        connectionManager.releaseConnection(connection, null, 0, TimeUnit.MILLISECONDS);
+        assertEquals(0, pools.getDownstreamStats().get("users").getLeased());
+    }
+
+    @Test
+    public void shouldSendRequestsOfNonBlockingClientThroughAsyncPool() throws Exception {
+        //given
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.start();
+        CloseableHttpAsyncClient client = new HttpClientConfiguration().httpAsyncClient(pools);
+        client.start();
+
+        try {
+            //when
+            HttpResponse response = client.execute(
+                    new HttpGet("http://127.0.0.1:" + server.getAddress().getPort() + "/"), null)
+                    .get(5, TimeUnit.SECONDS);
+
+            //then
+            assertEquals(200, response.getStatusLine().getStatusCode());
+        } finally {
+            client.close();
+            server.stop(0);
+        }
+    }
+}
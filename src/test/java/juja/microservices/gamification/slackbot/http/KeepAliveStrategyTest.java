@@ -0,0 +1,40 @@
+package juja.microservices.gamification.slackbot.http;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.HttpVersion;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.protocol.BasicHttpContext;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class KeepAliveStrategyTest {
+
+    private final KeepAliveStrategy keepAliveStrategy = new KeepAliveStrategy(30000);
+
+    @Test
+    public void shouldUseKeepAliveHeaderOfServer() {
+        //given
+        HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, HttpStatus.SC_OK, "OK");
+        response.addHeader("Keep-Alive", "timeout=5, max=100");
+
+        //when
+        long keepAlive = keepAliveStrategy.getKeepAliveDuration(response, new BasicHttpContext());
+
+        //then
+        assertEquals(5000, keepAlive);
+    }
+
+    @Test
+    public void shouldUseDefaultKeepAliveWithoutHeader() {
+        //given
+        HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, HttpStatus.SC_OK, "OK");
+
+        //when
+        long keepAlive = keepAliveStrategy.getKeepAliveDuration(response, new BasicHttpContext());
+
+        //then
+        assertEquals(30000, keepAlive);
+    }
+}
@@ -0,0 +1,101 @@
+package juja.microservices.gamification.slackbot.http;
+
+import com.codahale.metrics.MetricRegistry;
+import juja.microservices.gamification.slackbot.concurrent.Retry;
+import juja.microservices.gamification.slackbot.metrics.BotMetrics;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RetriesTest {
+
+    private final MetricRegistry registry = new MetricRegistry();
+    private final Retries retries = new Retries(new MockEnvironment()
+            .withProperty("gamification.slackbot.retry.maxAttempts", "2")
+            .withProperty("gamification.slackbot.retry.baseDelay", "1")
+            .withProperty("gamification.slackbot.retry.maxDelay", "5")
+            .withProperty("gamification.slackbot.retry.idempotent", "false")
+            .withProperty("gamification.slackbot.retry.budget.ratio", "0.1")
+            .withProperty("gamification.slackbot.retry.budget.maxTokens", "10")
+            .withProperty("gamification.slackbot.retry.gamification.maxAttempts", "3")
+            .withProperty("gamification.slackbot.retry.gamification.batch.maxAttempts", "4"),
+            new BotMetrics(registry));
+
+    @After
+    public void tearDown() {
+        retries.shutdown();
+    }
+
+    @Test
+    public void shouldRetryServerErrorsOnlyForIdempotentOperations() {
+        //given
+        HttpServerErrorException internalError = new HttpServerErrorException(HttpStatus.INTERNAL_SERVER_ERROR);
+        HttpServerErrorException unavailable = new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE);
+
+        //then
+        assertTrue(Retries.isTransient(internalError, true));
+        assertFalse(Retries.isTransient(internalError, false));
+        assertTrue(Retries.isTransient(unavailable, false));
+    }
+
+    @Test
+    public void shouldRetryConnectionFailuresForAnyOperation() {
+        //given
+        ResourceAccessException refused = new ResourceAccessException("I/O error", new ConnectException("refused"));
+        ResourceAccessException readTimeout = new ResourceAccessException("I/O error",
+                new SocketTimeoutException("Read timed out"));
+
+        //then
+        assertTrue(Retries.isTransient(refused, false));
+        assertFalse(Retries.isTransient(readTimeout, false));
+        assertTrue(Retries.isTransient(readTimeout, true));
+        assertFalse(Retries.isTransient(new IllegalStateException("bug"), true));
+    }
+
+    @Test
+    public void shouldTakeMostSpecificSetting() {
+        //then
+        assertEquals(4, attemptsUntilFailure(retries.get("gamification.batch")));
+        assertEquals(3, attemptsUntilFailure(retries.get("gamification.daily")));
+        assertEquals(2, attemptsUntilFailure(retries.get("users")));
+    }
+
+    @Test
+    public void shouldCreateRetryOnceAndRegisterItsGauges() {
+        //when
+        Retry retry = retries.get("users");
+
+        //then
+        assertSame(retry, retries.get("users"));
+        assertTrue(registry.getGauges().containsKey("retry.users.retries"));
+        assertTrue(registry.getGauges().containsKey("retry.users.budgetExhausted"));
+        assertTrue(registry.getGauges().containsKey("retry.users.attemptsExhausted"));
+    }
+
+    private int attemptsUntilFailure(Retry retry) {
+        AtomicInteger attempts = new AtomicInteger();
+        try {
+            retry.call(() -> {
+                attempts.incrementAndGet();
+                throw new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE);
+            });
+            fail("Expected HttpServerErrorException");
+        } catch (HttpServerErrorException ex) {
+            //expected
+        }
+        return attempts.get();
+    }
+}
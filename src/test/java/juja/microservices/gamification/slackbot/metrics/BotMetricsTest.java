@@ -0,0 +1,88 @@
+package juja.microservices.gamification.slackbot.metrics;
+
+import com.codahale.metrics.MetricRegistry;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BotMetricsTest {
+
+    private MetricRegistry registry;
+    private BotMetrics metrics;
+
+    @Before
+    public void setup() {
+        registry = new MetricRegistry();
+        metrics = new BotMetrics(registry);
+    }
+
+    @Test
+    public void shouldTimeDownstreamRequestsAndCountErrors() {
+        //given
+        metrics.timeDownstream("users", () -> "users");
+
+        //when
+        try {
+            metrics.timeDownstream("users", () -> {
+                throw new IllegalStateException("users service is unavailable");
+            });
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException ex) {
+            //expected, the error of the request is rethrown
+        }
+
+        //then
+        assertEquals(2, registry.timer("downstream.users").getCount());
+        assertEquals(1, registry.meter("downstream.users.errors").getCount());
+    }
+
+    @Test
+    public void shouldTimeNonBlockingRequestUntilItIsCompleted() {
+        //given
+        CompletableFuture<String> response = new CompletableFuture<>();
+        CompletableFuture<String> timed = metrics.timeDownstreamAsync("gamification.daily", () -> response);
+        assertEquals(0, registry.timer("downstream.gamification.daily").getCount());
+
+        //when
+        response.completeExceptionally(new IllegalStateException("gamification service is unavailable"));
+
+        //then
+        assertTrue(timed.isCompletedExceptionally());
+        assertEquals(1, registry.timer("downstream.gamification.daily").getCount());
+        assertEquals(1, registry.meter("downstream.gamification.daily.errors").getCount());
+    }
+
+    @Test
+    public void shouldRecordCommandsAndErrorsByName() {
+        //when
+        metrics.commandAccepted("Daily");
+        metrics.commandCompleted("Daily", 1000, true);
+        metrics.commandRejected("Thanks");
+        metrics.errorHandled("userExchange");
+
+        //then
+        assertEquals(1, registry.meter("command.daily.accepted").getCount());
+        assertEquals(1, registry.timer("command.daily.succeeded").getCount());
+        assertEquals(1, registry.meter("command.thanks.rejected").getCount());
+        assertEquals(1, registry.meter("error.userExchange").getCount());
+    }
+
+    @Test
+    public void shouldReplaceGaugeWithSameName() {
+        //given
+        AtomicInteger queueSize = new AtomicInteger(5);
+        metrics.gauge("executor.queue", () -> 1);
+
+        //when
+        metrics.gauge("executor.queue", queueSize::get);
+
+        //then
+        assertEquals(5, registry.getGauges().get("executor.queue").getValue());
+    }
+}
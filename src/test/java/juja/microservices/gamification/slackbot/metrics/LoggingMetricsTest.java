@@ -0,0 +1,78 @@
+package juja.microservices.gamification.slackbot.metrics;
+
+import ch.qos.logback.classic.Level;
+import com.codahale.metrics.MetricRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static org.junit.Assert.assertEquals;
+
+public class LoggingMetricsTest {
+
+    private final Logger logger = LoggerFactory.getLogger(LoggingMetrics.BOT_LOGGER + ".test");
+    private ch.qos.logback.classic.Logger botLogger;
+    private Level botLevel;
+    private MetricRegistry registry;
+    private BotMetrics metrics;
+    private LoggingMetrics loggingMetrics;
+
+    @Before
+    public void setup() {
+        botLogger = (ch.qos.logback.classic.Logger) LoggerFactory.getLogger(LoggingMetrics.BOT_LOGGER);
+        botLevel = botLogger.getLevel();
+        botLogger.setLevel(Level.INFO);
+        registry = new MetricRegistry();
+        metrics = new BotMetrics(registry);
+        loggingMetrics = new LoggingMetrics(metrics);
+    }
+
+    @After
+    public void tearDown() {
+        loggingMetrics.detach();
+        botLogger.setLevel(botLevel);
+    }
+
+    @Test
+    public void shouldMeterWrittenMessagesByLevel() {
+        //when
+        logger.debug("Disabled message");
+        logger.info("Daily command processed");
+        logger.warn("Wrong command format");
+
+        //then
+        assertEquals(2, registry.meter("logging.events").getCount());
+        assertEquals(0, registry.meter("logging.events.debug").getCount());
+        assertEquals(1, registry.meter("logging.events.info").getCount());
+        assertEquals(1, registry.meter("logging.events.warn").getCount());
+    }
+
+    @Test
+    public void shouldReportMessagesPerCommand() {
+        //given
+        metrics.commandAccepted("Daily");
+        metrics.commandAccepted("Thanks");
+
+        //when
+        logger.info("Daily command processed");
+        logger.info("Thanks command processed");
+        logger.info("Saved Thanks achievements");
+
+        //then
+        assertEquals(1.5, (Double) registry.getGauges().get("logging.eventsPerCommand").getValue(), 0.001);
+    }
+
+    @Test
+    public void shouldStopMeteringWhenDetached() {
+        //given
+        loggingMetrics.detach();
+
+        //when
+        logger.info("Daily command processed");
+
+        //then
+        assertEquals(0, registry.meter("logging.events").getCount());
+    }
+}
@@ -206,6 +206,43 @@ public class SlackParsedCommandTest {
         slackParsedCommand.getUsersWithTokens(tokens);
     }
 
+    @Test
+    public void getUsersByTokensBindsSlackNameAfterToken() {
+        //given
+        Map<String, UserDTO> users = new HashMap<>();
+        users.put("@from", new UserDTO("uuid0", "@from"));
+        users.put("@slack1", new UserDTO("uuid1", "@slack1"));
+        users.put("@slack2", new UserDTO("uuid2", "@slack2"));
+
+        String[] tokens = new String[]{"-t1", "-t2"};
+        String text = "@slack2 text -t1 @slack1 -t2 @slack2";
+        SlackParsedCommand slackParsedCommand = new SlackParsedCommand("@from", text, users);
+        //when
+        Map<String, UserDTO> result = slackParsedCommand.getUsersWithTokens(tokens);
+        //then
+        assertEquals("{-t1=UserDTO(uuid=uuid1, slack=@slack1), -t2=UserDTO(uuid=uuid2, slack=@slack2)}",
+                result.toString());
+    }
+
+    @Test
+    public void getUsersByTokensErrorTextEndsWithRepeatedToken() {
+        //given
+        Map<String, UserDTO> users = new HashMap<>();
+        users.put("@from", new UserDTO("uuid0", "@from"));
+        users.put("@slack1", new UserDTO("uuid1", "@slack1"));
+        users.put("@slack2", new UserDTO("uuid2", "@slack2"));
+
+        String[] tokens = new String[]{"-t1", "-t2"};
+        String text = "-t1 @slack1 -t2 @slack2 -t1";
+        SlackParsedCommand slackParsedCommand = new SlackParsedCommand("@from", text, users);
+        //then
+        thrown.expect(WrongCommandFormatException.class);
+        thrown.expectMessage(containsString("The text '-t1 @slack1 -t2 @slack2 -t1' contains 2 tokens '-t1'," +
+                " but expected 1"));
+        //when
+        slackParsedCommand.getUsersWithTokens(tokens);
+    }
+
     @Test
     public void getFirstUserInText() {
         //given
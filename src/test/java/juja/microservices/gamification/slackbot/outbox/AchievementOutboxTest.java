@@ -0,0 +1,160 @@
+package juja.microservices.gamification.slackbot.outbox;
+
+import juja.microservices.gamification.slackbot.command.CommandRegistry;
+import juja.microservices.gamification.slackbot.dao.GamificationRepository;
+import juja.microservices.gamification.slackbot.exceptions.ApiError;
+import juja.microservices.gamification.slackbot.exceptions.GamificationExchangeException;
+import juja.microservices.gamification.slackbot.model.achievements.AchievementBatch;
+import juja.microservices.gamification.slackbot.model.achievements.DailyAchievement;
+import juja.microservices.gamification.slackbot.model.achievements.ThanksAchievement;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class AchievementOutboxTest {
+
+    private final static long TIMEOUT_MILLIS = 1000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private GamificationRepository gamificationRepository;
+    private AchievementOutbox outbox;
+
+    @Before
+    public void setup() {
+        gamificationRepository = mock(GamificationRepository.class);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (outbox != null) {
+            outbox.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldShipAppendedAchievementToGamificationService() throws Exception {
+        //given
+        outbox = startOutbox(gamificationRepository);
+        when(gamificationRepository.saveDailyAchievement(any(DailyAchievement.class)))
+                .thenReturn(new String[]{"1000"});
+
+        //when
+        long sequence = outbox.append(AchievementBatch.DAILY, new DailyAchievement("101", "description"));
+
+        //then
+        assertEquals(1, sequence);
+        ArgumentCaptor<DailyAchievement> captor = ArgumentCaptor.forClass(DailyAchievement.class);
+        verify(gamificationRepository, timeout(TIMEOUT_MILLIS)).saveDailyAchievement(captor.capture());
+        assertEquals("DailyAchievement(fromUuid=101, description=description)", captor.getValue().toString());
+    }
+
+    @Test
+    public void shouldShipAchievementsAppendedBeforeRestart() throws Exception {
+        //given
+        GamificationRepository unavailableRepository = mock(GamificationRepository.class);
+        when(unavailableRepository.saveThanksAchievement(any(ThanksAchievement.class)))
+                .thenThrow(new IllegalStateException("Connection refused"));
+        outbox = startOutbox(unavailableRepository);
+        outbox.append(AchievementBatch.THANKS, new ThanksAchievement("Bill", "Bob", "Thanks to Bob"));
+        verify(unavailableRepository, timeout(TIMEOUT_MILLIS)).saveThanksAchievement(any(ThanksAchievement.class));
+        outbox.shutdown();
+        when(gamificationRepository.saveThanksAchievement(any(ThanksAchievement.class)))
+                .thenReturn(new String[]{"1000"});
+
+        //when
+        outbox = startOutbox(gamificationRepository);
+
+        //then
+        ArgumentCaptor<ThanksAchievement> captor = ArgumentCaptor.forClass(ThanksAchievement.class);
+        verify(gamificationRepository, timeout(TIMEOUT_MILLIS)).saveThanksAchievement(captor.capture());
+        assertEquals("Bob", captor.getValue().getToUuid());
+    }
+
+    @Test
+    public void shouldSkipAchievementRejectedByGamificationService() throws Exception {
+        //given
+        outbox = startOutbox(gamificationRepository);
+        when(gamificationRepository.saveDailyAchievement(any(DailyAchievement.class)))
+                .thenThrow(new GamificationExchangeException(new ApiError(400, "GMF-F1-D1",
+                        "Oops something went wrong :(", "", "", Collections.emptyList()), new RuntimeException()));
+        when(gamificationRepository.saveThanksAchievement(any(ThanksAchievement.class)))
+                .thenReturn(new String[]{"1000"});
+
+        //when
+        outbox.append(AchievementBatch.DAILY, new DailyAchievement("101", "description"));
+        outbox.append(AchievementBatch.THANKS, new ThanksAchievement("Bill", "Bob", "Thanks to Bob"));
+
+        //then
+        verify(gamificationRepository, timeout(TIMEOUT_MILLIS)).saveThanksAchievement(any(ThanksAchievement.class));
+        verify(gamificationRepository, timeout(TIMEOUT_MILLIS).times(1))
+                .saveDailyAchievement(any(DailyAchievement.class));
+    }
+
+    @Test
+    public void shouldKeepShippingAfterUnexpectedError() throws Exception {
+        //given
+        outbox = startOutbox(gamificationRepository);
+        when(gamificationRepository.saveDailyAchievement(any(DailyAchievement.class)))
+                .thenThrow(new NoClassDefFoundError("broken client"))
+                .thenReturn(new String[]{"1000"});
+
+        //when
+        outbox.append(AchievementBatch.DAILY, new DailyAchievement("101", "description"));
+
+        //then
+        verify(gamificationRepository, timeout(TIMEOUT_MILLIS).times(2))
+                .saveDailyAchievement(any(DailyAchievement.class));
+        assertTrue(outbox.isShipping());
+        awaitShipped();
+        assertEquals(0, outbox.getShipLagMillis());
+    }
+
+    @Test
+    public void shouldNotShipWhenDisabled() throws Exception {
+        //given
+        outbox = new AchievementOutbox(gamificationRepository, new CommandRegistry(new MockEnvironment()), false,
+                folder.getRoot().getPath(), 4096, 1, 10, 50);
+
+        //when
+        outbox.start();
+
+        //then
+        assertEquals(false, outbox.isEnabled());
+        assertEquals(0, outbox.getPendingCount());
+        assertFalse(outbox.isShipping());
+        verify(gamificationRepository, never()).saveDailyAchievement(any(DailyAchievement.class));
+    }
+
+    private void awaitShipped() throws InterruptedException {
+        long waitUntil = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (outbox.getPendingCount() > 0 && System.currentTimeMillis() < waitUntil) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, outbox.getPendingCount());
+    }
+
+    private AchievementOutbox startOutbox(GamificationRepository repository) throws Exception {
+        AchievementOutbox started = new AchievementOutbox(repository, new CommandRegistry(new MockEnvironment()),
+                true, folder.getRoot().getPath(), 4096, 1, 10, 50);
+        started.start();
+        return started;
+    }
+}
@@ -0,0 +1,137 @@
+package juja.microservices.gamification.slackbot.outbox;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class OutboxLogTest {
+
+    private static final int SEGMENT_SIZE = 64;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void shouldReadSyncedRecordsInOrderAcrossSegments() throws IOException {
+        //given
+        try (OutboxLog log = OutboxLog.open(folder.getRoot().toPath(), SEGMENT_SIZE)) {
+            for (int i = 1; i <= 5; i++) {
+                log.append(bytes("achievement-" + i));
+            }
+
+            //when
+            log.sync();
+            List<OutboxLog.Record> records = log.read(2, 10);
+
+            //then
+            assertEquals("[achievement-2, achievement-3, achievement-4, achievement-5]", payloads(records));
+            assertEquals(2, records.get(0).getSequence());
+            assertEquals(3, log.getSegmentCount());
+        }
+    }
+
+    @Test
+    public void shouldNotReadRecordsBeforeSync() throws IOException {
+        //given
+        try (OutboxLog log = OutboxLog.open(folder.getRoot().toPath(), SEGMENT_SIZE)) {
+            //when
+            log.append(bytes("achievement-1"));
+
+            //then
+            assertTrue(log.read(1, 10).isEmpty());
+        }
+    }
+
+    @Test
+    public void shouldReplayNotAcknowledgedRecordsAfterReopen() throws IOException {
+        //given
+        Path directory = folder.getRoot().toPath();
+        try (OutboxLog log = OutboxLog.open(directory, SEGMENT_SIZE)) {
+            for (int i = 1; i <= 5; i++) {
+                log.append(bytes("achievement-" + i));
+            }
+            log.sync();
+            log.acknowledge(3);
+        }
+
+        //when
+        try (OutboxLog log = OutboxLog.open(directory, SEGMENT_SIZE)) {
+            long sequence = log.append(bytes("achievement-6"));
+            log.sync();
+
+            //then
+            assertEquals(3, log.getAcknowledged());
+            assertEquals(6, sequence);
+            assertEquals("[achievement-4, achievement-5, achievement-6]", payloads(log.read(4, 10)));
+        }
+    }
+
+    @Test
+    public void shouldDeleteSegmentsWithAcknowledgedRecordsOnly() throws IOException {
+        //given
+        try (OutboxLog log = OutboxLog.open(folder.getRoot().toPath(), SEGMENT_SIZE)) {
+            for (int i = 1; i <= 5; i++) {
+                log.append(bytes("achievement-" + i));
+            }
+            log.sync();
+
+            //when
+            log.acknowledge(4);
+
+            //then
+            assertEquals(1, log.getSegmentCount());
+            assertEquals(1, Files.list(folder.getRoot().toPath()).filter(this::isSegment).count());
+        }
+    }
+
+    @Test
+    public void shouldDiscardTornRecordAfterReopen() throws IOException {
+        //given
+        Path directory = folder.getRoot().toPath();
+        try (OutboxLog log = OutboxLog.open(directory, 1024)) {
+            log.append(bytes("achievement-1"));
+            log.append(bytes("achievement-2"));
+        }
+        Path segment = Files.list(directory).filter(this::isSegment).findFirst().get();
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            file.seek(16 + "achievement-1".length() + 20);
+            file.write(new byte[]{1, 2, 3});
+        }
+
+        //when
+        try (OutboxLog log = OutboxLog.open(directory, 1024)) {
+            long sequence = log.append(bytes("achievement-3"));
+            log.sync();
+
+            //then
+            assertEquals(2, sequence);
+            assertEquals("[achievement-1, achievement-3]", payloads(log.read(1, 10)));
+        }
+    }
+
+    private boolean isSegment(Path path) {
+        return path.getFileName().toString().endsWith(".log");
+    }
+
+    private byte[] bytes(String payload) {
+        return payload.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private String payloads(List<OutboxLog.Record> records) {
+        return records.stream()
+                .map(record -> new String(record.getPayload(), StandardCharsets.UTF_8))
+                .collect(Collectors.toList())
+                .toString();
+    }
+}
@@ -0,0 +1,161 @@
+package juja.microservices.gamification.slackbot.service;
+
+import juja.microservices.gamification.slackbot.dao.GamificationRepository;
+import juja.microservices.gamification.slackbot.exceptions.ApiError;
+import juja.microservices.gamification.slackbot.exceptions.GamificationExchangeException;
+import juja.microservices.gamification.slackbot.model.achievements.AchievementBatch;
+import juja.microservices.gamification.slackbot.model.achievements.DailyAchievement;
+import juja.microservices.gamification.slackbot.model.achievements.ThanksAchievement;
+import juja.microservices.gamification.slackbot.service.impl.AchievementBatchWriter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+public class AchievementBatchWriterTest {
+
+    private final static long TIMEOUT_MILLIS = 1000;
+    private final static long LONG_WAIT_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private final DailyAchievement daily = new DailyAchievement("101", "description");
+    private final ThanksAchievement thanks = new ThanksAchievement("Bill", "Bob", "Thanks to Bob");
+
+    private GamificationRepository gamificationRepository;
+    private AchievementBatchWriter writer;
+    private ExecutorService commands;
+
+    @Before
+    public void setup() {
+        gamificationRepository = mock(GamificationRepository.class);
+        commands = Executors.newSingleThreadExecutor();
+    }
+
+    @After
+    public void tearDown() {
+        commands.shutdownNow();
+        if (writer != null) {
+            writer.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldSaveAchievementAloneWhenBatchingDisabled() {
+        //given
+        writer = new AchievementBatchWriter(gamificationRepository, 0, 50);
+        when(gamificationRepository.saveDailyAchievement(daily)).thenReturn(new String[]{"1000"});
+
+        //when
+        String[] result = writer.save(AchievementBatch.DAILY, daily, gamificationRepository::saveDailyAchievement);
+
+        //then
+        assertEquals("[1000]", Arrays.toString(result));
+        verify(gamificationRepository).saveDailyAchievement(daily);
+        verifyNoMoreInteractions(gamificationRepository);
+    }
+
+    @Test
+    public void shouldSaveAchievementsOfConcurrentCommandsByOneRequest() throws Exception {
+        //given
+        writer = new AchievementBatchWriter(gamificationRepository, LONG_WAIT_MILLIS, 2);
+        when(gamificationRepository.saveAchievementBatch(any(AchievementBatch.class)))
+                .thenAnswer(invocation -> idsOf(invocation.getArgumentAt(0, AchievementBatch.class)));
+
+        //when
+        Future<String[]> first = commands.submit(() ->
+                writer.save(AchievementBatch.DAILY, daily, gamificationRepository::saveDailyAchievement));
+        String[] second = writer.save(AchievementBatch.THANKS, thanks, gamificationRepository::saveThanksAchievement);
+
+        //then
+        assertEquals("[1000]", Arrays.toString(first.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)));
+        assertEquals("[1001, 1002]", Arrays.toString(second));
+        ArgumentCaptor<AchievementBatch> captor = ArgumentCaptor.forClass(AchievementBatch.class);
+        verify(gamificationRepository).saveAchievementBatch(captor.capture());
+        assertEquals(2, captor.getValue().getAchievements().size());
+        verifyNoMoreInteractions(gamificationRepository);
+    }
+
+    @Test
+    public void shouldSaveAchievementAloneWhenBatchRejected() {
+        //given
+        writer = new AchievementBatchWriter(gamificationRepository, 20, 50);
+        when(gamificationRepository.saveAchievementBatch(any(AchievementBatch.class)))
+                .thenThrow(new GamificationExchangeException(new ApiError(400, "GMF-F1-D1",
+                        "Oops something went wrong :(", "", "", Collections.emptyList()), new RuntimeException()));
+        when(gamificationRepository.saveDailyAchievement(daily)).thenReturn(new String[]{"1000"});
+
+        //when
+        String[] result = writer.save(AchievementBatch.DAILY, daily, gamificationRepository::saveDailyAchievement);
+
+        //then
+        assertEquals("[1000]", Arrays.toString(result));
+        verify(gamificationRepository).saveDailyAchievement(daily);
+    }
+
+    @Test
+    public void shouldSaveAchievementsOfConcurrentAsyncCommandsByOneRequest() throws Exception {
+        //given
+        writer = new AchievementBatchWriter(gamificationRepository, LONG_WAIT_MILLIS, 2);
+        when(gamificationRepository.saveAchievementBatchAsync(any(AchievementBatch.class)))
+                .thenAnswer(invocation -> CompletableFuture.completedFuture(
+                        idsOf(invocation.getArgumentAt(0, AchievementBatch.class))));
+
+        //when
+        CompletableFuture<String[]> first = writer.saveAsync(AchievementBatch.DAILY, daily,
+                gamificationRepository::saveDailyAchievementAsync);
+        CompletableFuture<String[]> second = writer.saveAsync(AchievementBatch.THANKS, thanks,
+                gamificationRepository::saveThanksAchievementAsync);
+
+        //then
+        assertEquals("[1000]", Arrays.toString(first.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)));
+        assertEquals("[1001, 1002]", Arrays.toString(second.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)));
+        verify(gamificationRepository).saveAchievementBatchAsync(any(AchievementBatch.class));
+        verifyNoMoreInteractions(gamificationRepository);
+    }
+
+    @Test
+    public void shouldFailAsyncCommandWhenBatchFailsWithServerError() throws Exception {
+        //given
+        writer = new AchievementBatchWriter(gamificationRepository, 20, 50);
+        IllegalStateException exception = new IllegalStateException("Connection refused");
+        CompletableFuture<String[][]> failed = new CompletableFuture<>();
+        failed.completeExceptionally(exception);
+        when(gamificationRepository.saveAchievementBatchAsync(any(AchievementBatch.class))).thenReturn(failed);
+
+        //when
+        CompletableFuture<String[]> result = writer.saveAsync(AchievementBatch.DAILY, daily,
+                gamificationRepository::saveDailyAchievementAsync);
+
+        //then
+        try {
+            result.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            throw new AssertionError("Command must fail");
+        } catch (ExecutionException ex) {
+            assertSame(exception, ex.getCause());
+        }
+    }
+
+    private String[][] idsOf(AchievementBatch batch) {
+        return batch.getAchievements().stream()
+                .map(entry -> AchievementBatch.DAILY.equals(entry.getType())
+                        ? new String[]{"1000"}
+                        : new String[]{"1001", "1002"})
+                .toArray(String[][]::new);
+    }
+}
@@ -0,0 +1,216 @@
+package juja.microservices.gamification.slackbot.service;
+
+import com.codahale.metrics.MetricRegistry;
+import juja.microservices.gamification.slackbot.concurrent.BoundedExecutor;
+import juja.microservices.gamification.slackbot.concurrent.ThreadPoolBoundedExecutor;
+import juja.microservices.gamification.slackbot.delivery.SlackDelivery;
+import juja.microservices.gamification.slackbot.exceptions.ExceptionsHandler;
+import juja.microservices.gamification.slackbot.exceptions.WrongCommandFormatException;
+import juja.microservices.gamification.slackbot.metrics.BotMetrics;
+import juja.microservices.gamification.slackbot.service.impl.DefaultCommandPipeline;
+import juja.microservices.gamification.slackbot.tracing.Tracer;
+import me.ramswaroop.jbot.core.slack.models.RichMessage;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+public class DefaultCommandPipelineTest {
+
+    private final static String responseUrl = "http://example.com";
+    private final static long TIMEOUT_MILLIS = 1000;
+
+    private BoundedExecutor commandExecutor;
+    private SlackDelivery slackDelivery;
+    private ExceptionsHandler exceptionsHandler;
+    private MetricRegistry registry;
+    private CommandPipeline commandPipeline;
+
+    @Before
+    public void setup() {
+        commandExecutor = new ThreadPoolBoundedExecutor("test-command", 1, 1, 1);
+        slackDelivery = mock(SlackDelivery.class);
+        exceptionsHandler = mock(ExceptionsHandler.class);
+        registry = new MetricRegistry();
+        commandPipeline = new DefaultCommandPipeline(commandExecutor, slackDelivery, exceptionsHandler,
+                new BotMetrics(registry), Tracer.disabled());
+    }
+
+    @After
+    public void tearDown() {
+        commandExecutor.shutdown();
+    }
+
+    @Test
+    public void shouldCompleteCommandWithItsResult() throws Exception {
+        //when
+        CompletableFuture<String> result = commandPipeline.execute("Daily", () -> "Ok response");
+
+        //then
+        assertEquals("Ok response", result.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        verifyZeroInteractions(slackDelivery, exceptionsHandler);
+    }
+
+    @Test
+    public void shouldCompleteCommandWithItsException() throws Exception {
+        //given
+        WrongCommandFormatException exception = new WrongCommandFormatException("Wrong command exception");
+
+        //when
+        CompletableFuture<String> result = commandPipeline.execute("Daily", () -> {
+            throw exception;
+        });
+
+        //then
+        assertEquals(exception, awaitFailure(result));
+    }
+
+    @Test
+    public void shouldRejectCommandWhenExecutorIsFull() throws InterruptedException {
+        //given
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        commandPipeline.execute("Daily", () -> {
+            started.countDown();
+            awaitQuietly(release);
+            return "first";
+        });
+        assertTrue(started.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        commandPipeline.execute("Daily", () -> "queued");
+
+        //when
+        try {
+            commandPipeline.execute("Daily", () -> "rejected");
+            fail("Expected the command to be rejected");
+        } catch (RejectedExecutionException ex) {
+            //expected
+        } finally {
+            release.countDown();
+        }
+
+        //then
+        assertEquals(1, commandExecutor.getRejectedCount());
+    }
+
+    @Test
+    public void shouldCompleteAsyncCommandWithItsResult() throws Exception {
+        //given
+        CompletableFuture<String> command = new CompletableFuture<>();
+
+        //when
+        CompletableFuture<String> result = commandPipeline.executeAsync("Daily", () -> command);
+        command.complete("Ok response");
+
+        //then
+        assertEquals("Ok response", result.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void shouldCompleteAsyncCommandWithItsException() throws Exception {
+        //given
+        WrongCommandFormatException exception = new WrongCommandFormatException("Wrong command exception");
+        CompletableFuture<String> command = new CompletableFuture<>();
+
+        //when
+        CompletableFuture<String> result = commandPipeline.executeAsync("Daily", () -> command);
+        command.completeExceptionally(exception);
+
+        //then
+        assertEquals(exception, awaitFailure(result));
+    }
+
+    @Test
+    public void shouldSendDelayedResponseToSlackDelivery() {
+        //when
+        commandPipeline.sendDelayedResponse(responseUrl, "Ok response");
+
+        //then
+        ArgumentCaptor<RichMessage> captor = ArgumentCaptor.forClass(RichMessage.class);
+        verify(slackDelivery).deliver(eq(responseUrl), captor.capture());
+        assertEquals("Ok response", captor.getValue().getText());
+        verifyZeroInteractions(exceptionsHandler);
+    }
+
+    @Test
+    public void shouldPassUnwrappedErrorToExceptionsHandler() {
+        //given
+        WrongCommandFormatException exception = new WrongCommandFormatException("Wrong command exception");
+
+        //when
+        commandPipeline.sendErrorResponse(responseUrl, new CompletionException(exception));
+
+        //then
+        verify(exceptionsHandler).handleException(exception, responseUrl);
+        verifyZeroInteractions(slackDelivery);
+    }
+
+    private Throwable awaitFailure(CompletableFuture<String> result) throws Exception {
+        try {
+            result.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            fail("Expected the command to fail");
+            return null;
+        } catch (ExecutionException ex) {
+            return ex.getCause();
+        }
+    }
+
+    private void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    public void shouldRecordCommandMetrics() throws Exception {
+        //given
+        CountDownLatch release = new CountDownLatch(1);
+        commandPipeline.execute("Daily", () -> {
+            awaitQuietly(release);
+            return "Ok response";
+        });
+        CompletableFuture<String> failing = commandPipeline.execute("Daily", () -> {
+            throw new WrongCommandFormatException("wrong command");
+        });
+
+        //when
+        try {
+            commandPipeline.execute("Thanks", () -> "Ok response");
+            fail("Expected the command to be rejected");
+        } catch (RejectedExecutionException ex) {
+            //expected
+        } finally {
+            release.countDown();
+        }
+
+        //then
+        try {
+            failing.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException ex) {
+            //expected, the command failed
+        }
+        // the only executor thread runs the next command after both daily commands are completed
+        commandPipeline.execute("Interview", () -> "Ok response").get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        assertEquals(2, registry.meter("command.daily.accepted").getCount());
+        assertEquals(1, registry.meter("command.thanks.rejected").getCount());
+        assertEquals(1, registry.timer("command.daily.succeeded").getCount());
+        assertEquals(1, registry.timer("command.daily.failed").getCount());
+        assertEquals(2, registry.timer("command.daily.queue").getCount());
+    }
+}
@@ -1,12 +1,16 @@
 package juja.microservices.gamification.slackbot.service;
 
 import juja.microservices.gamification.slackbot.dao.GamificationRepository;
+import juja.microservices.gamification.slackbot.exceptions.ApiError;
+import juja.microservices.gamification.slackbot.exceptions.GamificationExchangeException;
 import juja.microservices.gamification.slackbot.model.DTO.UserDTO;
 import juja.microservices.gamification.slackbot.model.SlackParsedCommand;
+import juja.microservices.gamification.slackbot.model.achievements.AchievementBatch;
 import juja.microservices.gamification.slackbot.model.achievements.CodenjoyAchievement;
 import juja.microservices.gamification.slackbot.model.achievements.DailyAchievement;
 import juja.microservices.gamification.slackbot.model.achievements.InterviewAchievement;
 import juja.microservices.gamification.slackbot.model.achievements.ThanksAchievement;
+import juja.microservices.gamification.slackbot.outbox.AchievementOutbox;
 import juja.microservices.gamification.slackbot.service.impl.SlackNameHandlerService;
 import org.junit.Before;
 import org.junit.Test;
@@ -17,12 +21,18 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.test.context.junit4.SpringRunner;
 
 import javax.inject.Inject;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsInstanceOf.instanceOf;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
@@ -41,6 +51,8 @@ public class DefaultGamificationServiceTest {
     private GamificationRepository gamificationRepository;
     @MockBean
     private SlackNameHandlerService slackNameHandlerService;
+    @MockBean
+    private AchievementOutbox achievementOutbox;
     @Inject
     private GamificationService gamificationService;
     private UserDTO fromUser = new UserDTO("uuid-from-user", FROM_USER_SLACK_NAME);
@@ -267,4 +279,111 @@ public class DefaultGamificationServiceTest {
         verify(gamificationRepository).saveInterviewAchievement(any(InterviewAchievement.class));
         verifyNoMoreInteractions(slackNameHandlerService, gamificationRepository);
     }
+
+    @Test
+    public void shouldSaveNewCodenjoyAsync() throws Exception {
+
+        //given
+        final String TEXT_COMMAND = "-1th @slack1 -2th @slack2 -3th @slack3";
+        final String[] SAVED_ACHIEVEMENT_ID = {"100", "101", "102"};
+        final String EXPECTED_RESPONSE_TO_SLACK = "Thanks, we awarded the users. " +
+                "First place: @slack1, Second place: @slack2, Third place: @slack3";
+
+        Map<String, UserDTO> users = new HashMap<>();
+        users.put(fromUser.getSlack(), fromUser);
+        users.put(user1.getSlack(), user1);
+        users.put(user2.getSlack(), user2);
+        users.put(user3.getSlack(), user3);
+
+        when(slackNameHandlerService.createSlackParsedCommandAsync(FROM_USER_SLACK_NAME, TEXT_COMMAND))
+                .thenReturn(CompletableFuture.completedFuture(
+                        new SlackParsedCommand(fromUser.getSlack(), TEXT_COMMAND, users)));
+        when(gamificationRepository.saveCodenjoyAchievementAsync(any(CodenjoyAchievement.class)))
+                .thenReturn(CompletableFuture.completedFuture(SAVED_ACHIEVEMENT_ID));
+
+        //when
+        String result = gamificationService.sendCodenjoyAchievementAsync(FROM_USER_SLACK_NAME, TEXT_COMMAND).get();
+
+        //then
+        assertThat(result, equalTo(EXPECTED_RESPONSE_TO_SLACK));
+        verify(slackNameHandlerService).createSlackParsedCommandAsync(FROM_USER_SLACK_NAME, TEXT_COMMAND);
+        verify(gamificationRepository).saveCodenjoyAchievementAsync(any(CodenjoyAchievement.class));
+        verifyNoMoreInteractions(slackNameHandlerService, gamificationRepository);
+    }
+
+    @Test
+    public void saveNewDailyAsyncWhenRepositoryFailsShouldCompleteExceptionally() {
+        //given
+        final String TEXT_COMMAND = "daily report";
+        final GamificationExchangeException exception = new GamificationExchangeException(
+                new ApiError(400, "GMF-F1-D1", "Oops something went wrong :(", "", "",
+                        Collections.emptyList()), new RuntimeException());
+
+        Map<String, UserDTO> users = new HashMap<>();
+        users.put(fromUser.getSlack(), fromUser);
+
+        CompletableFuture<String[]> failedSave = new CompletableFuture<>();
+        failedSave.completeExceptionally(exception);
+        when(slackNameHandlerService.createSlackParsedCommandAsync(FROM_USER_SLACK_NAME, TEXT_COMMAND))
+                .thenReturn(CompletableFuture.completedFuture(
+                        new SlackParsedCommand(fromUser.getSlack(), TEXT_COMMAND, users)));
+        when(gamificationRepository.saveDailyAchievementAsync(any(DailyAchievement.class))).thenReturn(failedSave);
+
+        //when
+        CompletableFuture<String> result = gamificationService.sendDailyAchievementAsync(FROM_USER_SLACK_NAME,
+                TEXT_COMMAND);
+
+        //then
+        assertTrue(result.isCompletedExceptionally());
+        try {
+            result.join();
+        } catch (CompletionException ex) {
+            assertThat(ex.getCause(), instanceOf(GamificationExchangeException.class));
+        }
+        verify(slackNameHandlerService).createSlackParsedCommandAsync(FROM_USER_SLACK_NAME, TEXT_COMMAND);
+        verify(gamificationRepository).saveDailyAchievementAsync(any(DailyAchievement.class));
+        verifyNoMoreInteractions(slackNameHandlerService, gamificationRepository);
+    }
+
+    @Test
+    public void shouldConfirmThanksWhenAppendedToOutbox() {
+        //given
+        final String TEXT_COMMAND = "thanks @slack1 for help";
+        final String EXPECTED_RESPONSE_TO_SLACK = "Thanks, your 'thanks' for @slack1 saved.";
+        Map<String, UserDTO> users = new HashMap<>();
+        users.put(fromUser.getSlack(), fromUser);
+        users.put(user1.getSlack(), user1);
+        when(slackNameHandlerService.createSlackParsedCommand(FROM_USER_SLACK_NAME, TEXT_COMMAND))
+                .thenReturn(new SlackParsedCommand(fromUser.getSlack(), TEXT_COMMAND, users));
+        when(achievementOutbox.isEnabled()).thenReturn(true);
+
+        //when
+        String result = gamificationService.sendThanksAchievement(FROM_USER_SLACK_NAME, TEXT_COMMAND);
+
+        //then
+        assertThat(result, equalTo(EXPECTED_RESPONSE_TO_SLACK));
+        verify(achievementOutbox).append(eq(AchievementBatch.THANKS), any(ThanksAchievement.class));
+        verifyNoMoreInteractions(gamificationRepository);
+    }
+
+    @Test
+    public void shouldConfirmDailyWhenAppendedToOutboxAsync() throws Exception {
+        //given
+        final String TEXT_COMMAND = "daily report";
+        Map<String, UserDTO> users = new HashMap<>();
+        users.put(fromUser.getSlack(), fromUser);
+        when(slackNameHandlerService.createSlackParsedCommandAsync(FROM_USER_SLACK_NAME, TEXT_COMMAND))
+                .thenReturn(CompletableFuture.completedFuture(
+                        new SlackParsedCommand(fromUser.getSlack(), TEXT_COMMAND, users)));
+        when(achievementOutbox.isEnabled()).thenReturn(true);
+        when(achievementOutbox.appendAsync(eq(AchievementBatch.DAILY), any(DailyAchievement.class)))
+                .thenReturn(CompletableFuture.completedFuture(1L));
+
+        //when
+        String result = gamificationService.sendDailyAchievementAsync(FROM_USER_SLACK_NAME, TEXT_COMMAND).get();
+
+        //then
+        assertThat(result, equalTo("Thanks, your daily report saved."));
+        verifyNoMoreInteractions(gamificationRepository);
+    }
 }
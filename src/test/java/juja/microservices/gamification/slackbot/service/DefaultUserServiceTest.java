@@ -1,7 +1,11 @@
 package juja.microservices.gamification.slackbot.service;
 
+import juja.microservices.gamification.slackbot.cache.UserCache;
 import juja.microservices.gamification.slackbot.dao.UserRepository;
+import juja.microservices.gamification.slackbot.exceptions.ApiError;
+import juja.microservices.gamification.slackbot.exceptions.UserExchangeException;
 import juja.microservices.gamification.slackbot.model.DTO.UserDTO;
+import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -10,10 +14,21 @@ import org.springframework.test.context.junit4.SpringRunner;
 
 import javax.inject.Inject;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 
@@ -30,6 +45,14 @@ public class DefaultUserServiceTest {
     @MockBean
     private UserRepository userRepository;
 
+    @Inject
+    private UserCache userCache;
+
+    @Before
+    public void setup() {
+        userCache.invalidateAll();
+    }
+
     @Test
     public void returnUsersListBySlacks() throws Exception {
         //given
@@ -44,4 +67,174 @@ public class DefaultUserServiceTest {
         verify(userRepository).findUsersBySlackNames(slackNamesRequest);
         verifyNoMoreInteractions(userRepository);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void returnUsersListBySlacksAsync() throws Exception {
+        //given
+        List<String> slackNamesRequest = Arrays.asList("@slack1", "@slack2");
+        List<UserDTO> usersResponse = Arrays.asList(new UserDTO("uuid1", "@slack1"),
+                new UserDTO("uuid2", "slack2"));
+        given(userRepository.findUsersBySlackNamesAsync(slackNamesRequest))
+                .willReturn(CompletableFuture.completedFuture(usersResponse));
+        //when
+        List<UserDTO> result = userService.findUsersBySlackNamesAsync(slackNamesRequest).get();
+        //then
+        assertEquals("[UserDTO(uuid=uuid1, slack=@slack1), UserDTO(uuid=uuid2, slack=slack2)]", result.toString());
+        verify(userRepository).findUsersBySlackNamesAsync(slackNamesRequest);
+        verifyNoMoreInteractions(userRepository);
+    }
+
+    @Test
+    public void returnCachedUsersWithoutRequestToUsersService() throws Exception {
+        //given
+        List<String> slackNamesRequest = Arrays.asList("@slack1", "@slack2");
+        List<UserDTO> usersResponse = Arrays.asList(new UserDTO("uuid1", "@slack1"),
+                new UserDTO("uuid2", "@slack2"));
+        given(userRepository.findUsersBySlackNames(slackNamesRequest)).willReturn(usersResponse);
+        userService.findUsersBySlackNames(slackNamesRequest);
+        //when
+        List<UserDTO> result = userService.findUsersBySlackNames(Arrays.asList("slack2", "@slack1"));
+        //then
+        assertEquals("[UserDTO(uuid=uuid2, slack=@slack2), UserDTO(uuid=uuid1, slack=@slack1)]", result.toString());
+        verify(userRepository, times(1)).findUsersBySlackNames(slackNamesRequest);
+        verifyNoMoreInteractions(userRepository);
+    }
+
+    @Test
+    public void requestOnlyMissedUsersAndCacheUnknownSlackNames() throws Exception {
+        //given
+        given(userRepository.findUsersBySlackNames(Arrays.asList("@slack1", "@unknown")))
+                .willReturn(Collections.singletonList(new UserDTO("uuid1", "@slack1")));
+        given(userRepository.findUsersBySlackNames(Collections.singletonList("@slack2")))
+                .willReturn(Collections.singletonList(new UserDTO("uuid2", "@slack2")));
+        userService.findUsersBySlackNames(Arrays.asList("@slack1", "@unknown"));
+        //when
+        List<UserDTO> result = userService.findUsersBySlackNames(Arrays.asList("@slack1", "@unknown", "@slack2"));
+        //then
+        assertEquals("[UserDTO(uuid=uuid1, slack=@slack1), UserDTO(uuid=uuid2, slack=@slack2)]", result.toString());
+        verify(userRepository).findUsersBySlackNames(Arrays.asList("@slack1", "@unknown"));
+        verify(userRepository).findUsersBySlackNames(Collections.singletonList("@slack2"));
+        verifyNoMoreInteractions(userRepository);
+    }
+
+    @Test
+    public void returnCachedUsersAsyncWithoutRequestToUsersService() throws Exception {
+        //given
+        List<String> slackNamesRequest = Arrays.asList("@slack1", "@slack2");
+        given(userRepository.findUsersBySlackNamesAsync(slackNamesRequest))
+                .willReturn(CompletableFuture.completedFuture(Arrays.asList(new UserDTO("uuid1", "@slack1"),
+                        new UserDTO("uuid2", "@slack2"))));
+        userService.findUsersBySlackNamesAsync(slackNamesRequest).get();
+        //when
+        List<UserDTO> result = userService.findUsersBySlackNamesAsync(slackNamesRequest).get();
+        //then
+        assertEquals("[UserDTO(uuid=uuid1, slack=@slack1), UserDTO(uuid=uuid2, slack=@slack2)]", result.toString());
+        verify(userRepository, times(1)).findUsersBySlackNamesAsync(slackNamesRequest);
+        verifyNoMoreInteractions(userRepository);
+    }
+
+    @Test
+    public void failedLookupIsNotLeftInFlight() throws Exception {
+        //given
+        List<String> slackNamesRequest = Arrays.asList("@slack1", "@slack2");
+        given(userRepository.findUsersBySlackNames(slackNamesRequest))
+                .willThrow(new NoClassDefFoundError("broken client"))
+                .willReturn(Arrays.asList(new UserDTO("uuid1", "@slack1"), new UserDTO("uuid2", "@slack2")));
+        try {
+            userService.findUsersBySlackNames(slackNamesRequest);
+            fail("Expected NoClassDefFoundError");
+        } catch (NoClassDefFoundError ex) {
+            //expected
+        }
+
+        //when
+        List<UserDTO> result = userService.findUsersBySlackNames(slackNamesRequest);
+
+        //then
+        assertEquals("[UserDTO(uuid=uuid1, slack=@slack1), UserDTO(uuid=uuid2, slack=@slack2)]", result.toString());
+        verify(userRepository, times(2)).findUsersBySlackNames(slackNamesRequest);
+    }
+
+    @Test
+    public void concurrentLookupsShareOneRequestPerSlackName() throws Exception {
+        //given
+        CountDownLatch requested = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        given(userRepository.findUsersBySlackNames(Arrays.asList("@slack1", "@slack2"))).willAnswer(invocation -> {
+            requested.countDown();
+            release.await(1, TimeUnit.SECONDS);
+            return Arrays.asList(new UserDTO("uuid1", "@slack1"), new UserDTO("uuid2", "@slack2"));
+        });
+        given(userRepository.findUsersBySlackNames(Collections.singletonList("@slack3")))
+                .willReturn(Collections.singletonList(new UserDTO("uuid3", "@slack3")));
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<List<UserDTO>> first = executor.submit(
+                    () -> userService.findUsersBySlackNames(Arrays.asList("@slack1", "@slack2")));
+            assertTrue(requested.await(1, TimeUnit.SECONDS));
+            Future<List<UserDTO>> second = executor.submit(
+                    () -> userService.findUsersBySlackNames(Arrays.asList("@slack2", "@slack3")));
+            //when
+            Thread.sleep(100);
+            assertFalse(second.isDone());
+            release.countDown();
+            //then
+            assertEquals("[UserDTO(uuid=uuid1, slack=@slack1), UserDTO(uuid=uuid2, slack=@slack2)]",
+                    first.get(1, TimeUnit.SECONDS).toString());
+            assertEquals("[UserDTO(uuid=uuid2, slack=@slack2), UserDTO(uuid=uuid3, slack=@slack3)]",
+                    second.get(1, TimeUnit.SECONDS).toString());
+        } finally {
+            executor.shutdownNow();
+        }
+        verify(userRepository).findUsersBySlackNames(Arrays.asList("@slack1", "@slack2"));
+        verify(userRepository).findUsersBySlackNames(Collections.singletonList("@slack3"));
+        verifyNoMoreInteractions(userRepository);
+    }
+
+    @Test
+    public void concurrentAsyncLookupsShareOneRequestPerSlackName() throws Exception {
+        //given
+        CompletableFuture<List<UserDTO>> sharedResponse = new CompletableFuture<>();
+        given(userRepository.findUsersBySlackNamesAsync(Arrays.asList("@slack1", "@slack2")))
+                .willReturn(sharedResponse);
+        given(userRepository.findUsersBySlackNamesAsync(Collections.singletonList("@slack3")))
+                .willReturn(CompletableFuture.completedFuture(
+                        Collections.singletonList(new UserDTO("uuid3", "@slack3"))));
+        CompletableFuture<List<UserDTO>> first = userService.findUsersBySlackNamesAsync(
+                Arrays.asList("@slack1", "@slack2"));
+        //when
+        CompletableFuture<List<UserDTO>> second = userService.findUsersBySlackNamesAsync(
+                Arrays.asList("@slack2", "@slack3"));
+        assertFalse(second.isDone());
+        sharedResponse.complete(Arrays.asList(new UserDTO("uuid1", "@slack1"), new UserDTO("uuid2", "@slack2")));
+        //then
+        assertEquals("[UserDTO(uuid=uuid1, slack=@slack1), UserDTO(uuid=uuid2, slack=@slack2)]",
+                first.get().toString());
+        assertEquals("[UserDTO(uuid=uuid2, slack=@slack2), UserDTO(uuid=uuid3, slack=@slack3)]",
+                second.get().toString());
+        verify(userRepository).findUsersBySlackNamesAsync(Arrays.asList("@slack1", "@slack2"));
+        verify(userRepository).findUsersBySlackNamesAsync(Collections.singletonList("@slack3"));
+        verifyNoMoreInteractions(userRepository);
+    }
+
+    @Test
+    public void failedSharedRequestFailsAllWaitingLookups() throws Exception {
+        //given
+        CompletableFuture<List<UserDTO>> sharedResponse = new CompletableFuture<>();
+        given(userRepository.findUsersBySlackNamesAsync(Collections.singletonList("@slack1")))
+                .willReturn(sharedResponse);
+        UserExchangeException exception = new UserExchangeException(new ApiError(400, "USF-F1-D1",
+                "Oops something went wrong :(", "", "", Collections.emptyList()), new RuntimeException());
+        CompletableFuture<List<UserDTO>> first = userService.findUsersBySlackNamesAsync(
+                Collections.singletonList("@slack1"));
+        CompletableFuture<List<UserDTO>> second = userService.findUsersBySlackNamesAsync(
+                Collections.singletonList("@slack1"));
+        //when
+        sharedResponse.completeExceptionally(exception);
+        //then
+        assertTrue(first.isCompletedExceptionally());
+        assertTrue(second.isCompletedExceptionally());
+        verify(userRepository).findUsersBySlackNamesAsync(Collections.singletonList("@slack1"));
+        verifyNoMoreInteractions(userRepository);
+    }
+}
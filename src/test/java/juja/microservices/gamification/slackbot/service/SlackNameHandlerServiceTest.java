@@ -13,6 +13,7 @@ import org.springframework.test.context.junit4.SpringRunner;
 import javax.inject.Inject;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.Assert.assertEquals;
 import static org.mockito.Mockito.verify;
@@ -113,4 +114,23 @@ public class SlackNameHandlerServiceTest {
         verifyNoMoreInteractions(userService);
     }
 
-}
\ No newline at end of file
+    @Test
+    public void getSlackParsedCommandAsyncOneSlackInText() throws Exception {
+        //given
+        String text = "text " + user1.getSlack() + " TexT text.";
+        List<String> requestToUserService = Arrays.asList(user1.getSlack(), userFrom.getSlack());
+        List<UserDTO> responseFromUserService = Arrays.asList(userFrom, user1);
+        when(userService.findUsersBySlackNamesAsync(requestToUserService))
+                .thenReturn(CompletableFuture.completedFuture(responseFromUserService));
+        //when
+        SlackParsedCommand slackParsedCommand = slackNameHandlerService
+                .createSlackParsedCommandAsync("slackFrom", text).get();
+        //then
+        assertEquals("SlackParsedCommand(fromSlackName=@slackFrom, text=text @slack1 TexT text., " +
+                "slackNamesInText=[@slack1], userCountInText=1, " +
+                "users={@slackFrom=UserDTO(uuid=AAA000, slack=@slackFrom), " +
+                "@slack1=UserDTO(uuid=AAA111, slack=@slack1)})", slackParsedCommand.toString());
+        verify(userService).findUsersBySlackNamesAsync(requestToUserService);
+        verifyNoMoreInteractions(userService);
+    }
+}
@@ -0,0 +1,194 @@
+package juja.microservices.gamification.slackbot.service;
+
+import juja.microservices.gamification.slackbot.dao.UserRepository;
+import juja.microservices.gamification.slackbot.exceptions.ApiError;
+import juja.microservices.gamification.slackbot.exceptions.UserExchangeException;
+import juja.microservices.gamification.slackbot.model.DTO.UserDTO;
+import juja.microservices.gamification.slackbot.service.impl.UserLookupBatcher;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+public class UserLookupBatcherTest {
+
+    private final static long TIMEOUT_MILLIS = 1000;
+    private final static long LONG_WAIT_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private final List<String> batchNames = Arrays.asList("@slack1", "@slack2", "@slack3");
+    private final List<UserDTO> batchUsers = Arrays.asList(new UserDTO("uuid1", "@slack1"),
+            new UserDTO("uuid2", "@slack2"), new UserDTO("uuid3", "@slack3"));
+
+    private UserRepository userRepository;
+    private UserLookupBatcher batcher;
+    private ExecutorService commands;
+
+    @Before
+    public void setup() {
+        userRepository = mock(UserRepository.class);
+        commands = Executors.newFixedThreadPool(2);
+    }
+
+    @After
+    public void tearDown() {
+        commands.shutdownNow();
+        if (batcher != null) {
+            batcher.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldRequestUsersDirectlyWhenBatchingDisabled() {
+        //given
+        batcher = new UserLookupBatcher(userRepository, 0, 100);
+        List<String> slackNames = Collections.singletonList("@slack1");
+        when(userRepository.findUsersBySlackNames(slackNames))
+                .thenReturn(Collections.singletonList(new UserDTO("uuid1", "@slack1")));
+
+        //when
+        List<UserDTO> result = batcher.lookup(slackNames);
+
+        //then
+        assertEquals("[UserDTO(uuid=uuid1, slack=@slack1)]", result.toString());
+        verify(userRepository).findUsersBySlackNames(slackNames);
+    }
+
+    @Test
+    public void shouldSendOneRequestForConcurrentLookupsWhenBatchIsFull() throws Exception {
+        //given
+        batcher = new UserLookupBatcher(userRepository, LONG_WAIT_MILLIS, 3);
+        when(userRepository.findUsersBySlackNames(anyListOf(String.class))).thenReturn(batchUsers);
+
+        //when
+        Future<List<UserDTO>> first = commands.submit(() -> batcher.lookup(Collections.singletonList("@slack1")));
+        List<UserDTO> second = batcher.lookup(Arrays.asList("@slack2", "@slack3"));
+
+        //then
+        assertEquals("[UserDTO(uuid=uuid1, slack=@slack1)]",
+                first.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS).toString());
+        assertEquals("[UserDTO(uuid=uuid2, slack=@slack2), UserDTO(uuid=uuid3, slack=@slack3)]",
+                second.toString());
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<String>> captor = ArgumentCaptor.forClass((Class<List<String>>) (Class<?>) List.class);
+        verify(userRepository).findUsersBySlackNames(captor.capture());
+        assertEquals(new HashSet<>(batchNames), new HashSet<>(captor.getValue()));
+        verifyNoMoreInteractions(userRepository);
+    }
+
+    @Test
+    public void shouldSendBatchAfterMaxWait() {
+        //given
+        batcher = new UserLookupBatcher(userRepository, 20, 100);
+        List<String> slackNames = Collections.singletonList("@slack1");
+        when(userRepository.findUsersBySlackNames(slackNames))
+                .thenReturn(Collections.singletonList(new UserDTO("uuid1", "@slack1")));
+
+        //when
+        List<UserDTO> result = batcher.lookup(slackNames);
+
+        //then
+        assertEquals("[UserDTO(uuid=uuid1, slack=@slack1)]", result.toString());
+    }
+
+    @Test
+    public void shouldSendOneAsyncRequestForConcurrentAsyncLookups() throws Exception {
+        //given
+        batcher = new UserLookupBatcher(userRepository, LONG_WAIT_MILLIS, 3);
+        when(userRepository.findUsersBySlackNamesAsync(batchNames))
+                .thenReturn(CompletableFuture.completedFuture(batchUsers));
+
+        //when
+        CompletableFuture<List<UserDTO>> first = batcher.lookupAsync(Collections.singletonList("@slack1"));
+        CompletableFuture<List<UserDTO>> second = batcher.lookupAsync(Arrays.asList("@slack2", "@slack3"));
+
+        //then
+        assertEquals("[UserDTO(uuid=uuid1, slack=@slack1)]",
+                first.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS).toString());
+        assertEquals("[UserDTO(uuid=uuid2, slack=@slack2), UserDTO(uuid=uuid3, slack=@slack3)]",
+                second.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS).toString());
+        verify(userRepository).findUsersBySlackNamesAsync(batchNames);
+        verifyNoMoreInteractions(userRepository);
+    }
+
+    @Test
+    public void shouldSendAsyncBatchAfterMaxWait() throws Exception {
+        //given
+        batcher = new UserLookupBatcher(userRepository, 20, 100);
+        List<String> slackNames = Collections.singletonList("@slack1");
+        when(userRepository.findUsersBySlackNamesAsync(slackNames))
+                .thenReturn(CompletableFuture.completedFuture(Collections.singletonList(
+                        new UserDTO("uuid1", "@slack1"))));
+
+        //when
+        List<UserDTO> result = batcher.lookupAsync(slackNames).get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+
+        //then
+        assertEquals("[UserDTO(uuid=uuid1, slack=@slack1)]", result.toString());
+    }
+
+    @Test
+    public void shouldSendOpenAsyncBatchOnShutdown() throws Exception {
+        //given
+        batcher = new UserLookupBatcher(userRepository, LONG_WAIT_MILLIS, 100);
+        List<String> slackNames = Collections.singletonList("@slack1");
+        when(userRepository.findUsersBySlackNamesAsync(slackNames))
+                .thenReturn(CompletableFuture.completedFuture(Collections.singletonList(
+                        new UserDTO("uuid1", "@slack1"))));
+        CompletableFuture<List<UserDTO>> lookup = batcher.lookupAsync(slackNames);
+
+        //when
+        batcher.shutdown();
+
+        //then
+        assertEquals("[UserDTO(uuid=uuid1, slack=@slack1)]",
+                lookup.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS).toString());
+    }
+
+    @Test
+    public void shouldFailAllLookupsOfBatchWhenRequestFails() throws Exception {
+        //given
+        batcher = new UserLookupBatcher(userRepository, LONG_WAIT_MILLIS, 3);
+        UserExchangeException exception = new UserExchangeException(
+                new ApiError(400, "USF-F1-D1", "User not found", "User not found", "", Collections.emptyList()),
+                new RuntimeException());
+        when(userRepository.findUsersBySlackNames(anyListOf(String.class))).thenThrow(exception);
+
+        //when
+        Future<List<UserDTO>> first = commands.submit(() -> batcher.lookup(Collections.singletonList("@slack1")));
+        Future<List<UserDTO>> second = commands.submit(() -> batcher.lookup(Arrays.asList("@slack2", "@slack3")));
+
+        //then
+        assertFailedWith(exception, first);
+        assertFailedWith(exception, second);
+        verify(userRepository).findUsersBySlackNames(anyListOf(String.class));
+    }
+
+    private void assertFailedWith(Exception exception, Future<List<UserDTO>> lookup) throws Exception {
+        try {
+            lookup.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException ex) {
+            assertTrue(ex.getCause() == exception);
+            return;
+        }
+        throw new AssertionError("Lookup must fail");
+    }
+}
@@ -0,0 +1,176 @@
+package juja.microservices.gamification.slackbot.tracing;
+
+import juja.microservices.gamification.slackbot.tracing.impl.InMemorySpanExporter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TracerTest {
+
+    private InMemorySpanExporter exporter;
+    private Tracer tracer;
+    private ExecutorService executor;
+
+    @Before
+    public void setup() {
+        exporter = new InMemorySpanExporter(100);
+        tracer = new Tracer(exporter, 1.0);
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void shouldExportChildSpansOfTheTraceBeforeItsRoot() {
+        //given
+        Span root = tracer.startTrace("command.daily");
+
+        //when
+        try (Tracer.Scope ignored = tracer.activate(root)) {
+            tracer.trace("parse", () -> tracer.trace("users.findUsersBySlackNames", () -> "users"));
+        }
+        root.finish();
+
+        //then
+        List<Span> spans = exporter.getTrace(root.getTraceId());
+        assertEquals(3, spans.size());
+        assertEquals("users.findUsersBySlackNames", spans.get(0).getName());
+        assertEquals(spans.get(1).getId(), spans.get(0).getParentId());
+        assertEquals("parse", spans.get(1).getName());
+        assertEquals(root.getId(), spans.get(1).getParentId());
+        assertSame(root, spans.get(2));
+        assertNull(root.getParentId());
+        assertSame(Span.NOOP, tracer.currentSpan());
+    }
+
+    @Test
+    public void shouldRunWrappedTaskWithTheSpanOfTheCaller() throws Exception {
+        //given
+        Span root = tracer.startTrace("command.thanks");
+        Runnable task;
+        try (Tracer.Scope ignored = tracer.activate(root)) {
+            task = tracer.wrap(() -> tracer.trace("queue", () -> null));
+        }
+
+        //when
+        executor.submit(task).get(1, TimeUnit.SECONDS);
+
+        //then
+        List<Span> spans = exporter.getTrace(root.getTraceId());
+        assertEquals(1, spans.size());
+        assertEquals(root.getId(), spans.get(0).getParentId());
+    }
+
+    @Test
+    public void shouldFinishAsyncSpanWhenFutureIsCompleted() {
+        //given
+        CompletableFuture<String> response = new CompletableFuture<>();
+        CompletableFuture<String> result = tracer.traceAsync("gamification.daily", () -> response);
+        assertTrue(exporter.getSpans().isEmpty());
+
+        //when
+        response.completeExceptionally(new IllegalStateException("gamification is unavailable"));
+
+        //then
+        assertTrue(result.isCompletedExceptionally());
+        Span span = exporter.getSpans().get(0);
+        assertEquals("gamification.daily", span.getName());
+        assertEquals("IllegalStateException: gamification is unavailable", span.getTags().get("error"));
+        assertTrue(span.getDuration() >= 0);
+    }
+
+    @Test
+    public void shouldTagErrorOfTracedWorkAndRethrowIt() {
+        //when
+        try {
+            tracer.trace("slack.response", () -> {
+                throw new IllegalArgumentException("wrong response url");
+            });
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException ex) {
+            //expected
+        }
+
+        //then
+        assertEquals("IllegalArgumentException: wrong response url",
+                exporter.getSpans().get(0).getTags().get("error"));
+    }
+
+    @Test
+    public void shouldInjectB3HeadersOfTheCurrentSpan() {
+        //given
+        Span root = tracer.startTrace("command.codenjoy");
+        HttpHeaders headers = new HttpHeaders();
+
+        //when
+        tracer.trace("users.findUsersBySlackNames", () -> {
+            tracer.inject(headers);
+            return null;
+        });
+        try (Tracer.Scope ignored = tracer.activate(root)) {
+            tracer.trace("users.findUsersBySlackNames", () -> {
+                tracer.inject(headers);
+                return null;
+            });
+        }
+
+        //then
+        assertEquals(root.getTraceId(), headers.getFirst(Tracer.TRACE_ID_HEADER));
+        assertEquals(root.getId(), headers.getFirst(Tracer.PARENT_SPAN_ID_HEADER));
+        assertEquals(exporter.getSpans().get(1).getId(), headers.getFirst(Tracer.SPAN_ID_HEADER));
+        assertEquals("1", headers.getFirst(Tracer.SAMPLED_HEADER));
+    }
+
+    @Test
+    public void shouldNotExportSpansOfNotSampledTrace() {
+        //given
+        Tracer sampledOut = new Tracer(exporter, Double.MIN_VALUE);
+        Span root = sampledOut.startTrace("command.interview");
+        HttpHeaders headers = new HttpHeaders();
+
+        //when
+        try (Tracer.Scope ignored = sampledOut.activate(root)) {
+            sampledOut.trace("parse", () -> null);
+            sampledOut.inject(headers);
+        }
+        root.finish();
+
+        //then
+        assertTrue(root.isNoop());
+        assertTrue(exporter.getSpans().isEmpty());
+        assertTrue(headers.isEmpty());
+    }
+
+    @Test
+    public void shouldDoNothingWhenDisabled() {
+        //given
+        Tracer disabled = Tracer.disabled();
+        Runnable task = () -> { };
+
+        //when
+        Span root = disabled.startTrace("command.daily");
+
+        //then
+        assertFalse(disabled.isEnabled());
+        assertTrue(root.isNoop());
+        assertSame(task, disabled.wrap(task));
+        assertEquals("parse", disabled.trace("parse", () -> "parse"));
+    }
+}
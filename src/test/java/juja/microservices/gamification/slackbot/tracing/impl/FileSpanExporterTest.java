@@ -0,0 +1,54 @@
+package juja.microservices.gamification.slackbot.tracing.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import juja.microservices.gamification.slackbot.tracing.Span;
+import juja.microservices.gamification.slackbot.tracing.Tracer;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class FileSpanExporterTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void shouldWriteZipkinSpanPerLine() throws Exception {
+        //given
+        Path file = folder.getRoot().toPath().resolve("traces/spans.json");
+        FileSpanExporter exporter = new FileSpanExporter(file, 10);
+        Tracer tracer = new Tracer(exporter, 1.0);
+        Span root = tracer.startTrace("command.daily").tag("user", "@from-user");
+
+        //when
+        try (Tracer.Scope ignored = tracer.activate(root)) {
+            tracer.trace("parse", () -> null);
+        }
+        root.finish();
+        exporter.close();
+
+        //then
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assertEquals(2, lines.size());
+        ObjectMapper mapper = new ObjectMapper();
+        JsonNode child = mapper.readTree(lines.get(0));
+        JsonNode parent = mapper.readTree(lines.get(1));
+        assertEquals("parse", child.get("name").asText());
+        assertEquals(root.getTraceId(), child.get("traceId").asText());
+        assertEquals(root.getId(), child.get("parentId").asText());
+        assertEquals("command.daily", parent.get("name").asText());
+        assertFalse(parent.has("parentId"));
+        assertEquals("@from-user", parent.get("tags").get("user").asText());
+        assertEquals("gamification-slack-bot", parent.get("localEndpoint").get("serviceName").asText());
+        assertEquals(0, exporter.getDroppedCount());
+    }
+}
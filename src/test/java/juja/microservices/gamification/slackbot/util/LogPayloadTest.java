@@ -0,0 +1,67 @@
+package juja.microservices.gamification.slackbot.util;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+
+public class LogPayloadTest {
+
+    @Test
+    public void shouldFormatValueOnlyWhenWritten() {
+        //given
+        AtomicInteger formatted = new AtomicInteger();
+        Object value = new Object() {
+            @Override
+            public String toString() {
+                formatted.incrementAndGet();
+                return "daily report";
+            }
+        };
+
+        //when
+        LogPayload payload = LogPayload.of(value);
+
+        //then
+        assertEquals(0, formatted.get());
+        assertEquals("daily report", payload.toString());
+        assertEquals(1, formatted.get());
+    }
+
+    @Test
+    public void shouldFormatArraysDeeply() {
+        //when
+        String result = LogPayload.of(new String[][]{{"id1", "id2"}, {"id3"}}).toString();
+
+        //then
+        assertEquals("[[id1, id2], [id3]]", result);
+    }
+
+    @Test
+    public void shouldFormatNull() {
+        //when
+        String result = LogPayload.of(null).toString();
+
+        //then
+        assertEquals("null", result);
+    }
+
+    @Test
+    public void shouldTruncateLongText() {
+        //when
+        String result = LogPayload.abbreviate("daily: fixed tests", 6);
+
+        //then
+        assertEquals("daily:...(18 chars)", result);
+    }
+
+    @Test
+    public void shouldNotTruncateShortText() {
+        //when
+        String result = LogPayload.abbreviate("daily:", 6);
+
+        //then
+        assertEquals("daily:", result);
+    }
+}
@@ -0,0 +1,84 @@
+package juja.microservices.gamification.slackbot.util;
+
+import juja.microservices.gamification.slackbot.model.SlackNames;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+
+public class SlackNameScannerTest {
+
+    @Test
+    public void shouldFindSlackNamesWithOffsets() {
+        //given
+        String text = "thanks @slack1 and @slack.two_3-x for help";
+
+        //when
+        SlackNames result = SlackNameScanner.scan(text);
+
+        //then
+        assertEquals("[@slack1, @slack.two_3-x]", result.getNames().toString());
+        assertEquals(7, result.getOffset(0));
+        assertEquals(19, result.getOffset(1));
+    }
+
+    @Test
+    public void shouldNotTreatCharactersBetweenUpperAndLowerCaseLettersAsSlackName() {
+        //given
+        String text = "@slack1[x] @^caret @`tick @\\back";
+
+        //when
+        SlackNames result = SlackNameScanner.scan(text);
+
+        //then
+        assertEquals("[@slack1]", result.getNames().toString());
+    }
+
+    @Test
+    public void shouldCutSlackNameLongerThanMaxLength() {
+        //given
+        String text = "@abcdefghijklmnopqrstuvwxyz @next";
+
+        //when
+        SlackNames result = SlackNameScanner.scan(text);
+
+        //then
+        assertEquals("[@abcdefghijklmnopqrstu, @next]", result.getNames().toString());
+    }
+
+    @Test
+    public void shouldFindSameSlackNamesAsPattern() {
+        //given
+        Pattern pattern = Pattern.compile("@([a-zA-Z0-9\\.\\_\\-]){1,21}");
+        String[] texts = {"", "@", "@@slack1", "e-mail user@example.com", "-1th @a -2th @b-3th @c",
+                "@slack1@slack2 @ slack3 @.-_", "text without slack name"};
+
+        for (String text : texts) {
+            //when
+            SlackNames result = SlackNameScanner.scan(text);
+
+            //then
+            List<String> expected = new ArrayList<>();
+            Matcher matcher = pattern.matcher(text);
+            while (matcher.find()) {
+                expected.add(matcher.group());
+            }
+            assertEquals(text, expected, result.getNames());
+        }
+    }
+
+    @Test
+    public void shouldFindFirstSlackNameFromPosition() {
+        //given
+        SlackNames slackNames = SlackNameScanner.scan("-1th @slack1 -2th @slack2");
+
+        //when then
+        assertEquals(0, slackNames.indexOfFirstFrom(0));
+        assertEquals(1, slackNames.indexOfFirstFrom(6));
+        assertEquals(-1, slackNames.indexOfFirstFrom(19));
+    }
+}
@@ -0,0 +1,77 @@
+package juja.microservices.gamification.slackbot.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class TokenLexerTest {
+
+    @Test
+    public void shouldFindFirstPositionAndCountOfEveryToken() {
+        //given
+        TokenLexer lexer = new TokenLexer("-1th", "-2th", "-3th");
+
+        //when
+        TokenLexer.Matches matches = lexer.match("text -2th @slack2 text-3th @slack3 -1th @slack1 -3th");
+
+        //then
+        assertEquals(35, matches.getPosition(0));
+        assertEquals(1, matches.getCount(0));
+        assertEquals(5, matches.getPosition(1));
+        assertEquals(1, matches.getCount(1));
+        assertEquals(22, matches.getPosition(2));
+        assertEquals(2, matches.getCount(2));
+    }
+
+    @Test
+    public void shouldReturnMinusOneIfTextDoesNotContainToken() {
+        //given
+        TokenLexer lexer = new TokenLexer("-t1", "-t2");
+
+        //when
+        TokenLexer.Matches matches = lexer.match("text-t2@slack2 text@slack1 text-t");
+
+        //then
+        assertEquals(-1, matches.getPosition(0));
+        assertEquals(0, matches.getCount(0));
+        assertEquals(4, matches.getPosition(1));
+    }
+
+    @Test
+    public void shouldFindTokensWhichAreSuffixesAndPrefixesOfEachOther() {
+        //given
+        TokenLexer lexer = new TokenLexer("-t", "-t1", "t1");
+
+        //when
+        TokenLexer.Matches matches = lexer.match("a -t1 b -t");
+
+        //then
+        assertEquals(2, matches.getPosition(0));
+        assertEquals(2, matches.getCount(0));
+        assertEquals(2, matches.getPosition(1));
+        assertEquals(1, matches.getCount(1));
+        assertEquals(3, matches.getPosition(2));
+        assertEquals(1, matches.getCount(2));
+    }
+
+    @Test
+    public void shouldCountOccurrencesWithoutOverlapping() {
+        //given
+        TokenLexer lexer = new TokenLexer("aa", "тест");
+
+        //when
+        TokenLexer.Matches matches = lexer.match("aaaaa тесттест");
+
+        //then
+        assertEquals(2, matches.getCount(0));
+        assertEquals(0, matches.getPosition(0));
+        assertEquals(2, matches.getCount(1));
+        assertEquals(6, matches.getPosition(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectEmptyToken() {
+        //when
+        new TokenLexer("-t1", "");
+    }
+}
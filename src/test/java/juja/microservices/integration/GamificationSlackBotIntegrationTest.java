@@ -3,6 +3,7 @@ package juja.microservices.integration;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import juja.microservices.gamification.slackbot.GamificationSlackBotApplication;
+import juja.microservices.gamification.slackbot.cache.UserCache;
 import juja.microservices.gamification.slackbot.model.DTO.UserDTO;
 import juja.microservices.utils.SlackUrlUtils;
 import me.ramswaroop.jbot.core.slack.models.RichMessage;
@@ -22,6 +23,7 @@ import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.web.client.RestTemplate;
 
 import javax.inject.Inject;
+import javax.inject.Named;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -52,13 +54,20 @@ public class GamificationSlackBotIntegrationTest {
     private final static String THANKS_ONE_THANKS_MESSAGE = "Thanks, your 'thanks' for %s saved.";
     private final static String INTERVIEW_THANKS_MESSAGE = "Thanks. Your interview saved.";
     private final static String responseUrl = "http://example.com";
+    private final static long TIMEOUT_MILLIS = 5000;
 
     @Inject
     private RestTemplate restTemplate;
+    @Inject
+    @Named("slackRestTemplate")
+    private RestTemplate slackRestTemplate;
 
     @Inject
     private MockMvc mvc;
+    @Inject
+    private UserCache userCache;
     private MockRestServiceServer mockServer;
+    private MockRestServiceServer slackServer;
 
     @Value("${gamification.slackbot.endpoint.daily}")
     private String gamificationSlackbotDailyUrl;
@@ -90,7 +99,8 @@ public class GamificationSlackBotIntegrationTest {
     @Before
     public void setup() {
         mockServer = MockRestServiceServer.bindTo(restTemplate).build();
-
+        slackServer = MockRestServiceServer.bindTo(slackRestTemplate).build();
+        userCache.invalidateAll();
     }
 
     @Test
@@ -115,6 +125,7 @@ public class GamificationSlackBotIntegrationTest {
                 .contentType(MediaType.APPLICATION_FORM_URLENCODED))
                 .andExpect(status().isOk())
                 .andExpect(content().string(INSTANT_MESSAGE));
+        verifyRequests();
     }
 
     @Test
@@ -138,6 +149,7 @@ public class GamificationSlackBotIntegrationTest {
                 .contentType(MediaType.APPLICATION_FORM_URLENCODED))
                 .andExpect(status().isOk())
                 .andExpect(content().string(INSTANT_MESSAGE));
+        verifyRequests();
     }
 
     @Test
@@ -161,6 +173,7 @@ public class GamificationSlackBotIntegrationTest {
                 .contentType(MediaType.APPLICATION_FORM_URLENCODED))
                 .andExpect(status().isOk())
                 .andExpect(content().string(INSTANT_MESSAGE));
+        verifyRequests();
     }
 
     @Test
@@ -178,6 +191,7 @@ public class GamificationSlackBotIntegrationTest {
                 .contentType(MediaType.APPLICATION_FORM_URLENCODED))
                 .andExpect(status().isOk())
                 .andExpect(content().string(INSTANT_MESSAGE));
+        verifyRequests();
     }
 
     @Test
@@ -199,6 +213,7 @@ public class GamificationSlackBotIntegrationTest {
                 .contentType(MediaType.APPLICATION_FORM_URLENCODED))
                 .andExpect(status().isOk())
                 .andExpect(content().string(INSTANT_MESSAGE));
+        verifyRequests();
     }
 
     @Test
@@ -220,6 +235,7 @@ public class GamificationSlackBotIntegrationTest {
                 .contentType(MediaType.APPLICATION_FORM_URLENCODED))
                 .andExpect(status().isOk())
                 .andExpect(content().string(INSTANT_MESSAGE));
+        verifyRequests();
     }
 
     @Test
@@ -241,6 +257,7 @@ public class GamificationSlackBotIntegrationTest {
                 .contentType(MediaType.APPLICATION_FORM_URLENCODED))
                 .andExpect(status().isOk())
                 .andExpect(content().string(INSTANT_MESSAGE));
+        verifyRequests();
     }
 
     @Test
@@ -258,6 +275,7 @@ public class GamificationSlackBotIntegrationTest {
                 .contentType(MediaType.APPLICATION_FORM_URLENCODED))
                 .andExpect(status().isOk())
                 .andExpect(content().string(INSTANT_MESSAGE));
+        verifyRequests();
     }
 
     @Test
@@ -274,6 +292,7 @@ public class GamificationSlackBotIntegrationTest {
                 .contentType(MediaType.APPLICATION_FORM_URLENCODED))
                 .andExpect(status().isOk())
                 .andExpect(content().string(INSTANT_MESSAGE));
+        verifyRequests();
     }
 
 
@@ -296,6 +315,28 @@ public class GamificationSlackBotIntegrationTest {
                 .contentType(MediaType.APPLICATION_FORM_URLENCODED))
                 .andExpect(status().isOk())
                 .andExpect(content().string(INSTANT_MESSAGE));
+        verifyRequests();
+    }
+
+    /**
+     * Commands run on the pipeline executor, so the requests to the services and to slack are verified when
+     * the command is done. A request which doesn't match fails on the executor thread, the expectation stays
+     * unsatisfied and verify fails here.
+     */
+    private void verifyRequests() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (true) {
+            try {
+                mockServer.verify();
+                slackServer.verify();
+                return;
+            } catch (AssertionError ex) {
+                if (System.currentTimeMillis() > deadline) {
+                    throw ex;
+                }
+                Thread.sleep(10);
+            }
+        }
     }
 
     private void mockFailUsersService(List<UserDTO> users) throws JsonProcessingException {
@@ -350,7 +391,7 @@ public class GamificationSlackBotIntegrationTest {
 
     private void mockSlackResponseUrl(String expectedURI, RichMessage delayedMessage) {
         ObjectMapper mapper = new ObjectMapper();
-        mockServer.expect(requestTo(expectedURI))
+        slackServer.expect(requestTo(expectedURI))
                 .andExpect(method(HttpMethod.POST))
                 .andExpect(request -> assertThat(request.getHeaders().getContentType().toString(),
                         containsString("application/json")))